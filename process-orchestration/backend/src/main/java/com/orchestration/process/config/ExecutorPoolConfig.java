@@ -0,0 +1,84 @@
+package com.orchestration.process.config;
+
+import com.orchestration.process.core.pool.ExecutorPool;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.pool.InstrumentedThreadPoolExecutor;
+import com.orchestration.process.core.pool.NodeCategory;
+import com.orchestration.process.core.pool.VirtualThreadExecutorPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Configuration for the bounded executor pools used by the process engine.
+ * Each pool reads its settings from {@code process.executor.<pool>.*}:
+ * core-size, max-size, queue-capacity, keep-alive-seconds and
+ * rejection-policy ("abort" or "caller-runs").
+ * Setting mode to "virtual" runs the pool's tasks on virtual threads instead (Java 21+),
+ * limited only by the optional max-concurrency setting.
+ */
+@Configuration
+public class ExecutorPoolConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorPoolConfig.class);
+    private static final String PROPERTY_PREFIX = "process.executor.";
+    private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+    
+    /**
+     * Create the executor pool registry
+     * @param environment the environment holding the pool settings
+     * @return the executor pool registry
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorPoolRegistry executorPoolRegistry(Environment environment) {
+        // Orchestration work is short and must never be lost, so it falls back to the caller
+        ExecutorPool orchestrationPool =
+                createPool(environment, "orchestration", 32, 1000, "caller-runs");
+        // Event sends block on slow clients; a rejected send ends the stream and the client reconnects
+        ExecutorPool eventPool = createPool(environment, "events", 4, 10000, "abort");
+        
+        Map<NodeCategory, ExecutorPool> nodePools = new EnumMap<>(NodeCategory.class);
+        nodePools.put(NodeCategory.CPU, createPool(environment, NodeCategory.CPU.getPoolName(), PROCESSORS, 10000, "abort"));
+        nodePools.put(NodeCategory.BLOCKING_IO, createPool(environment, NodeCategory.BLOCKING_IO.getPoolName(), 64, 10000, "abort"));
+        nodePools.put(NodeCategory.SCRIPT, createPool(environment, NodeCategory.SCRIPT.getPoolName(), PROCESSORS, 1000, "abort"));
+        
+        return new ExecutorPoolRegistry(orchestrationPool, eventPool, nodePools);
+    }
+    
+    private ExecutorPool createPool(
+            Environment environment,
+            String name,
+            int defaultSize,
+            int defaultQueueCapacity,
+            String defaultRejectionPolicy) {
+        String prefix = PROPERTY_PREFIX + name + ".";
+        String mode = environment.getProperty(prefix + "mode", "platform");
+        
+        if ("virtual".equals(mode)) {
+            int maxConcurrency = environment.getProperty(prefix + "max-concurrency", Integer.class, 0);
+            logger.info("Executor pool {} runs on virtual threads (max concurrency: {})",
+                    name, maxConcurrency > 0 ? maxConcurrency : "unlimited");
+            return new VirtualThreadExecutorPool(name, maxConcurrency);
+        }
+        if (!"platform".equals(mode)) {
+            throw new IllegalArgumentException("Unknown mode for pool " + name + ": " + mode);
+        }
+        
+        int coreSize = environment.getProperty(prefix + "core-size", Integer.class, defaultSize);
+        int maxSize = environment.getProperty(prefix + "max-size", Integer.class, Math.max(coreSize, defaultSize));
+        int queueCapacity = environment.getProperty(prefix + "queue-capacity", Integer.class, defaultQueueCapacity);
+        long keepAliveSeconds = environment.getProperty(prefix + "keep-alive-seconds", Long.class, 60L);
+        String rejectionPolicy = environment.getProperty(prefix + "rejection-policy", defaultRejectionPolicy);
+        
+        if (!"abort".equals(rejectionPolicy) && !"caller-runs".equals(rejectionPolicy)) {
+            throw new IllegalArgumentException("Unknown rejection policy for pool " + name + ": " + rejectionPolicy);
+        }
+        
+        return new InstrumentedThreadPoolExecutor(name, coreSize, maxSize, queueCapacity, keepAliveSeconds,
+                "caller-runs".equals(rejectionPolicy));
+    }
+}
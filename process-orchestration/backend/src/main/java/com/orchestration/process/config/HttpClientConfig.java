@@ -0,0 +1,46 @@
+package com.orchestration.process.config;
+
+import com.orchestration.process.core.http.HttpClientMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Configuration for the HTTP client shared by all HTTP nodes.
+ * The client keeps keep-alive connections per host and, when HTTP/2 is negotiated,
+ * multiplexes concurrent requests to the same host over a single connection.
+ * Pool limits can be tuned with the JDK system properties
+ * {@code jdk.httpclient.connectionPoolSize} and {@code jdk.httpclient.keepalive.timeout}.
+ */
+@Configuration
+public class HttpClientConfig {
+    
+    /**
+     * Create the shared HTTP client
+     * @param version the preferred protocol version (HTTP_2 falls back to HTTP/1.1 when unsupported)
+     * @param connectTimeoutMillis the connect timeout in milliseconds
+     * @return the HTTP client
+     */
+    @Bean
+    public HttpClient processHttpClient(
+            @Value("${process.http.version:HTTP_2}") HttpClient.Version version,
+            @Value("${process.http.connect-timeout-ms:5000}") long connectTimeoutMillis) {
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+    
+    /**
+     * Create the per-host metrics of the shared HTTP client
+     * @return the HTTP client metrics
+     */
+    @Bean
+    public HttpClientMetrics httpClientMetrics() {
+        return new HttpClientMetrics();
+    }
+}
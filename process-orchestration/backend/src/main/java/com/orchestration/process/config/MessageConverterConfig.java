@@ -0,0 +1,21 @@
+package com.orchestration.process.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Configuration for the message converters of the REST API.
+ * The binary converter is added after the default ones, so JSON stays the form sent to
+ * clients that accept any type and the binary form is only used when asked for.
+ */
+@Configuration
+public class MessageConverterConfig implements WebMvcConfigurer {
+    
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ProcessBinaryMessageConverter());
+    }
+}
@@ -0,0 +1,106 @@
+package com.orchestration.process.config;
+
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.util.ProcessBinaryFormat;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Converts process definitions and executions, and lists of them, to and from
+ * {@link ProcessBinaryFormat} for requests and responses of type
+ * {@value ProcessBinaryFormat#APPLICATION_PROCESS_BINARY}. Only definitions can be read;
+ * other bodies, errors included, are left to the JSON converter, so clients asking for
+ * the binary form should accept JSON as well.
+ */
+public class ProcessBinaryMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    
+    public ProcessBinaryMessageConverter() {
+        super(MediaType.parseMediaType(ProcessBinaryFormat.APPLICATION_PROCESS_BINARY));
+    }
+    
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ProcessDefinition.class.isAssignableFrom(clazz) || ProcessExecution.class.isAssignableFrom(clazz);
+    }
+    
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return ResolvableType.forType(type).resolve() == ProcessDefinition.class && canRead(mediaType);
+    }
+    
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return writableClass(type, clazz) != null && canWrite(mediaType);
+    }
+    
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        // Whether a list can be written depends on its declared element type, checked by canWrite
+        return supports(clazz) || List.class.isAssignableFrom(clazz)
+                ? getSupportedMediaTypes()
+                : Collections.emptyList();
+    }
+    
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return ProcessBinaryFormat.readDefinition(inputMessage.getBody());
+    }
+    
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return ProcessBinaryFormat.readDefinition(inputMessage.getBody());
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (body instanceof ProcessDefinition) {
+            ProcessBinaryFormat.writeDefinition((ProcessDefinition) body, outputMessage.getBody());
+        } else if (body instanceof ProcessExecution) {
+            ProcessBinaryFormat.writeExecution((ProcessExecution) body, outputMessage.getBody());
+        } else if (writableClass(type, body.getClass()) == ProcessExecution.class) {
+            ProcessBinaryFormat.writeExecutions((List<ProcessExecution>) body, outputMessage.getBody());
+        } else {
+            ProcessBinaryFormat.writeDefinitions((List<ProcessDefinition>) body, outputMessage.getBody());
+        }
+    }
+    
+    /**
+     * Find what a body holds, from its declared type when known
+     * @param type the declared type of the body, or null
+     * @param clazz the class of the body
+     * @return ProcessDefinition or ProcessExecution if the body is one or a list of them,
+     *         null if it cannot be written
+     */
+    private Class<?> writableClass(Type type, Class<?> clazz) {
+        ResolvableType resolved = type != null ? ResolvableType.forType(type) : ResolvableType.NONE;
+        Class<?> declared = resolved.resolve();
+        if (declared == null || declared == Object.class) {
+            resolved = ResolvableType.forClass(clazz);
+            declared = clazz;
+        }
+        
+        Class<?> element = List.class.isAssignableFrom(declared)
+                ? resolved.asCollection().resolveGeneric(0)
+                : declared;
+        if (element == null) {
+            return null;
+        }
+        if (ProcessDefinition.class.isAssignableFrom(element)) {
+            return ProcessDefinition.class;
+        }
+        if (ProcessExecution.class.isAssignableFrom(element)) {
+            return ProcessExecution.class;
+        }
+        return null;
+    }
+}
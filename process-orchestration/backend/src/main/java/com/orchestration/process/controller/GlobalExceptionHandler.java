@@ -1,5 +1,6 @@
 package com.orchestration.process.controller;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -32,6 +33,23 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
     
+    /**
+     * Handle OptimisticLockingFailureException, thrown when an entity was modified concurrently
+     * @param ex the exception
+     * @param request the web request
+     * @return a response entity with the error message
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex, WebRequest request) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "Conflict");
+        body.put("message", "The resource was modified concurrently, retry with its current version");
+        body.put("status", HttpStatus.CONFLICT.value());
+        
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+    
     /**
      * Handle RuntimeException
      * @param ex the exception
@@ -1,5 +1,6 @@
 package com.orchestration.process.controller;
 
+import com.orchestration.process.core.ProcessExecution;
 import com.orchestration.process.model.ProcessDefinition;
 import com.orchestration.process.service.ProcessDefinitionService;
 import com.orchestration.process.service.ProcessExecutionService;
@@ -45,10 +46,10 @@ public class MathProcessController {
             processDefinition = processDefinitionService.createProcessDefinition(processDefinition);
             
             // Execute the process
-            CompletableFuture<ProcessDefinition> future = processExecutionService.executeProcess(processDefinition.getId());
+            CompletableFuture<ProcessExecution> future = processExecutionService.executeProcess(processDefinition.getId());
             
             // Wait for the process to complete
-            ProcessDefinition result = future.get();
+            ProcessExecution result = future.get();
             
             // Return the result
             return ResponseEntity.ok(result);
@@ -0,0 +1,205 @@
+package com.orchestration.process.controller;
+
+import com.orchestration.process.core.ProcessNodeExecutorRegistry;
+import com.orchestration.process.core.deadline.ExecutionDeadlines;
+import com.orchestration.process.core.distributed.NodeWorkers;
+import com.orchestration.process.core.distributed.RemoteNodeDispatcher;
+import com.orchestration.process.core.distributed.WorkQueue;
+import com.orchestration.process.core.expression.ExpressionService;
+import com.orchestration.process.core.http.HttpClientMetrics;
+import com.orchestration.process.core.journal.ProcessJournal;
+import com.orchestration.process.core.memo.NodeResultCache;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.retry.NodeRetries;
+import com.orchestration.process.core.scheduling.NodeScheduler;
+import com.orchestration.process.core.script.ScriptEngineService;
+import com.orchestration.process.service.ExecutionEventService;
+import com.orchestration.process.service.ProcessDefinitionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Controller for exposing process engine metrics.
+ */
+@RestController
+@RequestMapping("/metrics")
+public class MetricsController {
+    private final ExecutorPoolRegistry executorPoolRegistry;
+    private final HttpClientMetrics httpClientMetrics;
+    private final ScriptEngineService scriptEngineService;
+    private final ExpressionService expressionService;
+    private final ProcessNodeExecutorRegistry executorRegistry;
+    private final ProcessJournal journal;
+    private final ProcessDefinitionService processDefinitionService;
+    private final ExecutionEventService executionEventService;
+    private final ExecutionDeadlines deadlines;
+    private final NodeRetries retries;
+    private final NodeResultCache resultCache;
+    private final RemoteNodeDispatcher dispatcher;
+    private final NodeWorkers workers;
+    private final WorkQueue workQueue;
+    private final NodeScheduler scheduler;
+    
+    @Autowired
+    public MetricsController(
+            ExecutorPoolRegistry executorPoolRegistry,
+            HttpClientMetrics httpClientMetrics,
+            ScriptEngineService scriptEngineService,
+            ExpressionService expressionService,
+            ProcessNodeExecutorRegistry executorRegistry,
+            ProcessJournal journal,
+            ProcessDefinitionService processDefinitionService,
+            ExecutionEventService executionEventService,
+            ExecutionDeadlines deadlines,
+            NodeRetries retries,
+            NodeResultCache resultCache,
+            RemoteNodeDispatcher dispatcher,
+            NodeWorkers workers,
+            WorkQueue workQueue,
+            NodeScheduler scheduler) {
+        this.executorPoolRegistry = executorPoolRegistry;
+        this.httpClientMetrics = httpClientMetrics;
+        this.scriptEngineService = scriptEngineService;
+        this.expressionService = expressionService;
+        this.executorRegistry = executorRegistry;
+        this.journal = journal;
+        this.processDefinitionService = processDefinitionService;
+        this.executionEventService = executionEventService;
+        this.deadlines = deadlines;
+        this.retries = retries;
+        this.resultCache = resultCache;
+        this.dispatcher = dispatcher;
+        this.workers = workers;
+        this.workQueue = workQueue;
+        this.scheduler = scheduler;
+    }
+    
+    /**
+     * Get the metrics of every executor pool
+     * @return pool size, active count, queue depth and rejection count keyed by pool name
+     */
+    @GetMapping("/executor-pools")
+    public ResponseEntity<Map<String, Map<String, Object>>> getExecutorPoolMetrics() {
+        return ResponseEntity.ok(executorPoolRegistry.getMetrics());
+    }
+    
+    /**
+     * Get the metrics of the HTTP client per target host
+     * @return request counts, in-flight requests, protocol mix and latency keyed by host
+     */
+    @GetMapping("/http-hosts")
+    public ResponseEntity<Map<String, Map<String, Object>>> getHttpHostMetrics() {
+        return ResponseEntity.ok(httpClientMetrics.getMetrics());
+    }
+    
+    /**
+     * Get the compile cache statistics and per-script evaluation latency
+     * @return the compile cache hit rate and the latency of every cached script
+     */
+    @GetMapping("/scripts")
+    public ResponseEntity<Map<String, Object>> getScriptMetrics() {
+        return ResponseEntity.ok(scriptEngineService.getMetrics());
+    }
+    
+    /**
+     * Get the compile cache statistics of the built-in expression language
+     * @return cache size, hits, misses and script engine fallbacks
+     */
+    @GetMapping("/expressions")
+    public ResponseEntity<Map<String, Object>> getExpressionMetrics() {
+        return ResponseEntity.ok(expressionService.getMetrics());
+    }
+    
+    /**
+     * Get the number of nodes executed per node type
+     * @return the dispatch count keyed by node type
+     */
+    @GetMapping("/node-dispatches")
+    public ResponseEntity<Map<String, Long>> getNodeDispatchCounts() {
+        return ResponseEntity.ok(executorRegistry.getDispatchCounts());
+    }
+    
+    /**
+     * Get the statistics of the execution journal
+     * @return appended records and bytes, flushes, checkpoints, failures and the current segment
+     */
+    @GetMapping("/journal")
+    public ResponseEntity<Map<String, Object>> getJournalMetrics() {
+        return ResponseEntity.ok(journal.getMetrics());
+    }
+    
+    /**
+     * Get the statistics of the process definition cache
+     * @return cache size, hits and misses
+     */
+    @GetMapping("/definitions")
+    public ResponseEntity<Map<String, Object>> getDefinitionCacheMetrics() {
+        return ResponseEntity.ok(processDefinitionService.getCacheMetrics());
+    }
+    
+    /**
+     * Get the statistics of execution event streaming
+     * @return streamed executions, subscribers, sent events and snapshots, dropped subscribers
+     */
+    @GetMapping("/events")
+    public ResponseEntity<Map<String, Object>> getEventMetrics() {
+        return ResponseEntity.ok(executionEventService.getMetrics());
+    }
+    
+    /**
+     * Get the statistics of node and execution deadlines
+     * @return timed out and cancelled nodes, timed out executions and pending deadlines
+     */
+    @GetMapping("/deadlines")
+    public ResponseEntity<Map<String, Object>> getDeadlineMetrics() {
+        return ResponseEntity.ok(deadlines.getMetrics());
+    }
+    
+    /**
+     * Get the statistics of node retries
+     * @return scheduled retries, recovered nodes and nodes that exhausted their attempts
+     */
+    @GetMapping("/retries")
+    public ResponseEntity<Map<String, Object>> getRetryMetrics() {
+        return ResponseEntity.ok(retries.getMetrics());
+    }
+    
+    /**
+     * Get the statistics of the result cache of deterministic nodes
+     * @return cache size, hits, misses, expired entries and nodes that could not be keyed
+     */
+    @GetMapping("/memo")
+    public ResponseEntity<Map<String, Object>> getResultCacheMetrics() {
+        return ResponseEntity.ok(resultCache.getMetrics());
+    }
+    
+    /**
+     * Get the statistics of distributed execution
+     * @return the nodes this instance dispatched, the nodes its workers ran, and the items
+     *         of the shared work queue by state
+     */
+    @GetMapping("/distributed")
+    public ResponseEntity<Map<String, Object>> getDistributedMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("dispatcher", dispatcher.getMetrics());
+        metrics.put("workers", workers.getMetrics());
+        metrics.put("queue", workQueue.countByState());
+        return ResponseEntity.ok(metrics);
+    }
+    
+    /**
+     * Get the statistics of the node scheduler
+     * @return the node budget, running and queued nodes, and the admission wait times per
+     *         priority class
+     */
+    @GetMapping("/scheduler")
+    public ResponseEntity<Map<String, Object>> getSchedulerMetrics() {
+        return ResponseEntity.ok(scheduler.getMetrics());
+    }
+}
@@ -2,8 +2,11 @@ package com.orchestration.process.controller;
 
 import com.orchestration.process.model.ProcessDefinition;
 import com.orchestration.process.service.ProcessDefinitionService;
+import com.orchestration.process.util.ProcessBinaryFormat;
 import com.orchestration.process.util.ProcessExecutionUtils;
+import com.orchestration.process.util.ProcessGraph;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -12,10 +15,14 @@ import java.util.List;
 
 /**
  * Controller for managing process definitions.
+ * Definitions are read and written as JSON, or in {@link ProcessBinaryFormat} when the
+ * request or the Accept header names {@value ProcessBinaryFormat#APPLICATION_PROCESS_BINARY}.
  */
 @RestController
 @RequestMapping("/process-definitions")
 public class ProcessDefinitionController {
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    
     private final ProcessDefinitionService processDefinitionService;
     
     @Autowired
@@ -30,18 +37,18 @@ public class ProcessDefinitionController {
      */
     @PostMapping
     public ResponseEntity<?> createProcessDefinition(@RequestBody ProcessDefinition processDefinition) {
-        // Validate the process definition
-        List<String> validationErrors = ProcessExecutionUtils.validateProcessDefinition(processDefinition);
+        // Validate the process definition and calculate node levels in one pass over its graph
+        ProcessGraph graph = ProcessGraph.analyze(processDefinition);
+        List<String> validationErrors = ProcessExecutionUtils.validateProcessDefinition(processDefinition, graph);
         
         if (!validationErrors.isEmpty()) {
             return ResponseEntity.badRequest().body(
                     new ErrorResponse(HttpStatus.BAD_REQUEST.value(), 
-                            "Process definition validation failed: " + validationErrors.get(0))
+                            "Process definition validation failed: " + String.join("; ", validationErrors))
             );
         }
         
-        // Calculate node levels
-        ProcessExecutionUtils.calculateNodeLevels(processDefinition);
+        graph.applyLevels();
         
         // Create the process definition
         ProcessDefinition createdDefinition = processDefinitionService.createProcessDefinition(processDefinition);
@@ -74,18 +81,18 @@ public class ProcessDefinitionController {
     public ResponseEntity<?> updateProcessDefinition(
             @PathVariable Long id,
             @RequestBody ProcessDefinition processDefinition) {
-        // Validate the process definition
-        List<String> validationErrors = ProcessExecutionUtils.validateProcessDefinition(processDefinition);
+        // Validate the process definition and calculate node levels in one pass over its graph
+        ProcessGraph graph = ProcessGraph.analyze(processDefinition);
+        List<String> validationErrors = ProcessExecutionUtils.validateProcessDefinition(processDefinition, graph);
         
         if (!validationErrors.isEmpty()) {
             return ResponseEntity.badRequest().body(
                     new ErrorResponse(HttpStatus.BAD_REQUEST.value(), 
-                            "Process definition validation failed: " + validationErrors.get(0))
+                            "Process definition validation failed: " + String.join("; ", validationErrors))
             );
         }
         
-        // Calculate node levels
-        ProcessExecutionUtils.calculateNodeLevels(processDefinition);
+        graph.applyLevels();
         
         // Update the process definition
         ProcessDefinition updatedDefinition = processDefinitionService.updateProcessDefinition(id, processDefinition);
@@ -114,13 +121,20 @@ public class ProcessDefinitionController {
     }
     
     /**
-     * Get all process definitions
-     * @return a list of all process definitions
+     * Get a page of process definitions
+     * @param page the page number, from 0
+     * @param size the number of definitions per page
+     * @return the definitions of the page in ID order, with the total number of
+     *         definitions in the X-Total-Count header
      */
     @GetMapping
-    public ResponseEntity<List<ProcessDefinition>> getAllProcessDefinitions() {
-        List<ProcessDefinition> processDefinitions = processDefinitionService.getAllProcessDefinitions();
-        return ResponseEntity.ok(processDefinitions);
+    public ResponseEntity<List<ProcessDefinition>> getProcessDefinitions(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        Page<ProcessDefinition> processDefinitions = processDefinitionService.getProcessDefinitions(page, size);
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(processDefinitions.getTotalElements()))
+                .body(processDefinitions.getContent());
     }
     
     /**
@@ -1,116 +1,283 @@
 package com.orchestration.process.controller;
 
-import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.service.ExecutionEventService;
 import com.orchestration.process.service.ProcessExecutionService;
+import com.orchestration.process.util.ColumnarDataFormat;
+import com.orchestration.process.util.ProcessBinaryFormat;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 /**
  * Controller for executing processes.
+ * Executions are written as JSON, or as {@link ProcessBinaryFormat} snapshots when the
+ * Accept header names {@value ProcessBinaryFormat#APPLICATION_PROCESS_BINARY}.
  */
 @RestController
 @RequestMapping("/process-executions")
 public class ProcessExecutionController {
     private final ProcessExecutionService processExecutionService;
+    private final ExecutionEventService executionEventService;
+    private final int maxWaitSeconds;
     
     @Autowired
-    public ProcessExecutionController(ProcessExecutionService processExecutionService) {
+    public ProcessExecutionController(
+            ProcessExecutionService processExecutionService,
+            ExecutionEventService executionEventService,
+            @Value("${process.execution.max-wait-seconds:300}") int maxWaitSeconds) {
         this.processExecutionService = processExecutionService;
+        this.executionEventService = executionEventService;
+        this.maxWaitSeconds = maxWaitSeconds;
     }
     
     /**
-     * Execute a process
+     * Start an execution of a process. When waiting for completion, the response is sent
+     * once the execution finishes or the timeout elapses, without holding a request thread
+     * in the meantime
      * @param processId the ID of the process to execute
-     * @param waitForCompletion whether to wait for the process to complete
+     * @param waitForCompletion whether to wait for the execution to complete
      * @param timeoutSeconds timeout in seconds if waiting for completion
-     * @return the process execution status
+     * @return the execution ID, or the finished execution if waiting for completion
+     * @throws IllegalArgumentException if the process is not found or the timeout is not
+     *                                  between 1 and {@code process.execution.max-wait-seconds}
      */
     @PostMapping("/{processId}")
-    public ResponseEntity<?> executeProcess(
+    public DeferredResult<ResponseEntity<?>> executeProcess(
             @PathVariable Long processId,
             @RequestParam(required = false, defaultValue = "false") boolean waitForCompletion,
             @RequestParam(required = false, defaultValue = "30") int timeoutSeconds) {
         
-        CompletableFuture<ProcessDefinition> future = processExecutionService.executeProcess(processId);
+        if (waitForCompletion) {
+            checkWaitSeconds(timeoutSeconds, 1);
+        }
+        ProcessExecution execution = processExecutionService.startExecution(processId);
         
         // If not waiting for completion, return immediately
         if (!waitForCompletion) {
             Map<String, Object> response = new HashMap<>();
+            response.put("executionId", execution.getExecutionId());
             response.put("processId", processId);
             response.put("message", "Process execution started");
-            response.put("status", "RUNNING");
+            response.put("status", execution.getStatus());
             
-            return ResponseEntity.ok(response);
+            return completed(ResponseEntity.ok(response));
         }
         
         // Wait for completion
-        try {
-            ProcessDefinition result = future.get(timeoutSeconds, TimeUnit.SECONDS);
-            return ResponseEntity.ok(result);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), 
-                            "Process execution interrupted"));
-        } catch (ExecutionException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), 
-                            "Process execution failed: " + e.getCause().getMessage()));
-        } catch (TimeoutException e) {
-            return ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT)
-                    .body(new ErrorResponse(HttpStatus.REQUEST_TIMEOUT.value(), 
-                            "Process execution timed out after " + timeoutSeconds + " seconds"));
+        return whenFinished(execution, timeoutSeconds, ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT)
+                .body(new ErrorResponse(HttpStatus.REQUEST_TIMEOUT.value(),
+                        "Process execution timed out after " + timeoutSeconds + " seconds")));
+    }
+    
+    /**
+     * Evaluate a math process once per input row. The body is a CSV or NDJSON stream of
+     * batch parameter values; the response uses the same format and holds the results of
+     * the output nodes, one row per input row
+     * @param processId the ID of the process to evaluate
+     * @param contentType the format of the body, text/csv or application/x-ndjson
+     * @param outputs the nodes whose results to return; defaults to the nodes without children
+     * @param parallel whether to split large batches across cores
+     * @param body the input rows
+     * @return the output rows
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping(value = "/{processId}/batch",
+            consumes = {ColumnarDataFormat.TEXT_CSV, ColumnarDataFormat.APPLICATION_NDJSON})
+    public ResponseEntity<StreamingResponseBody> executeBatch(
+            @PathVariable Long processId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestParam(required = false) List<String> outputs,
+            @RequestParam(required = false, defaultValue = "true") boolean parallel,
+            InputStream body) throws IOException {
+        
+        boolean csv = contentType.isCompatibleWith(MediaType.parseMediaType(ColumnarDataFormat.TEXT_CSV));
+        Map<String, double[]> columns = csv
+                ? ColumnarDataFormat.readCsv(body)
+                : ColumnarDataFormat.readNdjson(body);
+        
+        Map<String, double[]> results = processExecutionService.executeBatch(processId, columns, outputs, parallel);
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(csv ? ColumnarDataFormat.TEXT_CSV : ColumnarDataFormat.APPLICATION_NDJSON))
+                .body(csv
+                        ? output -> ColumnarDataFormat.writeCsv(results, output)
+                        : output -> ColumnarDataFormat.writeNdjson(results, output));
+    }
+    
+    /**
+     * Rerun a finished execution with the current version of its process, running only the
+     * nodes that changed since or whose inputs did
+     * @param executionId the ID of the execution to rerun
+     * @param waitForCompletion whether to wait for the rerun to complete
+     * @param timeoutSeconds timeout in seconds if waiting for completion
+     * @return the ID of the rerun, or the finished rerun if waiting for completion
+     * @throws IllegalArgumentException if the execution is not found or cannot be rerun, or
+     *                                  the timeout is not between 1 and
+     *                                  {@code process.execution.max-wait-seconds}
+     */
+    @PostMapping("/{executionId}/rerun")
+    public DeferredResult<ResponseEntity<?>> rerunExecution(
+            @PathVariable Long executionId,
+            @RequestParam(required = false, defaultValue = "false") boolean waitForCompletion,
+            @RequestParam(required = false, defaultValue = "30") int timeoutSeconds) {
+        
+        if (waitForCompletion) {
+            checkWaitSeconds(timeoutSeconds, 1);
+        }
+        ProcessExecution execution = processExecutionService.rerunExecution(executionId);
+        
+        if (!waitForCompletion) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("executionId", execution.getExecutionId());
+            response.put("processId", execution.getProcessId());
+            response.put("rerunOf", executionId);
+            response.put("message", "Process execution rerun started");
+            response.put("status", execution.getStatus());
+            
+            return completed(ResponseEntity.ok(response));
+        }
+        
+        return whenFinished(execution, timeoutSeconds, ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT)
+                .body(new ErrorResponse(HttpStatus.REQUEST_TIMEOUT.value(),
+                        "Process execution timed out after " + timeoutSeconds + " seconds")));
+    }
+    
+    /**
+     * Get the status of an execution. With a wait, a running execution is long-polled:
+     * the response is sent when it finishes, or with its current status when the wait
+     * elapses
+     * @param executionId the ID of the execution
+     * @param waitSeconds how long to wait for a running execution to finish, 0 to answer
+     *                    immediately
+     * @return the execution with the status and result of each node
+     * @throws IllegalArgumentException if the wait is not between 0 and
+     *                                  {@code process.execution.max-wait-seconds}
+     */
+    @GetMapping("/{executionId}")
+    public DeferredResult<ResponseEntity<?>> getExecutionStatus(
+            @PathVariable Long executionId,
+            @RequestParam(required = false, defaultValue = "0") int waitSeconds) {
+        checkWaitSeconds(waitSeconds, 0);
+        ProcessExecution execution = processExecutionService.getExecution(executionId);
+        
+        if (execution == null) {
+            return completed(ResponseEntity.notFound().build());
         }
+        if (waitSeconds == 0 || execution.isDone()) {
+            return completed(ResponseEntity.ok(execution));
+        }
+        
+        // The execution is written when the wait elapses, so the response shows its status then
+        return whenFinished(execution, waitSeconds, ResponseEntity.ok(execution));
     }
     
     /**
-     * Get the status of a process
-     * @param processId the ID of the process
-     * @return the process status
+     * Stream the node transitions of an execution as server-sent events, until it finishes.
+     * Clients that reconnect continue after the last event they received
+     * @param executionId the ID of the execution
+     * @param lastEventId the ID of the last event received, sent by reconnecting clients
+     * @param after the ID of the last event received, for clients that cannot set headers
+     * @return the event stream
      */
-    @GetMapping("/{processId}")
-    public ResponseEntity<?> getProcessStatus(@PathVariable Long processId) {
-        ProcessDefinition processDefinition = processExecutionService.getProcessStatus(processId);
+    @GetMapping(value = "/{executionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamExecutionEvents(
+            @PathVariable Long executionId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(required = false) String after) {
+        ProcessExecution execution = processExecutionService.getExecution(executionId);
         
-        if (processDefinition == null) {
+        if (execution == null) {
             return ResponseEntity.notFound().build();
         }
         
-        return ResponseEntity.ok(processDefinition);
+        return ResponseEntity.ok(executionEventService.subscribe(execution, after != null ? after : lastEventId));
     }
     
     /**
-     * Stop a running process
-     * @param processId the ID of the process to stop
+     * List the running and recently finished executions of a process
+     * @param processId the ID of the process
+     * @return the executions, oldest first
+     */
+    @GetMapping
+    public ResponseEntity<List<ProcessExecution>> getExecutions(@RequestParam Long processId) {
+        return ResponseEntity.ok(processExecutionService.getExecutions(processId));
+    }
+    
+    /**
+     * Stop a running execution
+     * @param executionId the ID of the execution to stop
      * @return success or failure message
      */
-    @DeleteMapping("/{processId}")
-    public ResponseEntity<?> stopProcess(@PathVariable Long processId) {
-        boolean stopped = processExecutionService.stopProcess(processId);
+    @DeleteMapping("/{executionId}")
+    public ResponseEntity<?> stopExecution(@PathVariable Long executionId) {
+        boolean stopped = processExecutionService.stopExecution(executionId);
         
         if (!stopped) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(new ErrorResponse(HttpStatus.NOT_FOUND.value(), 
-                            "Process not found or not running: " + processId));
+                    .body(new ErrorResponse(HttpStatus.NOT_FOUND.value(),
+                            "Execution not found or not running: " + executionId));
         }
         
         Map<String, Object> response = new HashMap<>();
-        response.put("processId", processId);
+        response.put("executionId", executionId);
         response.put("message", "Process execution stopped");
         response.put("status", "STOPPED");
         
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Create a result that is sent when an execution finishes
+     * @param execution the execution
+     * @param timeoutSeconds how long to wait for the execution
+     * @param timeoutResponse the response if it has not finished by then
+     * @return the deferred response
+     */
+    private DeferredResult<ResponseEntity<?>> whenFinished(
+            ProcessExecution execution,
+            int timeoutSeconds,
+            ResponseEntity<?> timeoutResponse) {
+        DeferredResult<ResponseEntity<?>> result =
+                new DeferredResult<>(TimeUnit.SECONDS.toMillis(timeoutSeconds), timeoutResponse);
+        execution.getCompletion().whenComplete((finished, error) -> {
+            if (error != null) {
+                result.setResult(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                                "Process execution failed: " + (error.getCause() != null ? error.getCause() : error).getMessage())));
+            } else {
+                result.setResult(ResponseEntity.ok(finished));
+            }
+        });
+        return result;
+    }
+    
+    private static DeferredResult<ResponseEntity<?>> completed(ResponseEntity<?> response) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>();
+        result.setResult(response);
+        return result;
+    }
+    
+    private void checkWaitSeconds(int seconds, int min) {
+        if (seconds < min || seconds > maxWaitSeconds) {
+            throw new IllegalArgumentException("Wait must be between " + min + " and " + maxWaitSeconds + " seconds: " + seconds);
+        }
+    }
+    
     /**
      * Error response class
      */
@@ -0,0 +1,107 @@
+package com.orchestration.process.core;
+
+import com.orchestration.process.core.memo.NodeFingerprint;
+import com.orchestration.process.model.ProcessNode;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * The completed nodes of a finished execution, for a rerun of its process to reuse.
+ * Each completed node is kept with its result and its {@link NodeFingerprint}, computed
+ * from the node as it was defined then and the inputs it ran with. When the rerun is
+ * about to start a node, the node's fingerprint is computed from its current definition
+ * and the inputs it has been bound to; if it matches, the earlier result is reused and
+ * the node does not run. A node whose properties changed runs again, and so do its
+ * downstream nodes unless it produces the same result as before, so only the sub-graph
+ * affected by a change is executed.
+ */
+public class ExecutionBaseline {
+    private final long executionId;
+    private final Map<String, CompletedNode> completedNodes;
+    private final AtomicInteger reusedNodes = new AtomicInteger();
+    
+    private ExecutionBaseline(long executionId, Map<String, CompletedNode> completedNodes) {
+        this.executionId = executionId;
+        this.completedNodes = completedNodes;
+    }
+    
+    /**
+     * Fingerprint the completed nodes of an execution
+     * @param execution the finished execution
+     * @param reusable selects the nodes whose results may be reused, e.g. not those whose
+     *                 result depends on more than their properties and inputs
+     * @return the baseline of the execution
+     */
+    public static ExecutionBaseline of(ProcessExecution execution, Predicate<ProcessNode> reusable) {
+        Map<String, CompletedNode> completedNodes = new HashMap<>();
+        List<ProcessNode> nodes = execution.getProcessDefinition().getNodes();
+        for (int ordinal = 0; ordinal < nodes.size(); ordinal++) {
+            ProcessNode node = nodes.get(ordinal);
+            if (execution.getNodeStatus(ordinal) != ProcessNode.ProcessNodeStatus.COMPLETED || !reusable.test(node)) {
+                continue;
+            }
+            
+            Map<String, Object> inputs = new HashMap<>();
+            NodeExecutionContext.getInputBindings(node).forEach((port, sourceNodeId) -> {
+                Object value = execution.ordinalOf(sourceNodeId) >= 0
+                        ? execution.getCompletedResult(sourceNodeId)
+                        : execution.getParameter(sourceNodeId);
+                if (value != null) {
+                    inputs.put(port, value);
+                }
+            });
+            byte[] fingerprint = NodeFingerprint.of(node, inputs);
+            if (fingerprint != null) {
+                completedNodes.put(node.getNodeId(), new CompletedNode(fingerprint, execution.getNodeResult(ordinal)));
+            }
+        }
+        return new ExecutionBaseline(execution.getExecutionId(), completedNodes);
+    }
+    
+    public long getExecutionId() {
+        return executionId;
+    }
+    
+    /**
+     * Get the number of nodes whose results were reused
+     * @return the reused node count
+     */
+    public int getReusedNodes() {
+        return reusedNodes.get();
+    }
+    
+    /**
+     * Reuse the earlier result of a node if the node and its inputs are unchanged
+     * @param node the node about to run
+     * @param context the node's inputs
+     * @return a future completed with the earlier result, or null if the node must run
+     */
+    public CompletableFuture<Object> reuse(ProcessNode node, NodeExecutionContext context) {
+        CompletedNode completed = completedNodes.get(node.getNodeId());
+        if (completed == null) {
+            return null;
+        }
+        byte[] fingerprint = NodeFingerprint.of(node, context.getInputs());
+        if (fingerprint == null || !Arrays.equals(fingerprint, completed.fingerprint)) {
+            return null;
+        }
+        reusedNodes.incrementAndGet();
+        return CompletableFuture.completedFuture(completed.result);
+    }
+    
+    private static final class CompletedNode {
+        private final byte[] fingerprint;
+        private final Object result;
+        
+        CompletedNode(byte[] fingerprint, Object result) {
+            this.fingerprint = fingerprint;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.orchestration.process.core;
+
+/**
+ * Receives the state transitions of process executions, e.g. to journal them.
+ * Methods are called on the thread making the transition, so implementations must be
+ * fast and thread-safe.
+ */
+public interface ExecutionStateListener {
+    /**
+     * Listener that ignores every transition
+     */
+    ExecutionStateListener NONE = new ExecutionStateListener() {
+    };
+    
+    /**
+     * Called when a node has been started
+     * @param execution the execution
+     * @param ordinal the node's ordinal
+     */
+    default void nodeStarted(ProcessExecution execution, int ordinal) {
+    }
+    
+    /**
+     * Called when a node has completed
+     * @param execution the execution
+     * @param ordinal the node's ordinal
+     * @param result the node's result
+     */
+    default void nodeCompleted(ProcessExecution execution, int ordinal, Object result) {
+    }
+    
+    /**
+     * Called when a node has failed
+     * @param execution the execution
+     * @param ordinal the node's ordinal
+     */
+    default void nodeFailed(ProcessExecution execution, int ordinal) {
+    }
+    
+    /**
+     * Called when a failed node is to be run again after its retry backoff
+     * @param execution the execution
+     * @param ordinal the node's ordinal
+     * @param error the failure of the attempt
+     */
+    default void nodeRetrying(ProcessExecution execution, int ordinal, Throwable error) {
+    }
+    
+    /**
+     * Called once when an execution has finished, before its completion future completes
+     * @param execution the execution, with its final status
+     */
+    default void executionFinished(ProcessExecution execution) {
+    }
+    
+    /**
+     * Combine two listeners into one that notifies the first, then the second
+     * @param first the first listener
+     * @param second the second listener
+     * @return the combined listener
+     */
+    static ExecutionStateListener compose(ExecutionStateListener first, ExecutionStateListener second) {
+        return new ExecutionStateListener() {
+            @Override
+            public void nodeStarted(ProcessExecution execution, int ordinal) {
+                first.nodeStarted(execution, ordinal);
+                second.nodeStarted(execution, ordinal);
+            }
+            
+            @Override
+            public void nodeCompleted(ProcessExecution execution, int ordinal, Object result) {
+                first.nodeCompleted(execution, ordinal, result);
+                second.nodeCompleted(execution, ordinal, result);
+            }
+            
+            @Override
+            public void nodeFailed(ProcessExecution execution, int ordinal) {
+                first.nodeFailed(execution, ordinal);
+                second.nodeFailed(execution, ordinal);
+            }
+            
+            @Override
+            public void nodeRetrying(ProcessExecution execution, int ordinal, Throwable error) {
+                first.nodeRetrying(execution, ordinal, error);
+                second.nodeRetrying(execution, ordinal, error);
+            }
+            
+            @Override
+            public void executionFinished(ProcessExecution execution) {
+                first.executionFinished(execution);
+                second.executionFinished(execution);
+            }
+        };
+    }
+}
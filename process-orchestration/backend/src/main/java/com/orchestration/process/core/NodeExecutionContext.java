@@ -0,0 +1,198 @@
+package com.orchestration.process.core;
+
+import com.orchestration.process.model.ProcessNode;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The inputs of a node for one execution.
+ * A node declares input ports in its properties as {@code input.<port>=<nodeId>}; before
+ * the node runs, the orchestrator binds each port to the result of the referenced
+ * upstream node. Values are passed as the objects the upstream executor produced
+ * (e.g. a {@link Double} from a math node), so nothing is round-tripped through strings.
+ * For compatibility with existing designs, {@code <port>NodeResult=<nodeId>} is
+ * accepted as an alias of {@code input.<port>}. A port bound to a name that is not a node
+ * of the process takes the execution's parameter of that name instead, e.g. an input of
+ * the sub-process node that started the execution.
+ */
+public class NodeExecutionContext {
+    public static final String INPUT_PREFIX = "input.";
+    private static final String LEGACY_INPUT_SUFFIX = "NodeResult";
+    private static final NodeExecutionContext EMPTY = new NodeExecutionContext(Collections.emptyMap(), null);
+    
+    private final Map<String, Object> inputs;
+    private final ProcessExecution execution;
+    
+    private NodeExecutionContext(Map<String, Object> inputs, ProcessExecution execution) {
+        this.inputs = inputs;
+        this.execution = execution;
+    }
+    
+    /**
+     * Get a context without inputs
+     * @return the empty context
+     */
+    public static NodeExecutionContext empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Get a context of inputs bound elsewhere, e.g. by the instance running the execution
+     * of a node claimed from a work queue
+     * @param inputs the value of each input port, keyed by port name
+     * @return the context holding the inputs, without an execution
+     */
+    public static NodeExecutionContext of(Map<String, Object> inputs) {
+        return inputs.isEmpty() ? EMPTY : new NodeExecutionContext(new HashMap<>(inputs), null);
+    }
+    
+    /**
+     * Bind the input ports of a node to the results of their upstream nodes
+     * @param node the node about to run
+     * @param upstreamResults resolves a node ID to the node's result, or null if it has none
+     * @return the context holding the bound inputs
+     * @throws IllegalStateException if an upstream node has not produced a result
+     */
+    public static NodeExecutionContext forNode(ProcessNode node, Function<String, Object> upstreamResults) {
+        Map<String, String> bindings = getInputBindings(node);
+        if (bindings.isEmpty()) {
+            return EMPTY;
+        }
+        
+        Map<String, Object> inputs = new HashMap<>();
+        bindings.forEach((port, sourceNodeId) -> {
+            Object value = upstreamResults.apply(sourceNodeId);
+            if (value == null) {
+                throw new IllegalStateException("Input " + port + " of node " + node.getNodeId()
+                        + " is bound to node " + sourceNodeId + ", which has not produced a result");
+            }
+            inputs.put(port, value);
+        });
+        
+        return new NodeExecutionContext(inputs, null);
+    }
+    
+    /**
+     * Bind the input ports of a node to the results of completed nodes of its execution
+     * @param node the node about to run
+     * @param execution the execution the node runs in
+     * @return the context holding the bound inputs
+     * @throws IllegalStateException if an upstream node has not completed
+     */
+    public static NodeExecutionContext forNode(ProcessNode node, ProcessExecution execution) {
+        return forNode(node, execution::getCompletedResult);
+    }
+    
+    /**
+     * Bind input ports resolved ahead of time to the results of completed nodes of an execution
+     * @param node the node about to run
+     * @param ports the port names
+     * @param sourceOrdinals the ordinal of the upstream node of each port, or -1 if the
+     *                       node bound to the port is not part of the process and the
+     *                       port takes the execution parameter of that name
+     * @param execution the execution the node runs in
+     * @return the context holding the bound inputs
+     * @throws IllegalStateException if an upstream node has not completed or a parameter
+     *                               is missing
+     */
+    public static NodeExecutionContext forNode(ProcessNode node, String[] ports, int[] sourceOrdinals,
+                                               ProcessExecution execution) {
+        if (ports.length == 0) {
+            return new NodeExecutionContext(Collections.emptyMap(), execution);
+        }
+        
+        Map<String, Object> inputs = new HashMap<>(ports.length * 2);
+        for (int i = 0; i < ports.length; i++) {
+            Object value = sourceOrdinals[i] >= 0
+                    ? execution.getCompletedResult(sourceOrdinals[i])
+                    : execution.getParameter(boundNodeId(node, ports[i]));
+            if (value == null) {
+                throw new IllegalStateException("Input " + ports[i] + " of node " + node.getNodeId()
+                        + " is bound to node " + boundNodeId(node, ports[i])
+                        + ", which has not produced a result");
+            }
+            inputs.put(ports[i], value);
+        }
+        
+        return new NodeExecutionContext(inputs, execution);
+    }
+    
+    /**
+     * Get the input ports a node declares
+     * @param node the node
+     * @return the upstream node ID keyed by port name
+     */
+    public static Map<String, String> getInputBindings(ProcessNode node) {
+        Map<String, String> bindings = new HashMap<>();
+        node.getProperties().forEach((key, value) -> {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            if (key.startsWith(INPUT_PREFIX)) {
+                bindings.put(key.substring(INPUT_PREFIX.length()), value);
+            } else if (key.endsWith(LEGACY_INPUT_SUFFIX) && key.length() > LEGACY_INPUT_SUFFIX.length()) {
+                bindings.putIfAbsent(key.substring(0, key.length() - LEGACY_INPUT_SUFFIX.length()), value);
+            }
+        });
+        return bindings;
+    }
+    
+    private static String boundNodeId(ProcessNode node, String port) {
+        String nodeId = node.getProperties().get(INPUT_PREFIX + port);
+        return nodeId != null && !nodeId.isEmpty() ? nodeId : node.getProperties().get(port + LEGACY_INPUT_SUFFIX);
+    }
+    
+    public boolean hasInput(String port) {
+        return inputs.containsKey(port);
+    }
+    
+    /**
+     * Get the value bound to an input port
+     * @param port the port name
+     * @return the upstream result, or null if the port is not bound
+     */
+    public Object getInput(String port) {
+        return inputs.get(port);
+    }
+    
+    /**
+     * Get the value bound to an input port as a number
+     * @param port the port name
+     * @return the numeric value
+     * @throws IllegalArgumentException if the port is not bound or its value is not numeric
+     */
+    public double getDouble(String port) {
+        Object value = inputs.get(port);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+        }
+        throw new IllegalArgumentException(value == null
+                ? "Input " + port + " is not bound"
+                : "Input " + port + " is not a number: " + value);
+    }
+    
+    public Map<String, Object> getInputs() {
+        return Collections.unmodifiableMap(inputs);
+    }
+    
+    /**
+     * Get the execution the node runs in
+     * @return the execution, or null if the context was not bound by an orchestrator
+     */
+    public ProcessExecution getExecution() {
+        return execution;
+    }
+}
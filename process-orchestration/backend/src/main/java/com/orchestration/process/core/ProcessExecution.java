@@ -0,0 +1,510 @@
+package com.orchestration.process.core;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * One run of a process definition.
+ * The definition is shared by every run of it and is never modified while running; each
+ * execution keeps its own node state in two arrays indexed by the node's ordinal (its
+ * position in {@link ProcessDefinition#getNodes()}): a status byte and a result slot.
+ * Starting a run therefore costs a few small arrays, whatever the number of runs of the
+ * same definition in flight. Elements are written with release and read with acquire
+ * semantics, so whoever sees a node COMPLETED also sees its result.
+ * <p>
+ * Node starts, completions and failures and the end of the execution are reported to an
+ * {@link ExecutionStateListener}. An execution recovered after a restart is rebuilt with
+ * {@link #restoreNode(int, ProcessNode.ProcessNodeStatus, Object)} and then run again;
+ * orchestrators skip its finished nodes and continue from there.
+ * <p>
+ * The futures of running nodes are kept, so that stopping the execution or failing it
+ * when it times out cancels them and their executors release their threads at once.
+ * Retry counts are only allocated once a node of the execution is retried.
+ * <p>
+ * An execution started by a sub-process node of another execution keeps that parent
+ * execution and takes the node's inputs as its parameters. A rerun of an earlier
+ * execution keeps its {@link ExecutionBaseline}, from which orchestrators reuse the
+ * results of unchanged nodes.
+ */
+public class ProcessExecution {
+    private static final VarHandle STATUSES = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final VarHandle RESULTS = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final ProcessNode.ProcessNodeStatus[] NODE_STATUSES = ProcessNode.ProcessNodeStatus.values();
+    
+    private final long executionId;
+    private final ProcessDefinition processDefinition;
+    private final byte[] nodeStatuses;
+    private final Object[] nodeResults;
+    private final AtomicReferenceArray<CompletableFuture<?>> runningNodes;
+    private final ExecutionStateListener listener;
+    private final ProcessExecution parent;
+    private final Map<String, Object> parameters;
+    private final Instant startTime;
+    private final CompletableFuture<ProcessExecution> completion = new CompletableFuture<>();
+    // Claimed by the one call that finishes the execution
+    private final AtomicBoolean finishing = new AtomicBoolean();
+    private volatile Instant endTime;
+    private volatile Status status = Status.RUNNING;
+    private volatile String error;
+    private volatile boolean stopRequested;
+    private volatile String timeoutError;
+    private volatile AtomicIntegerArray nodeRetries;
+    private boolean resumed;
+    private ExecutionBaseline baseline;
+    
+    /**
+     * Create an execution with every node PENDING
+     * @param executionId the ID of the execution
+     * @param processDefinition the process to run; its node map must be built
+     */
+    public ProcessExecution(long executionId, ProcessDefinition processDefinition) {
+        this(executionId, processDefinition, Instant.now(), ExecutionStateListener.NONE);
+    }
+    
+    /**
+     * Create an execution with every node PENDING
+     * @param executionId the ID of the execution
+     * @param processDefinition the process to run; its node map must be built
+     * @param startTime the time the execution started
+     * @param listener the listener notified of node and execution state transitions
+     */
+    public ProcessExecution(long executionId, ProcessDefinition processDefinition, Instant startTime,
+                            ExecutionStateListener listener) {
+        this(executionId, processDefinition, startTime, listener, null, Collections.emptyMap());
+    }
+    
+    /**
+     * Create an execution with every node PENDING
+     * @param executionId the ID of the execution
+     * @param processDefinition the process to run; its node map must be built
+     * @param startTime the time the execution started
+     * @param listener the listener notified of node and execution state transitions
+     * @param parent the execution whose sub-process node started this one, or null
+     * @param parameters the values of input ports bound to names that are not nodes of
+     *                   the process, keyed by name
+     */
+    public ProcessExecution(long executionId, ProcessDefinition processDefinition, Instant startTime,
+                            ExecutionStateListener listener, ProcessExecution parent, Map<String, Object> parameters) {
+        this.executionId = executionId;
+        this.processDefinition = processDefinition;
+        this.nodeStatuses = new byte[processDefinition.getNodes().size()];
+        this.nodeResults = new Object[nodeStatuses.length];
+        this.runningNodes = new AtomicReferenceArray<>(nodeStatuses.length);
+        this.startTime = startTime;
+        this.listener = listener;
+        this.parent = parent;
+        this.parameters = parameters;
+    }
+    
+    public long getExecutionId() {
+        return executionId;
+    }
+    
+    public Long getProcessId() {
+        return processDefinition.getId();
+    }
+    
+    public String getProcessName() {
+        return processDefinition.getName();
+    }
+    
+    @JsonIgnore
+    public ProcessDefinition getProcessDefinition() {
+        return processDefinition;
+    }
+    
+    /**
+     * Get the execution whose sub-process node started this one
+     * @return the parent execution, or null if the execution was started on its own
+     */
+    @JsonIgnore
+    public ProcessExecution getParent() {
+        return parent;
+    }
+    
+    public Long getParentExecutionId() {
+        return parent != null ? parent.getExecutionId() : null;
+    }
+    
+    /**
+     * Get a parameter of the execution
+     * @param name the parameter name
+     * @return the value, or null if the execution has no such parameter
+     */
+    public Object getParameter(String name) {
+        return parameters.get(name);
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public Instant getStartTime() {
+        return startTime;
+    }
+    
+    public Instant getEndTime() {
+        return endTime;
+    }
+    
+    /**
+     * Get the future completed with this execution once it has finished
+     * @return the completion future
+     */
+    @JsonIgnore
+    public CompletableFuture<ProcessExecution> getCompletion() {
+        return completion;
+    }
+    
+    @JsonIgnore
+    public boolean isDone() {
+        return completion.isDone();
+    }
+    
+    /**
+     * Get the ordinal of a node of the process
+     * @param nodeId the node ID
+     * @return the ordinal, or -1 if the process has no such node
+     */
+    public int ordinalOf(String nodeId) {
+        return processDefinition.getNodeOrdinal(nodeId);
+    }
+    
+    public ProcessNode.ProcessNodeStatus getNodeStatus(int ordinal) {
+        return NODE_STATUSES[(byte) STATUSES.getAcquire(nodeStatuses, ordinal)];
+    }
+    
+    public ProcessNode.ProcessNodeStatus getNodeStatus(ProcessNode node) {
+        return getNodeStatus(ordinalOf(node.getNodeId()));
+    }
+    
+    public void setNodeStatus(int ordinal, ProcessNode.ProcessNodeStatus nodeStatus) {
+        STATUSES.setRelease(nodeStatuses, ordinal, (byte) nodeStatus.ordinal());
+        if (nodeStatus == ProcessNode.ProcessNodeStatus.RUNNING) {
+            listener.nodeStarted(this, ordinal);
+        } else if (nodeStatus == ProcessNode.ProcessNodeStatus.FAILED) {
+            listener.nodeFailed(this, ordinal);
+        }
+    }
+    
+    public void setNodeStatus(ProcessNode node, ProcessNode.ProcessNodeStatus nodeStatus) {
+        setNodeStatus(ordinalOf(node.getNodeId()), nodeStatus);
+    }
+    
+    public Object getNodeResult(int ordinal) {
+        return RESULTS.getAcquire(nodeResults, ordinal);
+    }
+    
+    /**
+     * Record the result of a node and mark it COMPLETED
+     * @param ordinal the node's ordinal
+     * @param result the value the node's executor produced
+     */
+    public void completeNode(int ordinal, Object result) {
+        RESULTS.setRelease(nodeResults, ordinal, result);
+        setNodeStatus(ordinal, ProcessNode.ProcessNodeStatus.COMPLETED);
+        listener.nodeCompleted(this, ordinal, result);
+    }
+    
+    public void completeNode(ProcessNode node, Object result) {
+        completeNode(ordinalOf(node.getNodeId()), result);
+    }
+    
+    /**
+     * Restore the state a node had reached before a restart, without notifying the listener.
+     * Must be called before the execution is run
+     * @param ordinal the node's ordinal
+     * @param nodeStatus the node's status, COMPLETED or FAILED
+     * @param result the node's result if it completed
+     */
+    public void restoreNode(int ordinal, ProcessNode.ProcessNodeStatus nodeStatus, Object result) {
+        RESULTS.setRelease(nodeResults, ordinal, result);
+        STATUSES.setRelease(nodeStatuses, ordinal, (byte) nodeStatus.ordinal());
+        resumed = true;
+    }
+    
+    /**
+     * Make this execution a rerun of an earlier one. Must be called before the execution is run
+     * @param baseline the completed nodes of the earlier execution
+     */
+    public void rerunOf(ExecutionBaseline baseline) {
+        this.baseline = baseline;
+    }
+    
+    /**
+     * Get the execution this one reruns
+     * @return the ID of the earlier execution, or null if this is not a rerun
+     */
+    public Long getRerunOf() {
+        return baseline != null ? baseline.getExecutionId() : null;
+    }
+    
+    /**
+     * Get the number of nodes whose results were reused from the execution this one reruns
+     * @return the reused node count, 0 if this is not a rerun
+     */
+    public int getReusedNodes() {
+        return baseline != null ? baseline.getReusedNodes() : 0;
+    }
+    
+    /**
+     * Reuse the result a node produced in the execution this one reruns, if the node and
+     * its inputs are unchanged
+     * @param node the node about to run
+     * @param context the node's inputs
+     * @return a future completed with the earlier result, or null if the node must run
+     */
+    public CompletableFuture<Object> reuseResult(ProcessNode node, NodeExecutionContext context) {
+        return baseline != null ? baseline.reuse(node, context) : null;
+    }
+    
+    /**
+     * Check whether the execution was recovered after a restart with some nodes already finished
+     * @return true if nodes were restored
+     */
+    public boolean isResumed() {
+        return resumed;
+    }
+    
+    /**
+     * Get the result of a node if it has completed
+     * @param nodeId the node ID
+     * @return the node's result, or null if the node has not completed or is unknown
+     */
+    public Object getCompletedResult(String nodeId) {
+        int ordinal = ordinalOf(nodeId);
+        return ordinal >= 0 ? getCompletedResult(ordinal) : null;
+    }
+    
+    /**
+     * Get the result of a node if it has completed
+     * @param ordinal the node's ordinal
+     * @return the node's result, or null if the node has not completed
+     */
+    public Object getCompletedResult(int ordinal) {
+        return getNodeStatus(ordinal) == ProcessNode.ProcessNodeStatus.COMPLETED ? getNodeResult(ordinal) : null;
+    }
+    
+    /**
+     * Ask the orchestrator to start no further nodes and cancel the running ones
+     * @return false if the execution had already finished
+     */
+    public boolean requestStop() {
+        if (isDone()) {
+            return false;
+        }
+        stopRequested = true;
+        for (int ordinal = 0; ordinal < runningNodes.length(); ordinal++) {
+            CompletableFuture<?> future = runningNodes.get(ordinal);
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Stop the execution because it ran past its deadline; it finishes as FAILED
+     * @param message the reason reported as the execution's error
+     * @return false if the execution had already finished
+     */
+    public boolean timeOut(String message) {
+        if (isDone()) {
+            return false;
+        }
+        timeoutError = message;
+        return requestStop();
+    }
+    
+    /**
+     * Keep the future of a started node until it settles, so a stop can cancel it. A node
+     * started while the execution is stopping is cancelled immediately
+     * @param ordinal the node's ordinal
+     * @param future the future returned by the node's executor
+     */
+    public void nodeRunning(int ordinal, CompletableFuture<?> future) {
+        runningNodes.set(ordinal, future);
+        // Either this sees the stop or the stop sees the future
+        if (stopRequested) {
+            future.cancel(true);
+        }
+    }
+    
+    /**
+     * Forget the future of a node that has settled
+     * @param ordinal the node's ordinal
+     */
+    public void nodeSettled(int ordinal) {
+        runningNodes.set(ordinal, null);
+    }
+    
+    /**
+     * Count a retry of a failed node, which stays RUNNING until its next attempt settles
+     * @param ordinal the node's ordinal
+     * @param error the failure of the attempt
+     */
+    public void nodeRetrying(int ordinal, Throwable error) {
+        AtomicIntegerArray retries = nodeRetries;
+        if (retries == null) {
+            synchronized (this) {
+                retries = nodeRetries;
+                if (retries == null) {
+                    retries = new AtomicIntegerArray(nodeStatuses.length);
+                    nodeRetries = retries;
+                }
+            }
+        }
+        retries.incrementAndGet(ordinal);
+        listener.nodeRetrying(this, ordinal, error);
+    }
+    
+    /**
+     * Get the number of times a node was retried
+     * @param ordinal the node's ordinal
+     * @return the number of retries, 0 if the node ran at most once
+     */
+    public int getNodeRetries(int ordinal) {
+        AtomicIntegerArray retries = nodeRetries;
+        return retries != null ? retries.get(ordinal) : 0;
+    }
+    
+    @JsonIgnore
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+    
+    /**
+     * Finish the execution: FAILED if it timed out, STOPPED if a stop was requested,
+     * FAILED if a node failed, COMPLETED otherwise
+     * @return true if this call finished the execution
+     */
+    public boolean finish() {
+        Status finalStatus = Status.COMPLETED;
+        String finalError = null;
+        if (timeoutError != null) {
+            finalStatus = Status.FAILED;
+            finalError = timeoutError;
+        } else if (stopRequested) {
+            finalStatus = Status.STOPPED;
+        } else {
+            for (int ordinal = 0; ordinal < nodeStatuses.length; ordinal++) {
+                if (getNodeStatus(ordinal) == ProcessNode.ProcessNodeStatus.FAILED) {
+                    finalStatus = Status.FAILED;
+                    finalError = "Node failed: " + processDefinition.getNodes().get(ordinal).getNodeId();
+                    break;
+                }
+            }
+        }
+        return finish(finalStatus, finalError);
+    }
+    
+    /**
+     * Finish the execution as FAILED because the orchestrator could not run it
+     * @param cause the failure
+     * @return true if this call finished the execution
+     */
+    public boolean fail(Throwable cause) {
+        return finish(Status.FAILED, cause.getMessage() != null ? cause.getMessage() : cause.toString());
+    }
+    
+    /**
+     * Finish the execution unless another call already did; only the call that claims the
+     * transition sets the outcome and notifies the listener
+     * @param finalStatus the status to finish with
+     * @param finalError the error to report, or null
+     * @return true if this call finished the execution
+     */
+    private boolean finish(Status finalStatus, String finalError) {
+        if (!finishing.compareAndSet(false, true)) {
+            return false;
+        }
+        endTime = Instant.now();
+        error = finalError;
+        status = finalStatus;
+        listener.executionFinished(this);
+        return completion.complete(this);
+    }
+    
+    /**
+     * Get the state of every node, for reporting
+     * @return a snapshot of each node's status and result, in node order
+     */
+    public List<NodeState> getNodes() {
+        List<ProcessNode> nodes = processDefinition.getNodes();
+        List<NodeState> states = new ArrayList<>(nodes.size());
+        for (int ordinal = 0; ordinal < nodes.size(); ordinal++) {
+            states.add(new NodeState(nodes.get(ordinal), getNodeStatus(ordinal), getNodeResult(ordinal),
+                    getNodeRetries(ordinal)));
+        }
+        return states;
+    }
+    
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        STOPPED
+    }
+    
+    /**
+     * Status and result of one node of an execution
+     */
+    public static class NodeState {
+        private final String nodeId;
+        private final String name;
+        private final String type;
+        private final ProcessNode.ProcessNodeStatus status;
+        private final Object result;
+        private final int retries;
+        
+        NodeState(ProcessNode node, ProcessNode.ProcessNodeStatus status, Object result, int retries) {
+            this.nodeId = node.getNodeId();
+            this.name = node.getName();
+            this.type = node.getType();
+            this.status = status;
+            this.result = result;
+            this.retries = retries;
+        }
+        
+        public String getNodeId() {
+            return nodeId;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public String getType() {
+            return type;
+        }
+        
+        public ProcessNode.ProcessNodeStatus getStatus() {
+            return status;
+        }
+        
+        public Object getResult() {
+            return result;
+        }
+        
+        public int getRetries() {
+            return retries;
+        }
+    }
+}
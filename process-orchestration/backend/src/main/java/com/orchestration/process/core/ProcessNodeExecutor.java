@@ -1,11 +1,22 @@
 package com.orchestration.process.core;
 
 import com.orchestration.process.model.ProcessNode;
+
+import java.util.Collections;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface for executing process nodes.
- * Implementations should handle the execution logic for specific node types.
+ * Implementations should handle the execution logic for specific node types. A node is
+ * shared by every execution of its process, so executors must not modify it: they report
+ * success by completing the future with the node's result and failure by completing it
+ * exceptionally.
+ * <p>
+ * The orchestrator fails the returned future when the node times out and cancels it when
+ * the execution is stopped, so each call must return a future of its own. Executors
+ * should stop the node's work when that happens, e.g. by running it with
+ * {@link com.orchestration.process.core.pool.InterruptibleFuture}.
  */
 public interface ProcessNodeExecutor {
     /**
@@ -15,10 +26,23 @@ public interface ProcessNodeExecutor {
      */
     boolean canExecute(String nodeType);
     
+    /**
+     * Get the node types this executor handles, so the registry can index it. A type
+     * ending in {@code .*} covers a family of types (e.g. {@code math.*}); the registry
+     * still asks {@link #canExecute(String)} before using a family match. Executors that
+     * return no types are found by calling {@link #canExecute(String)} on each of them
+     * @return the handled node types
+     */
+    default Set<String> getNodeTypes() {
+        return Collections.emptySet();
+    }
+    
     /**
      * Execute the node asynchronously
      * @param node the node to execute
-     * @return a CompletableFuture that will be completed when the node execution is done
+     * @param context the node's inputs, bound to the results of its upstream nodes
+     * @return a CompletableFuture that will be completed with the node's result when the node execution is done,
+     *         or exceptionally if the node failed
      */
-    CompletableFuture<Object> execute(ProcessNode node);
+    CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context);
 }
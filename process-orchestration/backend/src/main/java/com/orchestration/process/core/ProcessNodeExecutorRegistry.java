@@ -1,32 +1,60 @@
 package com.orchestration.process.core;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Registry for process node executors.
  * This class maintains a list of all available node executors and provides
  * methods to find the appropriate executor for a given node type.
+ * <p>
+ * Executors are indexed by the node types they declare in
+ * {@link ProcessNodeExecutor#getNodeTypes()}, so a lookup is a hash lookup rather than a
+ * scan. A type resolves to, in order of precedence: the executor declaring exactly that
+ * type, the executor of the longest matching family ({@code math.*}), or the first
+ * executor without declared types whose {@link ProcessNodeExecutor#canExecute(String)}
+ * accepts it. When several executors declare the same type or family, the one registered
+ * last wins, so an executor can be replaced at runtime by registering its successor.
+ * <p>
+ * The index is an immutable snapshot: registering or unregistering builds a new one and
+ * publishes it, so lookups never lock. Each change increments the registry's generation,
+ * which lets callers caching resolved executors tell when to resolve them again.
  */
 @Component
 public class ProcessNodeExecutorRegistry {
-    private final List<ProcessNodeExecutor> executors;
+    private static final Logger logger = LoggerFactory.getLogger(ProcessNodeExecutorRegistry.class);
+    private static final String FAMILY_SUFFIX = "*";
+    // Bounds the memo of resolved types, which node types sent by clients would otherwise grow
+    private static final int MAX_RESOLVED_TYPES = 4096;
+    
+    private volatile Index index;
+    private final Map<String, LongAdder> dispatchCounts = new ConcurrentHashMap<>();
     
     @Autowired
     public ProcessNodeExecutorRegistry(List<ProcessNodeExecutor> executors) {
-        this.executors = new ArrayList<>(executors);
+        this.index = new Index(new ArrayList<>(executors), 0);
     }
     
     @PostConstruct
     public void init() {
         // Log the registered executors
-        executors.forEach(executor -> 
-            System.out.println("Registered executor: " + executor.getClass().getSimpleName())
+        index.executors.forEach(executor ->
+            logger.info("Registered executor: {} for node types {}", executor.getClass().getSimpleName(), executor.getNodeTypes())
         );
     }
     
@@ -36,16 +64,120 @@ public class ProcessNodeExecutorRegistry {
      * @return an Optional containing the executor if found, empty otherwise
      */
     public Optional<ProcessNodeExecutor> findExecutor(String nodeType) {
-        return executors.stream()
-                .filter(executor -> executor.canExecute(nodeType))
-                .findFirst();
+        return nodeType == null ? Optional.empty() : index.resolve(nodeType);
     }
     
     /**
      * Register a new executor
      * @param executor the executor to register
      */
-    public void registerExecutor(ProcessNodeExecutor executor) {
+    public synchronized void registerExecutor(ProcessNodeExecutor executor) {
+        List<ProcessNodeExecutor> executors = new ArrayList<>(index.executors);
         executors.add(executor);
+        index = new Index(executors, index.generation + 1);
+        logger.info("Registered executor: {} for node types {}", executor.getClass().getSimpleName(), executor.getNodeTypes());
+    }
+    
+    /**
+     * Unregister an executor; node types it handled resolve to the next matching executor
+     * @param executor the executor to remove
+     * @return true if the executor was registered
+     */
+    public synchronized boolean unregisterExecutor(ProcessNodeExecutor executor) {
+        List<ProcessNodeExecutor> executors = new ArrayList<>(index.executors);
+        if (!executors.remove(executor)) {
+            return false;
+        }
+        index = new Index(executors, index.generation + 1);
+        logger.info("Unregistered executor: {}", executor.getClass().getSimpleName());
+        return true;
+    }
+    
+    /**
+     * Get the number of registry changes so far
+     * @return a number that changes whenever an executor is registered or unregistered
+     */
+    public long getGeneration() {
+        return index.generation;
+    }
+    
+    /**
+     * Get the counter of dispatches of a node type, to be incremented each time a node of
+     * that type is executed
+     * @param nodeType the type of the node
+     * @return the dispatch counter of the type
+     */
+    public LongAdder getDispatchCounter(String nodeType) {
+        return dispatchCounts.computeIfAbsent(String.valueOf(nodeType), type -> new LongAdder());
+    }
+    
+    /**
+     * Get the number of nodes executed per node type
+     * @return the dispatch count keyed by node type
+     */
+    public Map<String, Long> getDispatchCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        dispatchCounts.forEach((nodeType, count) -> counts.put(nodeType, count.sum()));
+        return counts;
+    }
+    
+    /**
+     * Immutable lookup structures for one set of registered executors
+     */
+    private static class Index {
+        private final List<ProcessNodeExecutor> executors;
+        private final long generation;
+        private final Map<String, ProcessNodeExecutor> byType = new HashMap<>();
+        // Family prefixes (e.g. "math.") with their executor, longest prefix first
+        private final List<Map.Entry<String, ProcessNodeExecutor>> families = new ArrayList<>();
+        private final List<ProcessNodeExecutor> undeclared = new ArrayList<>();
+        private final Map<String, Optional<ProcessNodeExecutor>> resolved = new ConcurrentHashMap<>();
+        
+        Index(List<ProcessNodeExecutor> executors, long generation) {
+            this.executors = Collections.unmodifiableList(executors);
+            this.generation = generation;
+            
+            Map<String, ProcessNodeExecutor> byFamily = new HashMap<>();
+            for (ProcessNodeExecutor executor : executors) {
+                if (executor.getNodeTypes().isEmpty()) {
+                    undeclared.add(executor);
+                }
+                for (String nodeType : executor.getNodeTypes()) {
+                    if (nodeType.endsWith(FAMILY_SUFFIX)) {
+                        byFamily.put(nodeType.substring(0, nodeType.length() - FAMILY_SUFFIX.length()), executor);
+                    } else {
+                        byType.put(nodeType, executor);
+                    }
+                }
+            }
+            byFamily.forEach((prefix, executor) -> families.add(new AbstractMap.SimpleImmutableEntry<>(prefix, executor)));
+            families.sort(Comparator.comparingInt((Map.Entry<String, ProcessNodeExecutor> family) -> family.getKey().length()).reversed());
+        }
+        
+        Optional<ProcessNodeExecutor> resolve(String nodeType) {
+            Optional<ProcessNodeExecutor> executor = resolved.get(nodeType);
+            if (executor == null) {
+                executor = lookup(nodeType);
+                if (resolved.size() < MAX_RESOLVED_TYPES) {
+                    resolved.putIfAbsent(nodeType, executor);
+                }
+            }
+            return executor;
+        }
+        
+        private Optional<ProcessNodeExecutor> lookup(String nodeType) {
+            ProcessNodeExecutor executor = byType.get(nodeType);
+            if (executor != null) {
+                return Optional.of(executor);
+            }
+            for (Map.Entry<String, ProcessNodeExecutor> family : families) {
+                if (nodeType.startsWith(family.getKey()) && family.getValue().canExecute(nodeType)) {
+                    return Optional.of(family.getValue());
+                }
+            }
+            return undeclared.stream()
+                    .filter(candidate -> candidate.canExecute(nodeType))
+                    .findFirst();
+        }
     }
 }
@@ -45,6 +45,13 @@ public class ProcessNodeFactory {
                 .build()
         );
         
+        registerNodeType("subprocess", () -> 
+            ProcessNode.builder()
+                .type("subprocess")
+                .properties(new HashMap<>())
+                .build()
+        );
+        
         // Register math node types
         registerNodeType("math.addition", () -> 
             ProcessNode.builder()
@@ -73,6 +80,13 @@ public class ProcessNodeFactory {
                 .properties(new HashMap<>())
                 .build()
         );
+        
+        registerNodeType("math.expression", () -> 
+            ProcessNode.builder()
+                .type("math.expression")
+                .properties(new HashMap<>())
+                .build()
+        );
     }
     
     /**
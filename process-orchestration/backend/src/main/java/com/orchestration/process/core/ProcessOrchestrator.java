@@ -1,34 +1,27 @@
 package com.orchestration.process.core;
 
 import com.orchestration.process.model.ProcessDefinition;
-import com.orchestration.process.model.ProcessNode;
 
-import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface for orchestrating process execution.
- * Implementations should handle the traversal and execution of process nodes.
+ * Implementations should handle the traversal and execution of process nodes, recording
+ * node state in the {@link ProcessExecution} rather than on the shared definition, so that
+ * any number of executions of one definition can run at the same time.
  */
 public interface ProcessOrchestrator {
     /**
-     * Execute a process definition
-     * @param processDefinition the process definition to execute
-     * @return a CompletableFuture that will be completed when the process execution is done
+     * Get the execution strategy implemented by this orchestrator
+     * @return the strategy name, referenced by {@link ProcessDefinition#getExecutionStrategy()}
      */
-    CompletableFuture<ProcessDefinition> execute(ProcessDefinition processDefinition);
+    String getStrategy();
     
     /**
-     * Get the current execution status
-     * @param processId the ID of the process
-     * @return the process definition with updated status
+     * Run an execution of a process definition. No further nodes are started once
+     * {@link ProcessExecution#requestStop()} has been called.
+     * @param execution the execution to run
+     * @return the execution's completion future, completed when the execution is done
      */
-    ProcessDefinition getStatus(Long processId);
-    
-    /**
-     * Stop a running process
-     * @param processId the ID of the process to stop
-     * @return true if the process was stopped, false otherwise
-     */
-    boolean stopProcess(Long processId);
+    CompletableFuture<ProcessExecution> execute(ProcessExecution execution);
 }
@@ -0,0 +1,75 @@
+package com.orchestration.process.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registry for process orchestrators.
+ * This class maintains all available orchestrators keyed by their strategy name
+ * and resolves the orchestrator to use for a given process definition.
+ */
+@Component
+public class ProcessOrchestratorRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(ProcessOrchestratorRegistry.class);
+    
+    private final Map<String, ProcessOrchestrator> orchestrators = new HashMap<>();
+    private final String defaultStrategy;
+    
+    @Autowired
+    public ProcessOrchestratorRegistry(
+            List<ProcessOrchestrator> orchestrators,
+            @Value("${process.orchestrator.default-strategy:bfs}") String defaultStrategy) {
+        orchestrators.forEach(orchestrator -> this.orchestrators.put(orchestrator.getStrategy(), orchestrator));
+        this.defaultStrategy = defaultStrategy;
+    }
+    
+    @PostConstruct
+    public void init() {
+        if (!orchestrators.containsKey(defaultStrategy)) {
+            throw new IllegalStateException("Default execution strategy is not registered: " + defaultStrategy);
+        }
+        logger.info("Registered orchestrators: {} (default: {})", orchestrators.keySet(), defaultStrategy);
+    }
+    
+    /**
+     * Get the orchestrator for the given strategy
+     * @param strategy the strategy name, or null/empty for the default strategy
+     * @return the orchestrator implementing the strategy
+     * @throws IllegalArgumentException if no orchestrator implements the strategy
+     */
+    public ProcessOrchestrator getOrchestrator(String strategy) {
+        String key = strategy == null || strategy.isEmpty() ? defaultStrategy : strategy;
+        ProcessOrchestrator orchestrator = orchestrators.get(key);
+        
+        if (orchestrator == null) {
+            throw new IllegalArgumentException("Unknown execution strategy: " + key);
+        }
+        
+        return orchestrator;
+    }
+    
+    /**
+     * Get the names of all registered strategies
+     * @return the registered strategy names
+     */
+    public Set<String> getStrategies() {
+        return orchestrators.keySet();
+    }
+    
+    /**
+     * Get the strategy used when a process does not specify one
+     * @return the default strategy name
+     */
+    public String getDefaultStrategy() {
+        return defaultStrategy;
+    }
+}
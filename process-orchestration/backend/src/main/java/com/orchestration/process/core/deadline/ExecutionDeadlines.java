@@ -0,0 +1,160 @@
+package com.orchestration.process.core.deadline;
+
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.model.ProcessNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deadlines of running nodes and executions.
+ * A node may set its {@code timeoutMs} property, and a process its {@code timeoutMs}
+ * field; otherwise {@code process.execution.default-node-timeout-ms} and
+ * {@code process.execution.default-timeout-ms} apply, where 0 means no deadline.
+ * <p>
+ * A node that misses its deadline has its future failed with a
+ * {@link NodeTimeoutException}, which the orchestrator records as a node failure and
+ * which stops the executor's work. An execution that misses its deadline is stopped,
+ * cancelling its running nodes, and finishes as FAILED. Deadlines are kept on a
+ * {@link TimerWheel}, since nearly all of them are cancelled when their node completes
+ * in time; expired deadlines are handled on the orchestration pool. The wheel also
+ * delays the retries of failed nodes.
+ */
+@Component
+public class ExecutionDeadlines {
+    public static final String TIMEOUT_PROPERTY = "timeoutMs";
+    
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionDeadlines.class);
+    
+    private final TimerWheel timer;
+    private final Executor orchestrationExecutor;
+    private final long defaultNodeTimeoutMillis;
+    private final long defaultTimeoutMillis;
+    private final LongAdder nodesTimedOut = new LongAdder();
+    private final LongAdder nodesCancelled = new LongAdder();
+    private final LongAdder executionsTimedOut = new LongAdder();
+    
+    @Autowired
+    public ExecutionDeadlines(
+            ExecutorPoolRegistry executorPools,
+            @Value("${process.deadline.tick-ms:10}") long tickMillis,
+            @Value("${process.deadline.wheel-size:512}") int wheelSize,
+            @Value("${process.execution.default-node-timeout-ms:0}") long defaultNodeTimeoutMillis,
+            @Value("${process.execution.default-timeout-ms:0}") long defaultTimeoutMillis) {
+        this.timer = new TimerWheel("execution-deadlines", tickMillis, wheelSize);
+        this.orchestrationExecutor = executorPools.getOrchestrationExecutor();
+        this.defaultNodeTimeoutMillis = defaultNodeTimeoutMillis;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+    }
+    
+    @PreDestroy
+    public void stop() {
+        timer.stop();
+    }
+    
+    /**
+     * Get the time a node may run before it fails
+     * @param node the node
+     * @return the timeout in milliseconds, 0 for none
+     * @throws IllegalArgumentException if the node's timeoutMs property is not a number
+     */
+    public long getNodeTimeoutMillis(ProcessNode node) {
+        String timeout = node.getProperties().get(TIMEOUT_PROPERTY);
+        if (timeout == null || timeout.isEmpty()) {
+            return defaultNodeTimeoutMillis;
+        }
+        try {
+            return Long.parseLong(timeout.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + TIMEOUT_PROPERTY + " of node " + node.getNodeId() + ": " + timeout);
+        }
+    }
+    
+    /**
+     * Fail a node's future once its timeout elapses, e.g. for one attempt of a node
+     * @param node the node
+     * @param timeoutMillis the node's timeout, from {@link #getNodeTimeoutMillis(ProcessNode)}
+     * @param future the future returned by the node's executor
+     */
+    public void limit(ProcessNode node, long timeoutMillis, CompletableFuture<Object> future) {
+        if (future.isDone()) {
+            return;
+        }
+        TimerWheel.Timeout timeout = timeoutMillis > 0
+                ? schedule(() -> {
+                    if (future.completeExceptionally(new NodeTimeoutException(node.getNodeId(), timeoutMillis))) {
+                        nodesTimedOut.increment();
+                    }
+                }, timeoutMillis)
+                : null;
+        
+        future.whenComplete((result, error) -> {
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            if (error instanceof CancellationException) {
+                nodesCancelled.increment();
+            }
+        });
+    }
+    
+    /**
+     * Run a task on the orchestration pool after a delay, without holding a thread while
+     * waiting
+     * @param task the task
+     * @param delayMillis the delay in milliseconds
+     * @return the timeout, to cancel the task before it runs
+     */
+    public TimerWheel.Timeout schedule(Runnable task, long delayMillis) {
+        return timer.schedule(() -> orchestrationExecutor.execute(task), delayMillis);
+    }
+    
+    /**
+     * Stop and fail an execution if it has not finished by its deadline, counted from its
+     * start time; a resumed execution only gets the time it has left
+     * @param execution the execution, about to be run
+     */
+    public void watchExecution(ProcessExecution execution) {
+        Long configured = execution.getProcessDefinition().getTimeoutMs();
+        long timeoutMillis = configured != null ? configured : defaultTimeoutMillis;
+        if (timeoutMillis <= 0 || execution.isDone()) {
+            return;
+        }
+        
+        long remainingMillis = timeoutMillis - Duration.between(execution.getStartTime(), Instant.now()).toMillis();
+        TimerWheel.Timeout timeout = schedule(() -> {
+            if (execution.timeOut("Process timed out after " + timeoutMillis + " ms")) {
+                executionsTimedOut.increment();
+                logger.warn("Execution {} of process {} timed out after {} ms",
+                        execution.getExecutionId(), execution.getProcessId(), timeoutMillis);
+            }
+        }, remainingMillis);
+        execution.getCompletion().whenComplete((result, error) -> timeout.cancel());
+    }
+    
+    /**
+     * Get the deadline statistics
+     * @return timed out and cancelled nodes, timed out executions and pending deadlines
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("nodesTimedOut", nodesTimedOut.sum());
+        metrics.put("nodesCancelled", nodesCancelled.sum());
+        metrics.put("executionsTimedOut", executionsTimedOut.sum());
+        metrics.put("pendingDeadlines", timer.getPendingCount());
+        return metrics;
+    }
+}
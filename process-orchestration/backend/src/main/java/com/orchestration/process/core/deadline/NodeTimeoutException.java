@@ -0,0 +1,12 @@
+package com.orchestration.process.core.deadline;
+
+/**
+ * Failure of a node that did not finish within its timeout.
+ */
+public class NodeTimeoutException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    
+    public NodeTimeoutException(String nodeId, long timeoutMillis) {
+        super("Node " + nodeId + " timed out after " + timeoutMillis + " ms");
+    }
+}
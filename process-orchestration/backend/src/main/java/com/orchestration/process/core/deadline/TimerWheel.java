@@ -0,0 +1,275 @@
+package com.orchestration.process.core.deadline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hashed timer wheel for deadlines that almost always get cancelled before they expire.
+ * Timeouts are hashed by their expiry tick into a ring of buckets that a single thread
+ * visits once per tick, so scheduling and cancelling are constant time and never contend
+ * on a shared heap; the price is that a timeout fires up to one tick late.
+ * <p>
+ * New and cancelled timeouts are handed to the timer thread through lock-free queues and
+ * only the timer thread touches the buckets. Tasks run on the timer thread and must be
+ * short: hand longer work to an executor.
+ */
+public class TimerWheel {
+    private static final Logger logger = LoggerFactory.getLogger(TimerWheel.class);
+    // Timeouts moved into buckets per tick, so a burst of new ones cannot stall expiry
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+    
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick;
+    
+    /**
+     * Create a timer wheel and start its thread
+     * @param name the name of the timer thread
+     * @param tickMillis the duration of one tick, the timer's resolution
+     * @param wheelSize the number of buckets, rounded up to a power of two
+     * @throws IllegalArgumentException if the tick or the wheel size is not positive
+     */
+    public TimerWheel(String name, long tickMillis, int wheelSize) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick must be at least 1 ms: " + tickMillis);
+        }
+        if (wheelSize < 1 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("Wheel size must be between 1 and 2^30: " + wheelSize);
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    /**
+     * Run a task once a delay has elapsed, unless the returned timeout is cancelled first
+     * @param task the task, run on the timer thread
+     * @param delayMillis the delay
+     * @return the timeout
+     * @throws IllegalStateException if the timer has been stopped
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        if (!running) {
+            throw new IllegalStateException("Timer has been stopped");
+        }
+        long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(this, task, deadline);
+        pendingCount.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+    
+    /**
+     * Stop the timer thread; pending timeouts never fire
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Get the number of timeouts that have neither fired nor been cancelled
+     * @return the pending timeout count
+     */
+    public long getPendingCount() {
+        return pendingCount.get();
+    }
+    
+    /**
+     * Get the number of timeouts that have fired
+     * @return the expired timeout count
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+    
+    private void run() {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+            
+            removeCancelled();
+            transferScheduled();
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+    
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+    
+    private void transferScheduled() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = scheduled.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state != Timeout.PENDING) {
+                continue;
+            }
+            
+            long expiryTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+            // A timeout already due goes into the current bucket and fires this tick
+            wheel[(int) (Math.max(expiryTick, tick) & mask)].add(timeout);
+        }
+    }
+    
+    /**
+     * A scheduled task, which can be cancelled until it fires
+     */
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+        
+        private final TimerWheel timer;
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state = PENDING;
+        // Only used by the timer thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout previous;
+        
+        private Timeout(TimerWheel timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+        
+        /**
+         * Cancel the timeout
+         * @return true if this call cancelled it, false if it had fired or was cancelled
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            timer.pendingCount.decrementAndGet();
+            timer.cancelled.add(this);
+            return true;
+        }
+        
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+        
+        private void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                return;
+            }
+            timer.pendingCount.decrementAndGet();
+            timer.expiredCount.incrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Timer task failed", e);
+            }
+        }
+    }
+    
+    /**
+     * Doubly linked list of the timeouts hashed to one slot of the wheel
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+        
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+        
+        /**
+         * Fire the timeouts of this slot that are due in the current round
+         */
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.state == Timeout.CANCELLED) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    // Placed in this slot by its expiry tick, so its deadline falls in this tick
+                    remove(timeout);
+                    timeout.expire();
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+        
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            } else {
+                tail = timeout.previous;
+            }
+            timeout.next = null;
+            timeout.previous = null;
+            timeout.bucket = null;
+        }
+    }
+}
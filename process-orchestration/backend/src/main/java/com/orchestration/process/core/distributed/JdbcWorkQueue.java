@@ -0,0 +1,220 @@
+package com.orchestration.process.core.distributed;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Work queue kept in a table of the application database.
+ * Every instance connected to the same database shares the queue; with the default
+ * embedded H2 database, that is the instances of one machine running in H2's mixed mode,
+ * or the several workers of a single instance. Each change is a single conditional
+ * statement, so instances need no locks: an item is claimed by the update that moves it
+ * from READY to CLAIMED, and settled only by the update matching its worker and delivery.
+ * <p>
+ * Leases expire by the wall clock of the instance that checks them, so the clocks of the
+ * instances must agree to well within the lease time.
+ */
+@Component
+public class JdbcWorkQueue implements WorkQueue {
+    private static final String TABLE = "process_work_item";
+    private static final String COLUMNS = "id, coordinator_id, execution_id, process_id, process_version, node_ordinal,"
+            + " inputs, state, worker_id, deliveries, node_result, node_error, error_types";
+    
+    private static final RowMapper<WorkItem> ROW_MAPPER = (rs, rowNum) -> new WorkItem(
+            rs.getLong("id"),
+            rs.getString("coordinator_id"),
+            rs.getLong("execution_id"),
+            rs.getLong("process_id"),
+            rs.getLong("process_version"),
+            rs.getInt("node_ordinal"),
+            rs.getString("inputs"),
+            WorkItem.State.valueOf(rs.getString("state")),
+            rs.getString("worker_id"),
+            rs.getInt("deliveries"),
+            rs.getString("node_result"),
+            rs.getString("node_error"),
+            rs.getString("error_types"));
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    
+    @Autowired
+    public JdbcWorkQueue(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+    
+    @PostConstruct
+    public void createTable() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+                + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "coordinator_id VARCHAR(255) NOT NULL, "
+                + "execution_id BIGINT NOT NULL, "
+                + "process_id BIGINT NOT NULL, "
+                + "process_version BIGINT NOT NULL, "
+                + "node_ordinal INT NOT NULL, "
+                + "inputs CLOB, "
+                + "state VARCHAR(16) NOT NULL, "
+                + "worker_id VARCHAR(255), "
+                + "deliveries INT NOT NULL, "
+                + "lease_expires_at BIGINT, "
+                + "node_result CLOB, "
+                + "node_error CLOB, "
+                + "error_types CLOB, "
+                + "updated_at BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + TABLE + "_state ON " + TABLE + " (state, id)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + TABLE + "_coordinator ON " + TABLE + " (coordinator_id, state)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + TABLE + "_worker ON " + TABLE + " (worker_id, state)");
+    }
+    
+    @Override
+    public long publish(WorkItem item) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement("INSERT INTO " + TABLE
+                    + " (coordinator_id, execution_id, process_id, process_version, node_ordinal, inputs, state,"
+                    + " deliveries, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?)", new String[] {"id"});
+            statement.setString(1, item.getCoordinatorId());
+            statement.setLong(2, item.getExecutionId());
+            statement.setLong(3, item.getProcessId());
+            statement.setLong(4, item.getProcessVersion());
+            statement.setInt(5, item.getNodeOrdinal());
+            statement.setString(6, item.getInputs());
+            statement.setString(7, WorkItem.State.READY.name());
+            statement.setLong(8, System.currentTimeMillis());
+            return statement;
+        }, keyHolder);
+        return Objects.requireNonNull(keyHolder.getKey(), "No ID generated for work item").longValue();
+    }
+    
+    @Override
+    public List<WorkItem> claim(String workerId, int maxItems, long leaseMillis) {
+        // Read more candidates than needed, since other workers may claim some of them first
+        List<WorkItem> candidates = jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + TABLE
+                + " WHERE state = 'READY' ORDER BY id FETCH FIRST ? ROWS ONLY", ROW_MAPPER, maxItems * 2);
+        
+        List<WorkItem> claimed = new ArrayList<>(Math.min(maxItems, candidates.size()));
+        long now = System.currentTimeMillis();
+        for (WorkItem candidate : candidates) {
+            if (claimed.size() == maxItems) {
+                break;
+            }
+            int updated = jdbcTemplate.update("UPDATE " + TABLE + " SET state = 'CLAIMED', worker_id = ?,"
+                            + " deliveries = deliveries + 1, lease_expires_at = ?, updated_at = ?"
+                            + " WHERE id = ? AND state = 'READY'",
+                    workerId, now + leaseMillis, now, candidate.getId());
+            if (updated == 1) {
+                claimed.add(new WorkItem(candidate.getId(), candidate.getCoordinatorId(), candidate.getExecutionId(),
+                        candidate.getProcessId(), candidate.getProcessVersion(), candidate.getNodeOrdinal(),
+                        candidate.getInputs(), WorkItem.State.CLAIMED, workerId, candidate.getDeliveries() + 1,
+                        null, null, null));
+            }
+        }
+        return claimed;
+    }
+    
+    @Override
+    public Set<Long> renew(String workerId, long leaseMillis) {
+        long now = System.currentTimeMillis();
+        jdbcTemplate.update("UPDATE " + TABLE + " SET lease_expires_at = ? WHERE worker_id = ? AND state = 'CLAIMED'",
+                now + leaseMillis, workerId);
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM " + TABLE
+                + " WHERE worker_id = ? AND state = 'CLAIMED'", Long.class, workerId));
+    }
+    
+    @Override
+    public boolean complete(WorkItem item, String result) {
+        return settle(item, WorkItem.State.COMPLETED, result, null, null);
+    }
+    
+    @Override
+    public boolean fail(WorkItem item, String error, String errorTypes) {
+        return settle(item, WorkItem.State.FAILED, null, error, errorTypes);
+    }
+    
+    private boolean settle(WorkItem item, WorkItem.State state, String result, String error, String errorTypes) {
+        return jdbcTemplate.update("UPDATE " + TABLE + " SET state = ?, node_result = ?, node_error = ?,"
+                        + " error_types = ?, lease_expires_at = NULL, updated_at = ?"
+                        + " WHERE id = ? AND worker_id = ? AND deliveries = ? AND state = 'CLAIMED'",
+                state.name(), result, error, errorTypes, System.currentTimeMillis(),
+                item.getId(), item.getWorkerId(), item.getDeliveries()) == 1;
+    }
+    
+    @Override
+    public int release(String workerId) {
+        return jdbcTemplate.update("UPDATE " + TABLE + " SET state = 'READY', worker_id = NULL,"
+                        + " lease_expires_at = NULL, updated_at = ? WHERE worker_id = ? AND state = 'CLAIMED'",
+                System.currentTimeMillis(), workerId);
+    }
+    
+    @Override
+    public int reclaimExpired(int maxDeliveries) {
+        long now = System.currentTimeMillis();
+        int failed = jdbcTemplate.update("UPDATE " + TABLE + " SET state = 'FAILED',"
+                        + " node_error = 'Worker lease expired on each of ' || deliveries || ' deliveries',"
+                        + " error_types = '', lease_expires_at = NULL, updated_at = ?"
+                        + " WHERE state = 'CLAIMED' AND lease_expires_at < ? AND deliveries >= ?",
+                now, now, maxDeliveries);
+        // Fenced by the deliveries too: an item claimed between the two updates waits for the next reclaim
+        int requeued = jdbcTemplate.update("UPDATE " + TABLE + " SET state = 'READY', worker_id = NULL,"
+                        + " lease_expires_at = NULL, updated_at = ?"
+                        + " WHERE state = 'CLAIMED' AND lease_expires_at < ? AND deliveries < ?",
+                now, now, maxDeliveries);
+        return failed + requeued;
+    }
+    
+    @Override
+    public List<WorkItem> findSettled(String coordinatorId) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + TABLE
+                + " WHERE coordinator_id = ? AND state IN ('COMPLETED', 'FAILED')", ROW_MAPPER, coordinatorId);
+    }
+    
+    @Override
+    public void delete(Collection<Long> itemIds) {
+        if (!itemIds.isEmpty()) {
+            namedJdbcTemplate.update("DELETE FROM " + TABLE + " WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", itemIds));
+        }
+    }
+    
+    @Override
+    public int deleteAll(String coordinatorId) {
+        return jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE coordinator_id = ?", coordinatorId);
+    }
+    
+    @Override
+    public int deleteSettled(long ageMillis) {
+        return jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE state IN ('COMPLETED', 'FAILED') AND updated_at < ?",
+                System.currentTimeMillis() - ageMillis);
+    }
+    
+    @Override
+    public Map<WorkItem.State, Long> countByState() {
+        Map<WorkItem.State, Long> counts = new EnumMap<>(WorkItem.State.class);
+        for (WorkItem.State state : WorkItem.State.values()) {
+            counts.put(state, 0L);
+        }
+        jdbcTemplate.query("SELECT state, COUNT(*) AS items FROM " + TABLE + " GROUP BY state",
+                rs -> {
+                    counts.put(WorkItem.State.valueOf(rs.getString("state")), rs.getLong("items"));
+                });
+        return counts;
+    }
+}
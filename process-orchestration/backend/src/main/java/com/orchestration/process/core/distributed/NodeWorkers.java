@@ -0,0 +1,354 @@
+package com.orchestration.process.core.distributed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.impl.ExecutionPlan;
+import com.orchestration.process.core.impl.ExecutionPlanCache;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.service.ProcessDefinitionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * The workers of this instance, running nodes claimed from the {@link WorkQueue}.
+ * There are {@code process.distributed.workers} of them, each with an ID of its own and
+ * up to {@code process.distributed.worker-concurrency} nodes running, so one instance
+ * can stand in for several when trying distributed execution locally. Workers claim
+ * nodes of any instance's executions every {@code process.distributed.poll-ms}, or right
+ * away when a node is published or finished on this instance, and run them with the
+ * executors of the definition's cached {@link ExecutionPlan}.
+ * <p>
+ * Every {@code process.distributed.heartbeat-ms} the workers renew the leases of their
+ * running nodes and cancel the nodes whose lease they lost, e.g. because the coordinator
+ * cancelled them; they also make the nodes of workers whose leases expired, e.g. because
+ * their instance died, READY again. Stopping the application releases the running nodes
+ * to other instances at once.
+ */
+@Component
+public class NodeWorkers {
+    private static final Logger logger = LoggerFactory.getLogger(NodeWorkers.class);
+    private static final TypeReference<Map<String, Object>> INPUTS_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+    
+    private final WorkQueue queue;
+    private final ProcessDefinitionService processDefinitionService;
+    private final ExecutionPlanCache executionPlanCache;
+    private final ObjectMapper objectMapper;
+    private final Executor orchestrationExecutor;
+    private final String instanceId;
+    private final int workerCount;
+    private final int concurrency;
+    private final long leaseMillis;
+    private final long heartbeatMillis;
+    private final long pollMillis;
+    private final int maxDeliveries;
+    private final long settledRetentionMillis;
+    private final List<Worker> workers = new ArrayList<>();
+    private final List<Consumer<String>> settledListeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean pollScheduled = new AtomicBoolean();
+    private final LongAdder nodesClaimed = new LongAdder();
+    private final LongAdder nodesCompleted = new LongAdder();
+    private final LongAdder nodesFailed = new LongAdder();
+    private final LongAdder leasesLost = new LongAdder();
+    private final LongAdder leasesReclaimed = new LongAdder();
+    private ScheduledExecutorService scheduler;
+    
+    @Autowired
+    public NodeWorkers(
+            WorkQueue queue,
+            ProcessDefinitionService processDefinitionService,
+            ExecutionPlanCache executionPlanCache,
+            ObjectMapper objectMapper,
+            ExecutorPoolRegistry executorPools,
+            @Value("${process.distributed.instance-id:}") String instanceId,
+            @Value("${process.distributed.workers:2}") int workerCount,
+            @Value("${process.distributed.worker-concurrency:16}") int concurrency,
+            @Value("${process.distributed.lease-ms:10000}") long leaseMillis,
+            @Value("${process.distributed.heartbeat-ms:2000}") long heartbeatMillis,
+            @Value("${process.distributed.poll-ms:50}") long pollMillis,
+            @Value("${process.distributed.max-deliveries:3}") int maxDeliveries,
+            @Value("${process.distributed.settled-retention-ms:600000}") long settledRetentionMillis) {
+        if (heartbeatMillis >= leaseMillis) {
+            throw new IllegalArgumentException("Worker heartbeat (" + heartbeatMillis
+                    + " ms) must be shorter than the lease (" + leaseMillis + " ms)");
+        }
+        this.queue = queue;
+        this.processDefinitionService = processDefinitionService;
+        this.executionPlanCache = executionPlanCache;
+        this.objectMapper = objectMapper;
+        this.orchestrationExecutor = executorPools.getOrchestrationExecutor();
+        this.instanceId = instanceId.isEmpty() ? UUID.randomUUID().toString() : instanceId;
+        this.workerCount = workerCount;
+        this.concurrency = concurrency;
+        this.leaseMillis = leaseMillis;
+        this.heartbeatMillis = heartbeatMillis;
+        this.pollMillis = pollMillis;
+        this.maxDeliveries = maxDeliveries;
+        this.settledRetentionMillis = settledRetentionMillis;
+    }
+    
+    @PostConstruct
+    public void start() {
+        for (int i = 1; i <= workerCount; i++) {
+            workers.add(new Worker(instanceId + "-worker-" + i));
+        }
+        
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "node-workers");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!workers.isEmpty()) {
+            scheduler.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        }
+        // Any instance reclaims expired leases, also one only coordinating
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        logger.info("Started {} node workers of instance {}", workers.size(), instanceId);
+    }
+    
+    /**
+     * Stop claiming nodes and release the running ones to the workers of other instances.
+     * Runs as soon as the application starts shutting down, before the executor pools do
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        for (Worker worker : workers) {
+            if (worker.running.isEmpty()) {
+                continue;
+            }
+            // Nodes failed by the shutdown of the pools must not settle their items
+            worker.running.clear();
+            try {
+                int released = queue.release(worker.workerId);
+                if (released > 0) {
+                    logger.info("Worker {} released {} nodes", worker.workerId, released);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Worker {} could not release its nodes, they are reclaimed once their leases expire: {}",
+                        worker.workerId, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Get the ID this instance is known by in the work queue
+     * @return the instance ID
+     */
+    public String getInstanceId() {
+        return instanceId;
+    }
+    
+    /**
+     * Look for READY nodes now rather than at the next poll, e.g. after publishing one
+     */
+    public void wake() {
+        if (!workers.isEmpty() && pollScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::poll);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                pollScheduled.set(false);
+            }
+        }
+    }
+    
+    /**
+     * Register a listener notified with the coordinator ID of every node a worker of this
+     * instance has settled
+     * @param listener the listener
+     */
+    public void addSettledListener(Consumer<String> listener) {
+        settledListeners.add(listener);
+    }
+    
+    /**
+     * Get the worker statistics
+     * @return workers, running, claimed, completed and failed nodes, and lost and
+     *         reclaimed leases
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("instanceId", instanceId);
+        metrics.put("workers", workers.size());
+        metrics.put("runningNodes", workers.stream().mapToInt(worker -> worker.running.size()).sum());
+        metrics.put("nodesClaimed", nodesClaimed.sum());
+        metrics.put("nodesCompleted", nodesCompleted.sum());
+        metrics.put("nodesFailed", nodesFailed.sum());
+        metrics.put("leasesLost", leasesLost.sum());
+        metrics.put("leasesReclaimed", leasesReclaimed.sum());
+        return metrics;
+    }
+    
+    private void poll() {
+        pollScheduled.set(false);
+        for (Worker worker : workers) {
+            int free = concurrency - worker.running.size();
+            if (free <= 0) {
+                continue;
+            }
+            try {
+                for (WorkItem item : queue.claim(worker.workerId, free, leaseMillis)) {
+                    nodesClaimed.increment();
+                    worker.run(item);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Worker {} could not claim nodes", worker.workerId, e);
+            }
+        }
+    }
+    
+    private void heartbeat() {
+        for (Worker worker : workers) {
+            if (worker.running.isEmpty()) {
+                continue;
+            }
+            try {
+                Set<Long> held = queue.renew(worker.workerId, leaseMillis);
+                worker.running.forEach((itemId, future) -> {
+                    if (!held.contains(itemId) && worker.running.remove(itemId, future)) {
+                        leasesLost.increment();
+                        logger.info("Worker {} lost the lease of item {}, cancelling its node", worker.workerId, itemId);
+                        future.cancel(true);
+                    }
+                });
+            } catch (RuntimeException e) {
+                logger.error("Worker {} could not renew its leases", worker.workerId, e);
+            }
+        }
+        
+        try {
+            int reclaimed = queue.reclaimExpired(maxDeliveries);
+            if (reclaimed > 0) {
+                leasesReclaimed.add(reclaimed);
+                logger.warn("Reclaimed {} nodes whose worker leases expired", reclaimed);
+                wake();
+            }
+            queue.deleteSettled(settledRetentionMillis);
+        } catch (RuntimeException e) {
+            logger.error("Expired leases could not be reclaimed", e);
+        }
+    }
+    
+    /**
+     * One worker: its ID in the queue and the futures of its running nodes
+     */
+    private class Worker {
+        private final String workerId;
+        private final Map<Long, CompletableFuture<Object>> running = new ConcurrentHashMap<>();
+        
+        Worker(String workerId) {
+            this.workerId = workerId;
+        }
+        
+        /**
+         * Start a claimed node, and settle its item once the node has run
+         * @param item the claimed item
+         */
+        void run(WorkItem item) {
+            CompletableFuture<Object> future;
+            try {
+                future = start(item);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            CompletableFuture<Object> node = future;
+            running.put(item.getId(), node);
+            node.whenCompleteAsync((result, error) -> {
+                // A node whose lease was lost has already been forgotten
+                if (running.remove(item.getId(), node)) {
+                    settle(item, result, error);
+                }
+            }, orchestrationExecutor);
+        }
+        
+        private CompletableFuture<Object> start(WorkItem item) {
+            ProcessDefinition processDefinition =
+                    processDefinitionService.getProcessDefinition(item.getProcessId(), item.getProcessVersion());
+            if (processDefinition == null) {
+                throw new IllegalArgumentException("Process definition not found: " + item.getProcessId());
+            }
+            if (processDefinition.getVersion() != item.getProcessVersion()) {
+                throw new IllegalStateException("Process " + item.getProcessId() + " was updated from version "
+                        + item.getProcessVersion() + " to " + processDefinition.getVersion());
+            }
+            
+            ExecutionPlan plan = executionPlanCache.getPlan(processDefinition);
+            int ordinal = item.getNodeOrdinal();
+            if (ordinal < 0 || ordinal >= plan.size()) {
+                throw new IllegalArgumentException("Process " + item.getProcessId() + " has no node " + ordinal);
+            }
+            ProcessNodeExecutor executor = plan.getExecutor(ordinal);
+            if (executor == null) {
+                throw new IllegalStateException("No executor found for node type: " + plan.getNode(ordinal).getType());
+            }
+            
+            Map<String, Object> inputs;
+            try {
+                inputs = objectMapper.readValue(item.getInputs(), INPUTS_TYPE);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Invalid inputs of item " + item.getId() + ": " + e.getMessage());
+            }
+            plan.recordDispatch(ordinal);
+            return executor.execute(plan.getNode(ordinal), NodeExecutionContext.of(inputs));
+        }
+        
+        private void settle(WorkItem item, Object result, Throwable error) {
+            Throwable failure = error != null ? RemoteNodeException.unwrap(error) : null;
+            String json = null;
+            if (failure == null) {
+                try {
+                    json = objectMapper.writeValueAsString(result);
+                } catch (JsonProcessingException e) {
+                    failure = new IllegalStateException("Result cannot be serialized: " + e.getOriginalMessage(), e);
+                }
+            }
+            
+            try {
+                boolean settled = failure == null
+                        ? queue.complete(item, json)
+                        : queue.fail(item, RemoteNodeException.messageOf(failure), RemoteNodeException.typesOf(failure));
+                if (!settled) {
+                    logger.info("Worker {} no longer holds item {}, dropping its outcome", workerId, item.getId());
+                } else {
+                    (failure == null ? nodesCompleted : nodesFailed).increment();
+                    settledListeners.forEach(listener -> listener.accept(item.getCoordinatorId()));
+                }
+            } catch (RuntimeException e) {
+                logger.error("Worker {} could not settle item {}", workerId, item.getId(), e);
+            }
+            wake();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.orchestration.process.core.distributed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.model.ProcessNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the nodes of this instance's executions on the workers of any instance.
+ * {@link #getRemoteExecutor()} publishes each node it is asked to execute to the
+ * {@link WorkQueue}, with its inputs, and returns a future that is settled once a worker
+ * has settled the item and this instance has collected it: every
+ * {@code process.distributed.poll-ms}, or right away when a worker of this instance
+ * settled it. Results and inputs cross instances as JSON, so nodes get and produce JSON
+ * types, e.g. a Double result may come back as an Integer.
+ * <p>
+ * Cancelling the future, e.g. because the node timed out or its execution was stopped,
+ * deletes the item, so no worker claims it and the worker running it loses its lease.
+ * On start, the items this instance published before a restart are deleted; its resumed
+ * executions publish their unfinished nodes again.
+ */
+@Component
+public class RemoteNodeDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteNodeDispatcher.class);
+    
+    private final WorkQueue queue;
+    private final NodeWorkers workers;
+    private final ObjectMapper objectMapper;
+    private final long pollMillis;
+    private final String coordinatorId;
+    private final ProcessNodeExecutor remoteExecutor = new RemoteNodeExecutor();
+    // Futures of the published nodes, by item ID
+    private final Map<Long, CompletableFuture<Object>> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean collectScheduled = new AtomicBoolean();
+    private final LongAdder nodesPublished = new LongAdder();
+    private final LongAdder nodesCompleted = new LongAdder();
+    private final LongAdder nodesFailed = new LongAdder();
+    private final LongAdder nodesCancelled = new LongAdder();
+    private ScheduledExecutorService scheduler;
+    
+    @Autowired
+    public RemoteNodeDispatcher(
+            WorkQueue queue,
+            NodeWorkers workers,
+            ObjectMapper objectMapper,
+            @Value("${process.distributed.poll-ms:50}") long pollMillis) {
+        this.queue = queue;
+        this.workers = workers;
+        this.objectMapper = objectMapper;
+        this.pollMillis = pollMillis;
+        this.coordinatorId = workers.getInstanceId();
+    }
+    
+    @PostConstruct
+    public void start() {
+        int stale = queue.deleteAll(coordinatorId);
+        if (stale > 0) {
+            logger.info("Deleted {} work items published before the restart of instance {}", stale, coordinatorId);
+        }
+        
+        workers.addSettledListener(settledCoordinatorId -> {
+            if (coordinatorId.equals(settledCoordinatorId)) {
+                collectSoon();
+            }
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "node-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::collect, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    /**
+     * Get the executor running nodes on the workers. It runs any node type; the workers
+     * resolve the executor from the node's definition
+     * @return the remote executor
+     */
+    public ProcessNodeExecutor getRemoteExecutor() {
+        return remoteExecutor;
+    }
+    
+    /**
+     * Get the dispatcher statistics
+     * @return published nodes waiting for a worker or running, and completed, failed and
+     *         cancelled nodes
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pendingNodes", pending.size());
+        metrics.put("nodesPublished", nodesPublished.sum());
+        metrics.put("nodesCompleted", nodesCompleted.sum());
+        metrics.put("nodesFailed", nodesFailed.sum());
+        metrics.put("nodesCancelled", nodesCancelled.sum());
+        return metrics;
+    }
+    
+    /**
+     * Publish a node of an execution
+     * @param execution the execution
+     * @param node the node
+     * @param context the node's inputs
+     * @return the future settled with the outcome reported by the worker
+     */
+    private CompletableFuture<Object> dispatch(ProcessExecution execution, ProcessNode node, NodeExecutionContext context) {
+        String inputs;
+        try {
+            inputs = objectMapper.writeValueAsString(context.getInputs());
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "Inputs of node " + node.getNodeId() + " cannot be serialized: " + e.getOriginalMessage()));
+        }
+        
+        long itemId = queue.publish(WorkItem.ready(coordinatorId, execution.getExecutionId(), execution.getProcessId(),
+                execution.getProcessDefinition().getVersion(), execution.ordinalOf(node.getNodeId()), inputs));
+        nodesPublished.increment();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        pending.put(itemId, future);
+        future.whenComplete((result, error) -> {
+            // Settled here rather than by a worker: withdraw the item
+            if (pending.remove(itemId) != null) {
+                nodesCancelled.increment();
+                try {
+                    queue.delete(Collections.singleton(itemId));
+                } catch (RuntimeException e) {
+                    logger.warn("Work item {} of node {} could not be deleted", itemId, node.getNodeId(), e);
+                }
+            }
+        });
+        workers.wake();
+        return future;
+    }
+    
+    private void collectSoon() {
+        if (collectScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::collect);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                collectScheduled.set(false);
+            }
+        }
+    }
+    
+    /**
+     * Settle the futures of the items workers have settled
+     */
+    private void collect() {
+        collectScheduled.set(false);
+        if (pending.isEmpty()) {
+            return;
+        }
+        
+        List<WorkItem> settled;
+        try {
+            settled = queue.findSettled(coordinatorId);
+        } catch (RuntimeException e) {
+            logger.error("Settled work items could not be collected", e);
+            return;
+        }
+        
+        // Items published but not yet registered as pending are left for the next collection
+        List<Long> collected = new ArrayList<>(settled.size());
+        for (WorkItem item : settled) {
+            CompletableFuture<Object> future = pending.remove(item.getId());
+            if (future == null) {
+                continue;
+            }
+            collected.add(item.getId());
+            if (item.getState() == WorkItem.State.COMPLETED) {
+                nodesCompleted.increment();
+                try {
+                    future.complete(item.getResult() != null ? objectMapper.readValue(item.getResult(), Object.class) : null);
+                } catch (JsonProcessingException e) {
+                    future.completeExceptionally(new IllegalStateException(
+                            "Invalid result of item " + item.getId() + ": " + e.getOriginalMessage()));
+                }
+            } else {
+                nodesFailed.increment();
+                future.completeExceptionally(new RemoteNodeException(item.getError(), item.getErrorTypes()));
+            }
+        }
+        
+        try {
+            queue.delete(collected);
+        } catch (RuntimeException e) {
+            logger.warn("Collected work items could not be deleted", e);
+        }
+    }
+    
+    /**
+     * Executor publishing the nodes it runs
+     */
+    private class RemoteNodeExecutor implements ProcessNodeExecutor {
+        @Override
+        public boolean canExecute(String nodeType) {
+            return true;
+        }
+        
+        @Override
+        public Set<String> getNodeTypes() {
+            return Collections.emptySet();
+        }
+        
+        @Override
+        public CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context) {
+            ProcessExecution execution = context.getExecution();
+            if (execution == null) {
+                throw new IllegalStateException("Node " + node.getNodeId() + " has no execution to run remotely for");
+            }
+            return dispatch(execution, node, context);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.orchestration.process.core.distributed;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A node failed on the worker that claimed it from the {@link WorkQueue}.
+ * The worker's exception does not cross instances; this one keeps its message and the
+ * names of the classes it and its causes are instances of, so retry policies can still
+ * tell a remote IOException from any other failure.
+ */
+public class RemoteNodeException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+    private final Set<String> errorTypes;
+    
+    /**
+     * Create the exception for a failed item
+     * @param message the worker's failure message
+     * @param errorTypes the comma separated class names recorded by the worker, or null
+     */
+    public RemoteNodeException(String message, String errorTypes) {
+        super(message);
+        this.errorTypes = errorTypes == null || errorTypes.isEmpty()
+                ? Collections.emptySet()
+                : new LinkedHashSet<>(Arrays.asList(errorTypes.split(",")));
+    }
+    
+    /**
+     * Check whether the remote failure or one of its causes was an instance of a class
+     * @param type the class
+     * @return true if the class, or a class extending it, was recorded
+     */
+    public boolean isInstanceOf(Class<?> type) {
+        return errorTypes.contains(type.getName());
+    }
+    
+    /**
+     * Unwrap the failure of a node's future
+     * @param error the failure
+     * @return the failure the executor reported
+     */
+    static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+    
+    /**
+     * Describe a failure for the queue
+     * @param error the unwrapped failure
+     * @return the failure message
+     */
+    static String messageOf(Throwable error) {
+        return error.getMessage() != null ? error.getMessage() : error.toString();
+    }
+    
+    /**
+     * List the classes a failure and its causes are instances of, up to {@link Throwable}
+     * @param error the unwrapped failure
+     * @return the class names, comma separated
+     */
+    static String typesOf(Throwable error) {
+        Set<String> types = new LinkedHashSet<>();
+        for (Throwable cause = error; cause != null; cause = cause.getCause() != cause ? cause.getCause() : null) {
+            for (Class<?> type = cause.getClass(); type != null && type != Throwable.class; type = type.getSuperclass()) {
+                types.add(type.getName());
+            }
+        }
+        return String.join(",", types);
+    }
+}
@@ -0,0 +1,133 @@
+package com.orchestration.process.core.distributed;
+
+/**
+ * A node of an execution published to the {@link WorkQueue}.
+ * The item names the node by process, definition version and ordinal, and carries the
+ * node's inputs as JSON, so any instance can run it from its own copy of the definition.
+ * Once claimed, it is leased to one worker; the delivery count tells the claims of one
+ * item apart, so a worker that lost its lease cannot settle a later claim.
+ */
+public class WorkItem {
+    private final long id;
+    private final String coordinatorId;
+    private final long executionId;
+    private final long processId;
+    private final long processVersion;
+    private final int nodeOrdinal;
+    private final String inputs;
+    private final State state;
+    private final String workerId;
+    private final int deliveries;
+    private final String result;
+    private final String error;
+    private final String errorTypes;
+    
+    WorkItem(long id, String coordinatorId, long executionId, long processId, long processVersion, int nodeOrdinal,
+             String inputs, State state, String workerId, int deliveries, String result, String error,
+             String errorTypes) {
+        this.id = id;
+        this.coordinatorId = coordinatorId;
+        this.executionId = executionId;
+        this.processId = processId;
+        this.processVersion = processVersion;
+        this.nodeOrdinal = nodeOrdinal;
+        this.inputs = inputs;
+        this.state = state;
+        this.workerId = workerId;
+        this.deliveries = deliveries;
+        this.result = result;
+        this.error = error;
+        this.errorTypes = errorTypes;
+    }
+    
+    /**
+     * Create an item to publish
+     * @param coordinatorId the ID of the instance running the execution
+     * @param executionId the ID of the execution
+     * @param processId the ID of the process definition
+     * @param processVersion the version of the definition the execution runs
+     * @param nodeOrdinal the node's ordinal
+     * @param inputs the node's inputs as a JSON object
+     * @return the item, READY and not yet delivered
+     */
+    public static WorkItem ready(String coordinatorId, long executionId, long processId, long processVersion,
+                                 int nodeOrdinal, String inputs) {
+        return new WorkItem(0, coordinatorId, executionId, processId, processVersion, nodeOrdinal, inputs,
+                State.READY, null, 0, null, null, null);
+    }
+    
+    public long getId() {
+        return id;
+    }
+    
+    public String getCoordinatorId() {
+        return coordinatorId;
+    }
+    
+    public long getExecutionId() {
+        return executionId;
+    }
+    
+    public long getProcessId() {
+        return processId;
+    }
+    
+    public long getProcessVersion() {
+        return processVersion;
+    }
+    
+    public int getNodeOrdinal() {
+        return nodeOrdinal;
+    }
+    
+    public String getInputs() {
+        return inputs;
+    }
+    
+    public State getState() {
+        return state;
+    }
+    
+    public String getWorkerId() {
+        return workerId;
+    }
+    
+    /**
+     * Get the number of times the item was claimed
+     * @return the delivery count, 0 if the item was never claimed
+     */
+    public int getDeliveries() {
+        return deliveries;
+    }
+    
+    /**
+     * Get the node's result
+     * @return the result as JSON, or null if the item has not completed
+     */
+    public String getResult() {
+        return result;
+    }
+    
+    /**
+     * Get the failure of the node
+     * @return the failure message, or null if the item has not failed
+     */
+    public String getError() {
+        return error;
+    }
+    
+    /**
+     * Get the classes the node's failure and its causes are instances of
+     * @return comma separated class names, or null if the item has not failed
+     */
+    public String getErrorTypes() {
+        return errorTypes;
+    }
+    
+    public enum State {
+        READY,
+        CLAIMED,
+        COMPLETED,
+        FAILED
+    }
+}
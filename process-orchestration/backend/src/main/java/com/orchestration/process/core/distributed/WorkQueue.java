@@ -0,0 +1,108 @@
+package com.orchestration.process.core.distributed;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Queue of nodes shared by the instances of the application.
+ * A coordinator publishes the ready nodes of its executions; workers of any instance
+ * claim them under a lease, renew the leases of the nodes they are still running, and
+ * settle each claimed node with its result or failure, which the coordinator then
+ * collects. A worker that stops renewing loses its nodes: once their leases have expired
+ * they are made READY again for another worker, up to a number of deliveries.
+ * <p>
+ * Settling a node is fenced by the worker and the delivery it was claimed with, so a
+ * worker whose lease expired cannot overwrite the outcome of a later claim.
+ */
+public interface WorkQueue {
+    /**
+     * Publish a node
+     * @param item the item, from {@link WorkItem#ready}
+     * @return the ID of the published item
+     */
+    long publish(WorkItem item);
+    
+    /**
+     * Claim READY items, oldest first
+     * @param workerId the ID of the claiming worker
+     * @param maxItems the largest number of items to claim
+     * @param leaseMillis the time the items stay leased without being renewed
+     * @return the claimed items, with their new delivery count
+     */
+    List<WorkItem> claim(String workerId, int maxItems, long leaseMillis);
+    
+    /**
+     * Renew the leases of every item a worker holds
+     * @param workerId the ID of the worker
+     * @param leaseMillis the time the items stay leased from now
+     * @return the IDs of the items the worker still holds
+     */
+    Set<Long> renew(String workerId, long leaseMillis);
+    
+    /**
+     * Complete a claimed item
+     * @param item the item as it was claimed
+     * @param result the node's result as JSON
+     * @return false if the worker no longer holds the item
+     */
+    boolean complete(WorkItem item, String result);
+    
+    /**
+     * Fail a claimed item
+     * @param item the item as it was claimed
+     * @param error the failure message
+     * @param errorTypes the classes the failure and its causes are instances of, comma separated
+     * @return false if the worker no longer holds the item
+     */
+    boolean fail(WorkItem item, String error, String errorTypes);
+    
+    /**
+     * Make the items a worker holds READY again, e.g. because it is shutting down
+     * @param workerId the ID of the worker
+     * @return the number of released items
+     */
+    int release(String workerId);
+    
+    /**
+     * Make items whose lease has expired READY again, or fail them once they have been
+     * delivered the maximum number of times
+     * @param maxDeliveries the largest number of deliveries of an item
+     * @return the number of expired leases
+     */
+    int reclaimExpired(int maxDeliveries);
+    
+    /**
+     * Get the settled items of a coordinator
+     * @param coordinatorId the ID of the coordinator
+     * @return the COMPLETED and FAILED items
+     */
+    List<WorkItem> findSettled(String coordinatorId);
+    
+    /**
+     * Delete items, e.g. once they have been collected or their node was cancelled
+     * @param itemIds the IDs of the items
+     */
+    void delete(Collection<Long> itemIds);
+    
+    /**
+     * Delete every item of a coordinator
+     * @param coordinatorId the ID of the coordinator
+     * @return the number of deleted items
+     */
+    int deleteAll(String coordinatorId);
+    
+    /**
+     * Delete settled items their coordinator never collected
+     * @param ageMillis the time since the items were settled
+     * @return the number of deleted items
+     */
+    int deleteSettled(long ageMillis);
+    
+    /**
+     * Count the items by state
+     * @return the number of items per state
+     */
+    Map<WorkItem.State, Long> countByState();
+}
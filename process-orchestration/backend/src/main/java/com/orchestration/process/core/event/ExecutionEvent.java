@@ -0,0 +1,84 @@
+package com.orchestration.process.core.event;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * A node transition or the end of an execution, numbered in the order the execution
+ * reported it. Sequences start at 1 for each execution, so a client that has seen
+ * event N can ask for the events after N.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExecutionEvent {
+    private final long sequence;
+    private final Type type;
+    private final String nodeId;
+    private final String status;
+    private final Object result;
+    private final String error;
+    private final Instant timestamp;
+    
+    public ExecutionEvent(long sequence, Type type, String nodeId, String status, Object result, String error,
+                          Instant timestamp) {
+        this.sequence = sequence;
+        this.type = type;
+        this.nodeId = nodeId;
+        this.status = status;
+        this.result = result;
+        this.error = error;
+        this.timestamp = timestamp;
+    }
+    
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    /**
+     * Get the node the event is about
+     * @return the node ID, or null for EXECUTION_FINISHED
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    /**
+     * Get the status the node or, for EXECUTION_FINISHED, the execution moved to
+     * @return the status
+     */
+    public String getStatus() {
+        return status;
+    }
+    
+    public Object getResult() {
+        return result;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+    
+    public enum Type {
+        NODE_STARTED,
+        NODE_COMPLETED,
+        NODE_FAILED,
+        NODE_RETRYING,
+        EXECUTION_FINISHED;
+        
+        /**
+         * Get the name of the server-sent event carrying events of this type
+         * @return the event name, e.g. node-completed
+         */
+        public String getEventName() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.orchestration.process.core.event;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The most recent events of one execution, in a ring of at most {@code capacity}
+ * events. The ring starts small and grows with the execution, so small processes do
+ * not pay for the capacity of large ones. Readers that fall behind by more than the
+ * capacity lose the overwritten events and are told so by {@link #read(long, int)}.
+ */
+public class ExecutionEventLog {
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private final int capacity;
+    private ExecutionEvent[] events;
+    private long lastSequence;
+    private long finishedSequence;
+    
+    /**
+     * Create an empty event log
+     * @param capacity the number of events kept for readers
+     * @throws IllegalArgumentException if the capacity is less than 1
+     */
+    public ExecutionEventLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Event log capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.events = new ExecutionEvent[Math.min(INITIAL_CAPACITY, capacity)];
+    }
+    
+    /**
+     * Append an event, numbering it after the last one
+     * @param type the event type
+     * @param nodeId the node the event is about, or null
+     * @param status the new status of the node or execution
+     * @param result the node result, or null
+     * @param error the execution error, or null
+     * @param timestamp when the transition happened
+     * @return the appended event
+     */
+    public synchronized ExecutionEvent append(ExecutionEvent.Type type, String nodeId, String status, Object result,
+                                              String error, Instant timestamp) {
+        if (lastSequence == events.length && events.length < capacity) {
+            // Until the ring first fills, event N is at index N - 1 in both arrays
+            events = Arrays.copyOf(events, Math.min(events.length * 2, capacity));
+        }
+        
+        ExecutionEvent event = new ExecutionEvent(++lastSequence, type, nodeId, status, result, error, timestamp);
+        events[(int) ((lastSequence - 1) % events.length)] = event;
+        if (type == ExecutionEvent.Type.EXECUTION_FINISHED) {
+            finishedSequence = lastSequence;
+        }
+        return event;
+    }
+    
+    /**
+     * Read the events following a sequence
+     * @param afterSequence the sequence of the last event the reader has seen, 0 for none
+     * @param maxEvents the maximum number of events to return
+     * @return the events, oldest first, or null if some of the events following the
+     *         sequence have been overwritten
+     */
+    public synchronized List<ExecutionEvent> read(long afterSequence, int maxEvents) {
+        long oldestSequence = Math.max(1, lastSequence - events.length + 1);
+        if (afterSequence + 1 < oldestSequence) {
+            return null;
+        }
+        if (afterSequence >= lastSequence) {
+            return Collections.emptyList();
+        }
+        
+        long end = Math.min(lastSequence, afterSequence + maxEvents);
+        List<ExecutionEvent> read = new ArrayList<>((int) (end - afterSequence));
+        for (long sequence = afterSequence + 1; sequence <= end; sequence++) {
+            read.add(events[(int) ((sequence - 1) % events.length)]);
+        }
+        return read;
+    }
+    
+    /**
+     * Get the sequence of the last event
+     * @return the last sequence, 0 if no event was appended
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+    
+    /**
+     * Get the sequence of the EXECUTION_FINISHED event
+     * @return the sequence, 0 if the execution has not finished
+     */
+    public synchronized long getFinishedSequence() {
+        return finishedSequence;
+    }
+}
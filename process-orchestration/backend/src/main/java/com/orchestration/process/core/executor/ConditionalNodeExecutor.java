@@ -1,27 +1,45 @@
 package com.orchestration.process.core.executor;
 
+import com.orchestration.process.core.NodeExecutionContext;
 import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.expression.CompiledExpression;
+import com.orchestration.process.core.expression.ExpressionService;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.pool.InterruptibleFuture;
+import com.orchestration.process.core.pool.NodeCategory;
+import com.orchestration.process.core.script.ScriptEngineService;
 import com.orchestration.process.model.ProcessNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * A node executor that evaluates a condition and determines which child nodes to execute.
+ * Conditions written in the built-in expression language are evaluated natively; anything
+ * else is run by the script engine. Variables resolve to the node's inputs first and then
+ * to its numeric properties.
  */
 @Component
 public class ConditionalNodeExecutor implements ProcessNodeExecutor {
     private static final Logger logger = LoggerFactory.getLogger(ConditionalNodeExecutor.class);
-    private final ScriptEngine engine;
+    private final ExpressionService expressionService;
+    private final ScriptEngineService scriptEngineService;
+    private final ExecutorPoolRegistry executorPools;
     
-    public ConditionalNodeExecutor() {
-        ScriptEngineManager manager = new ScriptEngineManager();
-        this.engine = manager.getEngineByName("JavaScript");
+    @Autowired
+    public ConditionalNodeExecutor(
+            ExpressionService expressionService,
+            ScriptEngineService scriptEngineService,
+            ExecutorPoolRegistry executorPools) {
+        this.expressionService = expressionService;
+        this.scriptEngineService = scriptEngineService;
+        this.executorPools = executorPools;
     }
     
     @Override
@@ -30,18 +48,36 @@ public class ConditionalNodeExecutor implements ProcessNodeExecutor {
     }
     
     @Override
-    public CompletableFuture<Object> execute(ProcessNode node) {
-        return CompletableFuture.supplyAsync(() -> {
+    public Set<String> getNodeTypes() {
+        return Set.of("conditional");
+    }
+    
+    @Override
+    public CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context) {
+        logger.info("Executing conditional node: {}", node.getName());
+        
+        String condition = node.getProperties().getOrDefault("condition", "");
+        CompiledExpression expression = condition.isEmpty() ? null : expressionService.compile(condition);
+        
+        if (expression != null) {
+            // Built-in expressions are cheap enough to evaluate on the calling thread
+            try {
+                double[] variables = expression.newVariableSlots();
+                expression.bindVariables(variable -> resolveVariable(node, context, variable), variables);
+                return CompletableFuture.completedFuture(expression.test(variables));
+            } catch (RuntimeException e) {
+                logger.error("Condition evaluation failed", e);
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        
+        return InterruptibleFuture.supplyAsync(() -> {
             try {
-                logger.info("Executing conditional node: {}", node.getName());
-                
-                String condition = node.getProperties().getOrDefault("condition", "");
-                
                 if (condition.isEmpty()) {
                     throw new IllegalArgumentException("Condition is required for conditional node");
                 }
                 
-                Object result = engine.eval(condition);
+                Object result = scriptEngineService.evaluate(condition, context.getInputs());
                 boolean conditionResult = false;
                 
                 if (result instanceof Boolean) {
@@ -52,16 +88,15 @@ public class ConditionalNodeExecutor implements ProcessNodeExecutor {
                     conditionResult = !((String) result).isEmpty();
                 }
                 
-                // Store the result
-                node.setResult(conditionResult);
-                node.setStatus(ProcessNode.ProcessNodeStatus.COMPLETED);
-                
-                return conditionResult;
+                return (Object) conditionResult;
             } catch (ScriptException e) {
                 logger.error("Condition evaluation failed", e);
-                node.setStatus(ProcessNode.ProcessNodeStatus.FAILED);
-                return "Condition evaluation failed: " + e.getMessage();
+                throw new CompletionException(e);
             }
-        });
+        }, executorPools.getExecutor(NodeCategory.SCRIPT));
+    }
+    
+    private static Object resolveVariable(ProcessNode node, NodeExecutionContext context, String variable) {
+        return context.hasInput(variable) ? context.getInput(variable) : node.getProperties().get(variable);
     }
 }
@@ -1,27 +1,48 @@
 package com.orchestration.process.core.executor;
 
+import com.orchestration.process.core.NodeExecutionContext;
 import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.http.HttpClientMetrics;
+import com.orchestration.process.core.http.HttpStatusException;
 import com.orchestration.process.model.ProcessNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * A node executor that makes HTTP requests.
+ * Requests are sent asynchronously through a shared, connection-pooling HTTP client,
+ * so no thread is held while waiting for the response.
  */
 @Component
 public class HttpNodeExecutor implements ProcessNodeExecutor {
     private static final Logger logger = LoggerFactory.getLogger(HttpNodeExecutor.class);
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final HttpClient httpClient;
+    private final HttpClientMetrics httpClientMetrics;
+    private final long requestTimeoutMillis;
+    
+    @Autowired
+    public HttpNodeExecutor(
+            HttpClient httpClient,
+            HttpClientMetrics httpClientMetrics,
+            @Value("${process.http.request-timeout-ms:30000}") long requestTimeoutMillis) {
+        this.httpClient = httpClient;
+        this.httpClientMetrics = httpClientMetrics;
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
     
     @Override
     public boolean canExecute(String nodeType) {
@@ -29,47 +50,87 @@ public class HttpNodeExecutor implements ProcessNodeExecutor {
     }
     
     @Override
-    public CompletableFuture<Object> execute(ProcessNode node) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                logger.info("Executing HTTP node: {}", node.getName());
-                
-                String url = node.getProperties().getOrDefault("url", "");
-                String method = node.getProperties().getOrDefault("method", "GET");
-                String body = node.getProperties().getOrDefault("body", "");
-                
-                if (url.isEmpty()) {
-                    throw new IllegalArgumentException("URL is required for HTTP node");
-                }
-                
-                HttpHeaders headers = new HttpHeaders();
-                node.getProperties().entrySet().stream()
-                        .filter(entry -> entry.getKey().startsWith("header."))
-                        .forEach(entry -> headers.add(
-                                entry.getKey().substring("header.".length()),
-                                entry.getValue()
-                        ));
-                
-                HttpEntity<String> requestEntity = new HttpEntity<>(body, headers);
-                ResponseEntity<String> response = restTemplate.exchange(
-                        url,
-                        HttpMethod.valueOf(method),
-                        requestEntity,
-                        String.class
-                );
-                
-                Map<String, Object> result = new HashMap<>();
-                result.put("statusCode", response.getStatusCodeValue());
-                result.put("body", response.getBody());
-                result.put("headers", response.getHeaders());
-                
-                node.setStatus(ProcessNode.ProcessNodeStatus.COMPLETED);
-                return result;
-            } catch (Exception e) {
-                logger.error("HTTP node execution failed", e);
-                node.setStatus(ProcessNode.ProcessNodeStatus.FAILED);
-                return "Execution failed: " + e.getMessage();
+    public Set<String> getNodeTypes() {
+        return Set.of("http");
+    }
+    
+    @Override
+    public CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context) {
+        HttpRequest request;
+        try {
+            logger.info("Executing HTTP node: {}", node.getName());
+            request = buildRequest(node);
+        } catch (Exception e) {
+            logger.error("HTTP node execution failed", e);
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        HttpClientMetrics.HostMetrics hostMetrics = httpClientMetrics.requestStarted(request.uri());
+        long startNanos = System.nanoTime();
+        
+        CompletableFuture<HttpResponse<String>> exchange = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<Object> nodeResult = exchange
+                .handle((response, error) -> {
+                    httpClientMetrics.requestCompleted(hostMetrics, startNanos, response != null ? response.version() : null);
+                    
+                    if (error != null) {
+                        logger.error("HTTP node execution failed", error);
+                        throw error instanceof CompletionException
+                                ? (CompletionException) error
+                                : new CompletionException(error);
+                    }
+                    
+                    if (response.statusCode() >= 400) {
+                        logger.error("HTTP node execution failed with status {}: {}", response.statusCode(), node.getName());
+                        throw new CompletionException(HttpStatusException.of(response.statusCode(), response.body()));
+                    }
+                    
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("statusCode", response.statusCode());
+                    result.put("body", response.body());
+                    result.put("headers", response.headers().map());
+                    
+                    return (Object) result;
+                });
+        
+        // Abort the request when the node is cancelled or times out
+        nodeResult.whenComplete((result, error) -> {
+            if (error != null) {
+                exchange.cancel(true);
             }
         });
+        return nodeResult;
+    }
+    
+    /**
+     * Build the request described by the node properties
+     * @param node the HTTP node
+     * @return the request
+     */
+    private HttpRequest buildRequest(ProcessNode node) {
+        String url = node.getProperties().getOrDefault("url", "");
+        String method = node.getProperties().getOrDefault("method", "GET");
+        String body = node.getProperties().getOrDefault("body", "");
+        long timeoutMillis = Long.parseLong(
+                node.getProperties().getOrDefault("timeoutMs", String.valueOf(requestTimeoutMillis)));
+        
+        if (url.isEmpty()) {
+            throw new IllegalArgumentException("URL is required for HTTP node");
+        }
+        
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .method(method, body.isEmpty()
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        
+        node.getProperties().entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith("header."))
+                .forEach(entry -> builder.header(
+                        entry.getKey().substring("header.".length()),
+                        entry.getValue()
+                ));
+        
+        return builder.build();
     }
 }
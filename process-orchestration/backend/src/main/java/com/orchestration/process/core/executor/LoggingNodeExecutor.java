@@ -1,12 +1,19 @@
 package com.orchestration.process.core.executor;
 
+import com.orchestration.process.core.NodeExecutionContext;
 import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.pool.InterruptibleFuture;
+import com.orchestration.process.core.pool.NodeCategory;
 import com.orchestration.process.model.ProcessNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * A simple node executor that logs the node execution.
@@ -15,6 +22,12 @@ import java.util.concurrent.CompletableFuture;
 @Component
 public class LoggingNodeExecutor implements ProcessNodeExecutor {
     private static final Logger logger = LoggerFactory.getLogger(LoggingNodeExecutor.class);
+    private final ExecutorPoolRegistry executorPools;
+    
+    @Autowired
+    public LoggingNodeExecutor(ExecutorPoolRegistry executorPools) {
+        this.executorPools = executorPools;
+    }
     
     @Override
     public boolean canExecute(String nodeType) {
@@ -22,8 +35,13 @@ public class LoggingNodeExecutor implements ProcessNodeExecutor {
     }
     
     @Override
-    public CompletableFuture<Object> execute(ProcessNode node) {
-        return CompletableFuture.supplyAsync(() -> {
+    public Set<String> getNodeTypes() {
+        return Set.of("logging");
+    }
+    
+    @Override
+    public CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context) {
+        return InterruptibleFuture.supplyAsync(() -> {
             logger.info("Executing logging node: {}", node.getName());
             String message = node.getProperties().getOrDefault("message", "No message provided");
             logger.info("Node message: {}", message);
@@ -32,14 +50,13 @@ public class LoggingNodeExecutor implements ProcessNodeExecutor {
             try {
                 Thread.sleep(1000);
             } catch (InterruptedException e) {
+                // The node was cancelled or timed out
                 Thread.currentThread().interrupt();
-                logger.error("Node execution interrupted", e);
-                node.setStatus(ProcessNode.ProcessNodeStatus.FAILED);
-                return "Execution failed: " + e.getMessage();
+                logger.info("Node execution interrupted: {}", node.getName());
+                throw new CompletionException(e);
             }
             
-            node.setStatus(ProcessNode.ProcessNodeStatus.COMPLETED);
             return "Logged message: " + message;
-        });
+        }, executorPools.getExecutor(NodeCategory.BLOCKING_IO));
     }
 }
@@ -1,27 +1,39 @@
 package com.orchestration.process.core.executor;
 
+import com.orchestration.process.core.NodeExecutionContext;
 import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.pool.InterruptibleFuture;
+import com.orchestration.process.core.pool.NodeCategory;
+import com.orchestration.process.core.script.ScriptEngineService;
 import com.orchestration.process.model.ProcessNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * A node executor that executes JavaScript code.
+ * The node's inputs are visible to the script as global variables named after their ports.
+ * A script that is cancelled or times out is interrupted, which aborts it while it waits
+ * in Java code; a script busy in a pure JavaScript loop keeps its thread until the loop
+ * ends, although the node has already failed.
  */
 @Component
 public class ScriptNodeExecutor implements ProcessNodeExecutor {
     private static final Logger logger = LoggerFactory.getLogger(ScriptNodeExecutor.class);
-    private final ScriptEngine engine;
+    private final ScriptEngineService scriptEngineService;
+    private final ExecutorPoolRegistry executorPools;
     
-    public ScriptNodeExecutor() {
-        ScriptEngineManager manager = new ScriptEngineManager();
-        this.engine = manager.getEngineByName("JavaScript");
+    @Autowired
+    public ScriptNodeExecutor(ScriptEngineService scriptEngineService, ExecutorPoolRegistry executorPools) {
+        this.scriptEngineService = scriptEngineService;
+        this.executorPools = executorPools;
     }
     
     @Override
@@ -30,8 +42,13 @@ public class ScriptNodeExecutor implements ProcessNodeExecutor {
     }
     
     @Override
-    public CompletableFuture<Object> execute(ProcessNode node) {
-        return CompletableFuture.supplyAsync(() -> {
+    public Set<String> getNodeTypes() {
+        return Set.of("script");
+    }
+    
+    @Override
+    public CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context) {
+        return InterruptibleFuture.supplyAsync(() -> {
             try {
                 logger.info("Executing script node: {}", node.getName());
                 
@@ -41,14 +58,11 @@ public class ScriptNodeExecutor implements ProcessNodeExecutor {
                     throw new IllegalArgumentException("Script is required for script node");
                 }
                 
-                Object result = engine.eval(script);
-                node.setStatus(ProcessNode.ProcessNodeStatus.COMPLETED);
-                return result;
+                return scriptEngineService.evaluate(script, context.getInputs());
             } catch (ScriptException e) {
                 logger.error("Script execution failed", e);
-                node.setStatus(ProcessNode.ProcessNodeStatus.FAILED);
-                return "Script execution failed: " + e.getMessage();
+                throw new CompletionException(e);
             }
-        });
+        }, executorPools.getExecutor(NodeCategory.SCRIPT));
     }
 }
@@ -0,0 +1,129 @@
+package com.orchestration.process.core.executor;
+
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.model.ProcessNode;
+import com.orchestration.process.service.ProcessExecutionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A node executor that runs another process definition as a child execution.
+ * The node names the process with its {@code processId} property; its inputs become the
+ * child's parameters, which the child's nodes bind by name like upstream nodes. The node
+ * completes when the child completes, with the result of the child node named by the
+ * {@code outputNodeId} property, or else with the results of the child's nodes without
+ * children keyed by node ID. It fails if the child does not complete.
+ * <p>
+ * The child is a separate execution with its own ID and status, and its nodes are
+ * scheduled on the pools like any other, so sub-processes run in parallel with their
+ * parent's other nodes. Cancelling or timing out the node stops the child. A process
+ * cannot run as a sub-process of itself, directly or through other sub-processes.
+ */
+@Component
+public class SubprocessNodeExecutor implements ProcessNodeExecutor {
+    public static final String TYPE = "subprocess";
+    public static final String PROCESS_ID_PROPERTY = "processId";
+    public static final String OUTPUT_NODE_PROPERTY = "outputNodeId";
+    
+    private static final Logger logger = LoggerFactory.getLogger(SubprocessNodeExecutor.class);
+    
+    // Provided lazily: the execution service depends on the executors through the orchestrators
+    private final ObjectProvider<ProcessExecutionService> executionService;
+    
+    @Autowired
+    public SubprocessNodeExecutor(ObjectProvider<ProcessExecutionService> executionService) {
+        this.executionService = executionService;
+    }
+    
+    @Override
+    public boolean canExecute(String nodeType) {
+        return TYPE.equals(nodeType);
+    }
+    
+    @Override
+    public Set<String> getNodeTypes() {
+        return Set.of(TYPE);
+    }
+    
+    @Override
+    public CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context) {
+        ProcessExecution child;
+        try {
+            Long processId = getProcessId(node);
+            child = executionService.getObject().startSubprocess(context.getExecution(), processId, context.getInputs());
+        } catch (IllegalArgumentException e) {
+            logger.error("Sub-process node cannot be started: {}", node.getNodeId(), e);
+            return CompletableFuture.failedFuture(e);
+        }
+        logger.info("Sub-process node {} started execution {} of process {}",
+                node.getNodeId(), child.getExecutionId(), child.getProcessId());
+        
+        CompletableFuture<Object> result = child.getCompletion().thenApply(finished -> resultOf(node, finished));
+        
+        // Stop the child when the node is cancelled or times out
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                child.requestStop();
+            }
+        });
+        return result;
+    }
+    
+    private static Long getProcessId(ProcessNode node) {
+        String processId = node.getProperties().get(PROCESS_ID_PROPERTY);
+        if (processId == null || processId.isEmpty()) {
+            throw new IllegalArgumentException("Process ID is required for sub-process node " + node.getNodeId());
+        }
+        try {
+            return Long.parseLong(processId.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid process ID of sub-process node " + node.getNodeId() + ": " + processId);
+        }
+    }
+    
+    /**
+     * Get the result of a sub-process node from its finished child execution
+     * @param node the sub-process node
+     * @param child the finished child execution
+     * @return the output node's result, or the results of the child's leaf nodes
+     * @throws CompletionException if the child did not complete or has no such output node
+     */
+    private static Object resultOf(ProcessNode node, ProcessExecution child) {
+        if (child.getStatus() != ProcessExecution.Status.COMPLETED) {
+            throw new CompletionException(new IllegalStateException("Sub-process execution " + child.getExecutionId()
+                    + " of process " + child.getProcessId() + " finished as " + child.getStatus()
+                    + (child.getError() != null ? ": " + child.getError() : "")));
+        }
+        
+        String outputNodeId = node.getProperties().get(OUTPUT_NODE_PROPERTY);
+        if (outputNodeId != null && !outputNodeId.isEmpty()) {
+            if (child.ordinalOf(outputNodeId) < 0) {
+                throw new CompletionException(new IllegalArgumentException(
+                        "Process " + child.getProcessId() + " has no node " + outputNodeId));
+            }
+            return child.getCompletedResult(outputNodeId);
+        }
+        
+        Map<String, Object> results = new LinkedHashMap<>();
+        List<ProcessNode> nodes = child.getProcessDefinition().getNodes();
+        for (int ordinal = 0; ordinal < nodes.size(); ordinal++) {
+            ProcessNode childNode = nodes.get(ordinal);
+            if (childNode.getChildNodeIds() == null || childNode.getChildNodeIds().isEmpty()) {
+                results.put(childNode.getNodeId(), child.getCompletedResult(ordinal));
+            }
+        }
+        return results;
+    }
+}
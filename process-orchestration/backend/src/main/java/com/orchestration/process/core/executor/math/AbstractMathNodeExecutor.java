@@ -1,6 +1,10 @@
 package com.orchestration.process.core.executor.math;
 
+import com.orchestration.process.core.NodeExecutionContext;
 import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.pool.InterruptibleFuture;
+import com.orchestration.process.core.pool.NodeCategory;
 import com.orchestration.process.model.ProcessNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,61 +13,87 @@ import java.util.concurrent.CompletableFuture;
 
 /**
  * Base class for mathematical operation node executors.
+ * Each operand is taken from the "left" or "right" input port when it is bound to an
+ * upstream node, otherwise from the literal "leftOperand" or "rightOperand" property.
+ * Subclasses that override {@link #applyColumns} with a plain loop over the arrays let
+ * batch executions evaluate the operation for a whole chunk of rows at once.
  */
 public abstract class AbstractMathNodeExecutor implements ProcessNodeExecutor {
     private static final Logger logger = LoggerFactory.getLogger(AbstractMathNodeExecutor.class);
+    private final ExecutorPoolRegistry executorPools;
+    
+    protected AbstractMathNodeExecutor(ExecutorPoolRegistry executorPools) {
+        this.executorPools = executorPools;
+    }
     
     @Override
-    public CompletableFuture<Object> execute(ProcessNode node) {
-        return CompletableFuture.supplyAsync(() -> {
+    public CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context) {
+        return InterruptibleFuture.supplyAsync(() -> {
             try {
                 logger.info("Executing math node: {}", node.getName());
                 
-                // Get operands from node properties
-                String leftOperandStr = node.getProperties().getOrDefault("leftOperand", "0");
-                String rightOperandStr = node.getProperties().getOrDefault("rightOperand", "0");
-                
-                double leftOperand, rightOperand;
-                
-                // Try to parse operands as numbers
-                try {
-                    leftOperand = Double.parseDouble(leftOperandStr);
-                } catch (NumberFormatException e) {
-                    // If not a number, it might be a reference to another node's result
-                    Object leftResult = node.getProperties().get("leftNodeResult");
-                    if (leftResult instanceof Number) {
-                        leftOperand = ((Number) leftResult).doubleValue();
-                    } else {
-                        throw new IllegalArgumentException("Left operand is not a valid number: " + leftOperandStr);
-                    }
-                }
-                
-                try {
-                    rightOperand = Double.parseDouble(rightOperandStr);
-                } catch (NumberFormatException e) {
-                    // If not a number, it might be a reference to another node's result
-                    Object rightResult = node.getProperties().get("rightNodeResult");
-                    if (rightResult instanceof Number) {
-                        rightOperand = ((Number) rightResult).doubleValue();
-                    } else {
-                        throw new IllegalArgumentException("Right operand is not a valid number: " + rightOperandStr);
-                    }
-                }
+                double leftOperand = resolveOperand(node, context, "left");
+                double rightOperand = resolveOperand(node, context, "right");
                 
                 // Perform the operation
-                double result = performOperation(leftOperand, rightOperand);
-                
-                // Set the result and status
-                node.setResult(result);
-                node.setStatus(ProcessNode.ProcessNodeStatus.COMPLETED);
-                
-                return result;
-            } catch (Exception e) {
+                return (Object) performOperation(leftOperand, rightOperand);
+            } catch (RuntimeException e) {
                 logger.error("Math operation failed", e);
-                node.setStatus(ProcessNode.ProcessNodeStatus.FAILED);
-                return "Operation failed: " + e.getMessage();
+                throw e;
+            }
+        }, executorPools.getExecutor(NodeCategory.CPU));
+    }
+    
+    /**
+     * Apply the operation directly on the calling thread, without scheduling a task or
+     * logging; used to evaluate fused arithmetic sub-graphs
+     * @param leftOperand the left operand
+     * @param rightOperand the right operand
+     * @return the result of the operation
+     * @throws ArithmeticException if the operation is undefined for the operands
+     */
+    public final double apply(double leftOperand, double rightOperand) {
+        return performOperation(leftOperand, rightOperand);
+    }
+    
+    /**
+     * Apply the operation row by row to columns of operands; rows for which the
+     * operation is undefined get NaN, so one bad row does not fail a whole batch
+     * @param left the left operand of each row
+     * @param right the right operand of each row
+     * @param result receives the result of each row
+     * @param length the number of rows
+     */
+    public void applyColumns(double[] left, double[] right, double[] result, int length) {
+        for (int i = 0; i < length; i++) {
+            try {
+                result[i] = performOperation(left[i], right[i]);
+            } catch (ArithmeticException e) {
+                result[i] = Double.NaN;
             }
-        });
+        }
+    }
+    
+    /**
+     * Resolve an operand from the input port of the same name, falling back to the
+     * literal in the {@code <port>Operand} property
+     * @param node the node
+     * @param context the node's inputs
+     * @param port the operand port, "left" or "right"
+     * @return the operand value
+     */
+    private static double resolveOperand(ProcessNode node, NodeExecutionContext context, String port) {
+        if (context.hasInput(port)) {
+            return context.getDouble(port);
+        }
+        
+        String operand = node.getProperties().getOrDefault(port + "Operand", "0");
+        try {
+            return Double.parseDouble(operand);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    Character.toUpperCase(port.charAt(0)) + port.substring(1) + " operand is not a valid number: " + operand);
+        }
     }
     
     /**
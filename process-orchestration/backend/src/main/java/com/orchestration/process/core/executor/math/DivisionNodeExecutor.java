@@ -1,18 +1,32 @@
 package com.orchestration.process.core.executor.math;
 
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Set;
+
 /**
  * Node executor for division operations.
  */
 @Component
 public class DivisionNodeExecutor extends AbstractMathNodeExecutor {
     
+    @Autowired
+    public DivisionNodeExecutor(ExecutorPoolRegistry executorPools) {
+        super(executorPools);
+    }
+    
     @Override
     public boolean canExecute(String nodeType) {
         return "math.division".equals(nodeType);
     }
     
+    @Override
+    public Set<String> getNodeTypes() {
+        return Set.of("math.division");
+    }
+    
     @Override
     protected double performOperation(double leftOperand, double rightOperand) {
         if (rightOperand == 0) {
@@ -20,4 +34,11 @@ public class DivisionNodeExecutor extends AbstractMathNodeExecutor {
         }
         return leftOperand / rightOperand;
     }
+    
+    @Override
+    public void applyColumns(double[] left, double[] right, double[] result, int length) {
+        for (int i = 0; i < length; i++) {
+            result[i] = right[i] == 0 ? Double.NaN : left[i] / right[i];
+        }
+    }
 }
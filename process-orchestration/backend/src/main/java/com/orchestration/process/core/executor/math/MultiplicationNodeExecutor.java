@@ -1,20 +1,41 @@
 package com.orchestration.process.core.executor.math;
 
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Set;
+
 /**
  * Node executor for multiplication operations.
  */
 @Component
 public class MultiplicationNodeExecutor extends AbstractMathNodeExecutor {
     
+    @Autowired
+    public MultiplicationNodeExecutor(ExecutorPoolRegistry executorPools) {
+        super(executorPools);
+    }
+    
     @Override
     public boolean canExecute(String nodeType) {
         return "math.multiplication".equals(nodeType);
     }
     
+    @Override
+    public Set<String> getNodeTypes() {
+        return Set.of("math.multiplication");
+    }
+    
     @Override
     protected double performOperation(double leftOperand, double rightOperand) {
         return leftOperand * rightOperand;
     }
+    
+    @Override
+    public void applyColumns(double[] left, double[] right, double[] result, int length) {
+        for (int i = 0; i < length; i++) {
+            result[i] = left[i] * right[i];
+        }
+    }
 }
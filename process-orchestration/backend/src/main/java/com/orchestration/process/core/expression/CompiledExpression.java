@@ -0,0 +1,127 @@
+package com.orchestration.process.core.expression;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * An expression compiled by {@link ExpressionParser}.
+ * Variables are resolved to slots at compile time; callers bind values into a
+ * {@code double[]} with {@link #bindVariables} and evaluate against it, so the
+ * same slot array can be reused across evaluations. Compiled expressions are
+ * immutable and safe to share between threads.
+ */
+public final class CompiledExpression {
+    private static final double[] NO_VARIABLES = new double[0];
+    
+    private final String source;
+    private final ExpressionNode root;
+    private final String[] variableNames;
+    
+    CompiledExpression(String source, ExpressionNode root, String[] variableNames) {
+        this.source = source;
+        this.root = root;
+        this.variableNames = variableNames;
+    }
+    
+    public String getSource() {
+        return source;
+    }
+    
+    /**
+     * Get the variable names in slot order
+     * @return the variable names
+     */
+    public String[] getVariableNames() {
+        return variableNames.clone();
+    }
+    
+    public int getVariableCount() {
+        return variableNames.length;
+    }
+    
+    /**
+     * Check whether the expression yields a boolean
+     * @return true for comparisons and logical expressions over booleans
+     */
+    public boolean isBoolean() {
+        return root.bool;
+    }
+    
+    /**
+     * Create a slot array sized for this expression's variables
+     * @return the slot array
+     */
+    public double[] newVariableSlots() {
+        return variableNames.length == 0 ? NO_VARIABLES : new double[variableNames.length];
+    }
+    
+    /**
+     * Bind variable values by name
+     * @param values the values; numbers, booleans and numeric strings are accepted
+     * @param slots the slot array to fill
+     * @throws IllegalArgumentException if a variable is missing or not numeric
+     */
+    public void bindVariables(Map<String, ?> values, double[] slots) {
+        bindVariables((Function<String, ?>) values::get, slots);
+    }
+    
+    /**
+     * Bind variable values by name
+     * @param resolver resolves a variable name to its value, or null if it is not defined;
+     *                 numbers, booleans and numeric strings are accepted
+     * @param slots the slot array to fill
+     * @throws IllegalArgumentException if a variable is missing or not numeric
+     */
+    public void bindVariables(Function<String, ?> resolver, double[] slots) {
+        for (int i = 0; i < variableNames.length; i++) {
+            slots[i] = toDouble(variableNames[i], resolver.apply(variableNames[i]));
+        }
+    }
+    
+    /**
+     * Evaluate the expression
+     * @param slots the variable values in slot order
+     * @return the numeric value; booleans are 1 or 0
+     */
+    public double evaluate(double[] slots) {
+        return root.evaluate(slots);
+    }
+    
+    /**
+     * Evaluate the expression and apply JavaScript truthiness
+     * @param slots the variable values in slot order
+     * @return false for 0 and NaN, true otherwise
+     */
+    public boolean test(double[] slots) {
+        return ExpressionNode.truthy(root.evaluate(slots));
+    }
+    
+    /**
+     * Evaluate the expression and box the value with its type
+     * @param slots the variable values in slot order
+     * @return a Boolean for boolean expressions, otherwise a Double
+     */
+    public Object evaluateToObject(double[] slots) {
+        double value = root.evaluate(slots);
+        return root.bool ? (Object) (value != 0) : (Object) value;
+    }
+    
+    private static double toDouble(String name, Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Variable " + name + " is not a number: " + value);
+            }
+        }
+        throw new IllegalArgumentException(value == null
+                ? "Variable " + name + " is not defined"
+                : "Variable " + name + " is not a number: " + value);
+    }
+}
@@ -0,0 +1,313 @@
+package com.orchestration.process.core.expression;
+
+/**
+ * A node of a compiled expression tree.
+ * Every value is a double; booleans are represented as 1 and 0 and flagged so the
+ * final result can be reported with the right type. Evaluation works on primitives
+ * only, so evaluating a tree does not allocate. Sub-trees without variables are
+ * folded into constants when the tree is built.
+ */
+abstract class ExpressionNode {
+    static final int ADD = 0;
+    static final int SUB = 1;
+    static final int MUL = 2;
+    static final int DIV = 3;
+    static final int MOD = 4;
+    static final int LT = 5;
+    static final int LE = 6;
+    static final int GT = 7;
+    static final int GE = 8;
+    static final int EQ = 9;
+    static final int NE = 10;
+    static final int AND = 11;
+    static final int OR = 12;
+    static final int NEG = 13;
+    static final int PLUS = 14;
+    static final int NOT = 15;
+    
+    private static final String[] FUNCTIONS = {
+            "Math.abs", "Math.sqrt", "Math.floor", "Math.ceil", "Math.round",
+            "Math.exp", "Math.log", "Math.sin", "Math.cos", "Math.tan",
+            "Math.min", "Math.max", "Math.pow", "Math.atan2"
+    };
+    private static final int FIRST_BINARY_FUNCTION = 10;
+    
+    final boolean bool;
+    
+    ExpressionNode(boolean bool) {
+        this.bool = bool;
+    }
+    
+    abstract double evaluate(double[] variables);
+    
+    boolean isConstant() {
+        return false;
+    }
+    
+    static boolean truthy(double value) {
+        return value != 0 && !Double.isNaN(value);
+    }
+    
+    static ExpressionNode constant(double value, boolean bool) {
+        return new Constant(value, bool);
+    }
+    
+    static ExpressionNode variable(int slot) {
+        return new Variable(slot);
+    }
+    
+    static ExpressionNode unary(int operator, ExpressionNode operand) {
+        return fold(new Unary(operator, operand));
+    }
+    
+    static ExpressionNode binary(int operator, ExpressionNode left, ExpressionNode right) {
+        return fold(new Binary(operator, left, right));
+    }
+    
+    static ExpressionNode logical(int operator, ExpressionNode left, ExpressionNode right) {
+        return fold(new Logical(operator, left, right));
+    }
+    
+    static ExpressionNode conditional(ExpressionNode condition, ExpressionNode whenTrue, ExpressionNode whenFalse) {
+        return fold(new Conditional(condition, whenTrue, whenFalse));
+    }
+    
+    static ExpressionNode call(int function, ExpressionNode[] arguments) {
+        return fold(new Call(function, arguments));
+    }
+    
+    /**
+     * Resolve a function name and arity
+     * @return the function index, or -1 if the function is not supported
+     */
+    static int function(String name, int arity) {
+        for (int i = 0; i < FUNCTIONS.length; i++) {
+            if (FUNCTIONS[i].equals(name)) {
+                int expectedArity = i < FIRST_BINARY_FUNCTION ? 1 : 2;
+                return arity == expectedArity ? i : -1;
+            }
+        }
+        return -1;
+    }
+    
+    private static ExpressionNode fold(ExpressionNode node) {
+        return node.isConstant() ? new Constant(node.evaluate(null), node.bool) : node;
+    }
+    
+    private static final class Constant extends ExpressionNode {
+        private final double value;
+        
+        Constant(double value, boolean bool) {
+            super(bool);
+            this.value = value;
+        }
+        
+        @Override
+        double evaluate(double[] variables) {
+            return value;
+        }
+        
+        @Override
+        boolean isConstant() {
+            return true;
+        }
+    }
+    
+    private static final class Variable extends ExpressionNode {
+        private final int slot;
+        
+        Variable(int slot) {
+            super(false);
+            this.slot = slot;
+        }
+        
+        @Override
+        double evaluate(double[] variables) {
+            return variables[slot];
+        }
+    }
+    
+    private static final class Unary extends ExpressionNode {
+        private final int operator;
+        private final ExpressionNode operand;
+        
+        Unary(int operator, ExpressionNode operand) {
+            super(operator == NOT);
+            this.operator = operator;
+            this.operand = operand;
+        }
+        
+        @Override
+        double evaluate(double[] variables) {
+            double value = operand.evaluate(variables);
+            switch (operator) {
+                case NEG:
+                    return -value;
+                case NOT:
+                    return truthy(value) ? 0 : 1;
+                default:
+                    return value;
+            }
+        }
+        
+        @Override
+        boolean isConstant() {
+            return operand.isConstant();
+        }
+    }
+    
+    private static final class Binary extends ExpressionNode {
+        private final int operator;
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+        
+        Binary(int operator, ExpressionNode left, ExpressionNode right) {
+            super(operator >= LT);
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+        
+        @Override
+        double evaluate(double[] variables) {
+            double a = left.evaluate(variables);
+            double b = right.evaluate(variables);
+            switch (operator) {
+                case ADD:
+                    return a + b;
+                case SUB:
+                    return a - b;
+                case MUL:
+                    return a * b;
+                case DIV:
+                    return a / b;
+                case MOD:
+                    return a % b;
+                case LT:
+                    return a < b ? 1 : 0;
+                case LE:
+                    return a <= b ? 1 : 0;
+                case GT:
+                    return a > b ? 1 : 0;
+                case GE:
+                    return a >= b ? 1 : 0;
+                case EQ:
+                    return a == b ? 1 : 0;
+                default:
+                    return a != b ? 1 : 0;
+            }
+        }
+        
+        @Override
+        boolean isConstant() {
+            return left.isConstant() && right.isConstant();
+        }
+    }
+    
+    /**
+     * Short-circuiting {@code &&} and {@code ||}; like JavaScript they yield one of
+     * their operands rather than a coerced boolean.
+     */
+    private static final class Logical extends ExpressionNode {
+        private final int operator;
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+        
+        Logical(int operator, ExpressionNode left, ExpressionNode right) {
+            super(left.bool && right.bool);
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+        
+        @Override
+        double evaluate(double[] variables) {
+            double a = left.evaluate(variables);
+            if (operator == AND) {
+                return truthy(a) ? right.evaluate(variables) : a;
+            }
+            return truthy(a) ? a : right.evaluate(variables);
+        }
+        
+        @Override
+        boolean isConstant() {
+            return left.isConstant() && right.isConstant();
+        }
+    }
+    
+    private static final class Conditional extends ExpressionNode {
+        private final ExpressionNode condition;
+        private final ExpressionNode whenTrue;
+        private final ExpressionNode whenFalse;
+        
+        Conditional(ExpressionNode condition, ExpressionNode whenTrue, ExpressionNode whenFalse) {
+            super(whenTrue.bool && whenFalse.bool);
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+        
+        @Override
+        double evaluate(double[] variables) {
+            return truthy(condition.evaluate(variables)) ? whenTrue.evaluate(variables) : whenFalse.evaluate(variables);
+        }
+        
+        @Override
+        boolean isConstant() {
+            return condition.isConstant() && whenTrue.isConstant() && whenFalse.isConstant();
+        }
+    }
+    
+    private static final class Call extends ExpressionNode {
+        private final int function;
+        private final ExpressionNode first;
+        private final ExpressionNode second;
+        
+        Call(int function, ExpressionNode[] arguments) {
+            super(false);
+            this.function = function;
+            this.first = arguments[0];
+            this.second = arguments.length > 1 ? arguments[1] : null;
+        }
+        
+        @Override
+        double evaluate(double[] variables) {
+            double a = first.evaluate(variables);
+            switch (function) {
+                case 0:
+                    return Math.abs(a);
+                case 1:
+                    return Math.sqrt(a);
+                case 2:
+                    return Math.floor(a);
+                case 3:
+                    return Math.ceil(a);
+                case 4:
+                    return Math.floor(a + 0.5);
+                case 5:
+                    return Math.exp(a);
+                case 6:
+                    return Math.log(a);
+                case 7:
+                    return Math.sin(a);
+                case 8:
+                    return Math.cos(a);
+                case 9:
+                    return Math.tan(a);
+                case 10:
+                    return Math.min(a, second.evaluate(variables));
+                case 11:
+                    return Math.max(a, second.evaluate(variables));
+                case 12:
+                    return Math.pow(a, second.evaluate(variables));
+                default:
+                    return Math.atan2(a, second.evaluate(variables));
+            }
+        }
+        
+        @Override
+        boolean isConstant() {
+            return first.isConstant() && (second == null || second.isConstant());
+        }
+    }
+}
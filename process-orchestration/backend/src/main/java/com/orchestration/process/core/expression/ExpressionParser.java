@@ -0,0 +1,293 @@
+package com.orchestration.process.core.expression;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recursive descent parser for the built-in expression language.
+ * The language is the numeric and boolean subset of JavaScript expressions:
+ * number literals, {@code true}/{@code false}, variables, arithmetic
+ * ({@code + - * / %}), comparisons, equality ({@code == != === !==}),
+ * logical operators ({@code && || !}), the conditional operator and the
+ * {@code Math} functions and constants. Anything else (strings, assignments,
+ * statements, objects) is rejected so the caller can fall back to a script engine.
+ */
+public class ExpressionParser {
+    private final String source;
+    private final Map<String, Integer> variableSlots = new LinkedHashMap<>();
+    private int position;
+    
+    private ExpressionParser(String source) {
+        this.source = source;
+    }
+    
+    /**
+     * Parse and compile an expression
+     * @param source the expression source
+     * @return the compiled expression
+     * @throws IllegalArgumentException if the source is not a supported expression
+     */
+    public static CompiledExpression parse(String source) {
+        ExpressionParser parser = new ExpressionParser(source);
+        ExpressionNode root = parser.parseExpression();
+        parser.skipWhitespace();
+        if (parser.position < source.length()) {
+            throw parser.error("Unexpected '" + source.charAt(parser.position) + "'");
+        }
+        
+        return new CompiledExpression(source, root, parser.variableSlots.keySet().toArray(new String[0]));
+    }
+    
+    private ExpressionNode parseExpression() {
+        ExpressionNode condition = parseOr();
+        if (!match("?")) {
+            return condition;
+        }
+        
+        ExpressionNode whenTrue = parseExpression();
+        expect(":");
+        ExpressionNode whenFalse = parseExpression();
+        return ExpressionNode.conditional(condition, whenTrue, whenFalse);
+    }
+    
+    private ExpressionNode parseOr() {
+        ExpressionNode left = parseAnd();
+        while (match("||")) {
+            left = ExpressionNode.logical(ExpressionNode.OR, left, parseAnd());
+        }
+        return left;
+    }
+    
+    private ExpressionNode parseAnd() {
+        ExpressionNode left = parseEquality();
+        while (match("&&")) {
+            left = ExpressionNode.logical(ExpressionNode.AND, left, parseEquality());
+        }
+        return left;
+    }
+    
+    private ExpressionNode parseEquality() {
+        ExpressionNode left = parseRelational();
+        while (true) {
+            if (match("===") || match("==")) {
+                left = ExpressionNode.binary(ExpressionNode.EQ, left, parseRelational());
+            } else if (match("!==") || match("!=")) {
+                left = ExpressionNode.binary(ExpressionNode.NE, left, parseRelational());
+            } else {
+                return left;
+            }
+        }
+    }
+    
+    private ExpressionNode parseRelational() {
+        ExpressionNode left = parseAdditive();
+        while (true) {
+            if (match("<=")) {
+                left = ExpressionNode.binary(ExpressionNode.LE, left, parseAdditive());
+            } else if (match(">=")) {
+                left = ExpressionNode.binary(ExpressionNode.GE, left, parseAdditive());
+            } else if (matchSingle('<')) {
+                left = ExpressionNode.binary(ExpressionNode.LT, left, parseAdditive());
+            } else if (matchSingle('>')) {
+                left = ExpressionNode.binary(ExpressionNode.GT, left, parseAdditive());
+            } else {
+                return left;
+            }
+        }
+    }
+    
+    private ExpressionNode parseAdditive() {
+        ExpressionNode left = parseMultiplicative();
+        while (true) {
+            if (matchSingle('+')) {
+                left = ExpressionNode.binary(ExpressionNode.ADD, left, parseMultiplicative());
+            } else if (matchSingle('-')) {
+                left = ExpressionNode.binary(ExpressionNode.SUB, left, parseMultiplicative());
+            } else {
+                return left;
+            }
+        }
+    }
+    
+    private ExpressionNode parseMultiplicative() {
+        ExpressionNode left = parseUnary();
+        while (true) {
+            if (matchSingle('*')) {
+                left = ExpressionNode.binary(ExpressionNode.MUL, left, parseUnary());
+            } else if (matchSingle('/')) {
+                left = ExpressionNode.binary(ExpressionNode.DIV, left, parseUnary());
+            } else if (matchSingle('%')) {
+                left = ExpressionNode.binary(ExpressionNode.MOD, left, parseUnary());
+            } else {
+                return left;
+            }
+        }
+    }
+    
+    private ExpressionNode parseUnary() {
+        if (matchSingle('-')) {
+            return ExpressionNode.unary(ExpressionNode.NEG, parseUnary());
+        }
+        if (matchSingle('+')) {
+            return ExpressionNode.unary(ExpressionNode.PLUS, parseUnary());
+        }
+        if (matchSingle('!')) {
+            return ExpressionNode.unary(ExpressionNode.NOT, parseUnary());
+        }
+        return parsePrimary();
+    }
+    
+    private ExpressionNode parsePrimary() {
+        skipWhitespace();
+        if (position >= source.length()) {
+            throw error("Unexpected end of expression");
+        }
+        
+        char c = source.charAt(position);
+        if (c == '(') {
+            position++;
+            ExpressionNode inner = parseExpression();
+            expect(")");
+            return inner;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            return ExpressionNode.constant(parseNumber(), false);
+        }
+        if (Character.isJavaIdentifierStart(c)) {
+            return parseIdentifier();
+        }
+        
+        throw error("Unexpected '" + c + "'");
+    }
+    
+    private double parseNumber() {
+        int start = position;
+        while (position < source.length()
+                && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.')) {
+            position++;
+        }
+        if (position < source.length() && (source.charAt(position) == 'e' || source.charAt(position) == 'E')) {
+            position++;
+            if (position < source.length() && (source.charAt(position) == '+' || source.charAt(position) == '-')) {
+                position++;
+            }
+            while (position < source.length() && Character.isDigit(source.charAt(position))) {
+                position++;
+            }
+        }
+        
+        try {
+            return Double.parseDouble(source.substring(start, position));
+        } catch (NumberFormatException e) {
+            throw error("Invalid number '" + source.substring(start, position) + "'");
+        }
+    }
+    
+    private ExpressionNode parseIdentifier() {
+        String name = readName();
+        while (position < source.length() && source.charAt(position) == '.') {
+            position++;
+            name = name + "." + readName();
+        }
+        
+        if (match("(")) {
+            return parseFunctionCall(name);
+        }
+        
+        switch (name) {
+            case "true":
+                return ExpressionNode.constant(1, true);
+            case "false":
+                return ExpressionNode.constant(0, true);
+            case "Math.PI":
+                return ExpressionNode.constant(Math.PI, false);
+            case "Math.E":
+                return ExpressionNode.constant(Math.E, false);
+            case "NaN":
+                return ExpressionNode.constant(Double.NaN, false);
+            case "Infinity":
+                return ExpressionNode.constant(Double.POSITIVE_INFINITY, false);
+            default:
+                if (name.startsWith("Math.")) {
+                    throw error("Unsupported constant " + name);
+                }
+                return ExpressionNode.variable(variableSlots.computeIfAbsent(name, key -> variableSlots.size()));
+        }
+    }
+    
+    private ExpressionNode parseFunctionCall(String name) {
+        List<ExpressionNode> arguments = new ArrayList<>();
+        if (!match(")")) {
+            do {
+                arguments.add(parseExpression());
+            } while (match(","));
+            expect(")");
+        }
+        
+        int function = ExpressionNode.function(name, arguments.size());
+        if (function < 0) {
+            throw error("Unsupported function " + name + " with " + arguments.size() + " argument(s)");
+        }
+        return ExpressionNode.call(function, arguments.toArray(new ExpressionNode[0]));
+    }
+    
+    private String readName() {
+        int start = position;
+        if (position >= source.length() || !Character.isJavaIdentifierStart(source.charAt(position))) {
+            throw error("Expected identifier");
+        }
+        while (position < source.length() && Character.isJavaIdentifierPart(source.charAt(position))) {
+            position++;
+        }
+        return source.substring(start, position);
+    }
+    
+    /**
+     * Consume an operator or punctuation token if it is next
+     */
+    private boolean match(String token) {
+        skipWhitespace();
+        if (source.startsWith(token, position)) {
+            position += token.length();
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Consume a single-character operator unless it starts a longer operator
+     * (e.g. '<' but not '<=', '+' but not '++' or '+=')
+     */
+    private boolean matchSingle(char operator) {
+        skipWhitespace();
+        if (position >= source.length() || source.charAt(position) != operator) {
+            return false;
+        }
+        if (position + 1 < source.length()) {
+            char next = source.charAt(position + 1);
+            if (next == '=' || next == operator && (operator == '+' || operator == '-' || operator == '<' || operator == '>')) {
+                throw error("Unsupported operator '" + operator + next + "'");
+            }
+        }
+        position++;
+        return true;
+    }
+    
+    private void expect(String token) {
+        if (!match(token)) {
+            throw error("Expected '" + token + "'");
+        }
+    }
+    
+    private void skipWhitespace() {
+        while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+            position++;
+        }
+    }
+    
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " in expression: " + source);
+    }
+}
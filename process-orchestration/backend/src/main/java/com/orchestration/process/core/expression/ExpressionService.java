@@ -0,0 +1,91 @@
+package com.orchestration.process.core.expression;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compiles expressions with the built-in expression language and caches the result.
+ * Sources the language does not support are cached as such, so callers can fall back
+ * to the script engine without re-parsing them every time.
+ */
+@Component
+public class ExpressionService {
+    private static final Logger logger = LoggerFactory.getLogger(ExpressionService.class);
+    
+    private final int cacheSize;
+    private final Map<String, Optional<CompiledExpression>> cache;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder unsupportedCount = new LongAdder();
+    
+    @Autowired
+    public ExpressionService(@Value("${process.expression.cache-size:1024}") int cacheSize) {
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<String, Optional<CompiledExpression>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Optional<CompiledExpression>> eldest) {
+                return size() > ExpressionService.this.cacheSize;
+            }
+        };
+    }
+    
+    /**
+     * Compile an expression
+     * @param source the expression source
+     * @return the compiled expression, or null if the source needs the script engine
+     */
+    public CompiledExpression compile(String source) {
+        Optional<CompiledExpression> compiled;
+        synchronized (cache) {
+            compiled = cache.get(source);
+        }
+        
+        if (compiled != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+            compiled = parse(source);
+            synchronized (cache) {
+                cache.put(source, compiled);
+            }
+        }
+        
+        if (!compiled.isPresent()) {
+            unsupportedCount.increment();
+        }
+        return compiled.orElse(null);
+    }
+    
+    /**
+     * Get the compile cache statistics
+     * @return cache size, hits, misses and the number of lookups that needed the script engine
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (cache) {
+            metrics.put("size", cache.size());
+        }
+        metrics.put("maxSize", cacheSize);
+        metrics.put("hitCount", hitCount.sum());
+        metrics.put("missCount", missCount.sum());
+        metrics.put("scriptFallbackCount", unsupportedCount.sum());
+        return metrics;
+    }
+    
+    private static Optional<CompiledExpression> parse(String source) {
+        try {
+            return Optional.of(ExpressionParser.parse(source));
+        } catch (IllegalArgumentException e) {
+            logger.debug("Expression not supported natively, using the script engine: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
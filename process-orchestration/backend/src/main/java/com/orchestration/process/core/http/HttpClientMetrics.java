@@ -0,0 +1,101 @@
+package com.orchestration.process.core.http;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-host metrics for the shared HTTP client used by HTTP nodes.
+ * The JDK client keeps one connection pool per host; it does not expose its
+ * connection counts, so in-flight requests and the negotiated protocol are
+ * recorded instead to show how requests to each host are multiplexed.
+ */
+public class HttpClientMetrics {
+    private final Map<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+    
+    /**
+     * Record the start of a request
+     * @param uri the request URI
+     * @return the metrics of the request's host, to be passed to {@link #requestCompleted}
+     */
+    public HostMetrics requestStarted(URI uri) {
+        HostMetrics host = hosts.computeIfAbsent(hostKey(uri), key -> new HostMetrics());
+        host.requests.increment();
+        host.peakInFlight.accumulateAndGet(host.inFlight.incrementAndGet(), Math::max);
+        return host;
+    }
+    
+    /**
+     * Record the end of a request
+     * @param host the host metrics returned by {@link #requestStarted}
+     * @param startNanos the {@link System#nanoTime()} at which the request started
+     * @param version the negotiated protocol version, or null if the request failed
+     */
+    public void requestCompleted(HostMetrics host, long startNanos, HttpClient.Version version) {
+        long latencyNanos = System.nanoTime() - startNanos;
+        host.inFlight.decrementAndGet();
+        host.totalLatencyNanos.add(latencyNanos);
+        host.maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+        
+        if (version == null) {
+            host.failures.increment();
+        } else if (version == HttpClient.Version.HTTP_2) {
+            host.http2Responses.increment();
+        } else {
+            host.http1Responses.increment();
+        }
+    }
+    
+    /**
+     * Get a snapshot of the metrics of every host
+     * @return host metrics keyed by scheme, host and port
+     */
+    public Map<String, Map<String, Object>> getMetrics() {
+        Map<String, Map<String, Object>> metrics = new TreeMap<>();
+        hosts.forEach((key, host) -> metrics.put(key, host.toMap()));
+        return metrics;
+    }
+    
+    private static String hostKey(URI uri) {
+        int port = uri.getPort();
+        if (port == -1) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return uri.getScheme() + "://" + uri.getHost() + ":" + port;
+    }
+    
+    /**
+     * Counters for a single host
+     */
+    public static class HostMetrics {
+        private final LongAdder requests = new LongAdder();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peakInFlight = new AtomicInteger();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder http1Responses = new LongAdder();
+        private final LongAdder http2Responses = new LongAdder();
+        private final LongAdder totalLatencyNanos = new LongAdder();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+        
+        private Map<String, Object> toMap() {
+            long completed = http1Responses.sum() + http2Responses.sum() + failures.sum();
+            
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("requests", requests.sum());
+            metrics.put("inFlight", inFlight.get());
+            metrics.put("peakInFlight", peakInFlight.get());
+            metrics.put("failures", failures.sum());
+            metrics.put("http1Responses", http1Responses.sum());
+            metrics.put("http2Responses", http2Responses.sum());
+            metrics.put("avgLatencyMillis", completed == 0 ? 0.0 : totalLatencyNanos.sum() / 1_000_000.0 / completed);
+            metrics.put("maxLatencyMillis", maxLatencyNanos.get() / 1_000_000.0);
+            return metrics;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.orchestration.process.core.http;
+
+/**
+ * Failure of an HTTP node whose request was answered with an error status.
+ * Statuses that may succeed when the request is repeated are reported as
+ * {@link TransientHttpStatusException}.
+ */
+public class HttpStatusException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+    private final int statusCode;
+    
+    public HttpStatusException(int statusCode, String body) {
+        super("HTTP request failed: " + statusCode + " " + body);
+        this.statusCode = statusCode;
+    }
+    
+    /**
+     * Create the exception for an error status
+     * @param statusCode the response status, at least 400
+     * @param body the response body
+     * @return a {@link TransientHttpStatusException} for 408, 429 and 5xx statuses,
+     *         a {@link HttpStatusException} otherwise
+     */
+    public static HttpStatusException of(int statusCode, String body) {
+        return statusCode == 408 || statusCode == 429 || statusCode >= 500
+                ? new TransientHttpStatusException(statusCode, body)
+                : new HttpStatusException(statusCode, body);
+    }
+    
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,13 @@
+package com.orchestration.process.core.http;
+
+/**
+ * Failure of an HTTP node answered with a status that may not repeat: request timeout,
+ * too many requests or a server error.
+ */
+public class TransientHttpStatusException extends HttpStatusException {
+    private static final long serialVersionUID = 1L;
+    
+    public TransientHttpStatusException(int statusCode, String body) {
+        super(statusCode, body);
+    }
+}
@@ -0,0 +1,205 @@
+package com.orchestration.process.core.impl;
+
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates a process made only of math nodes over many rows of input at once.
+ * Inputs and outputs are columnar: one {@code double[]} per batch parameter (declared on
+ * operands with {@code param.<port>=<name>}) and one per output node. Rows are processed
+ * in chunks; within a chunk every node is evaluated as a single loop over the chunk's
+ * columns, in dependency order, so the per-row cost is a few array reads and writes per
+ * node. Large batches are split across a fork/join pool, one range of rows per task.
+ * Rows for which an operation is undefined (e.g. division by zero) produce NaN.
+ */
+public class BatchMathEvaluator {
+    public static final String PARAMETER_PREFIX = FusedMathPlan.PARAMETER_PREFIX;
+    
+    private final FusedMathPlan plan;
+    private final int[] order;
+    private final List<String> outputNodeIds;
+    private final int[] outputSlots;
+    private final int chunkRows;
+    
+    private BatchMathEvaluator(FusedMathPlan plan, List<String> outputNodeIds, int chunkRows) {
+        this.plan = plan;
+        this.order = plan.topologicalOrder();
+        this.outputNodeIds = outputNodeIds;
+        this.outputSlots = outputNodeIds.stream().mapToInt(plan::slotOf).toArray();
+        this.chunkRows = chunkRows;
+    }
+    
+    /**
+     * Compile a process for batch evaluation
+     * @param executionPlan the compiled process
+     * @param outputNodeIds the nodes whose results to return, or null or empty for the
+     *                      nodes without children
+     * @param chunkRows the number of rows evaluated together per node
+     * @return the evaluator
+     * @throws IllegalArgumentException if the process contains nodes other than math nodes
+     *                                  with literal, parameter or math inputs, or an
+     *                                  output node is not part of the process
+     */
+    public static BatchMathEvaluator compile(ExecutionPlan executionPlan, List<String> outputNodeIds, int chunkRows) {
+        if (chunkRows <= 0) {
+            throw new IllegalArgumentException("Chunk rows must be positive: " + chunkRows);
+        }
+        
+        ProcessDefinition processDefinition = executionPlan.getProcessDefinition();
+        FusedMathPlan plan = executionPlan.getFusedMathPlan();
+        for (ProcessNode node : processDefinition.getNodes()) {
+            if (plan == null || plan.slotOf(node.getNodeId()) < 0) {
+                throw new IllegalArgumentException("Node " + node.getNodeId() + " of type " + node.getType()
+                        + " cannot be evaluated in a batch; only math nodes with literal, parameter"
+                        + " or math inputs are supported");
+            }
+        }
+        
+        List<String> outputs = new ArrayList<>();
+        if (outputNodeIds == null || outputNodeIds.isEmpty()) {
+            processDefinition.getNodes().stream()
+                    .filter(node -> node.getChildNodeIds() == null || node.getChildNodeIds().isEmpty())
+                    .forEach(node -> outputs.add(node.getNodeId()));
+        } else {
+            for (String nodeId : outputNodeIds) {
+                if (plan.slotOf(nodeId) < 0) {
+                    throw new IllegalArgumentException("Output node not found: " + nodeId);
+                }
+                outputs.add(nodeId);
+            }
+        }
+        
+        return new BatchMathEvaluator(plan, Collections.unmodifiableList(outputs), chunkRows);
+    }
+    
+    /**
+     * Get the names of the input columns the process reads
+     * @return the parameter names
+     */
+    public List<String> getParameterNames() {
+        return Collections.unmodifiableList(plan.getParameterNames());
+    }
+    
+    public List<String> getOutputNodeIds() {
+        return outputNodeIds;
+    }
+    
+    /**
+     * Evaluate the process for every row of the input columns
+     * @param columns the value of each parameter per row, keyed by parameter name; columns
+     *                the process does not read are ignored
+     * @param pool the pool to split large batches across, or null to evaluate every row on
+     *             the calling thread
+     * @return the result of each output node per row, keyed by node ID in output order
+     * @throws IllegalArgumentException if a parameter column is missing or the columns
+     *                                  differ in length
+     */
+    public Map<String, double[]> evaluate(Map<String, double[]> columns, ForkJoinPool pool) {
+        List<String> parameterNames = plan.getParameterNames();
+        double[][] parameterColumns = new double[parameterNames.size()][];
+        int rows = -1;
+        
+        for (int i = 0; i < parameterColumns.length; i++) {
+            double[] column = columns.get(parameterNames.get(i));
+            if (column == null) {
+                throw new IllegalArgumentException("Missing input column: " + parameterNames.get(i));
+            }
+            if (rows >= 0 && column.length != rows) {
+                throw new IllegalArgumentException("Input column " + parameterNames.get(i) + " has "
+                        + column.length + " rows, expected " + rows);
+            }
+            rows = column.length;
+            parameterColumns[i] = column;
+        }
+        if (rows < 0) {
+            // A process without parameters yields a single row
+            rows = columns.values().stream().findFirst().map(column -> column.length).orElse(1);
+        }
+        
+        double[][] outputColumns = new double[outputSlots.length][rows];
+        RangeTask task = new RangeTask(parameterColumns, outputColumns, 0, rows,
+                pool != null ? Math.max(chunkRows, rows / (pool.getParallelism() * 4)) : rows);
+        if (pool != null && rows > chunkRows) {
+            pool.invoke(task);
+        } else {
+            task.compute();
+        }
+        
+        Map<String, double[]> outputs = new LinkedHashMap<>();
+        for (int i = 0; i < outputSlots.length; i++) {
+            outputs.put(outputNodeIds.get(i), outputColumns[i]);
+        }
+        return outputs;
+    }
+    
+    /**
+     * Evaluate the rows of one range in chunks, reusing the chunk columns of every slot
+     * @param parameterColumns the full parameter columns
+     * @param outputColumns the full output columns
+     * @param from the first row of the range
+     * @param to the row after the last row of the range
+     */
+    private void evaluateRange(double[][] parameterColumns, double[][] outputColumns, int from, int to) {
+        int chunk = Math.min(chunkRows, to - from);
+        double[][] slotColumns = new double[plan.size()][chunk];
+        double[][] parameterChunks = new double[parameterColumns.length][chunk];
+        double[] leftBuffer = new double[chunk];
+        double[] rightBuffer = new double[chunk];
+        
+        for (int start = from; start < to; start += chunk) {
+            int length = Math.min(chunk, to - start);
+            for (int i = 0; i < parameterColumns.length; i++) {
+                System.arraycopy(parameterColumns[i], start, parameterChunks[i], 0, length);
+            }
+            for (int slot : order) {
+                plan.evaluateColumns(slot, slotColumns, parameterChunks, leftBuffer, rightBuffer, length);
+            }
+            for (int i = 0; i < outputSlots.length; i++) {
+                System.arraycopy(slotColumns[outputSlots[i]], 0, outputColumns[i], start, length);
+            }
+        }
+    }
+    
+    /**
+     * Splits a range of rows in halves until it is small enough to evaluate directly
+     */
+    private class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final double[][] parameterColumns;
+        private final double[][] outputColumns;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        
+        RangeTask(double[][] parameterColumns, double[][] outputColumns, int from, int to, int threshold) {
+            this.parameterColumns = parameterColumns;
+            this.outputColumns = outputColumns;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                if (to > from) {
+                    evaluateRange(parameterColumns, outputColumns, from, to);
+                }
+                return;
+            }
+            
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                    new RangeTask(parameterColumns, outputColumns, from, middle, threshold),
+                    new RangeTask(parameterColumns, outputColumns, middle, to, threshold));
+        }
+    }
+}
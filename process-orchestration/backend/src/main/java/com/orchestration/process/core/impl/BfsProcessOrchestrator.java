@@ -1,8 +1,12 @@
 package com.orchestration.process.core.impl;
 
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessExecution;
 import com.orchestration.process.core.ProcessNodeExecutor;
-import com.orchestration.process.core.ProcessNodeExecutorRegistry;
 import com.orchestration.process.core.ProcessOrchestrator;
+import com.orchestration.process.core.deadline.ExecutionDeadlines;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.retry.NodeRetries;
 import com.orchestration.process.model.ProcessDefinition;
 import com.orchestration.process.model.ProcessNode;
 import org.slf4j.Logger;
@@ -12,149 +16,199 @@ import org.springframework.stereotype.Component;
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
 
 /**
  * Implementation of ProcessOrchestrator that uses breadth-first traversal
  * and parallel execution for nodes at the same level.
+ * Levels are walked over the node ordinals of the definition's cached {@link ExecutionPlan}.
+ * The next level is started on the orchestration pool once every node of the current one
+ * has settled, so no thread waits while nodes run. Running nodes are watched by
+ * {@link ExecutionDeadlines}, so a level cannot outlast the timeouts of its nodes and a
+ * stop cancels it at once. Nodes are run under their retry policy by {@link NodeRetries},
+ * so a level waits for the retries of its failing nodes before the next one starts. In a
+ * rerun, nodes unchanged since the rerun execution complete with their earlier results.
  */
 @Component
 public class BfsProcessOrchestrator implements ProcessOrchestrator {
+    public static final String STRATEGY = "bfs";
+    
     private static final Logger logger = LoggerFactory.getLogger(BfsProcessOrchestrator.class);
     
-    private final ProcessNodeExecutorRegistry executorRegistry;
-    private final Map<Long, ProcessDefinition> runningProcesses = new ConcurrentHashMap<>();
-    private final Map<Long, Boolean> stopRequests = new ConcurrentHashMap<>();
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final ExecutorPoolRegistry executorPools;
+    private final ExecutionPlanCache executionPlanCache;
+    private final NodeRetries retries;
     
     @Autowired
-    public BfsProcessOrchestrator(ProcessNodeExecutorRegistry executorRegistry) {
-        this.executorRegistry = executorRegistry;
+    public BfsProcessOrchestrator(
+            ExecutorPoolRegistry executorPools,
+            ExecutionPlanCache executionPlanCache,
+            NodeRetries retries) {
+        this.executorPools = executorPools;
+        this.executionPlanCache = executionPlanCache;
+        this.retries = retries;
+    }
+    
+    @Override
+    public String getStrategy() {
+        return STRATEGY;
     }
     
     @Override
-    public CompletableFuture<ProcessDefinition> execute(ProcessDefinition processDefinition) {
-        // Store the process definition for status tracking
-        runningProcesses.put(processDefinition.getId(), processDefinition);
-        stopRequests.put(processDefinition.getId(), false);
+    public CompletableFuture<ProcessExecution> execute(ProcessExecution execution) {
+        ProcessDefinition processDefinition = execution.getProcessDefinition();
         
-        // Build the node map if not already built
-        if (processDefinition.getNodeMap() == null || processDefinition.getNodeMap().isEmpty()) {
-            processDefinition.buildNodeMap();
+        // Start the execution
+        runStep(execution, () -> {
+            logger.info("Starting execution {} of process: {}", execution.getExecutionId(), processDefinition.getName());
+            
+            ExecutionPlan plan = executionPlanCache.getPlan(processDefinition);
+            int[] rootNodes = plan.getRootOrdinals();
+            
+            if (rootNodes.length == 0) {
+                logger.warn("No root nodes found for process: {}", processDefinition.getName());
+                execution.finish();
+                return;
+            }
+            
+            // Process each level, starting with the root nodes
+            runLevel(execution, plan, rootNodes, new BitSet(plan.size()));
+        });
+        
+        return execution.getCompletion();
+    }
+    
+    /**
+     * Start every node of a level in parallel, and the next level once they have settled
+     * @param execution the execution
+     * @param plan the execution plan of the process
+     * @param currentLevel the ordinals of the level's nodes
+     * @param queued scratch set of the nodes queued for the next level
+     */
+    private void runLevel(ProcessExecution execution, ExecutionPlan plan, int[] currentLevel, BitSet queued) {
+        if (currentLevel.length == 0 || execution.isStopRequested()) {
+            logger.info("Execution {} of process completed: {}", execution.getExecutionId(), execution.getProcessName());
+            execution.finish();
+            return;
         }
         
-        // Start the execution
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                logger.info("Starting execution of process: {}", processDefinition.getName());
-                
-                // Get the root nodes
-                List<ProcessNode> rootNodes = processDefinition.getRootNodeIds().stream()
-                        .map(processDefinition::getNodeById)
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toList());
-                
-                if (rootNodes.isEmpty()) {
-                    logger.warn("No root nodes found for process: {}", processDefinition.getName());
-                    return processDefinition;
-                }
-                
-                // Initialize the queue with root nodes
-                Queue<List<ProcessNode>> levelQueue = new LinkedList<>();
-                levelQueue.add(rootNodes);
+        // Execute all nodes at the current level in parallel
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        
+        for (int ordinal : currentLevel) {
+            ProcessNode node = plan.getNode(ordinal);
+            
+            // Skip nodes already started, e.g. reached again through a longer path
+            if (execution.getNodeStatus(ordinal) != ProcessNode.ProcessNodeStatus.PENDING) {
+                continue;
+            }
+            
+            ProcessNodeExecutor executor = plan.getExecutor(ordinal);
+            
+            if (executor != null) {
+                execution.setNodeStatus(ordinal, ProcessNode.ProcessNodeStatus.RUNNING);
+                plan.recordDispatch(ordinal);
                 
-                // Process each level
-                while (!levelQueue.isEmpty() && !stopRequests.get(processDefinition.getId())) {
-                    List<ProcessNode> currentLevel = levelQueue.poll();
-                    
-                    // Execute all nodes at the current level in parallel
-                    List<CompletableFuture<Object>> futures = new ArrayList<>();
-                    
-                    for (ProcessNode node : currentLevel) {
-                        // Skip already completed or failed nodes
-                        if (node.getStatus() == ProcessNode.ProcessNodeStatus.COMPLETED ||
-                            node.getStatus() == ProcessNode.ProcessNodeStatus.FAILED) {
-                            continue;
-                        }
-                        
-                        // Find an executor for the node
-                        Optional<ProcessNodeExecutor> executorOpt = executorRegistry.findExecutor(node.getType());
-                        
-                        if (executorOpt.isPresent()) {
-                            ProcessNodeExecutor executor = executorOpt.get();
-                            node.setStatus(ProcessNode.ProcessNodeStatus.RUNNING);
-                            
-                            // Execute the node
-                            CompletableFuture<Object> future = executor.execute(node);
-                            futures.add(future);
+                // Execute the node
+                try {
+                    NodeExecutionContext context = NodeExecutionContext.forNode(
+                            node, plan.getInputPorts(ordinal), plan.getInputSources(ordinal), execution);
+                    CompletableFuture<Object> nodeFuture = execution.reuseResult(node, context);
+                    if (nodeFuture == null) {
+                        nodeFuture = retries.execute(execution, ordinal, node, executor, context);
+                    }
+                    CompletableFuture<Object> future = nodeFuture.whenComplete((result, error) -> {
+                        if (error == null) {
+                            // Make the result available to the input ports of downstream nodes
+                            execution.completeNode(ordinal, result);
                         } else {
-                            logger.error("No executor found for node type: {}", node.getType());
-                            node.setStatus(ProcessNode.ProcessNodeStatus.FAILED);
+                            execution.setNodeStatus(ordinal, ProcessNode.ProcessNodeStatus.FAILED);
                         }
-                    }
-                    
-                    // Wait for all nodes at this level to complete
-                    CompletableFuture<Void> allFutures = CompletableFuture.allOf(
-                            futures.toArray(new CompletableFuture[0])
-                    );
-                    
-                    try {
-                        allFutures.get(); // Wait for all nodes to complete
-                    } catch (Exception e) {
-                        logger.error("Error waiting for node execution", e);
-                    }
-                    
-                    // Check if all nodes at this level completed successfully
-                    boolean allCompleted = currentLevel.stream()
-                            .allMatch(node -> node.getStatus() == ProcessNode.ProcessNodeStatus.COMPLETED);
-                    
-                    if (!allCompleted) {
-                        logger.warn("Not all nodes at level completed successfully");
-                        // We still continue to the next level, but log the warning
-                    }
-                    
-                    // Collect child nodes for the next level
-                    List<ProcessNode> nextLevel = new ArrayList<>();
-                    
-                    for (ProcessNode node : currentLevel) {
-                        if (node.getStatus() == ProcessNode.ProcessNodeStatus.COMPLETED) {
-                            // Add child nodes to the next level
-                            for (String childId : node.getChildNodeIds()) {
-                                ProcessNode childNode = processDefinition.getNodeById(childId);
-                                if (childNode != null) {
-                                    nextLevel.add(childNode);
-                                }
-                            }
+                    });
+                    futures.add(future);
+                } catch (RejectedExecutionException e) {
+                    logger.error("Executor pool rejected node: {}", node.getNodeId(), e);
+                    execution.setNodeStatus(ordinal, ProcessNode.ProcessNodeStatus.FAILED);
+                } catch (IllegalStateException | IllegalArgumentException e) {
+                    logger.error("Node cannot be started: {}", node.getNodeId(), e);
+                    execution.setNodeStatus(ordinal, ProcessNode.ProcessNodeStatus.FAILED);
+                }
+            } else {
+                logger.error("No executor found for node type: {}", node.getType());
+                execution.setNodeStatus(ordinal, ProcessNode.ProcessNodeStatus.FAILED);
+            }
+        }
+        
+        // Continue once all nodes at this level have settled
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenCompleteAsync((ignored, error) -> {
+            if (error != null) {
+                logger.warn("Not all nodes at level completed successfully: {}",
+                        (error.getCause() != null ? error.getCause() : error).getMessage());
+            }
+            try {
+                runLevel(execution, plan, nextLevel(execution, plan, currentLevel, queued), queued);
+            } catch (RuntimeException e) {
+                fail(execution, e);
+            }
+        }, executorPools.getOrchestrationExecutor());
+    }
+    
+    /**
+     * Collect the children of the completed nodes of a level, once each even if several
+     * parents share them
+     * @param execution the execution
+     * @param plan the execution plan of the process
+     * @param currentLevel the ordinals of the level's nodes
+     * @param queued scratch set of the nodes queued for the next level
+     * @return the ordinals of the next level's nodes
+     */
+    private int[] nextLevel(ProcessExecution execution, ExecutionPlan plan, int[] currentLevel, BitSet queued) {
+        // Check if all nodes at this level completed successfully
+        boolean allCompleted = Arrays.stream(currentLevel)
+                .allMatch(ordinal -> execution.getNodeStatus(ordinal) == ProcessNode.ProcessNodeStatus.COMPLETED);
+        
+        if (!allCompleted) {
+            logger.warn("Not all nodes at level completed successfully");
+            // We still continue to the next level, but log the warning
+        }
+        
+        int[] nextLevel = new int[16];
+        int nextLevelSize = 0;
+        queued.clear();
+        
+        for (int ordinal : currentLevel) {
+            if (execution.getNodeStatus(ordinal) == ProcessNode.ProcessNodeStatus.COMPLETED) {
+                // Add child nodes to the next level
+                for (int child : plan.getChildren(ordinal)) {
+                    if (!queued.get(child)) {
+                        queued.set(child);
+                        if (nextLevelSize == nextLevel.length) {
+                            nextLevel = Arrays.copyOf(nextLevel, nextLevelSize * 2);
                         }
-                    }
-                    
-                    // Add the next level to the queue if not empty
-                    if (!nextLevel.isEmpty()) {
-                        levelQueue.add(nextLevel);
+                        nextLevel[nextLevelSize++] = child;
                     }
                 }
-                
-                logger.info("Process execution completed: {}", processDefinition.getName());
-                return processDefinition;
-            } finally {
-                // Clean up
-                runningProcesses.remove(processDefinition.getId());
-                stopRequests.remove(processDefinition.getId());
             }
-        }, executorService);
+        }
+        
+        return Arrays.copyOf(nextLevel, nextLevelSize);
     }
     
-    @Override
-    public ProcessDefinition getStatus(Long processId) {
-        return runningProcesses.get(processId);
+    /**
+     * Run a step of an execution on the orchestration pool, failing the execution if the
+     * step throws
+     * @param execution the execution
+     * @param step the step
+     */
+    private void runStep(ProcessExecution execution, Runnable step) {
+        CompletableFuture.runAsync(step, executorPools.getOrchestrationExecutor()).whenComplete((result, error) -> {
+            if (error != null) {
+                fail(execution, error.getCause() != null ? error.getCause() : error);
+            }
+        });
     }
     
-    @Override
-    public boolean stopProcess(Long processId) {
-        if (runningProcesses.containsKey(processId)) {
-            stopRequests.put(processId, true);
-            return true;
-        }
-        return false;
+    private void fail(ProcessExecution execution, Throwable error) {
+        logger.error("Execution {} of process failed: {}", execution.getExecutionId(), execution.getProcessName(), error);
+        execution.fail(error);
     }
 }
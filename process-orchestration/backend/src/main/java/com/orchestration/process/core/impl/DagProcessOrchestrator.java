@@ -0,0 +1,349 @@
+package com.orchestration.process.core.impl;
+
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.ProcessOrchestrator;
+import com.orchestration.process.core.deadline.ExecutionDeadlines;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.retry.NodeRetries;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Implementation of ProcessOrchestrator that schedules nodes by their dependencies.
+ * Each node tracks the number of parents that have not completed yet and is started
+ * as soon as that count drops to zero, so independent branches never wait for each
+ * other and the process latency is bounded by its critical path. Children, executors,
+ * input ports and initial parent counts come from the cached {@link ExecutionPlan} of
+ * the definition, so a run only allocates its counters and node state.
+ * <p>
+ * Sub-graphs made only of math nodes are fused: when such a node becomes ready it is
+ * evaluated inline on the thread that released it, together with every fusible node it
+ * makes ready in turn, instead of being scheduled on the CPU pool one task per operation.
+ * Fused nodes still get their status and result recorded. Fusion can be turned off with
+ * {@code process.orchestrator.dag.fusion-enabled=false}.
+ * <p>
+ * A resumed execution starts from the nodes its completed nodes had made ready; nodes
+ * it had completed are not run again. In a rerun, a node that is unchanged since the
+ * rerun execution, inputs included, completes with its earlier result instead of running.
+ * <p>
+ * Running nodes are watched by {@link ExecutionDeadlines}: a node that times out or is
+ * cancelled by a stop fails, and its children are not started. Nodes are run under their
+ * retry policy by {@link NodeRetries}, so a node is only failed once its retries are
+ * exhausted; fused math nodes are never retried.
+ */
+@Component
+public class DagProcessOrchestrator implements ProcessOrchestrator {
+    public static final String STRATEGY = "dag";
+    
+    private static final Logger logger = LoggerFactory.getLogger(DagProcessOrchestrator.class);
+    
+    private final ExecutorPoolRegistry executorPools;
+    private final ExecutionPlanCache executionPlanCache;
+    private final NodeRetries retries;
+    private final boolean fusionEnabled;
+    
+    @Autowired
+    public DagProcessOrchestrator(
+            ExecutorPoolRegistry executorPools,
+            ExecutionPlanCache executionPlanCache,
+            NodeRetries retries,
+            @Value("${process.orchestrator.dag.fusion-enabled:true}") boolean fusionEnabled) {
+        this.executorPools = executorPools;
+        this.executionPlanCache = executionPlanCache;
+        this.retries = retries;
+        this.fusionEnabled = fusionEnabled;
+    }
+    
+    @Override
+    public String getStrategy() {
+        return STRATEGY;
+    }
+    
+    @Override
+    public CompletableFuture<ProcessExecution> execute(ProcessExecution execution) {
+        ProcessDefinition processDefinition = execution.getProcessDefinition();
+        logger.info("Starting execution {} of process: {}", execution.getExecutionId(), processDefinition.getName());
+        
+        ExecutionPlan plan = executionPlanCache.getPlan(processDefinition);
+        DagRun run = new DagRun(execution, plan, fusionEnabled ? plan.getFusedMathPlan() : null);
+        
+        int[] parentCounts = plan.getParentCounts();
+        int[] readyNodes = execution.isResumed()
+                ? resume(run)
+                : Arrays.stream(plan.getRootOrdinals()).filter(ordinal -> parentCounts[ordinal] == 0).toArray();
+        
+        if (readyNodes.length == 0) {
+            // A resumed execution may have finished every node it could before the restart
+            if (!execution.isResumed()) {
+                logger.warn("No root nodes found for process: {}", processDefinition.getName());
+            }
+            execution.finish();
+            return execution.getCompletion();
+        }
+        
+        // Count every ready node as in flight before dispatching any of them, so a fast
+        // node cannot complete the process while its siblings are still being started
+        run.inFlight.set(readyNodes.length);
+        for (int ordinal : readyNodes) {
+            dispatch(run, ordinal);
+        }
+        
+        return execution.getCompletion();
+    }
+    
+    /**
+     * Count the nodes a resumed execution had completed against their children, as if
+     * they had just run
+     * @param run the state of the resumed execution
+     * @return the ordinals of the PENDING nodes whose parents have all completed
+     */
+    private int[] resume(DagRun run) {
+        ExecutionPlan plan = run.plan;
+        int[] parentCounts = plan.getParentCounts();
+        for (int ordinal = 0; ordinal < plan.size(); ordinal++) {
+            if (parentCounts[ordinal] < 0 || run.execution.getNodeStatus(ordinal) != ProcessNode.ProcessNodeStatus.COMPLETED) {
+                continue;
+            }
+            for (int child : plan.getChildren(ordinal)) {
+                run.pendingParents.decrementAndGet(child);
+            }
+            
+            int slot = plan.fusedSlotOf(ordinal);
+            if (run.fusedMathPlan != null && slot >= 0) {
+                run.fusedValues[slot] = ((Number) run.execution.getNodeResult(ordinal)).doubleValue();
+                run.evaluated[slot] = true;
+            }
+        }
+        
+        return IntStream.range(0, plan.size())
+                .filter(ordinal -> run.pendingParents.get(ordinal) == 0
+                        && run.execution.getNodeStatus(ordinal) == ProcessNode.ProcessNodeStatus.PENDING)
+                .toArray();
+    }
+    
+    /**
+     * Start a node whose parents have all completed
+     * @param run the execution state
+     * @param ordinal the ordinal of the node to start
+     */
+    private void dispatch(DagRun run, int ordinal) {
+        ProcessExecution execution = run.execution;
+        if (execution.isStopRequested() || execution.getNodeStatus(ordinal) != ProcessNode.ProcessNodeStatus.PENDING) {
+            finish(run);
+            return;
+        }
+        
+        if (run.fusedMathPlan != null && run.plan.fusedSlotOf(ordinal) >= 0) {
+            evaluateFused(run, ordinal);
+            return;
+        }
+        
+        ProcessNode node = run.plan.getNode(ordinal);
+        ProcessNodeExecutor executor = getExecutor(run.plan, ordinal);
+        if (executor == null) {
+            logger.error("No executor found for node type: {}", node.getType());
+            execution.setNodeStatus(ordinal, ProcessNode.ProcessNodeStatus.FAILED);
+            finish(run);
+            return;
+        }
+        
+        execution.setNodeStatus(ordinal, ProcessNode.ProcessNodeStatus.RUNNING);
+        run.plan.recordDispatch(ordinal);
+        
+        CompletableFuture<Object> future;
+        try {
+            NodeExecutionContext context = NodeExecutionContext.forNode(
+                    node, run.plan.getInputPorts(ordinal), run.plan.getInputSources(ordinal), execution);
+            future = execution.reuseResult(node, context);
+            if (future == null) {
+                future = retries.execute(execution, ordinal, node, executor, context);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error starting node execution: {}", node.getNodeId(), e);
+            execution.setNodeStatus(ordinal, ProcessNode.ProcessNodeStatus.FAILED);
+            finish(run);
+            return;
+        }
+        
+        BiConsumer<Object, Throwable> onComplete = (result, error) -> onNodeFinished(run, ordinal, result, error);
+        if (future.isDone()) {
+            // Continue on another thread to keep long chains of synchronous nodes off this stack
+            future.whenCompleteAsync(onComplete, executorPools.getOrchestrationExecutor());
+        } else {
+            future.whenComplete(onComplete);
+        }
+    }
+    
+    /**
+     * Get the executor to run a node with
+     * @param plan the execution plan of the process
+     * @param ordinal the node's ordinal
+     * @return the executor, or null if no executor handles the node's type
+     */
+    protected ProcessNodeExecutor getExecutor(ExecutionPlan plan, int ordinal) {
+        return plan.getExecutor(ordinal);
+    }
+    
+    /**
+     * Release the children of a finished node and start those that became ready
+     * @param run the execution state
+     * @param ordinal the finished node's ordinal
+     * @param result the value the executor completed with
+     * @param error the execution error, or null if the executor completed normally
+     */
+    private void onNodeFinished(DagRun run, int ordinal, Object result, Throwable error) {
+        if (error != null) {
+            logger.warn("Node did not complete successfully, skipping its children: {} ({})",
+                    run.plan.getNode(ordinal).getNodeId(), (error.getCause() != null ? error.getCause() : error).getMessage());
+            run.execution.setNodeStatus(ordinal, ProcessNode.ProcessNodeStatus.FAILED);
+        } else {
+            // Make the result available to the input ports of downstream nodes
+            run.execution.completeNode(ordinal, result);
+            if (!run.execution.isStopRequested()) {
+                releaseChildren(run, ordinal, null);
+            }
+        }
+        
+        finish(run);
+    }
+    
+    /**
+     * Evaluate a ready fusible math node, and every fusible node that becomes ready as a
+     * result, on the calling thread
+     * @param run the execution state
+     * @param start the ordinal of the ready fusible node
+     */
+    private void evaluateFused(DagRun run, int start) {
+        FusedMathPlan fusedPlan = run.fusedMathPlan;
+        IntStack ready = new IntStack();
+        ready.push(start);
+        
+        while (!ready.isEmpty()) {
+            int ordinal = ready.pop();
+            int slot = run.plan.fusedSlotOf(ordinal);
+            
+            if (run.execution.isStopRequested()) {
+                finish(run);
+                continue;
+            }
+            
+            try {
+                if (!fusedPlan.isReady(slot, run.evaluated)) {
+                    throw new IllegalStateException("An input of node " + run.plan.getNode(ordinal).getNodeId()
+                            + " has not produced a result");
+                }
+                
+                run.plan.recordDispatch(ordinal);
+                double value = fusedPlan.evaluate(slot, run.fusedValues);
+                run.fusedValues[slot] = value;
+                run.evaluated[slot] = true;
+                run.execution.completeNode(ordinal, value);
+                releaseChildren(run, ordinal, ready);
+            } catch (RuntimeException e) {
+                String nodeId = run.plan.getNode(ordinal).getNodeId();
+                logger.error("Math operation failed: {}", nodeId, e);
+                run.execution.setNodeStatus(ordinal, ProcessNode.ProcessNodeStatus.FAILED);
+                logger.warn("Node did not complete successfully, skipping its children: {}", nodeId);
+            }
+            
+            finish(run);
+        }
+    }
+    
+    /**
+     * Count a completed node against each of its children and start the children that
+     * became ready
+     * @param run the execution state
+     * @param ordinal the completed node's ordinal
+     * @param fusedReady the stack of the fused evaluation in progress, which takes ready
+     *                   fusible children instead of dispatching them, or null
+     */
+    private void releaseChildren(DagRun run, int ordinal, IntStack fusedReady) {
+        for (int child : run.plan.getChildren(ordinal)) {
+            if (run.pendingParents.decrementAndGet(child) == 0) {
+                run.inFlight.incrementAndGet();
+                
+                if (fusedReady != null && run.plan.fusedSlotOf(child) >= 0
+                        && run.execution.getNodeStatus(child) == ProcessNode.ProcessNodeStatus.PENDING) {
+                    fusedReady.push(child);
+                } else {
+                    dispatch(run, child);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Mark one in-flight node as done and complete the process when none remain
+     * @param run the execution state
+     */
+    private void finish(DagRun run) {
+        if (run.inFlight.decrementAndGet() == 0) {
+            logger.info("Execution {} of process completed: {}", run.execution.getExecutionId(),
+                    run.execution.getProcessName());
+            run.execution.finish();
+        }
+    }
+    
+    /**
+     * Mutable state of a single process execution
+     */
+    private static class DagRun {
+        private final ProcessExecution execution;
+        private final ExecutionPlan plan;
+        // Parents each node still waits for, by ordinal
+        private final AtomicIntegerArray pendingParents;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final FusedMathPlan fusedMathPlan;
+        // Values of fused nodes by slot; each slot is written before its node's children
+        // are released, and the release counters order that write before their reads
+        private final double[] fusedValues;
+        private final boolean[] evaluated;
+        
+        DagRun(ProcessExecution execution, ExecutionPlan plan, FusedMathPlan fusedMathPlan) {
+            this.execution = execution;
+            this.plan = plan;
+            this.pendingParents = new AtomicIntegerArray(plan.getParentCounts());
+            this.fusedMathPlan = fusedMathPlan;
+            this.fusedValues = fusedMathPlan != null ? new double[fusedMathPlan.size()] : null;
+            this.evaluated = fusedMathPlan != null ? new boolean[fusedMathPlan.size()] : null;
+        }
+    }
+    
+    /**
+     * Growable stack of ordinals, so fused evaluation does not box each ready node
+     */
+    private static class IntStack {
+        private int[] values = new int[16];
+        private int size;
+        
+        void push(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        int pop() {
+            return values[--size];
+        }
+        
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.orchestration.process.core.impl;
+
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.distributed.NodeWorkers;
+import com.orchestration.process.core.distributed.RemoteNodeDispatcher;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.retry.NodeRetries;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of ProcessOrchestrator that runs nodes on the workers of every instance
+ * sharing the application database.
+ * Nodes are scheduled by their dependencies as with the dag strategy, by the instance
+ * that started the execution, which keeps its state, deadlines, retries and journal. A
+ * ready node is not run on this instance's pools but published to the work queue by the
+ * {@link RemoteNodeDispatcher}, for the {@link NodeWorkers} of any instance to claim;
+ * a node whose worker dies is claimed again by another worker once its lease expires.
+ * <p>
+ * Fused math sub-graphs are still evaluated inline, since they cost less than a round
+ * trip through the queue, and nodes of the types in
+ * {@code process.distributed.local-node-types} run on this instance, e.g. sub-process
+ * nodes, which start child executions here.
+ */
+@Component
+public class DistributedProcessOrchestrator extends DagProcessOrchestrator {
+    public static final String STRATEGY = "distributed";
+    
+    private final RemoteNodeDispatcher dispatcher;
+    private final Set<String> localNodeTypes;
+    
+    @Autowired
+    public DistributedProcessOrchestrator(
+            ExecutorPoolRegistry executorPools,
+            ExecutionPlanCache executionPlanCache,
+            NodeRetries retries,
+            RemoteNodeDispatcher dispatcher,
+            @Value("${process.orchestrator.dag.fusion-enabled:true}") boolean fusionEnabled,
+            @Value("${process.distributed.local-node-types:subprocess}") String localNodeTypes) {
+        super(executorPools, executionPlanCache, retries, fusionEnabled);
+        this.dispatcher = dispatcher;
+        this.localNodeTypes = Arrays.stream(localNodeTypes.split(","))
+                .map(String::trim)
+                .filter(type -> !type.isEmpty())
+                .collect(Collectors.toSet());
+    }
+    
+    @Override
+    public String getStrategy() {
+        return STRATEGY;
+    }
+    
+    /**
+     * Run the node remotely unless its type runs locally. A node without an executor on
+     * this instance fails here, as it would with the dag strategy
+     */
+    @Override
+    protected ProcessNodeExecutor getExecutor(ExecutionPlan plan, int ordinal) {
+        ProcessNodeExecutor executor = plan.getExecutor(ordinal);
+        if (executor == null || localNodeTypes.contains(plan.getNode(ordinal).getType())) {
+            return executor;
+        }
+        return dispatcher.getRemoteExecutor();
+    }
+}
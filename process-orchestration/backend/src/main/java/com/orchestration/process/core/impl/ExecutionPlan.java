@@ -0,0 +1,303 @@
+package com.orchestration.process.core.impl;
+
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.ProcessNodeExecutorRegistry;
+import com.orchestration.process.core.executor.math.AbstractMathNodeExecutor;
+import com.orchestration.process.core.memo.NodeResultCache;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A process definition compiled for execution.
+ * Everything an orchestrator would otherwise derive from the definition on each run is
+ * resolved once, against node ordinals (positions in {@link ProcessDefinition#getNodes()},
+ * the same indexes executions keep their node state by): the root nodes, the children
+ * of every node, the executor of every node, the upstream node of every input port, the
+ * number of parents each node waits for and a topological order. The executors of nodes
+ * marked deterministic are wrapped to serve their results from a {@link NodeResultCache}.
+ * The plan is immutable and shared by every execution of the definition version it was
+ * compiled from; see {@link ExecutionPlanCache}.
+ */
+public class ExecutionPlan {
+    private static final String[] NO_PORTS = new String[0];
+    private static final int[] NONE = new int[0];
+    
+    private final ProcessDefinition processDefinition;
+    private final long version;
+    private final long registryGeneration;
+    private final ProcessNode[] nodes;
+    private final ProcessNodeExecutor[] executors;
+    private final LongAdder[] dispatchCounters;
+    private final int[][] children;
+    private final String[][] inputPorts;
+    private final int[][] inputSources;
+    private final int[] rootOrdinals;
+    private final int[] parentCounts;
+    private final int[] topologicalOrder;
+    private final FusedMathPlan fusedMathPlan;
+    private final int[] fusedSlots;
+    
+    private ExecutionPlan(ProcessDefinition processDefinition, ProcessNodeExecutorRegistry executorRegistry,
+                          NodeResultCache resultCache) {
+        List<ProcessNode> nodeList = processDefinition.getNodes();
+        int size = nodeList.size();
+        this.processDefinition = processDefinition;
+        this.version = processDefinition.getVersion();
+        this.registryGeneration = executorRegistry.getGeneration();
+        this.nodes = nodeList.toArray(new ProcessNode[0]);
+        this.executors = new ProcessNodeExecutor[size];
+        this.dispatchCounters = new LongAdder[size];
+        this.children = new int[size][];
+        this.inputPorts = new String[size][];
+        this.inputSources = new int[size][];
+        
+        // Processes repeat a handful of node types many times, so resolve each type once
+        Map<String, Optional<ProcessNodeExecutor>> executorsByType = new HashMap<>();
+        Map<String, LongAdder> dispatchCountersByType = new HashMap<>();
+        boolean hasMathNodes = false;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            ProcessNode node = nodes[ordinal];
+            executors[ordinal] = executorsByType.computeIfAbsent(node.getType(), executorRegistry::findExecutor).orElse(null);
+            dispatchCounters[ordinal] = dispatchCountersByType.computeIfAbsent(node.getType(), executorRegistry::getDispatchCounter);
+            hasMathNodes |= executors[ordinal] instanceof AbstractMathNodeExecutor;
+            if (resultCache != null && executors[ordinal] != null && NodeResultCache.isDeterministic(node)) {
+                executors[ordinal] = resultCache.memoize(executors[ordinal]);
+            }
+            children[ordinal] = ordinalsOf(processDefinition, node.getChildNodeIds());
+            
+            Map<String, String> bindings = NodeExecutionContext.getInputBindings(node);
+            inputPorts[ordinal] = bindings.isEmpty() ? NO_PORTS : new String[bindings.size()];
+            inputSources[ordinal] = bindings.isEmpty() ? NONE : new int[bindings.size()];
+            int port = 0;
+            for (Map.Entry<String, String> binding : bindings.entrySet()) {
+                inputPorts[ordinal][port] = binding.getKey();
+                inputSources[ordinal][port] = processDefinition.getNodeOrdinal(binding.getValue());
+                port++;
+            }
+        }
+        
+        this.rootOrdinals = ordinalsOf(processDefinition, processDefinition.getRootNodeIds());
+        this.parentCounts = countReachableParents();
+        this.topologicalOrder = sortReachable();
+        
+        this.fusedMathPlan = hasMathNodes ? FusedMathPlan.compile(processDefinition, executorRegistry) : null;
+        this.fusedSlots = new int[size];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            fusedSlots[ordinal] = fusedMathPlan != null ? fusedMathPlan.slotOf(nodes[ordinal].getNodeId()) : -1;
+        }
+    }
+    
+    /**
+     * Compile a process definition
+     * @param processDefinition the process definition; its node map must be built
+     * @param executorRegistry the registry resolving node types to executors
+     * @param resultCache the cache serving the results of deterministic nodes, or null to
+     *                    always run them
+     * @return the plan
+     */
+    public static ExecutionPlan compile(ProcessDefinition processDefinition, ProcessNodeExecutorRegistry executorRegistry,
+                                        NodeResultCache resultCache) {
+        return new ExecutionPlan(processDefinition, executorRegistry, resultCache);
+    }
+    
+    public ProcessDefinition getProcessDefinition() {
+        return processDefinition;
+    }
+    
+    /**
+     * Get the version of the definition the plan was compiled from
+     * @return the definition version
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Get the executor registry generation the plan's executors were resolved in
+     * @return the registry generation
+     */
+    public long getRegistryGeneration() {
+        return registryGeneration;
+    }
+    
+    public int size() {
+        return nodes.length;
+    }
+    
+    public ProcessNode getNode(int ordinal) {
+        return nodes[ordinal];
+    }
+    
+    /**
+     * Get the executor resolved for a node
+     * @param ordinal the node's ordinal
+     * @return the executor, or null if no executor handles the node's type
+     */
+    public ProcessNodeExecutor getExecutor(int ordinal) {
+        return executors[ordinal];
+    }
+    
+    /**
+     * Count the execution of a node against its type's dispatch count
+     * @param ordinal the node's ordinal
+     */
+    public void recordDispatch(int ordinal) {
+        dispatchCounters[ordinal].increment();
+    }
+    
+    /**
+     * Get the ordinals of the root nodes that exist in the process, without duplicates
+     * @return the root ordinals; must not be modified
+     */
+    int[] getRootOrdinals() {
+        return rootOrdinals;
+    }
+    
+    /**
+     * Get the ordinals of the children of a node that exist in the process, without duplicates
+     * @param ordinal the node's ordinal
+     * @return the child ordinals; must not be modified
+     */
+    int[] getChildren(int ordinal) {
+        return children[ordinal];
+    }
+    
+    /**
+     * Get the number of parents reachable from the root nodes that each node waits for
+     * @return the count per ordinal, -1 for nodes that are not reachable; must not be modified
+     */
+    int[] getParentCounts() {
+        return parentCounts;
+    }
+    
+    /**
+     * Get the nodes reachable from the root nodes in an order where every node comes after
+     * its parents. Nodes on a cycle, and nodes only reachable through one, are left out
+     * @return the ordinals in topological order
+     */
+    public int[] getTopologicalOrder() {
+        return topologicalOrder.clone();
+    }
+    
+    /**
+     * Get the fusible math nodes of the process
+     * @return the fused plan, or null if the process has no fusible nodes
+     */
+    FusedMathPlan getFusedMathPlan() {
+        return fusedMathPlan;
+    }
+    
+    /**
+     * Get the slot of a node in the fused plan
+     * @param ordinal the node's ordinal
+     * @return the slot, or -1 if the node is not fusible
+     */
+    int fusedSlotOf(int ordinal) {
+        return fusedSlots[ordinal];
+    }
+    
+    /**
+     * Get the input ports a node declares, in the order of {@link #getInputSources(int)}
+     * @param ordinal the node's ordinal
+     * @return the port names; must not be modified
+     */
+    public String[] getInputPorts(int ordinal) {
+        return inputPorts[ordinal];
+    }
+    
+    /**
+     * Get the upstream node bound to each input port of a node
+     * @param ordinal the node's ordinal
+     * @return the source ordinal per port, -1 where the bound node is not part of the
+     *         process; must not be modified
+     */
+    public int[] getInputSources(int ordinal) {
+        return inputSources[ordinal];
+    }
+    
+    private int[] countReachableParents() {
+        int[] counts = new int[nodes.length];
+        Arrays.fill(counts, -1);
+        Deque<Integer> queue = new ArrayDeque<>();
+        
+        for (int root : rootOrdinals) {
+            counts[root] = 0;
+            queue.add(root);
+        }
+        
+        while (!queue.isEmpty()) {
+            int ordinal = queue.poll();
+            for (int child : children[ordinal]) {
+                if (counts[child] < 0) {
+                    counts[child] = 0;
+                    queue.add(child);
+                }
+                counts[child]++;
+            }
+        }
+        
+        return counts;
+    }
+    
+    private int[] sortReachable() {
+        int[] pending = parentCounts.clone();
+        int[] order = new int[nodes.length];
+        int head = 0;
+        int tail = 0;
+        
+        for (int root : rootOrdinals) {
+            if (pending[root] == 0) {
+                order[tail++] = root;
+            }
+        }
+        while (head < tail) {
+            int ordinal = order[head++];
+            for (int child : children[ordinal]) {
+                if (--pending[child] == 0) {
+                    order[tail++] = child;
+                }
+            }
+        }
+        
+        return Arrays.copyOf(order, tail);
+    }
+    
+    private static int[] ordinalsOf(ProcessDefinition processDefinition, List<String> nodeIds) {
+        if (nodeIds == null || nodeIds.isEmpty()) {
+            return NONE;
+        }
+        
+        // Child lists are short, so a linear scan finds duplicates faster than a set
+        Set<Integer> seen = nodeIds.size() > 16 ? new HashSet<>() : null;
+        int[] ordinals = new int[nodeIds.size()];
+        int count = 0;
+        for (String nodeId : nodeIds) {
+            int ordinal = processDefinition.getNodeOrdinal(nodeId);
+            if (ordinal >= 0 && (seen != null ? seen.add(ordinal) : !contains(ordinals, count, ordinal))) {
+                ordinals[count++] = ordinal;
+            }
+        }
+        return count == ordinals.length ? ordinals : Arrays.copyOf(ordinals, count);
+    }
+    
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,97 @@
+package com.orchestration.process.core.impl;
+
+import com.orchestration.process.core.ProcessNodeExecutorRegistry;
+import com.orchestration.process.core.memo.NodeResultCache;
+import com.orchestration.process.model.ProcessDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of compiled execution plans, keyed by process definition ID and version.
+ * The first execution of a definition version compiles its plan; every later execution
+ * of that version reuses it. Updating a definition bumps its version, so executions of
+ * the new version compile a new plan; {@link #invalidate(Long)} drops the old one right
+ * away. Plans are also recompiled after executors are registered or unregistered, since
+ * they hold resolved executors. Definitions without an ID are compiled on every call.
+ */
+@Component
+public class ExecutionPlanCache {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionPlanCache.class);
+    
+    private final ProcessNodeExecutorRegistry executorRegistry;
+    private final NodeResultCache resultCache;
+    private final Map<Long, ExecutionPlan> plans = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public ExecutionPlanCache(ProcessNodeExecutorRegistry executorRegistry, NodeResultCache resultCache) {
+        this.executorRegistry = executorRegistry;
+        this.resultCache = resultCache;
+    }
+    
+    /**
+     * Get the plan of a process definition, compiling it if it is not cached
+     * @param processDefinition the process definition; its node map must be built
+     * @return the plan for the definition's current version
+     */
+    public ExecutionPlan getPlan(ProcessDefinition processDefinition) {
+        Long processId = processDefinition.getId();
+        if (processId == null) {
+            return compile(processDefinition);
+        }
+        
+        ExecutionPlan plan = plans.get(processId);
+        if (plan != null && isCurrent(plan, processDefinition)) {
+            return plan;
+        }
+        if (plan != null && plan.getVersion() > processDefinition.getVersion()) {
+            // A run of a superseded version; do not evict the plan of the current one
+            return compile(processDefinition);
+        }
+        
+        // Compiling inside compute lets concurrent first runs of a definition share one compilation
+        plan = plans.compute(processId, (id, cached) ->
+                cached != null && (cached.getVersion() > processDefinition.getVersion() || isCurrent(cached, processDefinition))
+                        ? cached
+                        : compile(processDefinition));
+        return isCurrent(plan, processDefinition) ? plan : compile(processDefinition);
+    }
+    
+    /**
+     * Drop the cached plan of a process definition
+     * @param processId the ID of the process definition
+     */
+    public void invalidate(Long processId) {
+        if (processId != null) {
+            plans.remove(processId);
+        }
+    }
+    
+    /**
+     * Check whether a plan was compiled from a definition's version with the executors
+     * currently registered
+     */
+    private boolean isCurrent(ExecutionPlan plan, ProcessDefinition processDefinition) {
+        return plan.getVersion() == processDefinition.getVersion()
+                && plan.getRegistryGeneration() == executorRegistry.getGeneration();
+    }
+    
+    private ExecutionPlan compile(ProcessDefinition processDefinition) {
+        long start = System.nanoTime();
+        ExecutionPlan plan = ExecutionPlan.compile(processDefinition, executorRegistry, resultCache);
+        logger.info("Compiled execution plan of process {} version {} ({} nodes) in {} ms",
+                processDefinition.getId(), processDefinition.getVersion(), plan.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        
+        long reachable = Arrays.stream(plan.getParentCounts()).filter(count -> count >= 0).count();
+        if (plan.getTopologicalOrder().length < reachable) {
+            logger.warn("Process {} has nodes on a cycle, which will never run", processDefinition.getId());
+        }
+        return plan;
+    }
+}
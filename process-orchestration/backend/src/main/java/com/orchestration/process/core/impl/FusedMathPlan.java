@@ -0,0 +1,264 @@
+package com.orchestration.process.core.impl;
+
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.ProcessNodeExecutorRegistry;
+import com.orchestration.process.core.executor.math.AbstractMathNodeExecutor;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The arithmetic sub-graphs of a process, compiled for inline evaluation.
+ * A math node is fusible when each of its operands is either a numeric literal or an
+ * input bound to another fusible node. Fusible nodes get a slot in a {@code double[]};
+ * their operands are pre-resolved to a source slot or a literal, so evaluating one is
+ * an array read, the operation and an array write, without scheduling, boxing or
+ * parsing. Nodes fed by any other node type keep running through their executor.
+ * <p>
+ * An operand may also name a batch parameter with {@code param.<port>=<name>}; single
+ * executions use its literal, while batch executions read it from the named column.
+ */
+class FusedMathPlan {
+    static final String PARAMETER_PREFIX = "param.";
+    private static final int LITERAL = -1;
+    private static final int NO_PARAMETER = -1;
+    
+    private final Map<String, Integer> slots;
+    private final AbstractMathNodeExecutor[] operations;
+    private final int[] leftSources;
+    private final int[] rightSources;
+    private final double[] leftLiterals;
+    private final double[] rightLiterals;
+    private final int[] leftParameters;
+    private final int[] rightParameters;
+    private final List<String> parameterNames = new ArrayList<>();
+    
+    private FusedMathPlan(Map<String, Integer> slots) {
+        int size = slots.size();
+        this.slots = slots;
+        this.operations = new AbstractMathNodeExecutor[size];
+        this.leftSources = new int[size];
+        this.rightSources = new int[size];
+        this.leftLiterals = new double[size];
+        this.rightLiterals = new double[size];
+        this.leftParameters = new int[size];
+        this.rightParameters = new int[size];
+    }
+    
+    /**
+     * Find and compile the fusible math nodes of a process
+     * @param processDefinition the process definition
+     * @param executorRegistry the registry resolving node types to executors
+     * @return the plan, or null if the process has no fusible nodes
+     */
+    static FusedMathPlan compile(ProcessDefinition processDefinition, ProcessNodeExecutorRegistry executorRegistry) {
+        Map<String, AbstractMathNodeExecutor> candidates = new HashMap<>();
+        Map<String, Map<String, String>> candidateBindings = new HashMap<>();
+        // Processes repeat a handful of node types many times, so resolve each type once
+        Map<String, Optional<ProcessNodeExecutor>> executorsByType = new HashMap<>();
+        for (ProcessNode node : processDefinition.getNodes()) {
+            Optional<ProcessNodeExecutor> executor = executorsByType.computeIfAbsent(node.getType(), executorRegistry::findExecutor);
+            if (executor.isPresent() && executor.get() instanceof AbstractMathNodeExecutor) {
+                Map<String, String> bindings = NodeExecutionContext.getInputBindings(node);
+                if (hasLiteralOrBoundOperand(node, bindings, "left") && hasLiteralOrBoundOperand(node, bindings, "right")) {
+                    candidates.put(node.getNodeId(), (AbstractMathNodeExecutor) executor.get());
+                    candidateBindings.put(node.getNodeId(), bindings);
+                }
+            }
+        }
+        
+        // Drop candidates fed by a node that is not itself fusible, until none are left to drop
+        boolean changed = true;
+        while (changed) {
+            changed = candidates.keySet().removeIf(nodeId -> candidateBindings.get(nodeId).values().stream()
+                    .anyMatch(sourceNodeId -> !candidates.containsKey(sourceNodeId)));
+        }
+        
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        
+        Map<String, Integer> slots = new HashMap<>(candidates.size() * 2);
+        candidates.keySet().forEach(nodeId -> slots.put(nodeId, slots.size()));
+        
+        FusedMathPlan plan = new FusedMathPlan(slots);
+        slots.forEach((nodeId, slot) -> {
+            ProcessNode node = processDefinition.getNodeById(nodeId);
+            Map<String, String> bindings = candidateBindings.get(nodeId);
+            plan.operations[slot] = candidates.get(nodeId);
+            plan.leftSources[slot] = sourceSlot(bindings.get("left"), slots);
+            plan.rightSources[slot] = sourceSlot(bindings.get("right"), slots);
+            plan.leftLiterals[slot] = bindings.containsKey("left") ? 0 : literal(node, "left");
+            plan.rightLiterals[slot] = bindings.containsKey("right") ? 0 : literal(node, "right");
+            plan.leftParameters[slot] = bindings.containsKey("left") ? NO_PARAMETER : plan.parameterIndex(node, "left");
+            plan.rightParameters[slot] = bindings.containsKey("right") ? NO_PARAMETER : plan.parameterIndex(node, "right");
+        });
+        return plan;
+    }
+    
+    /**
+     * Get the slot of a node
+     * @param nodeId the node ID
+     * @return the slot, or -1 if the node is not fusible
+     */
+    int slotOf(String nodeId) {
+        Integer slot = slots.get(nodeId);
+        return slot != null ? slot : -1;
+    }
+    
+    int size() {
+        return slots.size();
+    }
+    
+    /**
+     * Get the names of the batch parameters the plan reads, in index order
+     * @return the parameter names
+     */
+    List<String> getParameterNames() {
+        return parameterNames;
+    }
+    
+    /**
+     * Order the slots so that every slot comes after the slots it reads
+     * @return the slots in evaluation order
+     * @throws IllegalArgumentException if the nodes form a cycle
+     */
+    int[] topologicalOrder() {
+        int size = size();
+        int[] pendingSources = new int[size];
+        List<List<Integer>> consumers = new ArrayList<>(size);
+        Deque<Integer> ready = new ArrayDeque<>();
+        
+        for (int slot = 0; slot < size; slot++) {
+            consumers.add(new ArrayList<>(1));
+        }
+        for (int slot = 0; slot < size; slot++) {
+            for (int source : new int[] {leftSources[slot], rightSources[slot]}) {
+                if (source != LITERAL) {
+                    pendingSources[slot]++;
+                    consumers.get(source).add(slot);
+                }
+            }
+            if (pendingSources[slot] == 0) {
+                ready.add(slot);
+            }
+        }
+        
+        int[] order = new int[size];
+        int count = 0;
+        while (!ready.isEmpty()) {
+            int slot = ready.poll();
+            order[count++] = slot;
+            for (int consumer : consumers.get(slot)) {
+                if (--pendingSources[consumer] == 0) {
+                    ready.add(consumer);
+                }
+            }
+        }
+        
+        if (count < size) {
+            throw new IllegalArgumentException("Math nodes form a cycle through their inputs");
+        }
+        return order;
+    }
+    
+    /**
+     * Evaluate one fusible node whose sources have already been evaluated
+     * @param slot the node's slot
+     * @param values the values of evaluated slots
+     * @return the node's value
+     * @throws ArithmeticException if the operation is undefined for the operands
+     */
+    double evaluate(int slot, double[] values) {
+        double left = leftSources[slot] == LITERAL ? leftLiterals[slot] : values[leftSources[slot]];
+        double right = rightSources[slot] == LITERAL ? rightLiterals[slot] : values[rightSources[slot]];
+        return operations[slot].apply(left, right);
+    }
+    
+    /**
+     * Check whether the sources of a node have been evaluated
+     * @param slot the node's slot
+     * @param evaluated the evaluated flag of every slot
+     * @return true if both operands are literals or evaluated slots
+     */
+    boolean isReady(int slot, boolean[] evaluated) {
+        return (leftSources[slot] == LITERAL || evaluated[leftSources[slot]])
+                && (rightSources[slot] == LITERAL || evaluated[rightSources[slot]]);
+    }
+    
+    /**
+     * Evaluate one node over a chunk of rows whose sources have already been evaluated
+     * @param slot the node's slot
+     * @param slotColumns the chunk's column of every slot; the node's column is written
+     * @param parameterColumns the chunk's column of every parameter, by parameter index
+     * @param leftBuffer scratch column for a literal left operand
+     * @param rightBuffer scratch column for a literal right operand
+     * @param length the number of rows in the chunk
+     */
+    void evaluateColumns(int slot, double[][] slotColumns, double[][] parameterColumns,
+                         double[] leftBuffer, double[] rightBuffer, int length) {
+        double[] left = operandColumn(leftSources[slot], leftParameters[slot], leftLiterals[slot],
+                slotColumns, parameterColumns, leftBuffer, length);
+        double[] right = operandColumn(rightSources[slot], rightParameters[slot], rightLiterals[slot],
+                slotColumns, parameterColumns, rightBuffer, length);
+        operations[slot].applyColumns(left, right, slotColumns[slot], length);
+    }
+    
+    private static double[] operandColumn(int source, int parameter, double literal, double[][] slotColumns,
+                                          double[][] parameterColumns, double[] buffer, int length) {
+        if (source != LITERAL) {
+            return slotColumns[source];
+        }
+        if (parameter != NO_PARAMETER) {
+            return parameterColumns[parameter];
+        }
+        Arrays.fill(buffer, 0, length, literal);
+        return buffer;
+    }
+    
+    private int parameterIndex(ProcessNode node, String port) {
+        String name = node.getProperties().get(PARAMETER_PREFIX + port);
+        if (name == null || name.isEmpty()) {
+            return NO_PARAMETER;
+        }
+        int index = parameterNames.indexOf(name);
+        if (index < 0) {
+            parameterNames.add(name);
+            index = parameterNames.size() - 1;
+        }
+        return index;
+    }
+    
+    private static boolean hasLiteralOrBoundOperand(ProcessNode node, Map<String, String> bindings, String port) {
+        if (bindings.containsKey(port)) {
+            return true;
+        }
+        try {
+            Double.parseDouble(node.getProperties().getOrDefault(port + "Operand", "0"));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+    
+    private static int sourceSlot(String sourceNodeId, Map<String, Integer> slots) {
+        return sourceNodeId == null ? LITERAL : slots.get(sourceNodeId);
+    }
+    
+    private static double literal(ProcessNode node, String port) {
+        try {
+            return Double.parseDouble(node.getProperties().getOrDefault(port + "Operand", "0"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.orchestration.process.core.journal;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The live content of a journal: the finished nodes of every execution that has not
+ * finished. Replaying journal records into it and writing it back out is how
+ * checkpoints compact the journal; recovery reads the executions to resume from it.
+ * <p>
+ * Record payloads are kept as written, so compaction copies them without decoding.
+ */
+class JournalState {
+    static final byte EXECUTION_STARTED = 1;
+    static final byte NODE_COMPLETED = 2;
+    static final byte NODE_FAILED = 3;
+    static final byte EXECUTION_FINISHED = 4;
+    static final byte COUNTERS = 5;
+    static final byte CHECKPOINT_END = 6;
+    
+    private final Map<Long, ExecutionEntry> executions = new LinkedHashMap<>();
+    private long lastExecutionId;
+    
+    /**
+     * Apply one record
+     * @param payload the record payload, starting with its type byte; its position is
+     *                advanced past the record
+     * @return true if the record was a checkpoint end marker
+     */
+    boolean apply(ByteBuffer payload) {
+        int start = payload.position();
+        byte type = payload.get();
+        switch (type) {
+            case EXECUTION_STARTED: {
+                long executionId = payload.getLong();
+                // A resumed execution is never started twice, but replay stays idempotent anyway
+                executions.computeIfAbsent(executionId, id -> new ExecutionEntry(copy(payload, start)));
+                lastExecutionId = Math.max(lastExecutionId, executionId);
+                return false;
+            }
+            case NODE_COMPLETED:
+            case NODE_FAILED: {
+                ExecutionEntry execution = executions.get(payload.getLong());
+                int ordinal = payload.getInt();
+                if (execution != null) {
+                    execution.nodes.put(ordinal, copy(payload, start));
+                } else {
+                    payload.position(payload.limit());
+                }
+                return false;
+            }
+            case EXECUTION_FINISHED:
+                executions.remove(payload.getLong());
+                payload.position(payload.limit());
+                return false;
+            case COUNTERS:
+                lastExecutionId = Math.max(lastExecutionId, payload.getLong());
+                return false;
+            case CHECKPOINT_END:
+                return true;
+            default:
+                throw new IllegalStateException("Unknown journal record type: " + type);
+        }
+    }
+    
+    /**
+     * Write the state as the records of a checkpoint, ending with the checkpoint end marker
+     * @param sink receives each record payload
+     */
+    void writeTo(RecordSink sink) {
+        ByteBuffer counters = ByteBuffer.allocate(9);
+        counters.put(COUNTERS).putLong(lastExecutionId);
+        sink.accept(counters.array());
+        
+        for (ExecutionEntry execution : executions.values()) {
+            sink.accept(execution.started);
+            execution.nodes.values().forEach(sink::accept);
+        }
+        
+        sink.accept(new byte[] {CHECKPOINT_END});
+    }
+    
+    Map<Long, ExecutionEntry> getExecutions() {
+        return executions;
+    }
+    
+    long getLastExecutionId() {
+        return lastExecutionId;
+    }
+    
+    private static byte[] copy(ByteBuffer payload, int start) {
+        byte[] bytes = new byte[payload.limit() - start];
+        payload.position(start);
+        payload.get(bytes);
+        return bytes;
+    }
+    
+    /**
+     * Receives the record payloads of a checkpoint
+     */
+    interface RecordSink {
+        void accept(byte[] payload);
+    }
+    
+    /**
+     * The journaled records of an execution that has not finished
+     */
+    static class ExecutionEntry {
+        private final byte[] started;
+        // Latest completion or failure record per node ordinal
+        private final Map<Integer, byte[]> nodes = new TreeMap<>();
+        
+        ExecutionEntry(byte[] started) {
+            this.started = started;
+        }
+        
+        byte[] getStarted() {
+            return started;
+        }
+        
+        Map<Integer, byte[]> getNodes() {
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,710 @@
+package com.orchestration.process.core.journal;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orchestration.process.core.ExecutionStateListener;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.model.ProcessNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of execution state transitions, used to resume unfinished
+ * executions after a restart.
+ * <p>
+ * Records are appended to memory-mapped segment files ({@code segment-<n>.jnl}); each is
+ * framed by its length and a CRC32C of its payload, and the length is written last, so a
+ * record torn by a crash is detected and ends the replay of its segment. An append only
+ * copies the encoded record into the mapping under a short lock: once copied it survives
+ * a crash of the process. Making it survive a crash of the machine is left to a
+ * background thread that forces the mapping to disk every
+ * {@code process.journal.flush-interval-ms}, so every append in that interval shares
+ * one disk write (group commit) and no caller waits for the disk.
+ * <p>
+ * Every {@code process.journal.checkpoint-interval-ms} the current segment is sealed and
+ * the sealed segments are compacted into a checkpoint file ({@code checkpoint-<n>.jnl})
+ * holding only live state: the finished nodes of every unfinished execution. Segments
+ * covered by the checkpoint are then deleted. Recovery loads the newest complete
+ * checkpoint and replays the segments after it.
+ * <p>
+ * Node results that are doubles, booleans or strings are encoded directly; any other
+ * result, including other numbers, is journaled as JSON.
+ */
+@Component
+public class ProcessJournal implements ExecutionStateListener {
+    private static final Logger logger = LoggerFactory.getLogger(ProcessJournal.class);
+    private static final int MAGIC = 0x504A4E4C;
+    private static final int FORMAT_VERSION = 2;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String CHECKPOINT_PREFIX = "checkpoint-";
+    private static final String FILE_SUFFIX = ".jnl";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final byte RESULT_NULL = 0;
+    private static final byte RESULT_DOUBLE = 1;
+    private static final byte RESULT_BOOLEAN = 2;
+    private static final byte RESULT_STRING = 3;
+    private static final byte RESULT_JSON = 4;
+    
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalMillis;
+    private final long checkpointIntervalMillis;
+    private final ThreadLocal<RecordBuffer> recordBuffers = ThreadLocal.withInitial(RecordBuffer::new);
+    private final Object appendLock = new Object();
+    private final Object checkpointLock = new Object();
+    private final LongAdder appendedRecords = new LongAdder();
+    private final LongAdder appendedBytes = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder checkpoints = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    
+    // Guarded by appendLock
+    private MappedByteBuffer segment;
+    private long segmentSequence;
+    private boolean segmentHasRecords;
+    
+    private volatile boolean dirty;
+    private ScheduledExecutorService scheduler;
+    private List<RecoveredExecution> recoveredExecutions = Collections.emptyList();
+    private long lastExecutionId;
+    
+    @Autowired
+    public ProcessJournal(
+            ObjectMapper objectMapper,
+            @Value("${process.journal.enabled:false}") boolean enabled,
+            @Value("${process.journal.directory:data/journal}") String directory,
+            @Value("${process.journal.segment-size:67108864}") int segmentSize,
+            @Value("${process.journal.flush-interval-ms:10}") long flushIntervalMillis,
+            @Value("${process.journal.checkpoint-interval-ms:60000}") long checkpointIntervalMillis) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+    }
+    
+    /**
+     * Recover the journaled state and open a new segment for appending
+     * @throws UncheckedIOException if the journal directory cannot be read or written
+     */
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (file.getFileName().toString().endsWith(TEMPORARY_SUFFIX)) {
+                        Files.delete(file);
+                    }
+                }
+            }
+            
+            long lastSequence = Math.max(lastSequence(SEGMENT_PREFIX), lastSequence(CHECKPOINT_PREFIX));
+            JournalState state = load(lastSequence);
+            recover(state);
+            synchronized (appendLock) {
+                openSegment(lastSequence + 1, 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the execution journal in " + directory.toAbsolutePath(), e);
+        }
+        
+        scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "process-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+            } catch (IOException | RuntimeException e) {
+                failures.increment();
+                logger.error("Journal checkpoint failed", e);
+            }
+        }, checkpointIntervalMillis, checkpointIntervalMillis, TimeUnit.MILLISECONDS);
+        
+        logger.info("Execution journal opened in {}: recovered {} unfinished executions",
+                directory.toAbsolutePath(), recoveredExecutions.size());
+    }
+    
+    /**
+     * Flush the journal to disk and stop journaling. Runs as soon as the application
+     * starts shutting down, before the executor pools do: nodes failed by their pool's
+     * shutdown are not journaled, so their executions resume on the next start
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        flush();
+        synchronized (appendLock) {
+            segment = null;
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Journal the start of an execution; its node transitions are journaled if it was
+     * created with this journal as its listener
+     * @param execution the started execution
+     */
+    public void executionStarted(ProcessExecution execution) {
+        if (!enabled) {
+            return;
+        }
+        append(recordBuffers.get().start(JournalState.EXECUTION_STARTED)
+                .putLong(execution.getExecutionId())
+                .putLong(execution.getProcessId())
+                .putLong(execution.getProcessDefinition().getVersion())
+                .putLong(execution.getStartTime().toEpochMilli()));
+    }
+    
+    /**
+     * Journal an execution ID handed out to an execution that is not journaled itself,
+     * e.g. a child execution, so that IDs are not handed out again after a restart
+     * @param executionId the execution ID
+     */
+    public void executionIdUsed(long executionId) {
+        if (!enabled) {
+            return;
+        }
+        append(recordBuffers.get().start(JournalState.COUNTERS).putLong(executionId));
+    }
+    
+    @Override
+    public void nodeCompleted(ProcessExecution execution, int ordinal, Object result) {
+        if (!enabled) {
+            return;
+        }
+        RecordBuffer record = recordBuffers.get().start(JournalState.NODE_COMPLETED)
+                .putLong(execution.getExecutionId())
+                .putInt(ordinal);
+        putResult(record, result);
+        append(record);
+    }
+    
+    @Override
+    public void nodeFailed(ProcessExecution execution, int ordinal) {
+        if (!enabled) {
+            return;
+        }
+        append(recordBuffers.get().start(JournalState.NODE_FAILED)
+                .putLong(execution.getExecutionId())
+                .putInt(ordinal));
+    }
+    
+    @Override
+    public void executionFinished(ProcessExecution execution) {
+        if (!enabled) {
+            return;
+        }
+        append(recordBuffers.get().start(JournalState.EXECUTION_FINISHED)
+                .putLong(execution.getExecutionId())
+                .put((byte) execution.getStatus().ordinal()));
+    }
+    
+    /**
+     * Get the executions that had not finished when the process engine stopped
+     * @return the unfinished executions, in start order
+     */
+    public List<RecoveredExecution> getRecoveredExecutions() {
+        return recoveredExecutions;
+    }
+    
+    /**
+     * Get the highest execution ID found in the journal at startup
+     * @return the ID, or 0 if there was none
+     */
+    public long getLastExecutionId() {
+        return lastExecutionId;
+    }
+    
+    /**
+     * Force the records appended since the last flush to disk
+     */
+    public void flush() {
+        MappedByteBuffer current;
+        synchronized (appendLock) {
+            current = segment;
+        }
+        if (dirty && current != null) {
+            dirty = false;
+            current.force();
+            flushes.increment();
+        }
+    }
+    
+    /**
+     * Seal the current segment and compact every sealed segment into a checkpoint
+     * @throws IOException if the journal files cannot be read or written
+     */
+    public void checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            long sealedSequence;
+            synchronized (appendLock) {
+                if (segment == null || !segmentHasRecords) {
+                    return;
+                }
+                sealedSequence = segmentSequence;
+                roll(0);
+            }
+            
+            long start = System.nanoTime();
+            JournalState state = load(sealedSequence);
+            Path checkpoint = directory.resolve(fileName(CHECKPOINT_PREFIX, sealedSequence));
+            Path temporary = directory.resolve(checkpoint.getFileName() + TEMPORARY_SUFFIX);
+            
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                CRC32C crc = new CRC32C();
+                state.writeTo(payload -> {
+                    try {
+                        crc.reset();
+                        crc.update(payload, 0, payload.length);
+                        output.writeInt(payload.length);
+                        output.writeInt((int) crc.getValue());
+                        output.write(payload);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                output.flush();
+                channel.force(true);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            Files.move(temporary, checkpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            
+            // The checkpoint now holds everything the older files did
+            for (long sequence : sequences(SEGMENT_PREFIX)) {
+                if (sequence <= sealedSequence) {
+                    Files.deleteIfExists(directory.resolve(fileName(SEGMENT_PREFIX, sequence)));
+                }
+            }
+            for (long sequence : sequences(CHECKPOINT_PREFIX)) {
+                if (sequence < sealedSequence) {
+                    Files.deleteIfExists(directory.resolve(fileName(CHECKPOINT_PREFIX, sequence)));
+                }
+            }
+            
+            checkpoints.increment();
+            logger.info("Journal checkpoint {} written with {} unfinished executions in {} ms",
+                    sealedSequence, state.getExecutions().size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+    
+    /**
+     * Get the journal statistics
+     * @return appended records and bytes, flushes, checkpoints, failures and the current segment
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("appendedRecords", appendedRecords.sum());
+        metrics.put("appendedBytes", appendedBytes.sum());
+        metrics.put("flushes", flushes.sum());
+        metrics.put("checkpoints", checkpoints.sum());
+        metrics.put("failures", failures.sum());
+        synchronized (appendLock) {
+            metrics.put("segment", segmentSequence);
+            metrics.put("segmentPosition", segment != null ? segment.position() : 0);
+        }
+        return metrics;
+    }
+    
+    private void append(RecordBuffer record) {
+        int length = record.length;
+        int crc = record.crc();
+        try {
+            synchronized (appendLock) {
+                if (segment == null) {
+                    return;
+                }
+                if (segment.remaining() < RECORD_HEADER_SIZE + length) {
+                    roll(RECORD_HEADER_SIZE + length);
+                }
+                
+                // Write the length last: a record without it reads as the end of the segment
+                int position = segment.position();
+                segment.position(position + RECORD_HEADER_SIZE);
+                segment.put(record.bytes, 0, length);
+                segment.putInt(position + 4, crc);
+                segment.putInt(position, length);
+                segmentHasRecords = true;
+            }
+        } catch (IOException e) {
+            failures.increment();
+            logger.error("Cannot append to the execution journal", e);
+            return;
+        }
+        
+        dirty = true;
+        appendedRecords.increment();
+        appendedBytes.add(RECORD_HEADER_SIZE + length);
+    }
+    
+    /**
+     * Force the current segment and continue in a new one; must hold the append lock
+     * @param minimumSize the number of bytes the new segment must have room for
+     */
+    private void roll(int minimumSize) throws IOException {
+        segment.force();
+        openSegment(segmentSequence + 1, minimumSize);
+    }
+    
+    private void openSegment(long sequence, int minimumSize) throws IOException {
+        Path path = directory.resolve(fileName(SEGMENT_PREFIX, sequence));
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max(segmentSize, FILE_HEADER_SIZE + minimumSize));
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION);
+            segment = buffer;
+            segmentSequence = sequence;
+            segmentHasRecords = false;
+        }
+    }
+    
+    /**
+     * Load the journal state up to a segment: the newest complete checkpoint not after it,
+     * then every segment after the checkpoint up to it
+     * @param lastSequence the last segment to load
+     * @return the state
+     */
+    private JournalState load(long lastSequence) throws IOException {
+        JournalState state = new JournalState();
+        long checkpointSequence = 0;
+        
+        List<Long> checkpointSequences = sequences(CHECKPOINT_PREFIX);
+        Collections.reverse(checkpointSequences);
+        for (long sequence : checkpointSequences) {
+            if (sequence > lastSequence) {
+                continue;
+            }
+            JournalState candidate = new JournalState();
+            if (read(directory.resolve(fileName(CHECKPOINT_PREFIX, sequence)), candidate)) {
+                state = candidate;
+                checkpointSequence = sequence;
+                break;
+            }
+            logger.warn("Ignoring incomplete journal checkpoint {}", sequence);
+        }
+        
+        for (long sequence : sequences(SEGMENT_PREFIX)) {
+            if (sequence > checkpointSequence && sequence <= lastSequence) {
+                read(directory.resolve(fileName(SEGMENT_PREFIX, sequence)), state);
+            }
+        }
+        return state;
+    }
+    
+    /**
+     * Replay the records of a journal file, stopping at its end or its first torn record
+     * @param path the file
+     * @param state the state to apply the records to
+     * @return true if the file ended with a checkpoint end marker
+     */
+    private boolean read(Path path, JournalState state) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < FILE_HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            logger.warn("Ignoring journal file with an unknown format: {}", path);
+            return false;
+        }
+        
+        CRC32C crc = new CRC32C();
+        int position = FILE_HEADER_SIZE;
+        while (position + RECORD_HEADER_SIZE <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.limit()) {
+                break;
+            }
+            
+            ByteBuffer payload = buffer.duplicate();
+            payload.limit(position + RECORD_HEADER_SIZE + length).position(position + RECORD_HEADER_SIZE);
+            payload = payload.slice();
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                logger.warn("Journal file {} ends with a torn record at offset {}", path.getFileName(), position);
+                break;
+            }
+            
+            if (state.apply(payload)) {
+                return true;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return false;
+    }
+    
+    private void recover(JournalState state) throws IOException {
+        List<RecoveredExecution> executions = new ArrayList<>();
+        for (JournalState.ExecutionEntry entry : state.getExecutions().values()) {
+            ByteBuffer started = ByteBuffer.wrap(entry.getStarted());
+            started.get();
+            RecoveredExecution execution = new RecoveredExecution(
+                    started.getLong(), started.getLong(), started.getLong(), Instant.ofEpochMilli(started.getLong()));
+            
+            for (byte[] payload : entry.getNodes().values()) {
+                ByteBuffer node = ByteBuffer.wrap(payload);
+                byte type = node.get();
+                node.getLong();
+                int ordinal = node.getInt();
+                if (type == JournalState.NODE_COMPLETED) {
+                    execution.completedNodes.put(ordinal, readResult(node));
+                } else {
+                    execution.failedNodes.add(ordinal);
+                }
+            }
+            executions.add(execution);
+        }
+        
+        recoveredExecutions = Collections.unmodifiableList(executions);
+        lastExecutionId = state.getLastExecutionId();
+    }
+    
+    private void putResult(RecordBuffer record, Object result) {
+        if (result == null) {
+            record.put(RESULT_NULL);
+        } else if (result instanceof Double) {
+            record.put(RESULT_DOUBLE).putLong(Double.doubleToRawLongBits((Double) result));
+        } else if (result instanceof Boolean) {
+            record.put(RESULT_BOOLEAN).put((byte) ((Boolean) result ? 1 : 0));
+        } else if (result instanceof String) {
+            byte[] bytes = ((String) result).getBytes(StandardCharsets.UTF_8);
+            record.put(RESULT_STRING).put(bytes, 0, bytes.length);
+        } else {
+            byte[] json;
+            try {
+                json = objectMapper.writeValueAsBytes(result);
+            } catch (JsonProcessingException e) {
+                logger.warn("Node result of type {} cannot be journaled as JSON, journaling its string form",
+                        result.getClass().getName());
+                json = objectMapper.createObjectNode().textNode(result.toString()).toString().getBytes(StandardCharsets.UTF_8);
+            }
+            record.put(RESULT_JSON).put(json, 0, json.length);
+        }
+    }
+    
+    private Object readResult(ByteBuffer payload) throws IOException {
+        byte tag = payload.get();
+        switch (tag) {
+            case RESULT_NULL:
+                return null;
+            case RESULT_DOUBLE:
+                return Double.longBitsToDouble(payload.getLong());
+            case RESULT_BOOLEAN:
+                return payload.get() != 0;
+            case RESULT_STRING:
+                return new String(payload.array(), payload.position(), payload.remaining(), StandardCharsets.UTF_8);
+            case RESULT_JSON:
+                return objectMapper.readValue(payload.array(), payload.position(), payload.remaining(), Object.class);
+            default:
+                throw new IOException("Unknown journaled result type: " + tag);
+        }
+    }
+    
+    private long lastSequence(String prefix) throws IOException {
+        List<Long> sequences = sequences(prefix);
+        return sequences.isEmpty() ? 0 : sequences.get(sequences.size() - 1);
+    }
+    
+    /**
+     * List the sequence numbers of the journal files with a prefix
+     * @param prefix the file name prefix
+     * @return the sequence numbers in ascending order
+     */
+    private List<Long> sequences(String prefix) throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(FILE_SUFFIX))
+                    .forEach(name -> sequences.add(Long.parseLong(
+                            name.substring(prefix.length(), name.length() - FILE_SUFFIX.length()))));
+        }
+        Collections.sort(sequences);
+        return sequences;
+    }
+    
+    private static String fileName(String prefix, long sequence) {
+        return String.format("%s%020d%s", prefix, sequence, FILE_SUFFIX);
+    }
+    
+    /**
+     * An execution that had not finished when the process engine stopped
+     */
+    public static class RecoveredExecution {
+        private final long executionId;
+        private final long processId;
+        private final long version;
+        private final Instant startTime;
+        private final Map<Integer, Object> completedNodes = new TreeMap<>();
+        private final List<Integer> failedNodes = new ArrayList<>();
+        
+        RecoveredExecution(long executionId, long processId, long version, Instant startTime) {
+            this.executionId = executionId;
+            this.processId = processId;
+            this.version = version;
+            this.startTime = startTime;
+        }
+        
+        public long getExecutionId() {
+            return executionId;
+        }
+        
+        public long getProcessId() {
+            return processId;
+        }
+        
+        /**
+         * Get the version of the process definition the execution was started with
+         * @return the definition version
+         */
+        public long getVersion() {
+            return version;
+        }
+        
+        public Instant getStartTime() {
+            return startTime;
+        }
+        
+        /**
+         * Get the results of the nodes that had completed
+         * @return the result keyed by node ordinal
+         */
+        public Map<Integer, Object> getCompletedNodes() {
+            return completedNodes;
+        }
+        
+        /**
+         * Get the nodes that had failed
+         * @return the node ordinals
+         */
+        public List<Integer> getFailedNodes() {
+            return failedNodes;
+        }
+        
+        /**
+         * Restore the finished nodes into an execution of the same definition version
+         * @param execution the execution to restore
+         */
+        public void restoreInto(ProcessExecution execution) {
+            completedNodes.forEach((ordinal, result) ->
+                    execution.restoreNode(ordinal, ProcessNode.ProcessNodeStatus.COMPLETED, result));
+            failedNodes.forEach(ordinal ->
+                    execution.restoreNode(ordinal, ProcessNode.ProcessNodeStatus.FAILED, null));
+        }
+    }
+    
+    /**
+     * Reusable per-thread buffer a record is encoded into before it is appended
+     */
+    private static class RecordBuffer {
+        private final CRC32C crc = new CRC32C();
+        private byte[] bytes = new byte[256];
+        private int length;
+        
+        RecordBuffer start(byte type) {
+            length = 0;
+            return put(type);
+        }
+        
+        RecordBuffer put(byte value) {
+            ensureCapacity(1);
+            bytes[length++] = value;
+            return this;
+        }
+        
+        RecordBuffer putInt(int value) {
+            ensureCapacity(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[length++] = (byte) (value >>> shift);
+            }
+            return this;
+        }
+        
+        RecordBuffer putLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[length++] = (byte) (value >>> shift);
+            }
+            return this;
+        }
+        
+        RecordBuffer put(byte[] values, int offset, int count) {
+            ensureCapacity(count);
+            System.arraycopy(values, offset, bytes, length, count);
+            length += count;
+            return this;
+        }
+        
+        int crc() {
+            crc.reset();
+            crc.update(bytes, 0, length);
+            return (int) crc.getValue();
+        }
+        
+        private void ensureCapacity(int count) {
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            }
+        }
+    }
+}
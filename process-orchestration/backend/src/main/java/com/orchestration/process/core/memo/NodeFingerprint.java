@@ -0,0 +1,83 @@
+package com.orchestration.process.core.memo;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.deadline.ExecutionDeadlines;
+import com.orchestration.process.core.retry.RetryPolicy;
+import com.orchestration.process.model.ProcessNode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * SHA-256 digest of what a node's result depends on: its type, its properties and the
+ * values bound to its input ports. Input bindings and the timeout, retry and
+ * deterministic properties are left out, since they do not change the result, so equal
+ * nodes of different processes or versions of a process have the same fingerprint.
+ * Properties and inputs are serialized as JSON with their keys sorted.
+ */
+public final class NodeFingerprint {
+    private static final ObjectMapper mapper = JsonMapper.builder()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .build();
+    // Properties that do not change a node's result
+    private static final Set<String> IGNORED_PROPERTIES = Set.of(
+            NodeResultCache.DETERMINISTIC_PROPERTY,
+            ExecutionDeadlines.TIMEOUT_PROPERTY,
+            RetryPolicy.MAX_ATTEMPTS_PROPERTY,
+            RetryPolicy.BACKOFF_PROPERTY,
+            RetryPolicy.MAX_BACKOFF_PROPERTY,
+            RetryPolicy.MULTIPLIER_PROPERTY,
+            RetryPolicy.JITTER_PROPERTY,
+            RetryPolicy.RETRY_ON_PROPERTY);
+    
+    private NodeFingerprint() {
+    }
+    
+    /**
+     * Compute the fingerprint of a node run with the given inputs
+     * @param node the node
+     * @param inputs the value of each input port, keyed by port name
+     * @return the digest, or null if the properties or inputs cannot be serialized
+     */
+    public static byte[] of(ProcessNode node, Map<String, Object> inputs) {
+        Map<String, String> properties = new TreeMap<>();
+        node.getProperties().forEach((name, value) -> {
+            if (!IGNORED_PROPERTIES.contains(name) && !name.startsWith(NodeExecutionContext.INPUT_PREFIX)) {
+                properties.put(name, value);
+            }
+        });
+        
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            OutputStream digestStream = new OutputStream() {
+                @Override
+                public void write(int b) {
+                    digest.update((byte) b);
+                }
+                
+                @Override
+                public void write(byte[] bytes, int offset, int length) {
+                    digest.update(bytes, offset, length);
+                }
+            };
+            digest.update(node.getType().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            mapper.writeValue(digestStream, properties);
+            mapper.writeValue(digestStream, inputs);
+            return digest.digest();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+}
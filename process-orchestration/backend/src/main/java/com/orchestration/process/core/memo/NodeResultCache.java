@@ -0,0 +1,205 @@
+package com.orchestration.process.core.memo;
+
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.model.ProcessNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Results of deterministic nodes, shared across executions.
+ * A node marked with the property {@code deterministic=true} always produces the same
+ * result for the same type, properties and inputs, so its executor is wrapped by
+ * {@link #memoize(ProcessNodeExecutor)} when the execution plan is compiled: the wrapper
+ * looks the result up by the node's {@link NodeFingerprint}, a digest of its type,
+ * properties and resolved inputs, and only runs the executor on a miss. Equal nodes of
+ * different processes share their results.
+ * <p>
+ * The cache is a bounded LRU of {@code process.memo.cache-size} entries that expire
+ * {@code process.memo.ttl-ms} after they were stored (0 for never). Cached results are
+ * shared by every execution that hits them and must not be modified. Nodes whose
+ * properties or inputs cannot be serialized are always executed.
+ */
+@Component
+public class NodeResultCache {
+    public static final String DETERMINISTIC_PROPERTY = "deterministic";
+    
+    private final int cacheSize;
+    private final long ttlNanos;
+    private final Map<Key, Entry> cache;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder uncacheableCount = new LongAdder();
+    
+    @Autowired
+    public NodeResultCache(
+            @Value("${process.memo.cache-size:10000}") int cacheSize,
+            @Value("${process.memo.ttl-ms:600000}") long ttlMillis) {
+        this.cacheSize = cacheSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > NodeResultCache.this.cacheSize;
+            }
+        };
+    }
+    
+    /**
+     * Check whether a node is marked deterministic
+     * @param node the node
+     * @return true if the node's results may be cached
+     */
+    public static boolean isDeterministic(ProcessNode node) {
+        return Boolean.parseBoolean(node.getProperties().get(DETERMINISTIC_PROPERTY));
+    }
+    
+    /**
+     * Wrap an executor so it serves results from this cache
+     * @param executor the executor of deterministic nodes
+     * @return the caching executor
+     */
+    public ProcessNodeExecutor memoize(ProcessNodeExecutor executor) {
+        return new MemoizingNodeExecutor(executor);
+    }
+    
+    /**
+     * Get the result cache statistics
+     * @return cache size, hits, misses, expired entries and lookups of nodes that could
+     *         not be keyed
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (cache) {
+            metrics.put("size", cache.size());
+        }
+        metrics.put("maxSize", cacheSize);
+        metrics.put("hitCount", hitCount.sum());
+        metrics.put("missCount", missCount.sum());
+        metrics.put("expiredCount", expiredCount.sum());
+        metrics.put("uncacheableCount", uncacheableCount.sum());
+        return metrics;
+    }
+    
+    private Entry get(Key key) {
+        synchronized (cache) {
+            Entry entry = cache.get(key);
+            if (entry != null && ttlNanos > 0 && System.nanoTime() - entry.storedNanos > ttlNanos) {
+                cache.remove(key);
+                expiredCount.increment();
+                return null;
+            }
+            return entry;
+        }
+    }
+    
+    private void put(Key key, Object result) {
+        Entry entry = new Entry(result, System.nanoTime());
+        synchronized (cache) {
+            cache.put(key, entry);
+        }
+    }
+    
+    /**
+     * Compute the cache key of a node run with the given inputs
+     * @return the key, or null if the properties or inputs cannot be serialized
+     */
+    private static Key keyOf(ProcessNode node, NodeExecutionContext context) {
+        byte[] fingerprint = NodeFingerprint.of(node, context.getInputs());
+        return fingerprint != null ? new Key(node.getType(), fingerprint) : null;
+    }
+    
+    /**
+     * Executor serving the results of deterministic nodes from the cache
+     */
+    private class MemoizingNodeExecutor implements ProcessNodeExecutor {
+        private final ProcessNodeExecutor delegate;
+        
+        MemoizingNodeExecutor(ProcessNodeExecutor delegate) {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public boolean canExecute(String nodeType) {
+            return delegate.canExecute(nodeType);
+        }
+        
+        @Override
+        public Set<String> getNodeTypes() {
+            return delegate.getNodeTypes();
+        }
+        
+        @Override
+        public CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context) {
+            Key key = keyOf(node, context);
+            if (key == null) {
+                uncacheableCount.increment();
+                return delegate.execute(node, context);
+            }
+            
+            Entry entry = get(key);
+            if (entry != null) {
+                hitCount.increment();
+                // A future of its own, since the orchestrator may complete or cancel it
+                return CompletableFuture.completedFuture(entry.result);
+            }
+            
+            missCount.increment();
+            CompletableFuture<Object> future = delegate.execute(node, context);
+            future.thenAccept(result -> put(key, result));
+            return future;
+        }
+    }
+    
+    /**
+     * Node type and digest of the node's properties and inputs
+     */
+    private static final class Key {
+        private final String type;
+        private final byte[] digest;
+        private final int hash;
+        
+        Key(String type, byte[] digest) {
+            this.type = type;
+            this.digest = digest;
+            this.hash = 31 * type.hashCode() + Arrays.hashCode(digest);
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return type.equals(key.type) && Arrays.equals(digest, key.digest);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    
+    private static final class Entry {
+        private final Object result;
+        private final long storedNanos;
+        
+        Entry(Object result, long storedNanos) {
+            this.result = result;
+            this.storedNanos = storedNanos;
+        }
+    }
+}
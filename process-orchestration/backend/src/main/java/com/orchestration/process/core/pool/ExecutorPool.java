@@ -0,0 +1,36 @@
+package com.orchestration.process.core.pool;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An executor used by the process engine that reports its own metrics.
+ */
+public interface ExecutorPool extends Executor {
+    /**
+     * Get the pool name
+     * @return the pool name
+     */
+    String getName();
+    
+    /**
+     * Get a snapshot of the pool metrics
+     * @return the pool metrics keyed by metric name
+     */
+    Map<String, Object> getMetrics();
+    
+    /**
+     * Stop accepting new tasks
+     */
+    void shutdown();
+    
+    /**
+     * Wait for running tasks to finish after a shutdown
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return true if all tasks finished, false if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException;
+}
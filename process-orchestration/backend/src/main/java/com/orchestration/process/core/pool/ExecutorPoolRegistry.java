@@ -0,0 +1,90 @@
+package com.orchestration.process.core.pool;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of the executor pools used by the process engine.
+ * Node executors run their work on the pool of their {@link NodeCategory}, while
+ * orchestrators use a separate pool for coordination work and execution events are
+ * written to clients on a pool of their own.
+ */
+public class ExecutorPoolRegistry {
+    private final ExecutorPool orchestrationPool;
+    private final ExecutorPool eventPool;
+    private final Map<NodeCategory, ExecutorPool> nodePools = new EnumMap<>(NodeCategory.class);
+    
+    public ExecutorPoolRegistry(
+            ExecutorPool orchestrationPool,
+            ExecutorPool eventPool,
+            Map<NodeCategory, ExecutorPool> nodePools) {
+        this.orchestrationPool = orchestrationPool;
+        this.eventPool = eventPool;
+        this.nodePools.putAll(nodePools);
+        
+        for (NodeCategory category : NodeCategory.values()) {
+            if (!this.nodePools.containsKey(category)) {
+                throw new IllegalArgumentException("No executor pool configured for category: " + category);
+            }
+        }
+    }
+    
+    /**
+     * Get the executor for node work of the given category
+     * @param category the node category
+     * @return the executor backing the category
+     */
+    public Executor getExecutor(NodeCategory category) {
+        return nodePools.get(category);
+    }
+    
+    /**
+     * Get the executor for orchestration work
+     * @return the orchestration executor
+     */
+    public Executor getOrchestrationExecutor() {
+        return orchestrationPool;
+    }
+    
+    /**
+     * Get the executor writing execution events to clients
+     * @return the event executor
+     */
+    public Executor getEventExecutor() {
+        return eventPool;
+    }
+    
+    /**
+     * Get metrics of every pool
+     * @return pool metrics keyed by pool name
+     */
+    public Map<String, Map<String, Object>> getMetrics() {
+        Map<String, Map<String, Object>> metrics = new LinkedHashMap<>();
+        metrics.put(orchestrationPool.getName(), orchestrationPool.getMetrics());
+        metrics.put(eventPool.getName(), eventPool.getMetrics());
+        nodePools.values().forEach(pool -> metrics.put(pool.getName(), pool.getMetrics()));
+        return metrics;
+    }
+    
+    /**
+     * Shut down every pool, waiting briefly for running tasks
+     */
+    public void shutdown() {
+        orchestrationPool.shutdown();
+        eventPool.shutdown();
+        nodePools.values().forEach(ExecutorPool::shutdown);
+        
+        try {
+            orchestrationPool.awaitTermination(5, TimeUnit.SECONDS);
+            eventPool.awaitTermination(5, TimeUnit.SECONDS);
+            for (ExecutorPool pool : nodePools.values()) {
+                pool.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.orchestration.process.core.pool;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded thread pool that records how many tasks it rejected and reports
+ * its size, activity and queue depth.
+ */
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor implements ExecutorPool {
+    private final String name;
+    private final LongAdder rejectedCount = new LongAdder();
+    
+    /**
+     * Create a bounded pool
+     * @param name the pool name, also used as the thread name prefix
+     * @param corePoolSize the number of threads kept while the queue has room
+     * @param maxPoolSize the maximum number of threads once the queue is full
+     * @param queueCapacity the maximum number of waiting tasks
+     * @param keepAliveSeconds how long idle threads are kept alive
+     * @param callerRuns whether rejected tasks run on the submitting thread instead of failing
+     */
+    public InstrumentedThreadPoolExecutor(
+            String name,
+            int corePoolSize,
+            int maxPoolSize,
+            int queueCapacity,
+            long keepAliveSeconds,
+            boolean callerRuns) {
+        super(corePoolSize, maxPoolSize, keepAliveSeconds, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(name + "-"));
+        this.name = name;
+        
+        RejectedExecutionHandler policy = callerRuns ? new CallerRunsPolicy() : new AbortPolicy();
+        setRejectedExecutionHandler((task, executor) -> {
+            rejectedCount.increment();
+            policy.rejectedExecution(task, executor);
+        });
+        allowCoreThreadTimeOut(true);
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", "platform");
+        metrics.put("corePoolSize", getCorePoolSize());
+        metrics.put("maxPoolSize", getMaximumPoolSize());
+        metrics.put("poolSize", getPoolSize());
+        metrics.put("largestPoolSize", getLargestPoolSize());
+        metrics.put("activeCount", getActiveCount());
+        metrics.put("queueDepth", getQueue().size());
+        metrics.put("queueRemainingCapacity", getQueue().remainingCapacity());
+        metrics.put("completedTaskCount", getCompletedTaskCount());
+        metrics.put("rejectedCount", getRejectedCount());
+        return metrics;
+    }
+}
@@ -0,0 +1,82 @@
+package com.orchestration.process.core.pool;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * A future for a task run on a pool thread that stops the task when the future is
+ * completed by someone else, e.g. cancelled when the execution is stopped or failed when
+ * a node misses its deadline. The thread running the task is interrupted, which aborts
+ * sleeps, blocking I/O on interruptible channels and any code that checks the interrupt
+ * flag; a task that has not started yet is not run at all.
+ * <p>
+ * Unlike {@link CompletableFuture#supplyAsync(Supplier, Executor)}, whose futures cannot
+ * reach the task, failing this future releases the pool thread as soon as the task
+ * reacts to the interrupt.
+ * @param <T> the result type
+ */
+public class InterruptibleFuture<T> extends CompletableFuture<T> {
+    // The thread running the task, guarded by this
+    private Thread runner;
+    
+    /**
+     * Run a task on an executor
+     * @param supplier the task
+     * @param executor the executor
+     * @param <T> the result type
+     * @return the future of the task's result
+     * @throws java.util.concurrent.RejectedExecutionException if the executor rejects the task
+     */
+    public static <T> InterruptibleFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        InterruptibleFuture<T> future = new InterruptibleFuture<>();
+        executor.execute(() -> future.run(supplier));
+        return future;
+    }
+    
+    private void run(Supplier<T> supplier) {
+        synchronized (this) {
+            if (isDone()) {
+                return;
+            }
+            runner = Thread.currentThread();
+        }
+        
+        try {
+            super.complete(supplier.get());
+        } catch (Throwable e) {
+            super.completeExceptionally(e instanceof CompletionException ? e : new CompletionException(e));
+        } finally {
+            synchronized (this) {
+                runner = null;
+            }
+            // Do not let an interrupt that arrived as the task finished reach the pool's next task
+            Thread.interrupted();
+        }
+    }
+    
+    @Override
+    public boolean completeExceptionally(Throwable ex) {
+        boolean completed = super.completeExceptionally(ex);
+        if (completed) {
+            interruptRunner();
+        }
+        return completed;
+    }
+    
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            interruptRunner();
+        }
+        return cancelled;
+    }
+    
+    private synchronized void interruptRunner() {
+        if (runner != null && runner != Thread.currentThread()) {
+            runner.interrupt();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.orchestration.process.core.pool;
+
+/**
+ * Categories of node work, each backed by its own bounded executor pool so that
+ * one kind of work cannot starve the others.
+ */
+public enum NodeCategory {
+    /**
+     * Short, CPU-bound computations such as math nodes
+     */
+    CPU("cpu"),
+    
+    /**
+     * Work dominated by blocking waits such as HTTP calls or sleeps
+     */
+    BLOCKING_IO("blocking-io"),
+    
+    /**
+     * Script evaluation through a script engine
+     */
+    SCRIPT("script");
+    
+    private final String poolName;
+    
+    NodeCategory(String poolName) {
+        this.poolName = poolName;
+    }
+    
+    /**
+     * Get the name of the pool backing this category, also used as its configuration key
+     * @return the pool name
+     */
+    public String getPoolName() {
+        return poolName;
+    }
+}
@@ -0,0 +1,135 @@
+package com.orchestration.process.core.pool;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An executor that starts a virtual thread per task, so blocking waits do not hold
+ * a platform thread. Concurrency can optionally be capped with a semaphore that
+ * tasks acquire on their own virtual thread, which keeps submitters from blocking.
+ * Virtual threads require Java 21; the factory is looked up reflectively so the
+ * module still builds for older releases.
+ */
+public class VirtualThreadExecutorPool implements ExecutorPool {
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+    
+    private final String name;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final ExecutorService delegate;
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger peakActiveCount = new AtomicInteger();
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    
+    /**
+     * Create a virtual thread pool
+     * @param name the pool name
+     * @param maxConcurrency the maximum number of tasks running at once, or 0 for no limit
+     * @throws IllegalStateException if the running JVM does not support virtual threads
+     */
+    public VirtualThreadExecutorPool(String name, int maxConcurrency) {
+        if (!isSupported()) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later, running on Java "
+                    + Runtime.version().feature());
+        }
+        
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null;
+        
+        try {
+            this.delegate = (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create virtual thread executor", e);
+        }
+    }
+    
+    /**
+     * Check whether the running JVM supports virtual threads
+     * @return true if virtual threads are available
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+    
+    @Override
+    public void execute(Runnable task) {
+        submittedCount.increment();
+        try {
+            delegate.execute(() -> run(task));
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            throw e;
+        }
+    }
+    
+    private void run(Runnable task) {
+        if (permits != null) {
+            permits.acquireUninterruptibly();
+        }
+        
+        int active = activeCount.incrementAndGet();
+        peakActiveCount.accumulateAndGet(active, Math::max);
+        
+        try {
+            task.run();
+        } finally {
+            activeCount.decrementAndGet();
+            completedCount.increment();
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        long submitted = submittedCount.sum();
+        long completed = completedCount.sum();
+        int active = activeCount.get();
+        
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", "virtual");
+        metrics.put("maxConcurrency", maxConcurrency);
+        metrics.put("activeCount", active);
+        metrics.put("peakActiveCount", peakActiveCount.get());
+        metrics.put("queueDepth", Math.max(0, submitted - completed - active - rejectedCount.sum()));
+        metrics.put("submittedTaskCount", submitted);
+        metrics.put("completedTaskCount", completed);
+        metrics.put("rejectedCount", rejectedCount.sum());
+        return metrics;
+    }
+    
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+    
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+    
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.orchestration.process.core.retry;
+
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.deadline.ExecutionDeadlines;
+import com.orchestration.process.core.deadline.TimerWheel;
+import com.orchestration.process.core.scheduling.NodeScheduler;
+import com.orchestration.process.model.ProcessNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs nodes under their {@link RetryPolicy}.
+ * The default policy comes from {@code process.retry.default-*}, and nodes override it
+ * with their retry properties. A node whose attempt fails with a retryable error stays
+ * RUNNING and is started again on the orchestration pool once its backoff has elapsed
+ * on the {@link ExecutionDeadlines} timer wheel, so waiting retries hold no thread.
+ * Each attempt is admitted by the {@link NodeScheduler} and gets the node's full timeout
+ * from the time it is admitted, and stopping the execution cancels the running attempt,
+ * the queued attempt or the pending retry.
+ */
+@Component
+public class NodeRetries {
+    private static final Logger logger = LoggerFactory.getLogger(NodeRetries.class);
+    
+    private final ExecutionDeadlines deadlines;
+    private final NodeScheduler scheduler;
+    private final RetryPolicy defaultPolicy;
+    private final LongAdder retriesScheduled = new LongAdder();
+    private final LongAdder nodesRecovered = new LongAdder();
+    private final LongAdder retriesExhausted = new LongAdder();
+    
+    @Autowired
+    public NodeRetries(
+            ExecutionDeadlines deadlines,
+            NodeScheduler scheduler,
+            @Value("${process.retry.default-max-attempts:1}") int maxAttempts,
+            @Value("${process.retry.default-backoff-ms:200}") long backoffMillis,
+            @Value("${process.retry.default-max-backoff-ms:30000}") long maxBackoffMillis,
+            @Value("${process.retry.default-multiplier:2}") double multiplier,
+            @Value("${process.retry.default-jitter:0.5}") double jitter,
+            @Value("${process.retry.default-retry-on:java.io.IOException,"
+                    + "com.orchestration.process.core.deadline.NodeTimeoutException,"
+                    + "com.orchestration.process.core.http.TransientHttpStatusException}") String retryOn) {
+        this.deadlines = deadlines;
+        this.scheduler = scheduler;
+        this.defaultPolicy = new RetryPolicy(maxAttempts, backoffMillis, maxBackoffMillis, multiplier, jitter,
+                RetryPolicy.parseClasses(retryOn));
+    }
+    
+    /**
+     * Get the retry policy of a node
+     * @param node the node
+     * @return the default policy overridden by the node's retry properties
+     * @throws IllegalArgumentException if a retry property of the node is invalid
+     */
+    public RetryPolicy getPolicy(ProcessNode node) {
+        return defaultPolicy.forNode(node.getProperties());
+    }
+    
+    /**
+     * Submit a node to the scheduler and watch it until its last attempt settles
+     * @param execution the execution
+     * @param ordinal the node's ordinal
+     * @param node the node
+     * @param executor the node's executor
+     * @param context the node's inputs, shared by its attempts
+     * @return the future settled with the result of the first successful attempt or the
+     *         failure of the last one
+     * @throws IllegalArgumentException if the node's timeout or retry properties are invalid
+     */
+    public CompletableFuture<Object> execute(ProcessExecution execution, int ordinal, ProcessNode node,
+                                             ProcessNodeExecutor executor, NodeExecutionContext context) {
+        RetryPolicy policy = getPolicy(node);
+        long timeoutMillis = deadlines.getNodeTimeoutMillis(node);
+        if (policy.getMaxAttempts() == 1) {
+            CompletableFuture<Object> future = scheduler.submit(execution, node,
+                    () -> start(node, executor, context, timeoutMillis));
+            if (!future.isDone()) {
+                execution.nodeRunning(ordinal, future);
+                future.whenComplete((result, error) -> execution.nodeSettled(ordinal));
+            }
+            return future;
+        }
+        
+        Attempts attempts = new Attempts(execution, ordinal, node, executor, context, policy, timeoutMillis);
+        execution.nodeRunning(ordinal, attempts.result);
+        attempts.result.whenComplete((result, error) -> {
+            execution.nodeSettled(ordinal);
+            attempts.cancel();
+        });
+        attempts.watch(scheduler.submit(execution, node, attempts::start));
+        return attempts.result;
+    }
+    
+    /**
+     * Start an attempt of an admitted node and limit it to the node's timeout
+     * @param node the node
+     * @param executor the node's executor
+     * @param context the node's inputs
+     * @param timeoutMillis the node's timeout
+     * @return the attempt's future
+     */
+    private CompletableFuture<Object> start(ProcessNode node, ProcessNodeExecutor executor,
+                                            NodeExecutionContext context, long timeoutMillis) {
+        CompletableFuture<Object> future = executor.execute(node, context);
+        deadlines.limit(node, timeoutMillis, future);
+        return future;
+    }
+    
+    /**
+     * Get the retry statistics
+     * @return scheduled retries, nodes that completed after a retry and nodes that failed
+     *         after exhausting their attempts
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("retriesScheduled", retriesScheduled.sum());
+        metrics.put("nodesRecovered", nodesRecovered.sum());
+        metrics.put("retriesExhausted", retriesExhausted.sum());
+        return metrics;
+    }
+    
+    /**
+     * The attempts of one retried node. Attempts run one after the other, so the failure
+     * count is only touched by the callback of the attempt that just settled
+     */
+    private class Attempts {
+        private final ProcessExecution execution;
+        private final int ordinal;
+        private final ProcessNode node;
+        private final ProcessNodeExecutor executor;
+        private final NodeExecutionContext context;
+        private final RetryPolicy policy;
+        private final long timeoutMillis;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private volatile CompletableFuture<Object> attempt;
+        private volatile TimerWheel.Timeout backoff;
+        private int failures;
+        
+        Attempts(ProcessExecution execution, int ordinal, ProcessNode node, ProcessNodeExecutor executor,
+                 NodeExecutionContext context, RetryPolicy policy, long timeoutMillis) {
+            this.execution = execution;
+            this.ordinal = ordinal;
+            this.node = node;
+            this.executor = executor;
+            this.context = context;
+            this.policy = policy;
+            this.timeoutMillis = timeoutMillis;
+        }
+        
+        CompletableFuture<Object> start() {
+            return NodeRetries.this.start(node, executor, context, timeoutMillis);
+        }
+        
+        /**
+         * Settle the node or schedule the next attempt when a submitted attempt settles
+         * @param future the attempt's future, from the scheduler
+         */
+        void watch(CompletableFuture<Object> future) {
+            attempt = future;
+            // Either this sees the node settled or cancel() sees the attempt
+            if (result.isDone()) {
+                future.cancel(true);
+                return;
+            }
+            future.whenComplete(this::settled);
+        }
+        
+        private void settled(Object value, Throwable error) {
+            if (error == null) {
+                // Counted first, so whoever the completion wakes sees the recovery
+                if (failures > 0 && !result.isDone()) {
+                    nodesRecovered.increment();
+                }
+                result.complete(value);
+                return;
+            }
+            
+            failures++;
+            if (result.isDone() || execution.isStopRequested() || !policy.isRetryable(error)) {
+                result.completeExceptionally(error);
+                return;
+            }
+            if (failures >= policy.getMaxAttempts()) {
+                logger.warn("Node {} failed after {} attempts", node.getNodeId(), failures);
+                retriesExhausted.increment();
+                result.completeExceptionally(error);
+                return;
+            }
+            
+            long backoffMillis = policy.backoffMillis(failures);
+            logger.info("Retrying node {} in {} ms after attempt {} failed: {}", node.getNodeId(), backoffMillis,
+                    failures, (error.getCause() != null ? error.getCause() : error).getMessage());
+            retriesScheduled.increment();
+            execution.nodeRetrying(ordinal, error);
+            backoff = deadlines.schedule(this::retry, backoffMillis);
+            if (result.isDone()) {
+                backoff.cancel();
+            }
+        }
+        
+        private void retry() {
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<Object> future;
+            try {
+                future = scheduler.submit(execution, node, this::start);
+            } catch (RuntimeException e) {
+                logger.error("Error starting retry of node: {}", node.getNodeId(), e);
+                result.completeExceptionally(e);
+                return;
+            }
+            watch(future);
+        }
+        
+        /**
+         * Cancel the running attempt or the pending retry once the node has settled,
+         * e.g. because the execution was stopped
+         */
+        void cancel() {
+            CompletableFuture<Object> running = attempt;
+            if (running != null) {
+                running.cancel(true);
+            }
+            TimerWheel.Timeout pending = backoff;
+            if (pending != null) {
+                pending.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.orchestration.process.core.retry;
+
+import com.orchestration.process.core.distributed.RemoteNodeException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * When and how often a failed node is run again.
+ * A node is attempted up to {@code maxAttempts} times. Before attempt n + 1 it waits
+ * {@code backoff * multiplier^(n - 1)}, capped at {@code maxBackoff}, of which a random
+ * share of up to {@code jitter} is left out so nodes that failed together do not retry
+ * together. Only failures caused by one of the {@code retryOn} exception classes are
+ * retried, also when they were raised on another instance; a cancelled node never is.
+ * <p>
+ * Nodes set their policy with the properties {@code retryMaxAttempts},
+ * {@code retryBackoffMs}, {@code retryMaxBackoffMs}, {@code retryMultiplier},
+ * {@code retryJitter} and {@code retryOn} (comma separated class names); properties a
+ * node does not set come from the default policy.
+ */
+public class RetryPolicy {
+    public static final String MAX_ATTEMPTS_PROPERTY = "retryMaxAttempts";
+    public static final String BACKOFF_PROPERTY = "retryBackoffMs";
+    public static final String MAX_BACKOFF_PROPERTY = "retryMaxBackoffMs";
+    public static final String MULTIPLIER_PROPERTY = "retryMultiplier";
+    public static final String JITTER_PROPERTY = "retryJitter";
+    public static final String RETRY_ON_PROPERTY = "retryOn";
+    
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final double multiplier;
+    private final double jitter;
+    private final List<Class<?>> retryOn;
+    
+    /**
+     * Create a policy
+     * @param maxAttempts the number of attempts, at least 1
+     * @param backoffMillis the wait before the first retry
+     * @param maxBackoffMillis the longest wait before a retry
+     * @param multiplier the growth of the wait per retry, at least 1
+     * @param jitter the share of each wait that is randomized, between 0 and 1
+     * @param retryOn the exception classes whose failures are retried
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public RetryPolicy(int maxAttempts, long backoffMillis, long maxBackoffMillis, double multiplier, double jitter,
+                       List<Class<?>> retryOn) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Retry attempts must be at least 1: " + maxAttempts);
+        }
+        if (backoffMillis < 0 || maxBackoffMillis < 0) {
+            throw new IllegalArgumentException("Retry backoff must not be negative");
+        }
+        if (!(multiplier >= 1)) {
+            throw new IllegalArgumentException("Retry multiplier must be at least 1: " + multiplier);
+        }
+        if (!(jitter >= 0 && jitter <= 1)) {
+            throw new IllegalArgumentException("Retry jitter must be between 0 and 1: " + jitter);
+        }
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.retryOn = Collections.unmodifiableList(new ArrayList<>(retryOn));
+    }
+    
+    /**
+     * Get the policy of a node, overriding this policy with the node's retry properties
+     * @param properties the node's properties
+     * @return this policy if the node sets no retry property, the node's policy otherwise
+     * @throws IllegalArgumentException if a retry property is invalid
+     */
+    public RetryPolicy forNode(Map<String, String> properties) {
+        String attempts = properties.get(MAX_ATTEMPTS_PROPERTY);
+        String backoff = properties.get(BACKOFF_PROPERTY);
+        String maxBackoff = properties.get(MAX_BACKOFF_PROPERTY);
+        String growth = properties.get(MULTIPLIER_PROPERTY);
+        String randomized = properties.get(JITTER_PROPERTY);
+        String classes = properties.get(RETRY_ON_PROPERTY);
+        if (attempts == null && backoff == null && maxBackoff == null && growth == null && randomized == null
+                && classes == null) {
+            return this;
+        }
+        
+        try {
+            return new RetryPolicy(
+                    attempts != null ? Integer.parseInt(attempts.trim()) : maxAttempts,
+                    backoff != null ? Long.parseLong(backoff.trim()) : backoffMillis,
+                    maxBackoff != null ? Long.parseLong(maxBackoff.trim()) : maxBackoffMillis,
+                    growth != null ? Double.parseDouble(growth.trim()) : multiplier,
+                    randomized != null ? Double.parseDouble(randomized.trim()) : jitter,
+                    classes != null ? parseClasses(classes) : retryOn);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid retry property: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Resolve a comma separated list of exception class names
+     * @param classNames the class names; an empty list retries nothing
+     * @return the classes
+     * @throws IllegalArgumentException if a class does not exist or is not a Throwable
+     */
+    public static List<Class<?>> parseClasses(String classNames) {
+        List<Class<?>> classes = new ArrayList<>();
+        for (String className : classNames.split(",")) {
+            className = className.trim();
+            if (className.isEmpty()) {
+                continue;
+            }
+            try {
+                Class<?> type = Class.forName(className, false, RetryPolicy.class.getClassLoader());
+                if (!Throwable.class.isAssignableFrom(type)) {
+                    throw new IllegalArgumentException("Not an exception class: " + className);
+                }
+                classes.add(type);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Unknown exception class: " + className);
+            }
+        }
+        return classes;
+    }
+    
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+    
+    /**
+     * Check whether a failure is retried: it or one of its causes is an instance of a
+     * {@code retryOn} class, here or on the worker that ran the node remotely, and it is
+     * not a cancellation
+     * @param error the failure
+     * @return true if the failure is retryable
+     */
+    public boolean isRetryable(Throwable error) {
+        if (error instanceof CancellationException) {
+            return false;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause() != cause ? cause.getCause() : null) {
+            for (Class<?> type : retryOn) {
+                if (type.isInstance(cause)
+                        || cause instanceof RemoteNodeException && ((RemoteNodeException) cause).isInstanceOf(type)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Get the wait before the next attempt
+     * @param failedAttempts the number of attempts that failed so far, at least 1
+     * @return the wait in milliseconds, with jitter applied
+     */
+    public long backoffMillis(int failedAttempts) {
+        double backoff = Math.min(backoffMillis * Math.pow(multiplier, failedAttempts - 1), maxBackoffMillis);
+        return (long) (backoff * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+}
@@ -0,0 +1,357 @@
+package com.orchestration.process.core.scheduling;
+
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Admits the nodes of every execution to run under a global budget of
+ * {@code process.scheduler.max-in-flight} running nodes, so a large process cannot fill
+ * the executor pools ahead of every other execution.
+ * <p>
+ * A node started while the budget is exhausted is queued, without holding a thread, in
+ * the class of its process's {@link ProcessDefinition.Priority}, and under the process's
+ * owner. Whenever a node settles, queued nodes are admitted on the orchestration pool:
+ * from the highest class that has any, and within a class in weighted turns between
+ * owners, each owner getting as many nodes per turn as its weight in
+ * {@code process.scheduler.owner-weights}. Nodes of one owner are admitted in the order
+ * they were queued. A sub-process runs in the class and under the owner of its root
+ * execution, and nodes of the types in {@code process.scheduler.exempt-node-types} are
+ * started without taking part of the budget, e.g. sub-process nodes, which only wait for
+ * their child executions and would otherwise hold the budget their children need.
+ * <p>
+ * The time each node waited to be admitted is recorded per priority class.
+ */
+@Component
+public class NodeScheduler {
+    public static final String DEFAULT_OWNER = "default";
+    
+    private final Executor orchestrationExecutor;
+    private final int maxInFlight;
+    private final int defaultOwnerWeight;
+    private final Map<String, Integer> ownerWeights;
+    private final Set<String> exemptNodeTypes;
+    private final Map<ProcessDefinition.Priority, OwnerQueues> queues = new EnumMap<>(ProcessDefinition.Priority.class);
+    private final Map<ProcessDefinition.Priority, WaitTimeHistogram> waitTimes =
+            new EnumMap<>(ProcessDefinition.Priority.class);
+    private final LongAdder admittedImmediately = new LongAdder();
+    private final LongAdder admittedFromQueue = new LongAdder();
+    private final LongAdder cancelledWhileQueued = new LongAdder();
+    private final LongAdder exemptNodes = new LongAdder();
+    // Guarded by this
+    private int inFlight;
+    private int peakInFlight;
+    private int queued;
+    
+    @Autowired
+    public NodeScheduler(
+            ExecutorPoolRegistry executorPools,
+            @Value("${process.scheduler.max-in-flight:256}") int maxInFlight,
+            @Value("${process.scheduler.owner-weights:}") String ownerWeights,
+            @Value("${process.scheduler.default-owner-weight:1}") int defaultOwnerWeight,
+            @Value("${process.scheduler.exempt-node-types:subprocess}") String exemptNodeTypes) {
+        if (defaultOwnerWeight < 1) {
+            throw new IllegalArgumentException("Default owner weight must be at least 1: " + defaultOwnerWeight);
+        }
+        this.orchestrationExecutor = executorPools.getOrchestrationExecutor();
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : Integer.MAX_VALUE;
+        this.defaultOwnerWeight = defaultOwnerWeight;
+        this.ownerWeights = parseWeights(ownerWeights);
+        this.exemptNodeTypes = Arrays.stream(exemptNodeTypes.split(","))
+                .map(String::trim)
+                .filter(type -> !type.isEmpty())
+                .collect(Collectors.toSet());
+        for (ProcessDefinition.Priority priority : ProcessDefinition.Priority.values()) {
+            queues.put(priority, new OwnerQueues());
+            waitTimes.put(priority, new WaitTimeHistogram());
+        }
+    }
+    
+    /**
+     * Parse owner weights
+     * @param weights comma separated {@code owner=weight} pairs
+     * @return the weight keyed by owner
+     * @throws IllegalArgumentException if a pair is malformed or a weight is not a positive integer
+     */
+    static Map<String, Integer> parseWeights(String weights) {
+        Map<String, Integer> parsed = new HashMap<>();
+        for (String pair : weights.split(",")) {
+            if (pair.trim().isEmpty()) {
+                continue;
+            }
+            int separator = pair.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Owner weight must be owner=weight: " + pair.trim());
+            }
+            String owner = pair.substring(0, separator).trim();
+            int weight;
+            try {
+                weight = Integer.parseInt(pair.substring(separator + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Weight of owner " + owner + " is not a number: " + pair.trim());
+            }
+            if (weight < 1) {
+                throw new IllegalArgumentException("Weight of owner " + owner + " must be at least 1: " + weight);
+            }
+            parsed.put(owner, weight);
+        }
+        return parsed;
+    }
+    
+    /**
+     * Start a node now if the budget allows and no node is queued, or queue it until it is
+     * admitted
+     * @param execution the execution the node runs in
+     * @param node the node
+     * @param start starts the node, e.g. by calling its executor, once it is admitted
+     * @return the future settled with the outcome of the started node; cancelling it
+     *         drops the node if it is still queued, or cancels the started node
+     * @throws RuntimeException thrown by {@code start} if the node was started right away
+     */
+    public CompletableFuture<Object> submit(ProcessExecution execution, ProcessNode node,
+                                            Supplier<CompletableFuture<Object>> start) {
+        if (exemptNodeTypes.contains(node.getType())) {
+            exemptNodes.increment();
+            return start.get();
+        }
+        
+        ProcessExecution root = execution;
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        ProcessDefinition processDefinition = root.getProcessDefinition();
+        ProcessDefinition.Priority priority = processDefinition.getPriority() != null
+                ? processDefinition.getPriority()
+                : ProcessDefinition.Priority.NORMAL;
+        String owner = processDefinition.getOwner() != null && !processDefinition.getOwner().isEmpty()
+                ? processDefinition.getOwner()
+                : DEFAULT_OWNER;
+        
+        QueuedNode queuedNode = null;
+        synchronized (this) {
+            if (queued == 0 && inFlight < maxInFlight) {
+                peakInFlight = Math.max(peakInFlight, ++inFlight);
+            } else {
+                queuedNode = new QueuedNode(execution, priority, start);
+                queues.get(priority).add(owner, ownerWeights.getOrDefault(owner, defaultOwnerWeight), queuedNode);
+                queued++;
+            }
+        }
+        if (queuedNode != null) {
+            return queuedNode.future;
+        }
+        
+        admittedImmediately.increment();
+        waitTimes.get(priority).record(0);
+        CompletableFuture<Object> future;
+        try {
+            future = start.get();
+        } catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+        future.whenComplete((result, error) -> release());
+        return future;
+    }
+    
+    /**
+     * Return the budget of a settled node and admit the queued nodes it makes room for
+     */
+    private void release() {
+        List<QueuedNode> admitted = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            while (inFlight < maxInFlight && queued > 0) {
+                QueuedNode next = poll();
+                queued--;
+                if (next.future.isDone()) {
+                    // Cancelled while queued
+                    cancelledWhileQueued.increment();
+                    continue;
+                }
+                peakInFlight = Math.max(peakInFlight, ++inFlight);
+                admitted.add(next);
+            }
+        }
+        
+        for (QueuedNode node : admitted) {
+            try {
+                orchestrationExecutor.execute(node::start);
+            } catch (RejectedExecutionException e) {
+                node.start();
+            }
+        }
+    }
+    
+    /**
+     * Take the next node to admit, from the highest priority class that has any
+     * @return the node
+     */
+    private QueuedNode poll() {
+        for (OwnerQueues classQueues : queues.values()) {
+            QueuedNode node = classQueues.poll();
+            if (node != null) {
+                return node;
+            }
+        }
+        throw new IllegalStateException("No queued node");
+    }
+    
+    /**
+     * Get the scheduling statistics
+     * @return the budget, running and queued nodes, admissions, the queued nodes of each
+     *         owner per priority class, and the wait time histogram of each class
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        Map<String, Object> queuedByPriority = new LinkedHashMap<>();
+        synchronized (this) {
+            metrics.put("maxInFlight", maxInFlight == Integer.MAX_VALUE ? 0 : maxInFlight);
+            metrics.put("inFlight", inFlight);
+            metrics.put("peakInFlight", peakInFlight);
+            metrics.put("queued", queued);
+            queues.forEach((priority, classQueues) -> queuedByPriority.put(priority.name(), classQueues.countByOwner()));
+        }
+        metrics.put("admittedImmediately", admittedImmediately.sum());
+        metrics.put("admittedFromQueue", admittedFromQueue.sum());
+        metrics.put("cancelledWhileQueued", cancelledWhileQueued.sum());
+        metrics.put("exemptNodes", exemptNodes.sum());
+        metrics.put("queuedByPriority", queuedByPriority);
+        
+        Map<String, Object> waits = new LinkedHashMap<>();
+        waitTimes.forEach((priority, histogram) -> waits.put(priority.name(), histogram.toMap()));
+        metrics.put("waitTimes", waits);
+        return metrics;
+    }
+    
+    /**
+     * A node waiting to be admitted
+     */
+    private class QueuedNode {
+        private final ProcessExecution execution;
+        private final ProcessDefinition.Priority priority;
+        private final Supplier<CompletableFuture<Object>> start;
+        private final long queuedNanos = System.nanoTime();
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        
+        QueuedNode(ProcessExecution execution, ProcessDefinition.Priority priority,
+                   Supplier<CompletableFuture<Object>> start) {
+            this.execution = execution;
+            this.priority = priority;
+            this.start = start;
+        }
+        
+        /**
+         * Start the admitted node and settle its future with the node's outcome
+         */
+        void start() {
+            // A stop admits queued nodes of the stopping execution while it cancels them
+            if (future.isDone() || execution.isStopRequested()) {
+                future.cancel(true);
+                cancelledWhileQueued.increment();
+                release();
+                return;
+            }
+            waitTimes.get(priority).record(System.nanoTime() - queuedNanos);
+            admittedFromQueue.increment();
+            
+            CompletableFuture<Object> started;
+            try {
+                started = start.get();
+            } catch (RuntimeException e) {
+                release();
+                future.completeExceptionally(e);
+                return;
+            }
+            started.whenComplete((result, error) -> {
+                release();
+                if (error == null) {
+                    future.complete(result);
+                } else {
+                    future.completeExceptionally(error);
+                }
+            });
+            future.whenComplete((result, error) -> {
+                if (error instanceof CancellationException) {
+                    started.cancel(true);
+                }
+            });
+        }
+    }
+    
+    /**
+     * The queued nodes of one priority class, per owner. Owners with queued nodes take
+     * turns in the order they queued their first node; an owner whose turn ends with nodes
+     * left goes to the back. Guarded by the scheduler
+     */
+    private static class OwnerQueues {
+        private final Map<String, OwnerQueue> owners = new HashMap<>();
+        private final ArrayDeque<OwnerQueue> turns = new ArrayDeque<>();
+        
+        void add(String owner, int weight, QueuedNode node) {
+            OwnerQueue ownerQueue = owners.computeIfAbsent(owner, key -> new OwnerQueue(key, weight));
+            if (ownerQueue.nodes.isEmpty()) {
+                ownerQueue.credits = ownerQueue.weight;
+                turns.addLast(ownerQueue);
+            }
+            ownerQueue.nodes.addLast(node);
+        }
+        
+        QueuedNode poll() {
+            OwnerQueue ownerQueue = turns.peekFirst();
+            if (ownerQueue == null) {
+                return null;
+            }
+            
+            QueuedNode node = ownerQueue.nodes.pollFirst();
+            if (ownerQueue.nodes.isEmpty()) {
+                turns.pollFirst();
+                owners.remove(ownerQueue.owner);
+            } else if (--ownerQueue.credits == 0) {
+                ownerQueue.credits = ownerQueue.weight;
+                turns.addLast(turns.pollFirst());
+            }
+            return node;
+        }
+        
+        Map<String, Integer> countByOwner() {
+            Map<String, Integer> counts = new TreeMap<>();
+            owners.forEach((owner, ownerQueue) -> counts.put(owner, ownerQueue.nodes.size()));
+            return counts;
+        }
+    }
+    
+    private static class OwnerQueue {
+        private final String owner;
+        private final int weight;
+        private final ArrayDeque<QueuedNode> nodes = new ArrayDeque<>();
+        private int credits;
+        
+        OwnerQueue(String owner, int weight) {
+            this.owner = owner;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.orchestration.process.core.scheduling;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of the time nodes waited to be admitted, with fixed bucket bounds.
+ * Each bucket counts the waits up to its bound and above the previous one; waits longer
+ * than the last bound are counted in an overflow bucket.
+ */
+public class WaitTimeHistogram {
+    private static final long[] BOUNDS_MILLIS = {1, 5, 10, 50, 100, 500, 1000, 5000, 10000, 60000};
+    
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MILLIS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    
+    public WaitTimeHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * Record a wait
+     * @param waitNanos the time the node waited, in nanoseconds
+     */
+    public void record(long waitNanos) {
+        long waitMillis = waitNanos / 1_000_000;
+        int bucket = 0;
+        while (bucket < BOUNDS_MILLIS.length && waitMillis >= BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(waitNanos);
+        maxNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+    
+    /**
+     * Get a snapshot of the histogram
+     * @return the number of waits, their average and maximum, and the count of each bucket
+     *         keyed by its upper bound
+     */
+    public Map<String, Object> toMap() {
+        long waits = count.sum();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+            counts.put("<" + BOUNDS_MILLIS[i] + "ms", buckets[i].sum());
+        }
+        counts.put(">=" + BOUNDS_MILLIS[BOUNDS_MILLIS.length - 1] + "ms", buckets[BOUNDS_MILLIS.length].sum());
+        
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("count", waits);
+        metrics.put("avgWaitMillis", waits == 0 ? 0.0 : totalNanos.sum() / 1_000_000.0 / waits);
+        metrics.put("maxWaitMillis", maxNanos.get() / 1_000_000.0);
+        metrics.put("buckets", counts);
+        return metrics;
+    }
+}
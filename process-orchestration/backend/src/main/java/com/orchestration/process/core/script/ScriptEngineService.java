@@ -0,0 +1,255 @@
+package com.orchestration.process.core.script;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Evaluates the scripts of script and conditional nodes.
+ * Each distinct script is compiled once and kept in an LRU cache keyed by the SHA-256
+ * hash of its source. Compiled scripts are shared between threads, but every evaluation
+ * runs against its own bindings borrowed from a pool, so concurrent nodes never see
+ * each other's variables or race on engine state.
+ */
+@Component
+public class ScriptEngineService {
+    private static final Logger logger = LoggerFactory.getLogger(ScriptEngineService.class);
+    
+    private final ScriptEngine engine;
+    private final int cacheSize;
+    private final int maxIdleBindings;
+    private final Map<String, CachedScript> cache;
+    private final Queue<Bindings> idleBindings = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleBindingsCount = new AtomicInteger();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    
+    @Autowired
+    public ScriptEngineService(
+            @Value("${process.script.engine-name:JavaScript}") String engineName,
+            @Value("${process.script.cache-size:256}") int cacheSize,
+            @Value("${process.script.max-idle-bindings:64}") int maxIdleBindings) {
+        this.engine = new ScriptEngineManager().getEngineByName(engineName);
+        this.cacheSize = cacheSize;
+        this.maxIdleBindings = maxIdleBindings;
+        this.cache = new LinkedHashMap<String, CachedScript>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedScript> eldest) {
+                if (size() > ScriptEngineService.this.cacheSize) {
+                    evictionCount.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        
+        if (engine == null) {
+            logger.warn("No script engine named {} is available, script and conditional nodes will fail", engineName);
+        } else if (!(engine instanceof Compilable)) {
+            logger.warn("Script engine {} cannot compile scripts, they will be parsed on every evaluation", engineName);
+        }
+    }
+    
+    /**
+     * Evaluate a script in isolated bindings
+     * @param script the script source
+     * @return the value of the script
+     * @throws ScriptException if the script cannot be compiled or fails
+     */
+    public Object evaluate(String script) throws ScriptException {
+        return evaluate(script, Collections.emptyMap());
+    }
+    
+    /**
+     * Evaluate a script in isolated bindings
+     * @param script the script source
+     * @param variables values exposed to the script as global variables
+     * @return the value of the script
+     * @throws ScriptException if the script cannot be compiled or fails
+     */
+    public Object evaluate(String script, Map<String, Object> variables) throws ScriptException {
+        if (engine == null) {
+            throw new ScriptException("No script engine is available");
+        }
+        
+        CachedScript cachedScript = getCachedScript(script);
+        Bindings bindings = borrowBindings();
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        
+        try {
+            bindings.putAll(variables);
+            ScriptContext context = new SimpleScriptContext();
+            context.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+            Object result = cachedScript.compiledScript != null
+                    ? cachedScript.compiledScript.eval(context)
+                    : engine.eval(script, context);
+            failed = false;
+            return result;
+        } finally {
+            cachedScript.recordEvaluation(System.nanoTime() - startNanos, failed);
+            // Do not leak this node's inputs to the next script using the bindings
+            variables.keySet().forEach(bindings::remove);
+            returnBindings(bindings);
+        }
+    }
+    
+    /**
+     * Get the compile cache statistics and the evaluation latency of every cached script
+     * @return the script metrics
+     */
+    public Map<String, Object> getMetrics() {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        
+        Map<String, Object> cacheMetrics = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> scriptMetrics = new TreeMap<>();
+        synchronized (cache) {
+            cacheMetrics.put("size", cache.size());
+            cache.forEach((hash, cachedScript) -> scriptMetrics.put(hash, cachedScript.getMetrics()));
+        }
+        cacheMetrics.put("maxSize", cacheSize);
+        cacheMetrics.put("hitCount", hits);
+        cacheMetrics.put("missCount", misses);
+        cacheMetrics.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        cacheMetrics.put("evictionCount", evictionCount.sum());
+        cacheMetrics.put("idleBindings", idleBindingsCount.get());
+        
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("engine", engine != null ? engine.getFactory().getEngineName() : null);
+        metrics.put("compileCache", cacheMetrics);
+        metrics.put("scripts", scriptMetrics);
+        return metrics;
+    }
+    
+    private CachedScript getCachedScript(String script) throws ScriptException {
+        String hash = hash(script);
+        
+        synchronized (cache) {
+            CachedScript cachedScript = cache.get(hash);
+            if (cachedScript != null) {
+                hitCount.increment();
+                return cachedScript;
+            }
+        }
+        
+        // Compile outside the cache lock; two threads racing on the same new script
+        // both compile it and the later one simply replaces the earlier entry
+        missCount.increment();
+        CompiledScript compiledScript = compile(script);
+        CachedScript cachedScript = new CachedScript(compiledScript, script);
+        
+        synchronized (cache) {
+            cache.put(hash, cachedScript);
+        }
+        
+        return cachedScript;
+    }
+    
+    private CompiledScript compile(String script) throws ScriptException {
+        if (!(engine instanceof Compilable)) {
+            return null;
+        }
+        
+        synchronized (engine) {
+            return ((Compilable) engine).compile(script);
+        }
+    }
+    
+    private Bindings borrowBindings() {
+        Bindings bindings = idleBindings.poll();
+        if (bindings != null) {
+            idleBindingsCount.decrementAndGet();
+            return bindings;
+        }
+        
+        synchronized (engine) {
+            return engine.createBindings();
+        }
+    }
+    
+    private void returnBindings(Bindings bindings) {
+        if (idleBindingsCount.incrementAndGet() <= maxIdleBindings) {
+            idleBindings.offer(bindings);
+        } else {
+            idleBindingsCount.decrementAndGet();
+        }
+    }
+    
+    private static String hash(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    /**
+     * A compiled script together with its evaluation statistics.
+     */
+    private static class CachedScript {
+        private static final int PREVIEW_LENGTH = 60;
+        
+        private final CompiledScript compiledScript;
+        private final String preview;
+        private final LongAdder evaluationCount = new LongAdder();
+        private final LongAdder failureCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        
+        CachedScript(CompiledScript compiledScript, String script) {
+            this.compiledScript = compiledScript;
+            this.preview = script.length() > PREVIEW_LENGTH ? script.substring(0, PREVIEW_LENGTH) + "..." : script;
+        }
+        
+        void recordEvaluation(long nanos, boolean failed) {
+            evaluationCount.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            if (failed) {
+                failureCount.increment();
+            }
+        }
+        
+        Map<String, Object> getMetrics() {
+            long evaluations = evaluationCount.sum();
+            
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("script", preview);
+            metrics.put("evaluationCount", evaluations);
+            metrics.put("failureCount", failureCount.sum());
+            metrics.put("avgLatencyMillis", evaluations == 0 ? 0.0 : totalNanos.sum() / (evaluations * 1_000_000.0));
+            metrics.put("maxLatencyMillis", maxNanos.get() / 1_000_000.0);
+            return metrics;
+        }
+    }
+}
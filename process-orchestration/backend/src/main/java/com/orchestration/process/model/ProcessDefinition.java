@@ -1,9 +1,13 @@
 package com.orchestration.process.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -17,6 +21,11 @@ import java.util.Map;
 @Builder
 @Entity
 public class ProcessDefinition {
+    /**
+     * Number of definitions or nodes whose collections are loaded by a single query
+     */
+    public static final int BATCH_SIZE = 64;
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -24,23 +33,94 @@ public class ProcessDefinition {
     private String name;
     private String description;
     
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    /**
+     * Name of the orchestrator strategy used to run this process (e.g. "bfs" or "dag").
+     * When empty, the configured default strategy is used.
+     */
+    private String executionStrategy;
+    
+    /**
+     * Time a run of this process may take, in milliseconds from its start, before it is
+     * stopped and failed. When empty, process.execution.default-timeout-ms applies
+     */
+    private Long timeoutMs;
+    
+    /**
+     * Class in which the nodes of this process are admitted to run when the node budget
+     * is exhausted; higher classes go first. When empty, NORMAL applies
+     */
+    @Enumerated(EnumType.STRING)
+    private Priority priority;
+    
+    /**
+     * Tenant or team the process belongs to; ready nodes of the same priority are
+     * admitted in weighted turns between owners. When empty, the default owner applies
+     */
+    private String owner;
+    
+    /**
+     * Incremented on every update; compiled execution plans are cached per version, and
+     * concurrent updates of the same version are rejected
+     */
+    @Version
+    private long version;
+    
+    /**
+     * Nodes keep their order across loads, since executions index node state by position.
+     * Collections are loaded with one query per batch of definitions, not one per definition
+     */
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OrderColumn(name = "node_order")
+    @Fetch(FetchMode.SELECT)
+    @BatchSize(size = ProcessDefinition.BATCH_SIZE)
     private List<ProcessNode> nodes = new ArrayList<>();
     
-    @ElementCollection
+    @ElementCollection(fetch = FetchType.EAGER)
+    @OrderColumn(name = "root_order")
+    @Fetch(FetchMode.SELECT)
+    @BatchSize(size = ProcessDefinition.BATCH_SIZE)
     private List<String> rootNodeIds = new ArrayList<>();
     
     @Transient
     private Map<String, ProcessNode> nodeMap = new HashMap<>();
     
+    /**
+     * Position of each node in {@link #nodes}, keyed by node ID; executions index their
+     * per-node state by it. Set by {@link #buildNodeMap()}
+     */
+    @Transient
+    @JsonIgnore
+    private Map<String, Integer> nodeOrdinals;
+    
     public void buildNodeMap() {
-        nodeMap.clear();
-        for (ProcessNode node : nodes) {
+        Map<String, ProcessNode> nodeMap = new HashMap<>();
+        Map<String, Integer> nodeOrdinals = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            ProcessNode node = nodes.get(i);
             nodeMap.put(node.getNodeId(), node);
+            nodeOrdinals.put(node.getNodeId(), i);
         }
+        this.nodeMap = nodeMap;
+        this.nodeOrdinals = nodeOrdinals;
     }
     
     public ProcessNode getNodeById(String nodeId) {
         return nodeMap.getOrDefault(nodeId, null);
     }
+    
+    /**
+     * Get the position of a node in the node list
+     * @param nodeId the node ID
+     * @return the node's ordinal, or -1 if the process has no such node
+     */
+    public int getNodeOrdinal(String nodeId) {
+        Integer ordinal = nodeOrdinals != null ? nodeOrdinals.get(nodeId) : null;
+        return ordinal != null ? ordinal : -1;
+    }
+    
+    public enum Priority {
+        HIGH,
+        NORMAL,
+        LOW
+    }
 }
@@ -4,6 +4,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -26,15 +29,22 @@ public class ProcessNode {
     private String type;
     private Integer level;
     
-    @ElementCollection
+    @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "node_properties", joinColumns = @JoinColumn(name = "node_id"))
     @MapKeyColumn(name = "property_key")
     @Column(name = "property_value")
+    @Lob
+    @Fetch(FetchMode.SELECT)
+    @BatchSize(size = ProcessDefinition.BATCH_SIZE)
     private Map<String, String> properties = new ConcurrentHashMap<>();
     
-    @ElementCollection
+    @ElementCollection(fetch = FetchType.EAGER)
+    @OrderColumn(name = "child_order")
+    @Fetch(FetchMode.SELECT)
+    @BatchSize(size = ProcessDefinition.BATCH_SIZE)
     private List<String> childNodeIds = new ArrayList<>();
     
+    // Run state is kept per execution by ProcessExecution, never on the shared definition
     @Transient
     private ProcessNodeStatus status = ProcessNodeStatus.PENDING;
     
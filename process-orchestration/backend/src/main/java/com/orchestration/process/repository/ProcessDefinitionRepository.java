@@ -0,0 +1,14 @@
+package com.orchestration.process.repository;
+
+import com.orchestration.process.model.ProcessDefinition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for process definitions.
+ * Nodes, their properties and children are loaded with the definition, one query per
+ * batch of definitions or nodes; see {@link ProcessDefinition#BATCH_SIZE}.
+ */
+@Repository
+public interface ProcessDefinitionRepository extends JpaRepository<ProcessDefinition, Long> {
+}
@@ -0,0 +1,325 @@
+package com.orchestration.process.service;
+
+import com.orchestration.process.core.ExecutionStateListener;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.event.ExecutionEvent;
+import com.orchestration.process.core.event.ExecutionEventLog;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service streaming the node transitions of executions to clients as server-sent events.
+ * <p>
+ * Each execution's events are numbered and kept in an {@link ExecutionEventLog} of
+ * {@code process.events.buffer-size} events until the execution is no longer retained.
+ * Event IDs carry the sequence, so a client that reconnects with the Last-Event-ID it
+ * last received continues after that event. Events are written to clients on the events
+ * pool, never on the threads running nodes: each subscriber has at most one send in
+ * flight, which writes up to {@code process.events.batch-size} events and then yields
+ * the thread. A subscriber too slow to keep up, or whose cursor is unknown, gets a
+ * snapshot of the execution instead of the events it missed, followed by the events
+ * after the snapshot.
+ */
+@Service
+public class ExecutionEventService implements ExecutionStateListener {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionEventService.class);
+    private static final String SNAPSHOT_EVENT = "snapshot";
+    
+    private final Executor eventExecutor;
+    private final int bufferSize;
+    private final int batchSize;
+    private final long emitterTimeoutMs;
+    // Event IDs are prefixed with the run of the application, since sequences restart
+    // when a resumed execution is streamed again after a restart
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Long, EventStream> streams = new ConcurrentHashMap<>();
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder snapshotsSent = new LongAdder();
+    private final LongAdder subscribersDropped = new LongAdder();
+    
+    @Autowired
+    public ExecutionEventService(
+            ExecutorPoolRegistry executorPools,
+            @Value("${process.events.buffer-size:256}") int bufferSize,
+            @Value("${process.events.batch-size:64}") int batchSize,
+            @Value("${process.events.emitter-timeout-ms:600000}") long emitterTimeoutMs) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Event batch size must be positive: " + batchSize);
+        }
+        this.eventExecutor = executorPools.getEventExecutor();
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+    }
+    
+    /**
+     * Start recording the events of an execution
+     * @param execution the execution, before it is run
+     */
+    public void open(ProcessExecution execution) {
+        streams.put(execution.getExecutionId(), new EventStream(execution, new ExecutionEventLog(bufferSize)));
+    }
+    
+    /**
+     * Drop the events of an execution that is no longer retained, ending its streams
+     * @param executionId the ID of the execution
+     */
+    public void release(long executionId) {
+        EventStream stream = streams.remove(executionId);
+        if (stream != null) {
+            stream.subscribers.forEach(Subscriber::close);
+        }
+    }
+    
+    /**
+     * Stream the events of an execution. The stream ends after the EXECUTION_FINISHED
+     * event; for an execution whose events are no longer kept, it only holds a snapshot
+     * of the execution
+     * @param execution the execution
+     * @param cursor the ID of the last event the client received, or null to receive
+     *               every event still kept
+     * @return the emitter sending the events
+     */
+    public SseEmitter subscribe(ProcessExecution execution, String cursor) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        EventStream stream = streams.get(execution.getExecutionId());
+        if (stream == null || stream.execution != execution) {
+            try {
+                emitter.send(SseEmitter.event().name(SNAPSHOT_EVENT).data(execution));
+                snapshotsSent.increment();
+                emitter.complete();
+            } catch (IOException e) {
+                logger.debug("Could not send snapshot of execution {}: {}", execution.getExecutionId(), e.getMessage());
+            }
+            return emitter;
+        }
+        
+        long afterSequence = parseCursor(cursor);
+        if (afterSequence > stream.log.getLastSequence()) {
+            afterSequence = -1;
+        }
+        
+        Subscriber subscriber = new Subscriber(stream, emitter, afterSequence);
+        stream.subscribers.add(subscriber);
+        emitter.onCompletion(() -> stream.subscribers.remove(subscriber));
+        emitter.onTimeout(() -> stream.subscribers.remove(subscriber));
+        emitter.onError(error -> stream.subscribers.remove(subscriber));
+        signal(subscriber);
+        return emitter;
+    }
+    
+    @Override
+    public void nodeStarted(ProcessExecution execution, int ordinal) {
+        publish(execution, ExecutionEvent.Type.NODE_STARTED, ordinal, null, null);
+    }
+    
+    @Override
+    public void nodeCompleted(ProcessExecution execution, int ordinal, Object result) {
+        publish(execution, ExecutionEvent.Type.NODE_COMPLETED, ordinal, result, null);
+    }
+    
+    @Override
+    public void nodeFailed(ProcessExecution execution, int ordinal) {
+        publish(execution, ExecutionEvent.Type.NODE_FAILED, ordinal, null, null);
+    }
+    
+    @Override
+    public void nodeRetrying(ProcessExecution execution, int ordinal, Throwable error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        publish(execution, ExecutionEvent.Type.NODE_RETRYING, ordinal, null,
+                cause.getMessage() != null ? cause.getMessage() : cause.toString());
+    }
+    
+    @Override
+    public void executionFinished(ProcessExecution execution) {
+        EventStream stream = streams.get(execution.getExecutionId());
+        if (stream == null) {
+            return;
+        }
+        stream.log.append(ExecutionEvent.Type.EXECUTION_FINISHED, null, execution.getStatus().name(), null,
+                execution.getError(), execution.getEndTime());
+        stream.subscribers.forEach(this::signal);
+    }
+    
+    /**
+     * Get the event streaming statistics
+     * @return streamed executions, subscribers, sent events and snapshots, dropped subscribers
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("executions", streams.size());
+        metrics.put("subscribers", streams.values().stream().mapToInt(stream -> stream.subscribers.size()).sum());
+        metrics.put("eventsSent", eventsSent.sum());
+        metrics.put("snapshotsSent", snapshotsSent.sum());
+        metrics.put("subscribersDropped", subscribersDropped.sum());
+        return metrics;
+    }
+    
+    private void publish(ProcessExecution execution, ExecutionEvent.Type type, int ordinal, Object result,
+                         String error) {
+        EventStream stream = streams.get(execution.getExecutionId());
+        if (stream == null) {
+            return;
+        }
+        String nodeId = execution.getProcessDefinition().getNodes().get(ordinal).getNodeId();
+        stream.log.append(type, nodeId, execution.getNodeStatus(ordinal).name(), result, error, Instant.now());
+        stream.subscribers.forEach(this::signal);
+    }
+    
+    /**
+     * Schedule a send to a subscriber, unless one is already scheduled
+     * @param subscriber the subscriber
+     */
+    private void signal(Subscriber subscriber) {
+        if (subscriber.closed || !subscriber.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            eventExecutor.execute(() -> send(subscriber));
+        } catch (RejectedExecutionException e) {
+            // The client reconnects with the last event it received
+            subscriber.scheduled.set(false);
+            subscribersDropped.increment();
+            subscriber.close();
+        }
+    }
+    
+    /**
+     * Send the next batch of events to a subscriber, or a snapshot if it has fallen behind
+     * @param subscriber the subscriber
+     */
+    private void send(Subscriber subscriber) {
+        ExecutionEventLog log = subscriber.stream.log;
+        try {
+            List<ExecutionEvent> events = log.read(subscriber.cursor, batchSize);
+            if (events == null) {
+                sendSnapshot(subscriber);
+            } else {
+                for (ExecutionEvent event : events) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(eventId(event.getSequence()))
+                            .name(event.getType().getEventName())
+                            .data(event));
+                    subscriber.cursor = event.getSequence();
+                    eventsSent.increment();
+                    if (event.getType() == ExecutionEvent.Type.EXECUTION_FINISHED) {
+                        subscriber.close();
+                    }
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client has gone away or the emitter has completed
+            logger.debug("Stopped streaming execution {}: {}", subscriber.stream.execution.getExecutionId(), e.getMessage());
+            subscriber.stream.subscribers.remove(subscriber);
+            subscriber.closed = true;
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        
+        // Events appended while this send ran did not schedule another one
+        if (log.getLastSequence() > subscriber.cursor) {
+            signal(subscriber);
+        }
+    }
+    
+    private void sendSnapshot(Subscriber subscriber) throws IOException {
+        ExecutionEventLog log = subscriber.stream.log;
+        long sequence = log.getLastSequence();
+        long finishedSequence = log.getFinishedSequence();
+        
+        // The snapshot is taken after the events up to the sequence, so it shows them all
+        subscriber.emitter.send(SseEmitter.event()
+                .id(eventId(sequence))
+                .name(SNAPSHOT_EVENT)
+                .data(subscriber.stream.execution));
+        subscriber.cursor = sequence;
+        snapshotsSent.increment();
+        if (finishedSequence != 0 && finishedSequence <= sequence) {
+            subscriber.close();
+        }
+    }
+    
+    private String eventId(long sequence) {
+        return runId + "-" + sequence;
+    }
+    
+    /**
+     * Parse the ID of the last event a client received
+     * @param cursor the event ID, a plain sequence, or null
+     * @return the sequence, 0 if the cursor is null, or -1 if it is malformed or was
+     *         issued by an earlier run of the application
+     */
+    private long parseCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        String sequence = cursor;
+        int separator = cursor.lastIndexOf('-');
+        if (separator >= 0) {
+            if (!cursor.substring(0, separator).equals(runId)) {
+                return -1;
+            }
+            sequence = cursor.substring(separator + 1);
+        }
+        try {
+            return Math.max(-1, Long.parseLong(sequence));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * The events of one execution and the clients streaming them
+     */
+    private static class EventStream {
+        private final ProcessExecution execution;
+        private final ExecutionEventLog log;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        
+        EventStream(ProcessExecution execution, ExecutionEventLog log) {
+            this.execution = execution;
+            this.log = log;
+        }
+    }
+    
+    /**
+     * A client streaming the events of an execution
+     */
+    private static class Subscriber {
+        private final EventStream stream;
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // Sequence of the last event sent; only written by the send in flight
+        private volatile long cursor;
+        private volatile boolean closed;
+        
+        Subscriber(EventStream stream, SseEmitter emitter, long cursor) {
+            this.stream = stream;
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+        
+        void close() {
+            closed = true;
+            stream.subscribers.remove(this);
+            emitter.complete();
+        }
+    }
+}
@@ -1,23 +1,67 @@
 package com.orchestration.process.service;
 
+import com.orchestration.process.core.impl.ExecutionPlanCache;
 import com.orchestration.process.model.ProcessDefinition;
 import com.orchestration.process.model.ProcessNode;
+import com.orchestration.process.repository.ProcessDefinitionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service for managing process definitions.
+ * Definitions are stored through {@link ProcessDefinitionRepository}. The definitions
+ * looked up by ID, e.g. to start an execution, are kept with their node maps built in a
+ * bounded LRU cache of {@code process.definitions.cache-size} entries, so only the first
+ * lookup of a definition reads the database. Saving a definition replaces its cached
+ * copy and deleting it evicts it; listing pages through the database without filling
+ * the cache.
+ * <p>
+ * Cached definitions are shared by every execution and must not be modified.
  */
 @Service
 public class ProcessDefinitionService {
-    private final Map<Long, ProcessDefinition> processDefinitions = new ConcurrentHashMap<>();
-    private final AtomicLong idGenerator = new AtomicLong(1);
+    private final ProcessDefinitionRepository processDefinitionRepository;
+    private final ExecutionPlanCache executionPlanCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int cacheSize;
+    private final int maxPageSize;
+    // Empty for a deleted definition, so a lookup that raced with the deletion cannot cache it again
+    private final Map<Long, Optional<ProcessDefinition>> cache;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    
+    @Autowired
+    public ProcessDefinitionService(
+            ProcessDefinitionRepository processDefinitionRepository,
+            ExecutionPlanCache executionPlanCache,
+            TransactionTemplate transactionTemplate,
+            @Value("${process.definitions.cache-size:1024}") int cacheSize,
+            @Value("${process.definitions.max-page-size:1000}") int maxPageSize) {
+        this.processDefinitionRepository = processDefinitionRepository;
+        this.executionPlanCache = executionPlanCache;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheSize = cacheSize;
+        this.maxPageSize = maxPageSize;
+        this.cache = new LinkedHashMap<Long, Optional<ProcessDefinition>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Optional<ProcessDefinition>> eldest) {
+                return size() > ProcessDefinitionService.this.cacheSize;
+            }
+        };
+    }
     
     /**
      * Create a new process definition
@@ -25,23 +69,28 @@ public class ProcessDefinitionService {
      * @return the created process definition with generated ID
      */
     public ProcessDefinition createProcessDefinition(ProcessDefinition processDefinition) {
-        Long id = idGenerator.getAndIncrement();
-        processDefinition.setId(id);
+        processDefinition.setId(null);
+        processDefinition.setVersion(0);
         
-        // Assign IDs to nodes if not already assigned
-        Map<String, ProcessNode> nodeMap = new HashMap<>();
+        // Assign IDs to nodes if not already assigned, unique within the process
+        Set<String> nodeIds = new HashSet<>();
+        processDefinition.getNodes().forEach(node -> nodeIds.add(node.getNodeId()));
+        int nextNodeId = 1;
         for (ProcessNode node : processDefinition.getNodes()) {
+            node.setId(null);
             if (node.getNodeId() == null || node.getNodeId().isEmpty()) {
-                node.setNodeId("node-" + idGenerator.getAndIncrement());
+                while (!nodeIds.add("node-" + nextNodeId)) {
+                    nextNodeId++;
+                }
+                node.setNodeId("node-" + nextNodeId);
             }
-            nodeMap.put(node.getNodeId(), node);
         }
         
-        // Build the node map
-        processDefinition.setNodeMap(nodeMap);
+        ProcessDefinition created = processDefinitionRepository.save(processDefinition);
         
-        processDefinitions.put(id, processDefinition);
-        return processDefinition;
+        // Build the node map
+        created.buildNodeMap();
+        return cache(created);
     }
     
     /**
@@ -50,7 +99,44 @@ public class ProcessDefinitionService {
      * @return the process definition, or null if not found
      */
     public ProcessDefinition getProcessDefinition(Long id) {
-        return processDefinitions.get(id);
+        Optional<ProcessDefinition> cached;
+        synchronized (cache) {
+            cached = cache.get(id);
+        }
+        if (cached != null) {
+            hitCount.increment();
+            return cached.orElse(null);
+        }
+        
+        missCount.increment();
+        ProcessDefinition processDefinition = processDefinitionRepository.findById(id).orElse(null);
+        if (processDefinition == null) {
+            return null;
+        }
+        processDefinition.buildNodeMap();
+        return cache(processDefinition);
+    }
+    
+    /**
+     * Get a process definition of at least the given version, reading it again if the
+     * cached copy is older, e.g. because another instance sharing the database updated it
+     * @param id the ID of the process definition
+     * @param version the oldest version accepted
+     * @return the process definition, or null if not found
+     */
+    public ProcessDefinition getProcessDefinition(Long id, long version) {
+        ProcessDefinition processDefinition = getProcessDefinition(id);
+        if (processDefinition == null || processDefinition.getVersion() >= version) {
+            return processDefinition;
+        }
+        
+        missCount.increment();
+        processDefinition = processDefinitionRepository.findById(id).orElse(null);
+        if (processDefinition == null) {
+            return null;
+        }
+        processDefinition.buildNodeMap();
+        return cache(processDefinition);
     }
     
     /**
@@ -58,23 +144,43 @@ public class ProcessDefinitionService {
      * @param id the ID of the process definition to update
      * @param processDefinition the updated process definition
      * @return the updated process definition, or null if not found
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the definition
+     *         was updated or deleted concurrently
      */
     public ProcessDefinition updateProcessDefinition(Long id, ProcessDefinition processDefinition) {
-        if (!processDefinitions.containsKey(id)) {
+        // Changing the stored definition increments its version when the transaction
+        // commits, which fails if another update committed first. The cache is only
+        // updated once the new version is committed
+        ProcessDefinition updated = transactionTemplate.execute(status -> {
+            ProcessDefinition stored = processDefinitionRepository.findById(id).orElse(null);
+            if (stored == null) {
+                return null;
+            }
+            
+            stored.setName(processDefinition.getName());
+            stored.setDescription(processDefinition.getDescription());
+            stored.setExecutionStrategy(processDefinition.getExecutionStrategy());
+            stored.setTimeoutMs(processDefinition.getTimeoutMs());
+            stored.setPriority(processDefinition.getPriority());
+            stored.setOwner(processDefinition.getOwner());
+            stored.getRootNodeIds().clear();
+            stored.getRootNodeIds().addAll(processDefinition.getRootNodeIds());
+            // The nodes are stored anew, the old ones are removed as orphans
+            stored.getNodes().clear();
+            for (ProcessNode node : processDefinition.getNodes()) {
+                node.setId(null);
+                stored.getNodes().add(node);
+            }
+            return stored;
+        });
+        if (updated == null) {
             return null;
         }
         
-        processDefinition.setId(id);
-        
         // Rebuild the node map
-        Map<String, ProcessNode> nodeMap = new HashMap<>();
-        for (ProcessNode node : processDefinition.getNodes()) {
-            nodeMap.put(node.getNodeId(), node);
-        }
-        processDefinition.setNodeMap(nodeMap);
-        
-        processDefinitions.put(id, processDefinition);
-        return processDefinition;
+        updated.buildNodeMap();
+        executionPlanCache.invalidate(id);
+        return cache(updated);
     }
     
     /**
@@ -83,14 +189,70 @@ public class ProcessDefinitionService {
      * @return true if the process definition was deleted, false otherwise
      */
     public boolean deleteProcessDefinition(Long id) {
-        return processDefinitions.remove(id) != null;
+        try {
+            processDefinitionRepository.deleteById(id);
+        } catch (EmptyResultDataAccessException e) {
+            return false;
+        } finally {
+            synchronized (cache) {
+                cache.put(id, Optional.empty());
+            }
+            executionPlanCache.invalidate(id);
+        }
+        return true;
     }
     
     /**
-     * Get all process definitions
-     * @return a list of all process definitions
+     * Get a page of process definitions
+     * @param page the page number, from 0
+     * @param size the number of definitions per page
+     * @return the definitions of the page, in ID order
+     * @throws IllegalArgumentException if the page is negative or the size is not between
+     *                                  1 and {@code process.definitions.max-page-size}
      */
-    public List<ProcessDefinition> getAllProcessDefinitions() {
-        return new ArrayList<>(processDefinitions.values());
+    public Page<ProcessDefinition> getProcessDefinitions(int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative: " + page);
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize + ": " + size);
+        }
+        
+        Page<ProcessDefinition> processDefinitions =
+                processDefinitionRepository.findAll(PageRequest.of(page, size, Sort.by("id")));
+        processDefinitions.forEach(ProcessDefinition::buildNodeMap);
+        return processDefinitions;
+    }
+    
+    /**
+     * Get the definition cache statistics
+     * @return cache size, hits and misses
+     */
+    public Map<String, Object> getCacheMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (cache) {
+            metrics.put("size", cache.size());
+        }
+        metrics.put("maxSize", cacheSize);
+        metrics.put("hitCount", hitCount.sum());
+        metrics.put("missCount", missCount.sum());
+        return metrics;
+    }
+    
+    /**
+     * Cache a definition read from or written to the database, unless the cache already
+     * holds a newer version or the definition was deleted in the meantime
+     * @param processDefinition the definition, with its node map built
+     * @return the cached definition, or null if it was deleted
+     */
+    private ProcessDefinition cache(ProcessDefinition processDefinition) {
+        synchronized (cache) {
+            Optional<ProcessDefinition> cached = cache.get(processDefinition.getId());
+            if (cached != null && (!cached.isPresent() || cached.get().getVersion() > processDefinition.getVersion())) {
+                return cached.orElse(null);
+            }
+            cache.put(processDefinition.getId(), Optional.of(processDefinition));
+            return processDefinition;
+        }
     }
 }
@@ -1,113 +1,394 @@
 package com.orchestration.process.service;
 
+import com.orchestration.process.core.ExecutionBaseline;
+import com.orchestration.process.core.ExecutionStateListener;
+import com.orchestration.process.core.ProcessExecution;
 import com.orchestration.process.core.ProcessOrchestrator;
+import com.orchestration.process.core.ProcessOrchestratorRegistry;
+import com.orchestration.process.core.deadline.ExecutionDeadlines;
+import com.orchestration.process.core.executor.SubprocessNodeExecutor;
+import com.orchestration.process.core.impl.BatchMathEvaluator;
+import com.orchestration.process.core.impl.ExecutionPlanCache;
+import com.orchestration.process.core.journal.ProcessJournal;
 import com.orchestration.process.model.ProcessDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * Service for executing process definitions.
+ * Every run is a {@link ProcessExecution} with its own ID; finished executions stay
+ * available for status queries until more than
+ * {@code process.execution.retained-executions} newer ones have finished.
+ * <p>
+ * Executions report their node transitions to the {@link ProcessJournal}; executions
+ * that had not finished when the application stopped are resumed once it has started,
+ * from the nodes they had finished. They also report them to the
+ * {@link ExecutionEventService}, which streams them to clients while the execution is
+ * retained.
+ * <p>
+ * A finished execution can be rerun with the current version of its process definition,
+ * reusing the results of the nodes that have not changed since; see
+ * {@link #rerunExecution(Long)}.
+ * <p>
+ * Sub-process nodes start child executions through
+ * {@link #startSubprocess(ProcessExecution, Long, Map)}. Child executions are not
+ * journaled, only their IDs are, so that no ID is handed out twice across restarts: a
+ * resumed parent runs its unfinished sub-process nodes again.
  */
 @Service
 public class ProcessExecutionService {
     private static final Logger logger = LoggerFactory.getLogger(ProcessExecutionService.class);
     
-    private final ProcessOrchestrator processOrchestrator;
+    private final ProcessOrchestratorRegistry orchestratorRegistry;
     private final ProcessDefinitionService processDefinitionService;
-    private final Map<Long, CompletableFuture<ProcessDefinition>> runningProcesses = new ConcurrentHashMap<>();
+    private final ExecutionPlanCache executionPlanCache;
+    private final ProcessJournal journal;
+    private final ExecutionEventService executionEventService;
+    private final ExecutionDeadlines deadlines;
+    private final ExecutionStateListener stateListener;
+    private final int batchChunkRows;
+    private final Map<Long, ProcessExecution> executions = new ConcurrentHashMap<>();
+    private final Queue<Long> finishedExecutionIds = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger finishedExecutionCount = new AtomicInteger();
+    private final AtomicLong executionIds;
+    private final int retainedExecutions;
     
     @Autowired
     public ProcessExecutionService(
-            ProcessOrchestrator processOrchestrator,
-            ProcessDefinitionService processDefinitionService) {
-        this.processOrchestrator = processOrchestrator;
+            ProcessOrchestratorRegistry orchestratorRegistry,
+            ProcessDefinitionService processDefinitionService,
+            ExecutionPlanCache executionPlanCache,
+            ProcessJournal journal,
+            ExecutionEventService executionEventService,
+            ExecutionDeadlines deadlines,
+            @Value("${process.batch.chunk-rows:1024}") int batchChunkRows,
+            @Value("${process.execution.retained-executions:1000}") int retainedExecutions) {
+        this.orchestratorRegistry = orchestratorRegistry;
         this.processDefinitionService = processDefinitionService;
+        this.executionPlanCache = executionPlanCache;
+        this.journal = journal;
+        this.executionEventService = executionEventService;
+        this.deadlines = deadlines;
+        this.stateListener = ExecutionStateListener.compose(journal, executionEventService);
+        this.executionIds = new AtomicLong(journal.getLastExecutionId() + 1);
+        this.batchChunkRows = batchChunkRows;
+        this.retainedExecutions = retainedExecutions;
     }
     
     /**
-     * Execute a process definition
+     * Start a new execution of a process definition. Any number of executions of the same
+     * definition may run at the same time; each has its own node state
      * @param processId the ID of the process definition to execute
-     * @return a CompletableFuture that will be completed when the process execution is done
+     * @return the started execution
+     * @throws IllegalArgumentException if the process definition is not found or its
+     *                                  execution strategy is unknown
      */
-    public CompletableFuture<ProcessDefinition> executeProcess(Long processId) {
+    public ProcessExecution startExecution(Long processId) {
         ProcessDefinition processDefinition = processDefinitionService.getProcessDefinition(processId);
         
         if (processDefinition == null) {
-            CompletableFuture<ProcessDefinition> future = new CompletableFuture<>();
-            future.completeExceptionally(new IllegalArgumentException("Process definition not found: " + processId));
-            return future;
+            throw new IllegalArgumentException("Process definition not found: " + processId);
         }
         
-        // Check if the process is already running
-        if (runningProcesses.containsKey(processId)) {
-            logger.warn("Process is already running: {}", processId);
-            return runningProcesses.get(processId);
+        // Resolve the orchestrator for the process's execution strategy
+        ProcessOrchestrator processOrchestrator =
+                orchestratorRegistry.getOrchestrator(processDefinition.getExecutionStrategy());
+        
+        ProcessExecution execution = new ProcessExecution(
+                executionIds.getAndIncrement(), processDefinition, Instant.now(), stateListener);
+        journal.executionStarted(execution);
+        run(execution, processOrchestrator);
+        return execution;
+    }
+    
+    /**
+     * Start a rerun of a finished execution with the current version of its process
+     * definition, e.g. after the definition was updated. Nodes whose properties and inputs
+     * are unchanged since the earlier execution completed complete with their earlier
+     * results; only the others run. Sub-process nodes always run, since their results
+     * depend on another process. A rerun that is resumed after a restart runs its
+     * remaining nodes without reusing results
+     * @param executionId the ID of the execution to rerun
+     * @return the started rerun
+     * @throws IllegalArgumentException if the execution is not found, has not finished or
+     *                                  was started by a sub-process node, or its process
+     *                                  definition is not found or its execution strategy
+     *                                  is unknown
+     */
+    public ProcessExecution rerunExecution(Long executionId) {
+        ProcessExecution previous = executions.get(executionId);
+        if (previous == null) {
+            throw new IllegalArgumentException("Execution not found: " + executionId);
+        }
+        if (!previous.isDone()) {
+            throw new IllegalArgumentException("Execution " + executionId + " has not finished");
+        }
+        if (previous.getParent() != null) {
+            throw new IllegalArgumentException("Execution " + executionId + " is a sub-process of execution "
+                    + previous.getParentExecutionId() + " and is rerun with it");
         }
+        ProcessDefinition processDefinition = processDefinitionService.getProcessDefinition(previous.getProcessId());
         
-        // Execute the process
-        CompletableFuture<ProcessDefinition> future = processOrchestrator.execute(processDefinition);
+        if (processDefinition == null) {
+            throw new IllegalArgumentException("Process definition not found: " + previous.getProcessId());
+        }
         
-        // Store the future for status tracking
-        runningProcesses.put(processId, future);
+        ProcessOrchestrator processOrchestrator =
+                orchestratorRegistry.getOrchestrator(processDefinition.getExecutionStrategy());
         
-        // Remove the future when the process is done
-        future.whenComplete((result, error) -> {
-            runningProcesses.remove(processId);
-            
-            if (error != null) {
-                logger.error("Process execution failed: {}", processId, error);
-            } else {
-                logger.info("Process execution completed: {}", processId);
-                
-                // Update the process definition
-                processDefinitionService.updateProcessDefinition(processId, result);
+        ProcessExecution execution = new ProcessExecution(
+                executionIds.getAndIncrement(), processDefinition, Instant.now(), stateListener);
+        execution.rerunOf(ExecutionBaseline.of(previous,
+                node -> !SubprocessNodeExecutor.TYPE.equals(node.getType())));
+        journal.executionStarted(execution);
+        run(execution, processOrchestrator);
+        return execution;
+    }
+    
+    /**
+     * Start an execution of a process definition for a sub-process node of another
+     * execution. It runs like any other execution, through the plan cached for its
+     * definition, and is stopped by the sub-process node if the node is cancelled
+     * @param parent the execution the sub-process node runs in, or null
+     * @param processId the ID of the process definition to execute
+     * @param parameters the sub-process node's inputs, which the child's nodes bind by name
+     * @return the started child execution
+     * @throws IllegalArgumentException if the process definition is not found, its
+     *                                  execution strategy is unknown, or the process is
+     *                                  already running as one of the parent's ancestors
+     */
+    public ProcessExecution startSubprocess(ProcessExecution parent, Long processId, Map<String, Object> parameters) {
+        for (ProcessExecution ancestor = parent; ancestor != null; ancestor = ancestor.getParent()) {
+            if (processId.equals(ancestor.getProcessId())) {
+                throw new IllegalArgumentException("Process " + processId + " cannot run as a sub-process of itself"
+                        + " (execution " + ancestor.getExecutionId() + ")");
             }
-        });
+        }
+        ProcessDefinition processDefinition = processDefinitionService.getProcessDefinition(processId);
+        
+        if (processDefinition == null) {
+            throw new IllegalArgumentException("Process definition not found: " + processId);
+        }
+        
+        ProcessOrchestrator processOrchestrator =
+                orchestratorRegistry.getOrchestrator(processDefinition.getExecutionStrategy());
         
-        return future;
+        ProcessExecution execution = new ProcessExecution(executionIds.getAndIncrement(), processDefinition,
+                Instant.now(), executionEventService, parent, parameters);
+        journal.executionIdUsed(execution.getExecutionId());
+        run(execution, processOrchestrator);
+        return execution;
+    }
+    
+    /**
+     * Resume the executions the journal recovered, skipping the nodes they had finished.
+     * An execution whose process definition was deleted or updated since it started is
+     * failed instead, since its journaled nodes belong to another version of the process
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeRecoveredExecutions() {
+        for (ProcessJournal.RecoveredExecution recovered : journal.getRecoveredExecutions()) {
+            ProcessDefinition processDefinition = processDefinitionService.getProcessDefinition(recovered.getProcessId());
+            if (processDefinition == null) {
+                failRecovered(recovered, null, "Process definition was deleted before the execution could be resumed");
+                continue;
+            }
+            if (processDefinition.getVersion() != recovered.getVersion()) {
+                failRecovered(recovered, processDefinition, "Process definition was updated before the execution could be resumed");
+                continue;
+            }
+            
+            ProcessOrchestrator processOrchestrator;
+            try {
+                processOrchestrator = orchestratorRegistry.getOrchestrator(processDefinition.getExecutionStrategy());
+            } catch (IllegalArgumentException e) {
+                failRecovered(recovered, processDefinition, e.getMessage());
+                continue;
+            }
+            
+            ProcessExecution execution = new ProcessExecution(
+                    recovered.getExecutionId(), processDefinition, recovered.getStartTime(), stateListener);
+            recovered.restoreInto(execution);
+            logger.info("Resuming execution {} of process {} with {} of {} nodes finished",
+                    execution.getExecutionId(), recovered.getProcessId(),
+                    recovered.getCompletedNodes().size() + recovered.getFailedNodes().size(),
+                    processDefinition.getNodes().size());
+            run(execution, processOrchestrator);
+        }
+    }
+    
+    /**
+     * Execute a process definition
+     * @param processId the ID of the process definition to execute
+     * @return a CompletableFuture that will be completed with the execution when it is done
+     */
+    public CompletableFuture<ProcessExecution> executeProcess(Long processId) {
+        try {
+            return startExecution(processId).getCompletion();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
     
     /**
-     * Get the status of a running process
-     * @param processId the ID of the process
-     * @return the process definition with updated status, or null if not found
+     * Evaluate a math process once per row of columnar input, without creating node
+     * executions; see {@link BatchMathEvaluator}
+     * @param processId the ID of the process definition to evaluate
+     * @param columns the value of each batch parameter per row, keyed by parameter name
+     * @param outputNodeIds the nodes whose results to return, or null or empty for the
+     *                      nodes without children
+     * @param parallel whether to split large batches across the common fork/join pool
+     * @return the result of each output node per row, keyed by node ID
+     * @throws IllegalArgumentException if the process is not found, cannot be evaluated in
+     *                                  a batch, or the columns do not match its parameters
      */
-    public ProcessDefinition getProcessStatus(Long processId) {
-        // Check if the process is running
-        if (runningProcesses.containsKey(processId)) {
-            return processOrchestrator.getStatus(processId);
+    public Map<String, double[]> executeBatch(
+            Long processId,
+            Map<String, double[]> columns,
+            List<String> outputNodeIds,
+            boolean parallel) {
+        ProcessDefinition processDefinition = processDefinitionService.getProcessDefinition(processId);
+        
+        if (processDefinition == null) {
+            throw new IllegalArgumentException("Process definition not found: " + processId);
+        }
+        if (processDefinition.getNodeMap() == null || processDefinition.getNodeMap().isEmpty()) {
+            processDefinition.buildNodeMap();
         }
         
-        // If not running, get the stored process definition
-        return processDefinitionService.getProcessDefinition(processId);
+        BatchMathEvaluator evaluator = BatchMathEvaluator.compile(
+                executionPlanCache.getPlan(processDefinition), outputNodeIds, batchChunkRows);
+        
+        long start = System.nanoTime();
+        Map<String, double[]> outputs = evaluator.evaluate(columns, parallel ? ForkJoinPool.commonPool() : null);
+        logger.info("Batch execution of process {} evaluated {} rows in {} ms", processId,
+                outputs.values().stream().findFirst().map(column -> column.length).orElse(0),
+                (System.nanoTime() - start) / 1_000_000);
+        
+        return outputs;
     }
     
     /**
-     * Stop a running process
-     * @param processId the ID of the process to stop
-     * @return true if the process was stopped, false otherwise
+     * Get an execution, running or recently finished
+     * @param executionId the ID of the execution
+     * @return the execution, or null if not found
      */
-    public boolean stopProcess(Long processId) {
-        // Check if the process is running
-        if (runningProcesses.containsKey(processId)) {
-            return processOrchestrator.stopProcess(processId);
+    public ProcessExecution getExecution(Long executionId) {
+        return executions.get(executionId);
+    }
+    
+    /**
+     * Get the executions of a process that are running or recently finished
+     * @param processId the ID of the process definition
+     * @return the executions, oldest first
+     */
+    public List<ProcessExecution> getExecutions(Long processId) {
+        return executions.values().stream()
+                .filter(execution -> processId.equals(execution.getProcessId()))
+                .sorted(Comparator.comparingLong(ProcessExecution::getExecutionId))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Stop a running execution; nodes already started are cancelled
+     * @param executionId the ID of the execution to stop
+     * @return true if the execution was asked to stop, false if it is not running
+     */
+    public boolean stopExecution(Long executionId) {
+        ProcessExecution execution = executions.get(executionId);
+        return execution != null && execution.requestStop();
+    }
+    
+    /**
+     * Get the number of executions that have not finished yet
+     * @return the running execution count
+     */
+    public long getRunningExecutionCount() {
+        return executions.values().stream().filter(execution -> !execution.isDone()).count();
+    }
+    
+    /**
+     * Record the failure of a recovered execution that cannot be resumed
+     * @param recovered the recovered execution
+     * @param processDefinition the current version of its process definition, or null if
+     *                          it was deleted
+     * @param reason why the execution cannot be resumed
+     */
+    private void failRecovered(ProcessJournal.RecoveredExecution recovered, ProcessDefinition processDefinition,
+                               String reason) {
+        ProcessDefinition reported = processDefinition;
+        if (reported == null) {
+            reported = new ProcessDefinition();
+            reported.setId(recovered.getProcessId());
         }
         
-        return false;
+        ProcessExecution execution = new ProcessExecution(
+                recovered.getExecutionId(), reported, recovered.getStartTime(), stateListener);
+        executionEventService.open(execution);
+        executions.put(execution.getExecutionId(), execution);
+        execution.getCompletion().whenComplete((result, error) -> retainFinished(execution));
+        execution.fail(new IllegalStateException(reason));
+        logger.warn("Execution {} of process {} cannot be resumed: {}",
+                execution.getExecutionId(), recovered.getProcessId(), execution.getError());
+    }
+    
+    /**
+     * Register an execution and run it with an orchestrator
+     * @param execution the execution to run
+     * @param processOrchestrator the orchestrator of the process's execution strategy
+     */
+    private void run(ProcessExecution execution, ProcessOrchestrator processOrchestrator) {
+        Long processId = execution.getProcessId();
+        executionEventService.open(execution);
+        executions.put(execution.getExecutionId(), execution);
+        
+        execution.getCompletion().whenComplete((result, error) -> {
+            logger.info("Execution {} of process {} finished: {}", execution.getExecutionId(), processId, execution.getStatus());
+            retainFinished(execution);
+        });
+        
+        // Execute the process
+        try {
+            deadlines.watchExecution(execution);
+            processOrchestrator.execute(execution);
+        } catch (RuntimeException e) {
+            logger.error("Execution {} of process {} could not be started", execution.getExecutionId(), processId, e);
+            execution.fail(e);
+        }
     }
     
     /**
-     * Check if a process is running
-     * @param processId the ID of the process
-     * @return true if the process is running, false otherwise
+     * Keep a finished execution available for status queries, dropping the oldest
+     * finished executions beyond the configured limit
+     * @param execution the finished execution
      */
-    public boolean isProcessRunning(Long processId) {
-        return runningProcesses.containsKey(processId);
+    private void retainFinished(ProcessExecution execution) {
+        finishedExecutionIds.add(execution.getExecutionId());
+        if (finishedExecutionCount.incrementAndGet() > retainedExecutions) {
+            Long evictedId = finishedExecutionIds.poll();
+            if (evictedId != null) {
+                finishedExecutionCount.decrementAndGet();
+                executions.remove(evictedId);
+                executionEventService.release(evictedId);
+            }
+        }
     }
 }
@@ -0,0 +1,241 @@
+package com.orchestration.process.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes columnar numeric data as CSV or NDJSON streams.
+ * CSV input starts with a header line of column names followed by one line of comma
+ * separated numbers per row. NDJSON input holds one JSON object per line, mapping column
+ * names to numbers; every object must have the same fields as the first one. Both are
+ * parsed row by row straight into primitive columns, without materializing the rows.
+ */
+public class ColumnarDataFormat {
+    public static final String TEXT_CSV = "text/csv";
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    private ColumnarDataFormat() {
+    }
+    
+    /**
+     * Read CSV into columns
+     * @param input the CSV stream
+     * @return the columns keyed by header name, in header order
+     * @throws IOException if the stream cannot be read
+     * @throws IllegalArgumentException if the header is missing, a row has the wrong number
+     *                                  of values or a value is not a number
+     */
+    public static Map<String, double[]> readCsv(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null || header.trim().isEmpty()) {
+            throw new IllegalArgumentException("CSV input has no header line");
+        }
+        
+        String[] names = header.split(",", -1);
+        ColumnBuilder[] columns = new ColumnBuilder[names.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = names[i].trim();
+            columns[i] = new ColumnBuilder();
+        }
+        
+        String line;
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            
+            int column = 0;
+            int start = 0;
+            while (start <= line.length()) {
+                int end = line.indexOf(',', start);
+                if (end < 0) {
+                    end = line.length();
+                }
+                if (column == columns.length) {
+                    throw new IllegalArgumentException("Line " + lineNumber + " has more than " + columns.length + " values");
+                }
+                columns[column].add(parse(line.substring(start, end), names[column], lineNumber));
+                column++;
+                start = end + 1;
+            }
+            if (column != columns.length) {
+                throw new IllegalArgumentException("Line " + lineNumber + " has " + column
+                        + " values, expected " + columns.length);
+            }
+        }
+        
+        Map<String, double[]> result = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            result.put(names[i], columns[i].toArray());
+        }
+        return result;
+    }
+    
+    /**
+     * Read NDJSON into columns
+     * @param input the NDJSON stream
+     * @return the columns keyed by field name, in the field order of the first object
+     * @throws IOException if the stream cannot be read or is not valid JSON
+     * @throws IllegalArgumentException if an object's fields differ from the first one's or
+     *                                  a value is not a number
+     */
+    public static Map<String, double[]> readNdjson(InputStream input) throws IOException {
+        Map<String, ColumnBuilder> columns = new LinkedHashMap<>();
+        int row = 0;
+        
+        try (JsonParser parser = JSON_FACTORY.createParser(input)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("Row " + (row + 1) + " is not a JSON object");
+                }
+                
+                int fields = 0;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    ColumnBuilder column = columns.get(name);
+                    if (column == null) {
+                        if (row > 0) {
+                            throw new IllegalArgumentException("Row " + (row + 1) + " has unknown field: " + name);
+                        }
+                        column = new ColumnBuilder();
+                        columns.put(name, column);
+                    }
+                    if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+                        column.add(parser.getDoubleValue());
+                    } else if (value == JsonToken.VALUE_STRING) {
+                        column.add(parse(parser.getText(), name, row + 1));
+                    } else {
+                        throw new IllegalArgumentException("Field " + name + " of row " + (row + 1) + " is not a number");
+                    }
+                    fields++;
+                }
+                
+                row++;
+                if (fields != columns.size()) {
+                    throw new IllegalArgumentException("Row " + row + " has " + fields
+                            + " fields, expected " + columns.size());
+                }
+            }
+        }
+        
+        Map<String, double[]> result = new LinkedHashMap<>();
+        columns.forEach((name, column) -> result.put(name, column.toArray()));
+        return result;
+    }
+    
+    /**
+     * Write columns as CSV, one line per row after the header line
+     * @param columns the columns keyed by name, all of the same length
+     * @param output the stream to write to; it is flushed but not closed
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeCsv(Map<String, double[]> columns, OutputStream output) throws IOException {
+        List<double[]> values = new ArrayList<>(columns.values());
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write(String.join(",", columns.keySet()));
+        writer.write('\n');
+        
+        StringBuilder line = new StringBuilder();
+        int rows = rowCount(columns);
+        for (int row = 0; row < rows; row++) {
+            line.setLength(0);
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append(values.get(i)[row]);
+            }
+            line.append('\n');
+            writer.append(line);
+        }
+        writer.flush();
+    }
+    
+    /**
+     * Write columns as NDJSON, one object per row
+     * @param columns the columns keyed by name, all of the same length
+     * @param output the stream to write to; it is flushed but not closed
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeNdjson(Map<String, double[]> columns, OutputStream output) throws IOException {
+        String[] names = columns.keySet().toArray(new String[0]);
+        List<double[]> values = new ArrayList<>(columns.values());
+        
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            int rows = rowCount(columns);
+            for (int row = 0; row < rows; row++) {
+                generator.writeStartObject();
+                for (int i = 0; i < names.length; i++) {
+                    double value = values.get(i)[row];
+                    generator.writeFieldName(names[i]);
+                    if (Double.isFinite(value)) {
+                        generator.writeNumber(value);
+                    } else {
+                        // JSON has no NaN or infinity
+                        generator.writeNull();
+                    }
+                }
+                generator.writeEndObject();
+            }
+            generator.writeRaw('\n');
+        }
+    }
+    
+    private static int rowCount(Map<String, double[]> columns) {
+        return columns.values().stream().findFirst().map(column -> column.length).orElse(0);
+    }
+    
+    private static double parse(String value, String column, int line) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Value of " + column + " on line " + line + " is not a number: " + value);
+        }
+    }
+    
+    /**
+     * Growable primitive column
+     */
+    private static class ColumnBuilder {
+        private double[] values = new double[1024];
+        private int size;
+        
+        void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = value;
+        }
+        
+        double[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.orchestration.process.util;
 
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.impl.DagProcessOrchestrator;
 import com.orchestration.process.model.ProcessDefinition;
 import com.orchestration.process.model.ProcessNode;
 
@@ -16,82 +18,96 @@ public class MathProcessBuilder {
     
     /**
      * Build a process definition for the example: 10 * (1*3 + 2*3 + 3*5 + 4*6) / 2
+     * Each operation is a node whose operands are literals or the results of upstream
+     * nodes bound to its "left" and "right" input ports; edges run from each producer
+     * to its consumers, so the multiplications are the root nodes and the division is
+     * the last node to run.
      * @return the process definition
      */
     public static ProcessDefinition buildExampleProcess() {
         List<ProcessNode> nodes = new ArrayList<>();
         List<String> rootNodeIds = new ArrayList<>();
         
-        // Layer 3: Individual multiplication operations
-        ProcessNode mult1 = createMathNode("math.multiplication", "1*3", 2);
+        // Level 0: Individual multiplication operations
+        ProcessNode mult1 = createMathNode("math.multiplication", "1*3", 0);
         mult1.getProperties().put("leftOperand", "1");
         mult1.getProperties().put("rightOperand", "3");
         nodes.add(mult1);
         
-        ProcessNode mult2 = createMathNode("math.multiplication", "2*3", 2);
+        ProcessNode mult2 = createMathNode("math.multiplication", "2*3", 0);
         mult2.getProperties().put("leftOperand", "2");
         mult2.getProperties().put("rightOperand", "3");
         nodes.add(mult2);
         
-        ProcessNode mult3 = createMathNode("math.multiplication", "3*5", 2);
+        ProcessNode mult3 = createMathNode("math.multiplication", "3*5", 0);
         mult3.getProperties().put("leftOperand", "3");
         mult3.getProperties().put("rightOperand", "5");
         nodes.add(mult3);
         
-        ProcessNode mult4 = createMathNode("math.multiplication", "4*6", 2);
+        ProcessNode mult4 = createMathNode("math.multiplication", "4*6", 0);
         mult4.getProperties().put("leftOperand", "4");
         mult4.getProperties().put("rightOperand", "6");
         nodes.add(mult4);
         
-        // Layer 2: Addition operations
+        rootNodeIds.add(mult1.getNodeId());
+        rootNodeIds.add(mult2.getNodeId());
+        rootNodeIds.add(mult3.getNodeId());
+        rootNodeIds.add(mult4.getNodeId());
+        
+        // Level 1: Addition operations
         ProcessNode add1 = createMathNode("math.addition", "(1*3)+(2*3)", 1);
-        add1.getProperties().put("leftNodeResult", mult1.getNodeId());
-        add1.getProperties().put("rightNodeResult", mult2.getNodeId());
-        add1.getChildNodeIds().add(mult1.getNodeId());
-        add1.getChildNodeIds().add(mult2.getNodeId());
+        connect(mult1, add1, "left");
+        connect(mult2, add1, "right");
         nodes.add(add1);
         
         ProcessNode add2 = createMathNode("math.addition", "(3*5)+(4*6)", 1);
-        add2.getProperties().put("leftNodeResult", mult3.getNodeId());
-        add2.getProperties().put("rightNodeResult", mult4.getNodeId());
-        add2.getChildNodeIds().add(mult3.getNodeId());
-        add2.getChildNodeIds().add(mult4.getNodeId());
+        connect(mult3, add2, "left");
+        connect(mult4, add2, "right");
         nodes.add(add2);
         
-        ProcessNode addFinal = createMathNode("math.addition", "sum", 1);
-        addFinal.getProperties().put("leftNodeResult", add1.getNodeId());
-        addFinal.getProperties().put("rightNodeResult", add2.getNodeId());
-        addFinal.getChildNodeIds().add(add1.getNodeId());
-        addFinal.getChildNodeIds().add(add2.getNodeId());
+        // Level 2: Sum of the additions
+        ProcessNode addFinal = createMathNode("math.addition", "sum", 2);
+        connect(add1, addFinal, "left");
+        connect(add2, addFinal, "right");
         nodes.add(addFinal);
         
-        // Layer 1: Multiplication and division operations
-        ProcessNode mult5 = createMathNode("math.multiplication", "10*sum", 0);
+        // Levels 3 and 4: Multiplication and division operations
+        ProcessNode mult5 = createMathNode("math.multiplication", "10*sum", 3);
         mult5.getProperties().put("leftOperand", "10");
-        mult5.getProperties().put("rightNodeResult", addFinal.getNodeId());
-        mult5.getChildNodeIds().add(addFinal.getNodeId());
+        connect(addFinal, mult5, "right");
         nodes.add(mult5);
         
-        ProcessNode div1 = createMathNode("math.division", "result/2", 0);
-        div1.getProperties().put("leftNodeResult", mult5.getNodeId());
+        ProcessNode div1 = createMathNode("math.division", "result/2", 4);
+        connect(mult5, div1, "left");
         div1.getProperties().put("rightOperand", "2");
-        div1.getChildNodeIds().add(mult5.getNodeId());
         nodes.add(div1);
         
-        rootNodeIds.add(div1.getNodeId());
-        
-        // Create the process definition
+        // Create the process definition; the DAG strategy starts each operation as soon
+        // as both of its operands are available
         ProcessDefinition processDefinition = ProcessDefinition.builder()
                 .name("Mathematical Example")
                 .description("10 * (1*3 + 2*3 + 3*5 + 4*6) / 2")
+                .executionStrategy(DagProcessOrchestrator.STRATEGY)
                 .nodes(nodes)
                 .rootNodeIds(rootNodeIds)
+                .nodeMap(new HashMap<>())
                 .build();
         
         processDefinition.buildNodeMap();
         return processDefinition;
     }
     
+    /**
+     * Feed the result of a node into an input port of a downstream node
+     * @param producer the node producing the value
+     * @param consumer the node consuming the value
+     * @param port the consumer's input port
+     */
+    private static void connect(ProcessNode producer, ProcessNode consumer, String port) {
+        producer.getChildNodeIds().add(consumer.getNodeId());
+        consumer.getProperties().put(NodeExecutionContext.INPUT_PREFIX + port, producer.getNodeId());
+    }
+    
     /**
      * Create a math node with the given type and name
      * @param type the node type
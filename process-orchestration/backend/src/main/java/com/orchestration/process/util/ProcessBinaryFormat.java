@@ -0,0 +1,665 @@
+package com.orchestration.process.util;
+
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes process definitions and execution snapshots in a compact binary form,
+ * for storing, caching and transferring them where JSON is too verbose.
+ * A message starts with the magic bytes {@code POB}, the format version and the kind of
+ * content, followed by a string table and the body:
+ * <ul>
+ *     <li>every string (node IDs, names, types, property keys and values, errors and
+ *     string results) is written once in the string table, in order of first use, and
+ *     referenced from the body by its index, so a node ID costs one or two bytes however
+ *     many nodes name it as a child or input;</li>
+ *     <li>integers are unsigned LEB128 varints, zigzag-encoded when they may be negative,
+ *     and optional values are prefixed with a presence flag or shifted by one so that 0
+ *     stands for null; child and root lists are a count followed by string indices.</li>
+ * </ul>
+ * Definitions are read back as entities with their node map built. Execution snapshots
+ * hold what the JSON form of an execution holds and are read back as maps with the same
+ * keys; node results may be null, booleans, integral or floating point numbers, strings,
+ * collections, arrays and maps of those, and any other result is written as its string form.
+ */
+public final class ProcessBinaryFormat {
+    public static final String APPLICATION_PROCESS_BINARY = "application/x-process-binary";
+    
+    private static final byte[] MAGIC = {'P', 'O', 'B'};
+    private static final int VERSION = 1;
+    
+    // Kinds of content
+    private static final int DEFINITION = 1;
+    private static final int DEFINITIONS = 2;
+    private static final int EXECUTION = 3;
+    private static final int EXECUTIONS = 4;
+    
+    // Tags of node result values
+    private static final int NULL = 0;
+    private static final int FALSE = 1;
+    private static final int TRUE = 2;
+    private static final int INTEGER = 3;
+    private static final int DOUBLE = 4;
+    private static final int STRING = 5;
+    private static final int LIST = 6;
+    private static final int MAP = 7;
+    
+    private static final ProcessDefinition.Priority[] PRIORITIES = ProcessDefinition.Priority.values();
+    private static final ProcessExecution.Status[] EXECUTION_STATUSES = ProcessExecution.Status.values();
+    private static final ProcessNode.ProcessNodeStatus[] NODE_STATUSES = ProcessNode.ProcessNodeStatus.values();
+    
+    private ProcessBinaryFormat() {
+    }
+    
+    /**
+     * Write a process definition
+     * @param processDefinition the definition
+     * @param output the stream to write to; it is not closed
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeDefinition(ProcessDefinition processDefinition, OutputStream output) throws IOException {
+        Encoder encoder = new Encoder();
+        encoder.writeDefinition(processDefinition);
+        encoder.writeTo(DEFINITION, output);
+    }
+    
+    /**
+     * Write a list of process definitions, sharing one string table
+     * @param processDefinitions the definitions
+     * @param output the stream to write to; it is not closed
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeDefinitions(List<ProcessDefinition> processDefinitions, OutputStream output) throws IOException {
+        Encoder encoder = new Encoder();
+        encoder.writeVarint(processDefinitions.size());
+        for (ProcessDefinition processDefinition : processDefinitions) {
+            encoder.writeDefinition(processDefinition);
+        }
+        encoder.writeTo(DEFINITIONS, output);
+    }
+    
+    /**
+     * Write a snapshot of an execution, with the status and result of each node
+     * @param execution the execution
+     * @param output the stream to write to; it is not closed
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeExecution(ProcessExecution execution, OutputStream output) throws IOException {
+        Encoder encoder = new Encoder();
+        encoder.writeExecution(execution);
+        encoder.writeTo(EXECUTION, output);
+    }
+    
+    /**
+     * Write snapshots of a list of executions, sharing one string table
+     * @param executions the executions
+     * @param output the stream to write to; it is not closed
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeExecutions(List<ProcessExecution> executions, OutputStream output) throws IOException {
+        Encoder encoder = new Encoder();
+        encoder.writeVarint(executions.size());
+        for (ProcessExecution execution : executions) {
+            encoder.writeExecution(execution);
+        }
+        encoder.writeTo(EXECUTIONS, output);
+    }
+    
+    /**
+     * Read a process definition
+     * @param input the stream to read, to its end
+     * @return the definition, with its node map built
+     * @throws IOException if the stream cannot be read
+     * @throws IllegalArgumentException if the stream does not hold a process definition
+     */
+    public static ProcessDefinition readDefinition(InputStream input) throws IOException {
+        Decoder decoder = new Decoder(input.readAllBytes(), DEFINITION);
+        ProcessDefinition processDefinition = decoder.readDefinition();
+        decoder.checkEnd();
+        return processDefinition;
+    }
+    
+    /**
+     * Read a list of process definitions
+     * @param input the stream to read, to its end
+     * @return the definitions, with their node maps built
+     * @throws IOException if the stream cannot be read
+     * @throws IllegalArgumentException if the stream does not hold a list of process definitions
+     */
+    public static List<ProcessDefinition> readDefinitions(InputStream input) throws IOException {
+        Decoder decoder = new Decoder(input.readAllBytes(), DEFINITIONS);
+        int count = decoder.readCount();
+        List<ProcessDefinition> processDefinitions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            processDefinitions.add(decoder.readDefinition());
+        }
+        decoder.checkEnd();
+        return processDefinitions;
+    }
+    
+    /**
+     * Read an execution snapshot
+     * @param input the stream to read, to its end
+     * @return the execution, keyed like its JSON form
+     * @throws IOException if the stream cannot be read
+     * @throws IllegalArgumentException if the stream does not hold an execution snapshot
+     */
+    public static Map<String, Object> readExecution(InputStream input) throws IOException {
+        Decoder decoder = new Decoder(input.readAllBytes(), EXECUTION);
+        Map<String, Object> execution = decoder.readExecution();
+        decoder.checkEnd();
+        return execution;
+    }
+    
+    /**
+     * Read a list of execution snapshots
+     * @param input the stream to read, to its end
+     * @return the executions, each keyed like its JSON form
+     * @throws IOException if the stream cannot be read
+     * @throws IllegalArgumentException if the stream does not hold a list of execution snapshots
+     */
+    public static List<Map<String, Object>> readExecutions(InputStream input) throws IOException {
+        Decoder decoder = new Decoder(input.readAllBytes(), EXECUTIONS);
+        int count = decoder.readCount();
+        List<Map<String, Object>> executions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            executions.add(decoder.readExecution());
+        }
+        decoder.checkEnd();
+        return executions;
+    }
+    
+    /**
+     * Writes the body into a growable buffer while collecting the string table, which is
+     * written ahead of it
+     */
+    private static final class Encoder {
+        private final Map<String, Integer> stringIndices = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private byte[] buffer = new byte[1024];
+        private int size;
+        
+        void writeDefinition(ProcessDefinition processDefinition) {
+            writeOptionalLong(processDefinition.getId());
+            writeString(processDefinition.getName());
+            writeString(processDefinition.getDescription());
+            writeString(processDefinition.getExecutionStrategy());
+            writeOptionalLong(processDefinition.getTimeoutMs());
+            writeVarint(processDefinition.getPriority() != null ? processDefinition.getPriority().ordinal() + 1 : 0);
+            writeString(processDefinition.getOwner());
+            writeVarlong(zigzag(processDefinition.getVersion()));
+            
+            List<ProcessNode> nodes = processDefinition.getNodes();
+            writeVarint(nodes != null ? nodes.size() + 1 : 0);
+            if (nodes != null) {
+                for (ProcessNode node : nodes) {
+                    writeNode(node);
+                }
+            }
+            writeStrings(processDefinition.getRootNodeIds());
+        }
+        
+        private void writeNode(ProcessNode node) {
+            writeOptionalLong(node.getId());
+            writeString(node.getNodeId());
+            writeString(node.getName());
+            writeString(node.getType());
+            writeOptionalLong(node.getLevel() != null ? Long.valueOf(node.getLevel()) : null);
+            
+            Map<String, String> properties = node.getProperties();
+            writeVarint(properties != null ? properties.size() + 1 : 0);
+            if (properties != null) {
+                properties.forEach((name, value) -> {
+                    writeString(name);
+                    writeString(value);
+                });
+            }
+            writeStrings(node.getChildNodeIds());
+        }
+        
+        void writeExecution(ProcessExecution execution) {
+            writeVarlong(zigzag(execution.getExecutionId()));
+            writeOptionalLong(execution.getProcessId());
+            writeString(execution.getProcessName());
+            writeOptionalLong(execution.getParentExecutionId());
+            writeVarint(execution.getStatus().ordinal());
+            writeString(execution.getError());
+            writeInstant(execution.getStartTime());
+            writeInstant(execution.getEndTime());
+            writeOptionalLong(execution.getRerunOf());
+            writeVarint(execution.getReusedNodes());
+            writeVarint(execution.isResumed() ? 1 : 0);
+            
+            List<ProcessExecution.NodeState> nodes = execution.getNodes();
+            writeVarint(nodes.size());
+            for (ProcessExecution.NodeState node : nodes) {
+                writeString(node.getNodeId());
+                writeString(node.getName());
+                writeString(node.getType());
+                writeVarint(node.getStatus().ordinal());
+                writeVarint(node.getRetries());
+                writeValue(node.getResult());
+            }
+        }
+        
+        private void writeValue(Object value) {
+            if (value == null) {
+                writeVarint(NULL);
+            } else if (value instanceof Boolean) {
+                writeVarint((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                writeVarint(INTEGER);
+                writeVarlong(zigzag(((Number) value).longValue()));
+            } else if (value instanceof Double || value instanceof Float) {
+                writeVarint(DOUBLE);
+                writeLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                writeVarint(MAP);
+                writeVarint(map.size());
+                map.forEach((key, entry) -> {
+                    writeString(String.valueOf(key));
+                    writeValue(entry);
+                });
+            } else if (value instanceof Collection) {
+                Collection<?> collection = (Collection<?>) value;
+                writeVarint(LIST);
+                writeVarint(collection.size());
+                for (Object element : collection) {
+                    writeValue(element);
+                }
+            } else if (value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                writeVarint(LIST);
+                writeVarint(length);
+                for (int i = 0; i < length; i++) {
+                    writeValue(Array.get(value, i));
+                }
+            } else {
+                writeVarint(STRING);
+                writeString(value.toString());
+            }
+        }
+        
+        private void writeStrings(List<String> values) {
+            writeVarint(values != null ? values.size() + 1 : 0);
+            if (values != null) {
+                for (String value : values) {
+                    writeString(value);
+                }
+            }
+        }
+        
+        /**
+         * Write a reference to a string, adding it to the string table on first use
+         */
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer index = stringIndices.get(value);
+            if (index == null) {
+                index = strings.size();
+                stringIndices.put(value, index);
+                strings.add(value);
+            }
+            writeVarint(index + 1);
+        }
+        
+        private void writeInstant(Instant value) {
+            if (value == null) {
+                writeVarint(0);
+            } else {
+                writeVarint(1);
+                writeVarlong(zigzag(value.getEpochSecond()));
+                writeVarint(value.getNano());
+            }
+        }
+        
+        private void writeOptionalLong(Long value) {
+            if (value == null) {
+                writeVarint(0);
+            } else {
+                writeVarint(1);
+                writeVarlong(zigzag(value));
+            }
+        }
+        
+        void writeVarint(int value) {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+        
+        private void writeVarlong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+        
+        private void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+        
+        private void ensureCapacity(int bytes) {
+            if (size + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + bytes));
+            }
+        }
+        
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+        
+        /**
+         * Write the header, the string table and the body
+         */
+        void writeTo(int kind, OutputStream output) throws IOException {
+            byte[] body = buffer;
+            int bodySize = size;
+            buffer = new byte[Math.max(64, strings.size() * 16)];
+            size = 0;
+            
+            writeVarint(VERSION);
+            writeVarint(kind);
+            writeVarint(strings.size());
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                writeVarint(bytes.length);
+                ensureCapacity(bytes.length);
+                System.arraycopy(bytes, 0, buffer, size, bytes.length);
+                size += bytes.length;
+            }
+            
+            output.write(MAGIC);
+            output.write(buffer, 0, size);
+            output.write(body, 0, bodySize);
+        }
+    }
+    
+    /**
+     * Reads the header and the string table, then the body on demand
+     */
+    private static final class Decoder {
+        private final byte[] data;
+        private final String[] strings;
+        private int position;
+        
+        Decoder(byte[] data, int expectedKind) {
+            this.data = data;
+            for (byte magic : MAGIC) {
+                if (position >= data.length || data[position++] != magic) {
+                    throw new IllegalArgumentException("Not a process binary message");
+                }
+            }
+            int version = readVarint();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported process binary version: " + version);
+            }
+            int kind = readVarint();
+            if (kind != expectedKind) {
+                throw new IllegalArgumentException("Process binary message holds content of kind " + kind
+                        + ", expected " + expectedKind);
+            }
+            
+            strings = new String[readCount()];
+            for (int i = 0; i < strings.length; i++) {
+                int length = readCount();
+                strings[i] = new String(data, position, length, StandardCharsets.UTF_8);
+                position += length;
+            }
+        }
+        
+        ProcessDefinition readDefinition() {
+            ProcessDefinition processDefinition = new ProcessDefinition();
+            processDefinition.setId(readOptionalLong());
+            processDefinition.setName(readString());
+            processDefinition.setDescription(readString());
+            processDefinition.setExecutionStrategy(readString());
+            processDefinition.setTimeoutMs(readOptionalLong());
+            int priority = readVarint();
+            if (priority > PRIORITIES.length) {
+                throw new IllegalArgumentException("Unknown priority: " + (priority - 1));
+            }
+            processDefinition.setPriority(priority > 0 ? PRIORITIES[priority - 1] : null);
+            processDefinition.setOwner(readString());
+            processDefinition.setVersion(unzigzag(readVarlong()));
+            
+            int nodeCount = readOptionalCount();
+            List<ProcessNode> nodes = null;
+            if (nodeCount >= 0) {
+                nodes = new ArrayList<>(nodeCount);
+                for (int i = 0; i < nodeCount; i++) {
+                    nodes.add(readNode());
+                }
+            }
+            processDefinition.setNodes(nodes);
+            processDefinition.setRootNodeIds(readStrings());
+            if (nodes != null) {
+                processDefinition.buildNodeMap();
+            }
+            return processDefinition;
+        }
+        
+        private ProcessNode readNode() {
+            ProcessNode node = new ProcessNode();
+            node.setId(readOptionalLong());
+            node.setNodeId(readString());
+            node.setName(readString());
+            node.setType(readString());
+            Long level = readOptionalLong();
+            node.setLevel(level != null ? Math.toIntExact(level) : null);
+            
+            int propertyCount = readOptionalCount();
+            Map<String, String> properties = null;
+            if (propertyCount >= 0) {
+                properties = new LinkedHashMap<>(propertyCount * 4 / 3 + 1);
+                for (int i = 0; i < propertyCount; i++) {
+                    properties.put(readString(), readString());
+                }
+            }
+            node.setProperties(properties);
+            node.setChildNodeIds(readStrings());
+            return node;
+        }
+        
+        Map<String, Object> readExecution() {
+            Map<String, Object> execution = new LinkedHashMap<>();
+            execution.put("executionId", unzigzag(readVarlong()));
+            execution.put("processId", readOptionalLong());
+            execution.put("processName", readString());
+            execution.put("parentExecutionId", readOptionalLong());
+            execution.put("status", readEnum(EXECUTION_STATUSES));
+            execution.put("error", readString());
+            execution.put("startTime", readInstant());
+            execution.put("endTime", readInstant());
+            execution.put("rerunOf", readOptionalLong());
+            execution.put("reusedNodes", readVarint());
+            execution.put("resumed", readVarint() != 0);
+            
+            int nodeCount = readCount();
+            List<Map<String, Object>> nodes = new ArrayList<>(nodeCount);
+            for (int i = 0; i < nodeCount; i++) {
+                Map<String, Object> node = new LinkedHashMap<>();
+                node.put("nodeId", readString());
+                node.put("name", readString());
+                node.put("type", readString());
+                node.put("status", readEnum(NODE_STATUSES));
+                node.put("retries", readVarint());
+                node.put("result", readValue());
+                nodes.add(node);
+            }
+            execution.put("nodes", nodes);
+            return execution;
+        }
+        
+        private Object readValue() {
+            int tag = readVarint();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case FALSE:
+                    return false;
+                case TRUE:
+                    return true;
+                case INTEGER:
+                    long value = unzigzag(readVarlong());
+                    return value == (int) value ? (Object) (int) value : (Object) value;
+                case DOUBLE:
+                    return Double.longBitsToDouble(readLong());
+                case STRING:
+                    return readString();
+                case LIST:
+                    int length = readCount();
+                    List<Object> list = new ArrayList<>(length);
+                    for (int i = 0; i < length; i++) {
+                        list.add(readValue());
+                    }
+                    return list;
+                case MAP:
+                    int size = readCount();
+                    Map<String, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+                    for (int i = 0; i < size; i++) {
+                        map.put(readString(), readValue());
+                    }
+                    return map;
+                default:
+                    throw new IllegalArgumentException("Unknown value tag: " + tag);
+            }
+        }
+        
+        private List<String> readStrings() {
+            int count = readOptionalCount();
+            if (count < 0) {
+                return null;
+            }
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+        
+        private String readString() {
+            int index = readVarint();
+            if (index > strings.length) {
+                throw new IllegalArgumentException("String index out of range: " + (index - 1));
+            }
+            return index > 0 ? strings[index - 1] : null;
+        }
+        
+        private <E extends Enum<E>> E readEnum(E[] values) {
+            int ordinal = readVarint();
+            if (ordinal >= values.length) {
+                throw new IllegalArgumentException("Unknown " + values[0].getDeclaringClass().getSimpleName() + ": " + ordinal);
+            }
+            return values[ordinal];
+        }
+        
+        private Instant readInstant() {
+            if (readVarint() == 0) {
+                return null;
+            }
+            long seconds = unzigzag(readVarlong());
+            int nanos = readVarint();
+            try {
+                return Instant.ofEpochSecond(seconds, nanos);
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Instant out of range: " + seconds + "s " + nanos + "ns");
+            }
+        }
+        
+        private Long readOptionalLong() {
+            return readVarint() != 0 ? unzigzag(readVarlong()) : null;
+        }
+        
+        /**
+         * Read a count of elements, each at least one byte long, that must fit in the rest of the message
+         */
+        int readCount() {
+            int count = readVarint();
+            if (count < 0 || count > data.length - position) {
+                throw new IllegalArgumentException("Truncated process binary message");
+            }
+            return count;
+        }
+        
+        /**
+         * Read a count written shifted by one, 0 standing for a null collection
+         */
+        private int readOptionalCount() {
+            int count = readVarint() - 1;
+            if (count < -1 || count > data.length - position) {
+                throw new IllegalArgumentException("Truncated process binary message");
+            }
+            return count;
+        }
+        
+        private int readVarint() {
+            long value = readVarlong();
+            // Every varint written as an int is non-negative
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Varint out of range: " + value);
+            }
+            return (int) value;
+        }
+        
+        private long readVarlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= data.length) {
+                    throw new IllegalArgumentException("Truncated process binary message");
+                }
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+        
+        private long readLong() {
+            if (data.length - position < 8) {
+                throw new IllegalArgumentException("Truncated process binary message");
+            }
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (data[position++] & 0xFF);
+            }
+            return value;
+        }
+        
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+        
+        void checkEnd() {
+            if (position != data.length) {
+                throw new IllegalArgumentException("Unexpected " + (data.length - position)
+                        + " bytes after the end of the process binary message");
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.orchestration.process.util;
+
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The node graph of a process definition, checked and levelled in linear time.
+ * Node IDs are interned to their ordinals once, and the child lists are flattened into
+ * one array of child ordinals indexed by node, so the checks below only touch int
+ * arrays however large the definition:
+ * <ul>
+ *     <li>every duplicate node ID and every root or child ID that names no node is
+ *     reported, up to {@link #MAX_REPORTED_ERRORS} errors;</li>
+ *     <li>the nodes reachable from the roots are found with an explicit stack, and then
+ *     sorted with Kahn's algorithm, which computes each node's level as the length of the
+ *     longest path from a root to it in the same pass, so every node is on a later level
+ *     than all of its parents; reachable nodes left unsorted lie on or behind a cycle.</li>
+ * </ul>
+ * Nothing recurses, so chains of any depth are checked without risking the stack.
+ */
+public final class ProcessGraph {
+    public static final int MAX_REPORTED_ERRORS = 100;
+    // Nodes named in the cycle error
+    private static final int MAX_REPORTED_CYCLE_NODES = 10;
+    
+    private final List<ProcessNode> nodes;
+    private final List<String> errors;
+    private final int[] levels;
+    
+    private ProcessGraph(List<ProcessNode> nodes, List<String> errors, int[] levels) {
+        this.nodes = nodes;
+        this.errors = errors;
+        this.levels = levels;
+    }
+    
+    /**
+     * Check the graph of a process definition and compute the level of its nodes
+     * @param processDefinition the process definition
+     * @return the analysed graph
+     */
+    public static ProcessGraph analyze(ProcessDefinition processDefinition) {
+        List<ProcessNode> nodes = processDefinition.getNodes() != null
+                ? processDefinition.getNodes()
+                : Collections.emptyList();
+        List<String> rootNodeIds = processDefinition.getRootNodeIds() != null
+                ? processDefinition.getRootNodeIds()
+                : Collections.emptyList();
+        int nodeCount = nodes.size();
+        ErrorList errors = new ErrorList();
+        
+        // Intern node IDs; nodes without an ID get one when they are saved and cannot be referenced yet
+        Map<String, Integer> ordinals = new HashMap<>(nodeCount * 4 / 3 + 1);
+        for (int ordinal = 0; ordinal < nodeCount; ordinal++) {
+            String nodeId = nodes.get(ordinal).getNodeId();
+            if (nodeId != null && !nodeId.isEmpty() && ordinals.putIfAbsent(nodeId, ordinal) != null) {
+                errors.add("Duplicate node ID: " + nodeId);
+            }
+        }
+        
+        // Flatten the child lists, dropping and reporting references to missing nodes
+        int[] childOffsets = new int[nodeCount + 1];
+        for (int ordinal = 0; ordinal < nodeCount; ordinal++) {
+            List<String> childNodeIds = nodes.get(ordinal).getChildNodeIds();
+            childOffsets[ordinal + 1] = childOffsets[ordinal] + (childNodeIds != null ? childNodeIds.size() : 0);
+        }
+        int[] children = new int[childOffsets[nodeCount]];
+        int[] childEnds = new int[nodeCount];
+        for (int ordinal = 0; ordinal < nodeCount; ordinal++) {
+            ProcessNode node = nodes.get(ordinal);
+            int end = childOffsets[ordinal];
+            if (node.getChildNodeIds() != null) {
+                for (String childId : node.getChildNodeIds()) {
+                    Integer child = ordinals.get(childId);
+                    if (child == null) {
+                        errors.add("Child node not found: " + childId + " (referenced by node " + node.getNodeId() + ")");
+                    } else {
+                        children[end++] = child;
+                    }
+                }
+            }
+            childEnds[ordinal] = end;
+        }
+        
+        // Find the nodes reachable from the roots
+        boolean[] reachable = new boolean[nodeCount];
+        int[] stack = new int[nodeCount];
+        int stackSize = 0;
+        int reachableCount = 0;
+        for (String rootNodeId : rootNodeIds) {
+            Integer root = ordinals.get(rootNodeId);
+            if (root == null) {
+                errors.add("Root node not found: " + rootNodeId);
+            } else if (!reachable[root]) {
+                reachable[root] = true;
+                reachableCount++;
+                stack[stackSize++] = root;
+            }
+        }
+        int[] parentCounts = new int[nodeCount];
+        while (stackSize > 0) {
+            int ordinal = stack[--stackSize];
+            for (int i = childOffsets[ordinal]; i < childEnds[ordinal]; i++) {
+                int child = children[i];
+                parentCounts[child]++;
+                if (!reachable[child]) {
+                    reachable[child] = true;
+                    reachableCount++;
+                    stack[stackSize++] = child;
+                }
+            }
+        }
+        
+        // Kahn's algorithm from the reachable nodes without parents; roots with parents wait for them
+        int[] levels = new int[nodeCount];
+        Arrays.fill(levels, -1);
+        int[] queue = stack;
+        int head = 0;
+        int tail = 0;
+        for (int ordinal = 0; ordinal < nodeCount; ordinal++) {
+            if (reachable[ordinal] && parentCounts[ordinal] == 0) {
+                levels[ordinal] = 0;
+                queue[tail++] = ordinal;
+            }
+        }
+        while (head < tail) {
+            int ordinal = queue[head++];
+            int childLevel = levels[ordinal] + 1;
+            for (int i = childOffsets[ordinal]; i < childEnds[ordinal]; i++) {
+                int child = children[i];
+                if (levels[child] < childLevel) {
+                    levels[child] = childLevel;
+                }
+                if (--parentCounts[child] == 0) {
+                    queue[tail++] = child;
+                }
+            }
+        }
+        
+        if (tail < reachableCount) {
+            List<String> cycleNodeIds = new ArrayList<>();
+            for (int ordinal = 0; ordinal < nodeCount && cycleNodeIds.size() < MAX_REPORTED_CYCLE_NODES; ordinal++) {
+                if (reachable[ordinal] && parentCounts[ordinal] > 0) {
+                    cycleNodeIds.add(nodes.get(ordinal).getNodeId());
+                }
+            }
+            errors.addFirst("Process definition contains a cycle; " + (reachableCount - tail)
+                    + " nodes are on or behind it, including " + String.join(", ", cycleNodeIds));
+            // Levels of nodes that can never run are meaningless
+            for (int ordinal = 0; ordinal < nodeCount; ordinal++) {
+                if (parentCounts[ordinal] > 0) {
+                    levels[ordinal] = -1;
+                }
+            }
+        }
+        
+        return new ProcessGraph(nodes, errors.toList(), levels);
+    }
+    
+    /**
+     * Get the problems found in the graph
+     * @return the errors, a cycle first, empty if the graph is valid
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+    
+    /**
+     * Get the level of a node
+     * @param ordinal the node's position in the definition's node list
+     * @return the length of the longest path from a root to the node, or -1 if the node
+     *         is not reachable from a root or lies on or behind a cycle
+     */
+    public int getLevel(int ordinal) {
+        return levels[ordinal];
+    }
+    
+    /**
+     * Set the level of every node of the analysed definition, null for nodes without one
+     */
+    public void applyLevels() {
+        for (int ordinal = 0; ordinal < levels.length; ordinal++) {
+            nodes.get(ordinal).setLevel(levels[ordinal] >= 0 ? levels[ordinal] : null);
+        }
+    }
+    
+    /**
+     * Errors capped at {@link #MAX_REPORTED_ERRORS}, with a count of those left out
+     */
+    private static final class ErrorList {
+        private final List<String> errors = new ArrayList<>();
+        private int omitted;
+        
+        void add(String error) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            } else {
+                omitted++;
+            }
+        }
+        
+        void addFirst(String error) {
+            errors.add(0, error);
+        }
+        
+        List<String> toList() {
+            if (omitted > 0) {
+                errors.add(omitted + " more errors not reported");
+            }
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.orchestration.process.benchmark;
+
+import com.orchestration.process.core.expression.CompiledExpression;
+import com.orchestration.process.core.expression.ExpressionService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the built-in expression language with the JavaScript engine for typical
+ * conditional-node expressions:
+ * <ul>
+ *     <li>nativeExpression: a cached compiled expression evaluated over a reused slot array</li>
+ *     <li>nativeExpressionWithBinding: the same, binding the variables by name first</li>
+ *     <li>compiledScript: a compiled script evaluated with bindings</li>
+ *     <li>engineEval: {@code engine.eval(String, Bindings)}, as conditional nodes used to do</li>
+ * </ul>
+ * Run with (Nashorn is provided by the nashorn profile on JDK 15+):
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.orchestration.process.benchmark.ExpressionBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionBenchmark {
+    
+    @Param({
+            "1 + 2 * 3 > 5 && 4 / 2 == 2",
+            "x * 2 + y > 10 ? Math.max(x, y) : Math.min(x, y)",
+            "(a + b) * (c - d) / (a * d + 1) >= 0 || !(a < b)"
+    })
+    private String expression;
+    
+    private Map<String, Object> variables;
+    private CompiledExpression compiledExpression;
+    private double[] slots;
+    private ScriptEngine engine;
+    private CompiledScript compiledScript;
+    private Bindings bindings;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws ScriptException {
+        variables = new HashMap<>();
+        variables.put("x", 4.0);
+        variables.put("y", 3.0);
+        variables.put("a", 1.5);
+        variables.put("b", 2.5);
+        variables.put("c", 7.0);
+        variables.put("d", 3.0);
+        
+        compiledExpression = new ExpressionService(16).compile(expression);
+        slots = compiledExpression.newVariableSlots();
+        compiledExpression.bindVariables(variables, slots);
+        
+        engine = new ScriptEngineManager().getEngineByName("JavaScript");
+        if (engine == null) {
+            throw new IllegalStateException("No JavaScript engine available");
+        }
+        compiledScript = ((Compilable) engine).compile(expression);
+        bindings = engine.createBindings();
+        bindings.putAll(variables);
+    }
+    
+    @Benchmark
+    public boolean nativeExpression() {
+        return compiledExpression.test(slots);
+    }
+    
+    @Benchmark
+    public boolean nativeExpressionWithBinding() {
+        compiledExpression.bindVariables(variables, slots);
+        return compiledExpression.test(slots);
+    }
+    
+    @Benchmark
+    public Object compiledScript() throws ScriptException {
+        return compiledScript.eval(bindings);
+    }
+    
+    @Benchmark
+    public Object engineEval() throws ScriptException {
+        return engine.eval(expression, bindings);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExpressionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
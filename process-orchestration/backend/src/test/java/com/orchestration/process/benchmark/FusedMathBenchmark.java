@@ -0,0 +1,145 @@
+package com.orchestration.process.benchmark;
+
+import com.orchestration.process.config.ExecutorPoolConfig;
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.ProcessNodeExecutorRegistry;
+import com.orchestration.process.core.deadline.ExecutionDeadlines;
+import com.orchestration.process.core.executor.math.AdditionNodeExecutor;
+import com.orchestration.process.core.executor.math.DivisionNodeExecutor;
+import com.orchestration.process.core.executor.math.MultiplicationNodeExecutor;
+import com.orchestration.process.core.executor.math.SubtractionNodeExecutor;
+import com.orchestration.process.core.impl.DagProcessOrchestrator;
+import com.orchestration.process.core.impl.ExecutionPlanCache;
+import com.orchestration.process.core.memo.NodeResultCache;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.retry.NodeRetries;
+import com.orchestration.process.core.scheduling.NodeScheduler;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a whole arithmetic process on the DAG orchestrator with and without fusion.
+ * The process is a balanced binary tree of math nodes: the leaves divide two literals
+ * and every inner node adds, subtracts or multiplies the results of its two inputs.
+ * Run with:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.orchestration.process.benchmark.FusedMathBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FusedMathBenchmark {
+    private static final String[] INNER_NODE_TYPES = {"math.addition", "math.subtraction", "math.multiplication"};
+    
+    @Param({"1023", "16383"})
+    private int nodes;
+    
+    @Param({"true", "false"})
+    private boolean fusion;
+    
+    private ExecutorPoolRegistry executorPools;
+    private ExecutionDeadlines deadlines;
+    private DagProcessOrchestrator orchestrator;
+    private ProcessDefinition processDefinition;
+    private long executionId;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        executorPools = new ExecutorPoolConfig().executorPoolRegistry(new StandardEnvironment());
+        ProcessNodeExecutorRegistry registry = new ProcessNodeExecutorRegistry(List.of(
+                new AdditionNodeExecutor(executorPools),
+                new SubtractionNodeExecutor(executorPools),
+                new MultiplicationNodeExecutor(executorPools),
+                new DivisionNodeExecutor(executorPools)));
+        deadlines = new ExecutionDeadlines(executorPools, 10, 512, 0, 0);
+        // No node budget, nodes start as soon as they are ready
+        NodeScheduler scheduler = new NodeScheduler(executorPools, 0, "", 1, "");
+        NodeRetries retries = new NodeRetries(deadlines, scheduler, 1, 0, 0, 1, 0, "");
+        ExecutionPlanCache planCache = new ExecutionPlanCache(registry, new NodeResultCache(1024, 0));
+        orchestrator = new DagProcessOrchestrator(executorPools, planCache, retries, fusion);
+        processDefinition = buildTree(nodes);
+        
+        // Keep the per-node log lines of the unfused executors out of the measurement
+        ((ch.qos.logback.classic.Logger) org.slf4j.LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        deadlines.stop();
+        executorPools.shutdown();
+    }
+    
+    @Benchmark
+    public Object execute() throws Exception {
+        return orchestrator.execute(new ProcessExecution(++executionId, processDefinition)).get().getNodeResult(0);
+    }
+    
+    /**
+     * Build a balanced tree in heap order: node i consumes nodes 2i+1 and 2i+2, so node 0
+     * is the final result and the second half of the array are the leaves
+     */
+    private static ProcessDefinition buildTree(int size) {
+        List<ProcessNode> nodes = new ArrayList<>(size);
+        List<String> rootNodeIds = new ArrayList<>();
+        
+        for (int i = 0; i < size; i++) {
+            boolean leaf = 2 * i + 1 >= size;
+            String type = leaf ? "math.division" : INNER_NODE_TYPES[i % INNER_NODE_TYPES.length];
+            
+            HashMap<String, String> properties = new HashMap<>();
+            if (leaf) {
+                properties.put("leftOperand", String.valueOf(i % 7 + 1));
+                properties.put("rightOperand", String.valueOf(i % 5 + 1));
+                rootNodeIds.add("n" + i);
+            } else {
+                properties.put(NodeExecutionContext.INPUT_PREFIX + "left", "n" + (2 * i + 1));
+                properties.put(NodeExecutionContext.INPUT_PREFIX + "right", "n" + (2 * i + 2));
+            }
+            
+            List<String> childNodeIds = new ArrayList<>();
+            if (i > 0) {
+                childNodeIds.add("n" + (i - 1) / 2);
+            }
+            
+            nodes.add(ProcessNode.builder()
+                    .nodeId("n" + i)
+                    .name("n" + i)
+                    .type(type)
+                    .properties(properties)
+                    .childNodeIds(childNodeIds)
+                    .status(ProcessNode.ProcessNodeStatus.PENDING)
+                    .build());
+        }
+        
+        ProcessDefinition processDefinition = ProcessDefinition.builder()
+                .id(1L)
+                .name("tree-" + size)
+                .executionStrategy(DagProcessOrchestrator.STRATEGY)
+                .nodes(nodes)
+                .rootNodeIds(rootNodeIds)
+                .nodeMap(new HashMap<>())
+                .build();
+        processDefinition.buildNodeMap();
+        return processDefinition;
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FusedMathBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,140 @@
+package com.orchestration.process.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.journal.ProcessJournal;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Measures the cost the execution journal adds to node state transitions, with the
+ * background flush and checkpoint threads running:
+ * <ul>
+ *     <li>nodeCompleted: journaling one node completion with a numeric result</li>
+ *     <li>execution: journaling a whole execution of 16 nodes (start, 16 completions, finish)</li>
+ * </ul>
+ * Both run on one and on four threads to show contention on the append lock.
+ * Run with:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.orchestration.process.benchmark.JournalBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalBenchmark {
+    private static final int NODES = 16;
+    
+    private Path directory;
+    private ProcessJournal journal;
+    private ProcessDefinition processDefinition;
+    private final AtomicLong executionIds = new AtomicLong();
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = new ProcessJournal(new ObjectMapper(), true, directory.toString(), 16 << 20, 10, 1000);
+        journal.open();
+        
+        List<ProcessNode> nodes = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(ProcessNode.builder()
+                    .nodeId("n" + i)
+                    .name("n" + i)
+                    .type("math.addition")
+                    .properties(new HashMap<>())
+                    .childNodeIds(new ArrayList<>())
+                    .status(ProcessNode.ProcessNodeStatus.PENDING)
+                    .build());
+        }
+        processDefinition = ProcessDefinition.builder()
+                .id(1L)
+                .name("journal-benchmark")
+                .nodes(nodes)
+                .rootNodeIds(List.of("n0"))
+                .nodeMap(new HashMap<>())
+                .build();
+        processDefinition.buildNodeMap();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class RunningExecution {
+        private ProcessExecution execution;
+        private int ordinal;
+        
+        @Setup(Level.Trial)
+        public void setUp(JournalBenchmark benchmark) {
+            execution = benchmark.newExecution();
+            benchmark.journal.executionStarted(execution);
+        }
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public void nodeCompleted(RunningExecution running) {
+        journal.nodeCompleted(running.execution, running.ordinal++ & (NODES - 1), 42.0);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public void nodeCompletedContended(RunningExecution running) {
+        journal.nodeCompleted(running.execution, running.ordinal++ & (NODES - 1), 42.0);
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public ProcessExecution execution() {
+        return journalExecution();
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public ProcessExecution executionContended() {
+        return journalExecution();
+    }
+    
+    private ProcessExecution journalExecution() {
+        ProcessExecution execution = newExecution();
+        journal.executionStarted(execution);
+        for (int ordinal = 0; ordinal < NODES; ordinal++) {
+            execution.completeNode(ordinal, (double) ordinal);
+        }
+        execution.finish();
+        return execution;
+    }
+    
+    private ProcessExecution newExecution() {
+        return new ProcessExecution(executionIds.incrementAndGet(), processDefinition, Instant.now(), journal);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JournalBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,97 @@
+package com.orchestration.process.benchmark;
+
+import com.orchestration.process.config.ExecutorPoolConfig;
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.executor.ScriptNodeExecutor;
+import com.orchestration.process.core.memo.NodeResultCache;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.script.ScriptEngineService;
+import com.orchestration.process.model.ProcessNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what memoizing a deterministic script node saves, running the node the way
+ * an orchestrator does and waiting for its result:
+ * <ul>
+ *     <li>script: the script executor, evaluating the script on every call</li>
+ *     <li>memoizedHit: the memoizing executor, with the node's input always the same</li>
+ *     <li>memoizedMiss: the memoizing executor, with a new input on every call, so each
+ *     call pays for the key digest and the cache insert on top of the script</li>
+ * </ul>
+ * Run with (Nashorn is provided by the nashorn profile on JDK 15+):
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.orchestration.process.benchmark.NodeResultCacheBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NodeResultCacheBenchmark {
+    private static final String SCRIPT = "var s = 0; for (var i = 0; i < 1000; i++) { s += x * i; } s";
+    
+    private ExecutorPoolRegistry executorPools;
+    private ProcessNodeExecutor scriptExecutor;
+    private ProcessNodeExecutor memoizedExecutor;
+    private ProcessNode node;
+    private NodeExecutionContext sameInput;
+    private long nextInput;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        executorPools = new ExecutorPoolConfig().executorPoolRegistry(new StandardEnvironment());
+        scriptExecutor = new ScriptNodeExecutor(new ScriptEngineService("JavaScript", 16, 16), executorPools);
+        memoizedExecutor = new NodeResultCache(1024, 0).memoize(scriptExecutor);
+        
+        Map<String, String> properties = new HashMap<>();
+        properties.put("script", SCRIPT);
+        properties.put("input.x", "source");
+        properties.put(NodeResultCache.DETERMINISTIC_PROPERTY, "true");
+        node = ProcessNode.builder()
+                .nodeId("script")
+                .name("script")
+                .type("script")
+                .properties(properties)
+                .childNodeIds(new ArrayList<>())
+                .status(ProcessNode.ProcessNodeStatus.PENDING)
+                .build();
+        sameInput = NodeExecutionContext.forNode(node, source -> 3.0);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorPools.shutdown();
+    }
+    
+    @Benchmark
+    public Object script() {
+        return scriptExecutor.execute(node, sameInput).join();
+    }
+    
+    @Benchmark
+    public Object memoizedHit() {
+        return memoizedExecutor.execute(node, sameInput).join();
+    }
+    
+    @Benchmark
+    public Object memoizedMiss() {
+        double input = nextInput++;
+        return memoizedExecutor.execute(node, NodeExecutionContext.forNode(node, source -> input)).join();
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NodeResultCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,219 @@
+package com.orchestration.process.benchmark;
+
+import com.orchestration.process.config.ExecutorPoolConfig;
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.ProcessNodeExecutorRegistry;
+import com.orchestration.process.core.ProcessOrchestrator;
+import com.orchestration.process.core.deadline.ExecutionDeadlines;
+import com.orchestration.process.core.impl.BfsProcessOrchestrator;
+import com.orchestration.process.core.impl.DagProcessOrchestrator;
+import com.orchestration.process.core.impl.ExecutionPlanCache;
+import com.orchestration.process.core.memo.NodeResultCache;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.retry.NodeRetries;
+import com.orchestration.process.core.scheduling.NodeScheduler;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the level-barrier BFS orchestrator with the dependency-driven DAG orchestrator.
+ * Nodes complete after a fixed delay without holding a thread, so the measured time is
+ * dominated by how each strategy orders the work:
+ * <ul>
+ *     <li>wide: 32 independent three-node chains with varying delays</li>
+ *     <li>deep: a single chain of 50 nodes</li>
+ *     <li>skewed: one slow node beside a chain of ten fast nodes</li>
+ * </ul>
+ * Run with:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.orchestration.process.benchmark.OrchestratorBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrchestratorBenchmark {
+    private static final String DELAY_NODE_TYPE = "benchmark.delay";
+    
+    @Param({"wide", "deep", "skewed"})
+    private String shape;
+    
+    @Param({BfsProcessOrchestrator.STRATEGY, DagProcessOrchestrator.STRATEGY})
+    private String strategy;
+    
+    private ScheduledExecutorService timer;
+    private ExecutorPoolRegistry executorPools;
+    private ExecutionDeadlines deadlines;
+    private ProcessOrchestrator orchestrator;
+    private ProcessDefinition processDefinition;
+    private long executionId;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        timer = Executors.newScheduledThreadPool(4);
+        executorPools = new ExecutorPoolConfig().executorPoolRegistry(new StandardEnvironment());
+        ProcessNodeExecutorRegistry registry = new ProcessNodeExecutorRegistry(List.of(new DelayNodeExecutor(timer)));
+        ExecutionPlanCache planCache = new ExecutionPlanCache(registry, new NodeResultCache(1024, 0));
+        deadlines = new ExecutionDeadlines(executorPools, 10, 512, 0, 0);
+        // No node budget, nodes start as soon as they are ready
+        NodeScheduler scheduler = new NodeScheduler(executorPools, 0, "", 1, "");
+        NodeRetries retries = new NodeRetries(deadlines, scheduler, 1, 0, 0, 1, 0, "");
+        orchestrator = BfsProcessOrchestrator.STRATEGY.equals(strategy)
+                ? new BfsProcessOrchestrator(executorPools, planCache, retries)
+                : new DagProcessOrchestrator(executorPools, planCache, retries, true);
+        
+        switch (shape) {
+            case "wide":
+                processDefinition = buildWideProcess();
+                break;
+            case "deep":
+                processDefinition = buildDeepProcess();
+                break;
+            default:
+                processDefinition = buildSkewedProcess();
+                break;
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        timer.shutdownNow();
+        deadlines.stop();
+        executorPools.shutdown();
+    }
+    
+    @Benchmark
+    public ProcessExecution execute() throws Exception {
+        return orchestrator.execute(new ProcessExecution(++executionId, processDefinition)).get();
+    }
+    
+    private static ProcessDefinition buildWideProcess() {
+        List<ProcessNode> nodes = new ArrayList<>();
+        List<String> rootNodeIds = new ArrayList<>();
+        
+        for (int chain = 0; chain < 32; chain++) {
+            ProcessNode previous = null;
+            for (int step = 0; step < 3; step++) {
+                ProcessNode node = createDelayNode("wide-" + chain + "-" + step, 1 + (chain * 7 + step * 3) % 10);
+                nodes.add(node);
+                if (previous == null) {
+                    rootNodeIds.add(node.getNodeId());
+                } else {
+                    previous.getChildNodeIds().add(node.getNodeId());
+                }
+                previous = node;
+            }
+        }
+        
+        return buildProcess("wide", nodes, rootNodeIds);
+    }
+    
+    private static ProcessDefinition buildDeepProcess() {
+        List<ProcessNode> nodes = new ArrayList<>();
+        ProcessNode previous = null;
+        
+        for (int step = 0; step < 50; step++) {
+            ProcessNode node = createDelayNode("deep-" + step, 1);
+            nodes.add(node);
+            if (previous != null) {
+                previous.getChildNodeIds().add(node.getNodeId());
+            }
+            previous = node;
+        }
+        
+        return buildProcess("deep", nodes, List.of(nodes.get(0).getNodeId()));
+    }
+    
+    private static ProcessDefinition buildSkewedProcess() {
+        List<ProcessNode> nodes = new ArrayList<>();
+        
+        ProcessNode slow = createDelayNode("skewed-slow", 50);
+        nodes.add(slow);
+        
+        ProcessNode previous = null;
+        for (int step = 0; step < 10; step++) {
+            ProcessNode node = createDelayNode("skewed-fast-" + step, 5);
+            nodes.add(node);
+            if (previous != null) {
+                previous.getChildNodeIds().add(node.getNodeId());
+            }
+            previous = node;
+        }
+        
+        return buildProcess("skewed", nodes, List.of(slow.getNodeId(), nodes.get(1).getNodeId()));
+    }
+    
+    private static ProcessDefinition buildProcess(String name, List<ProcessNode> nodes, List<String> rootNodeIds) {
+        ProcessDefinition processDefinition = ProcessDefinition.builder()
+                .id(1L)
+                .name(name)
+                .nodes(nodes)
+                .rootNodeIds(new ArrayList<>(rootNodeIds))
+                .nodeMap(new HashMap<>())
+                .build();
+        processDefinition.buildNodeMap();
+        return processDefinition;
+    }
+    
+    private static ProcessNode createDelayNode(String nodeId, long delayMillis) {
+        HashMap<String, String> properties = new HashMap<>();
+        properties.put("delayMillis", String.valueOf(delayMillis));
+        
+        return ProcessNode.builder()
+                .nodeId(nodeId)
+                .name(nodeId)
+                .type(DELAY_NODE_TYPE)
+                .properties(properties)
+                .childNodeIds(new ArrayList<>())
+                .status(ProcessNode.ProcessNodeStatus.PENDING)
+                .build();
+    }
+    
+    /**
+     * Completes each node after its configured delay without blocking a thread.
+     */
+    private static class DelayNodeExecutor implements ProcessNodeExecutor {
+        private final ScheduledExecutorService timer;
+        
+        DelayNodeExecutor(ScheduledExecutorService timer) {
+            this.timer = timer;
+        }
+        
+        @Override
+        public boolean canExecute(String nodeType) {
+            return DELAY_NODE_TYPE.equals(nodeType);
+        }
+        
+        @Override
+        public CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context) {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            long delayMillis = Long.parseLong(node.getProperties().get("delayMillis"));
+            
+            timer.schedule(() -> future.complete(delayMillis), delayMillis, TimeUnit.MILLISECONDS);
+            
+            return future;
+        }
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrchestratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,185 @@
+package com.orchestration.process.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import com.orchestration.process.util.ProcessBinaryFormat;
+import com.orchestration.process.util.ProcessGraph;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ProcessBinaryFormat} with JSON, as written by a Jackson mapper
+ * configured like Spring Boot's, on a math process of layers of 10 nodes, each node
+ * feeding two nodes of the next layer and binding both of its inputs:
+ * <ul>
+ *     <li>definitionTo* / definitionFrom*: encoding and decoding the definition, as sent
+ *     and received by the definition endpoints</li>
+ *     <li>executionTo* / executionFrom*: encoding and decoding a snapshot of a completed
+ *     execution with a numeric result per node, as returned by the execution status
+ *     endpoint; JSON is decoded into maps, like the binary form</li>
+ * </ul>
+ * The encoded sizes of both forms are printed when each trial starts.
+ * Run with:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.orchestration.process.benchmark.ProcessBinaryFormatBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessBinaryFormatBenchmark {
+    private static final int LAYER_WIDTH = 10;
+    private static final String[] TYPES = {"math.addition", "math.multiplication", "math.subtraction"};
+    
+    @Param({"100", "10000"})
+    private int nodes;
+    
+    private final ObjectMapper mapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream(1 << 20);
+    private ProcessDefinition processDefinition;
+    private ProcessExecution execution;
+    private byte[] definitionJson;
+    private byte[] definitionBinary;
+    private byte[] executionJson;
+    private byte[] executionBinary;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<ProcessNode> processNodes = new ArrayList<>(nodes);
+        List<String> rootNodeIds = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            Map<String, String> properties = new HashMap<>();
+            if (i < LAYER_WIDTH) {
+                rootNodeIds.add("node-" + i);
+                properties.put("input.a", "x");
+                properties.put("input.b", "y");
+            } else {
+                int previousLayer = i - i % LAYER_WIDTH - LAYER_WIDTH;
+                properties.put("input.a", "node-" + (i - LAYER_WIDTH));
+                properties.put("input.b", "node-" + (previousLayer + (i + LAYER_WIDTH - 1) % LAYER_WIDTH));
+            }
+            properties.put("deterministic", "true");
+            
+            List<String> childNodeIds = new ArrayList<>(2);
+            if (i + LAYER_WIDTH < nodes) {
+                int nextLayer = i - i % LAYER_WIDTH + LAYER_WIDTH;
+                childNodeIds.add("node-" + (i + LAYER_WIDTH));
+                int second = nextLayer + (i + 1) % LAYER_WIDTH;
+                if (second < nodes) {
+                    childNodeIds.add("node-" + second);
+                }
+            }
+            processNodes.add(ProcessNode.builder()
+                    .id((long) i + 1)
+                    .nodeId("node-" + i)
+                    .name("Node " + i)
+                    .type(TYPES[i % TYPES.length])
+                    .properties(properties)
+                    .childNodeIds(childNodeIds)
+                    .status(ProcessNode.ProcessNodeStatus.PENDING)
+                    .build());
+        }
+        
+        processDefinition = new ProcessDefinition();
+        processDefinition.setId(1L);
+        processDefinition.setName("binary-format-benchmark");
+        processDefinition.setExecutionStrategy("dag");
+        processDefinition.setNodes(processNodes);
+        processDefinition.setRootNodeIds(rootNodeIds);
+        ProcessGraph graph = ProcessGraph.analyze(processDefinition);
+        if (!graph.getErrors().isEmpty()) {
+            throw new IllegalStateException("Invalid benchmark process: " + graph.getErrors());
+        }
+        graph.applyLevels();
+        processDefinition.buildNodeMap();
+        
+        execution = new ProcessExecution(1, processDefinition);
+        for (int ordinal = 0; ordinal < nodes; ordinal++) {
+            execution.completeNode(ordinal, ordinal * 1.5);
+        }
+        execution.finish();
+        
+        definitionJson = mapper.writeValueAsBytes(processDefinition);
+        definitionBinary = definitionToBinary();
+        executionJson = mapper.writeValueAsBytes(execution);
+        executionBinary = executionToBinary();
+        if (!definitionFromBinary().equals(processDefinition)) {
+            throw new IllegalStateException("Binary definition does not round-trip");
+        }
+        System.out.printf("%n%d nodes: definition JSON %d bytes, binary %d bytes; execution JSON %d bytes, binary %d bytes%n",
+                nodes, definitionJson.length, definitionBinary.length, executionJson.length, executionBinary.length);
+    }
+    
+    @Benchmark
+    public byte[] definitionToJson() throws IOException {
+        return mapper.writeValueAsBytes(processDefinition);
+    }
+    
+    @Benchmark
+    public byte[] definitionToBinary() throws IOException {
+        output.reset();
+        ProcessBinaryFormat.writeDefinition(processDefinition, output);
+        return output.toByteArray();
+    }
+    
+    @Benchmark
+    public ProcessDefinition definitionFromJson() throws IOException {
+        ProcessDefinition decoded = mapper.readValue(definitionJson, ProcessDefinition.class);
+        decoded.buildNodeMap();
+        return decoded;
+    }
+    
+    @Benchmark
+    public ProcessDefinition definitionFromBinary() throws IOException {
+        return ProcessBinaryFormat.readDefinition(new ByteArrayInputStream(definitionBinary));
+    }
+    
+    @Benchmark
+    public byte[] executionToJson() throws IOException {
+        return mapper.writeValueAsBytes(execution);
+    }
+    
+    @Benchmark
+    public byte[] executionToBinary() throws IOException {
+        output.reset();
+        ProcessBinaryFormat.writeExecution(execution, output);
+        return output.toByteArray();
+    }
+    
+    @Benchmark
+    public Map<?, ?> executionFromJson() throws IOException {
+        return mapper.readValue(executionJson, Map.class);
+    }
+    
+    @Benchmark
+    public Map<String, Object> executionFromBinary() throws IOException {
+        return ProcessBinaryFormat.readExecution(new ByteArrayInputStream(executionBinary));
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProcessBinaryFormatBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
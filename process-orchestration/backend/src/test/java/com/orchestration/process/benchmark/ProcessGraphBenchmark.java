@@ -0,0 +1,108 @@
+package com.orchestration.process.benchmark;
+
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import com.orchestration.process.util.ProcessGraph;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the validation and levelling of large process definitions by
+ * {@link ProcessGraph}, as done when a definition is created or updated:
+ * <ul>
+ *     <li>chain: a single chain of nodes, as deep as the definition is large, which a
+ *     recursive depth-first search could not walk without overflowing the stack</li>
+ *     <li>layered: layers of 100 nodes, each node feeding two nodes of the next layer,
+ *     so most nodes have two parents</li>
+ * </ul>
+ * Run with:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.orchestration.process.benchmark.ProcessGraphBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ProcessGraphBenchmark {
+    private static final int LAYER_WIDTH = 100;
+    
+    @Param({"1000", "100000", "1000000"})
+    private int nodes;
+    
+    @Param({"chain", "layered"})
+    private String shape;
+    
+    private ProcessDefinition processDefinition;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<ProcessNode> processNodes = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            processNodes.add(ProcessNode.builder()
+                    .nodeId("node-" + i)
+                    .name("node-" + i)
+                    .type("logging")
+                    .properties(new HashMap<>())
+                    .childNodeIds(new ArrayList<>(2))
+                    .status(ProcessNode.ProcessNodeStatus.PENDING)
+                    .build());
+        }
+        
+        List<String> rootNodeIds = new ArrayList<>();
+        if ("chain".equals(shape)) {
+            rootNodeIds.add("node-0");
+            for (int i = 0; i + 1 < nodes; i++) {
+                processNodes.get(i).getChildNodeIds().add("node-" + (i + 1));
+            }
+        } else {
+            for (int i = 0; i < Math.min(LAYER_WIDTH, nodes); i++) {
+                rootNodeIds.add("node-" + i);
+            }
+            for (int i = 0; i + LAYER_WIDTH < nodes; i++) {
+                int nextLayer = i - i % LAYER_WIDTH + LAYER_WIDTH;
+                List<String> childNodeIds = processNodes.get(i).getChildNodeIds();
+                childNodeIds.add("node-" + (i + LAYER_WIDTH));
+                int second = nextLayer + (i + 1) % LAYER_WIDTH;
+                if (second < nodes) {
+                    childNodeIds.add("node-" + second);
+                }
+            }
+        }
+        
+        processDefinition = new ProcessDefinition();
+        processDefinition.setName(shape);
+        processDefinition.setNodes(processNodes);
+        processDefinition.setRootNodeIds(rootNodeIds);
+        
+        ProcessGraph graph = ProcessGraph.analyze(processDefinition);
+        if (!graph.getErrors().isEmpty()) {
+            throw new IllegalStateException("Invalid benchmark process: " + graph.getErrors());
+        }
+    }
+    
+    @Benchmark
+    public ProcessGraph analyze() {
+        return ProcessGraph.analyze(processDefinition);
+    }
+    
+    @Benchmark
+    public ProcessGraph analyzeAndApplyLevels() {
+        ProcessGraph graph = ProcessGraph.analyze(processDefinition);
+        graph.applyLevels();
+        return graph;
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProcessGraphBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
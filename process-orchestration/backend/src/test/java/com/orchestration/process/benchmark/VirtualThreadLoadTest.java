@@ -0,0 +1,245 @@
+package com.orchestration.process.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.orchestration.process.config.ExecutorPoolConfig;
+import com.orchestration.process.config.HttpClientConfig;
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.ProcessNodeExecutorRegistry;
+import com.orchestration.process.core.deadline.ExecutionDeadlines;
+import com.orchestration.process.core.executor.HttpNodeExecutor;
+import com.orchestration.process.core.http.HttpClientMetrics;
+import com.orchestration.process.core.impl.DagProcessOrchestrator;
+import com.orchestration.process.core.impl.ExecutionPlanCache;
+import com.orchestration.process.core.memo.NodeResultCache;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.pool.NodeCategory;
+import com.orchestration.process.core.pool.VirtualThreadExecutorPool;
+import com.orchestration.process.core.retry.NodeRetries;
+import com.orchestration.process.core.scheduling.NodeScheduler;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test that launches many concurrent executions of one process with one HTTP node
+ * calling a local stub server that answers after a fixed delay, and reports throughput,
+ * peak heap growth and peak platform thread count per mode:
+ * <ul>
+ *     <li>platform: blocking HTTP calls on the blocking-io thread pool</li>
+ *     <li>virtual: the same blocking calls on virtual threads</li>
+ *     <li>async: the non-blocking {@link HttpNodeExecutor}</li>
+ * </ul>
+ * The stub answers asynchronously, so the server itself never limits concurrency.
+ * Virtual mode is skipped when the JVM does not support virtual threads.
+ * Run with (Java 21 for the virtual mode):
+ * {@code mvn -Pjava21 test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.orchestration.process.benchmark.VirtualThreadLoadTest}
+ * <p>
+ * Pass modes as arguments ("platform", "virtual", "async") to run a subset; use the system
+ * properties {@code processes} and {@code responseDelayMillis} to change the load.
+ */
+public class VirtualThreadLoadTest {
+    private static final int PROCESSES = Integer.getInteger("processes", 10_000);
+    private static final int RESPONSE_DELAY_MILLIS = Integer.getInteger("responseDelayMillis", 50);
+    
+    public static void main(String[] args) throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        
+        List<String> modes = new ArrayList<>(List.of(args));
+        if (modes.isEmpty()) {
+            modes.add("platform");
+            if (VirtualThreadExecutorPool.isSupported()) {
+                modes.add("virtual");
+            } else {
+                System.out.println("Virtual threads are not supported on this JVM, skipping virtual mode");
+            }
+            modes.add("async");
+        }
+        
+        ScheduledExecutorService responseTimer = Executors.newScheduledThreadPool(4);
+        ExecutorService serverExecutor = Executors.newFixedThreadPool(4);
+        HttpServer stubServer = startStubServer(responseTimer, serverExecutor);
+        String url = "http://localhost:" + stubServer.getAddress().getPort() + "/stub";
+        
+        try {
+            System.out.printf("%-10s %10s %10s %12s %14s %16s %12s%n",
+                    "mode", "processes", "completed", "elapsed(ms)", "throughput/s", "peak heap(MB)", "peak threads");
+            for (String mode : modes) {
+                run(mode, url);
+            }
+        } finally {
+            stubServer.stop(0);
+            serverExecutor.shutdownNow();
+            responseTimer.shutdownNow();
+        }
+    }
+    
+    private static void run(String mode, String url) throws Exception {
+        StandardEnvironment environment = new StandardEnvironment();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("process.executor.blocking-io.mode", "virtual".equals(mode) ? "virtual" : "platform");
+        properties.put("process.executor.blocking-io.queue-capacity", PROCESSES * 2);
+        environment.getPropertySources().addFirst(new MapPropertySource("load-test", properties));
+        
+        ExecutorPoolRegistry executorPools = new ExecutorPoolConfig().executorPoolRegistry(environment);
+        ProcessNodeExecutor httpNodeExecutor = "async".equals(mode)
+                ? new HttpNodeExecutor(
+                        new HttpClientConfig().processHttpClient(HttpClient.Version.HTTP_1_1, 60000),
+                        new HttpClientMetrics(),
+                        30000)
+                : new BlockingHttpNodeExecutor(executorPools);
+        ProcessNodeExecutorRegistry executorRegistry = new ProcessNodeExecutorRegistry(List.of(httpNodeExecutor));
+        ExecutionDeadlines deadlines = new ExecutionDeadlines(executorPools, 10, 512, 0, 0);
+        // No node budget, nodes start as soon as they are ready
+        NodeScheduler scheduler = new NodeScheduler(executorPools, 0, "", 1, "");
+        NodeRetries retries = new NodeRetries(deadlines, scheduler, 1, 0, 0, 1, 0, "");
+        DagProcessOrchestrator orchestrator = new DagProcessOrchestrator(
+                executorPools, new ExecutionPlanCache(executorRegistry, new NodeResultCache(1024, 0)), retries, true);
+        
+        // Every execution shares the definition and keeps its node state to itself
+        ProcessDefinition processDefinition = buildProcess(1, url);
+        
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        System.gc();
+        long baselineHeap = memoryBean.getHeapMemoryUsage().getUsed();
+        threadBean.resetPeakThreadCount();
+        
+        AtomicLong peakHeap = new AtomicLong(baselineHeap);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(
+                () -> peakHeap.accumulateAndGet(memoryBean.getHeapMemoryUsage().getUsed(), Math::max),
+                0, 10, TimeUnit.MILLISECONDS);
+        
+        long start = System.nanoTime();
+        List<CompletableFuture<ProcessExecution>> futures = new ArrayList<>();
+        for (int i = 0; i < PROCESSES; i++) {
+            futures.add(orchestrator.execute(new ProcessExecution(i, processDefinition)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.MINUTES);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        
+        sampler.shutdownNow();
+        deadlines.stop();
+        executorPools.shutdown();
+        
+        long completed = futures.stream()
+                .map(CompletableFuture::join)
+                .filter(execution -> execution.getNodeStatus(0) == ProcessNode.ProcessNodeStatus.COMPLETED)
+                .count();
+        
+        System.out.printf("%-10s %10d %10d %12d %14.0f %16.1f %12d%n",
+                mode,
+                PROCESSES,
+                completed,
+                elapsedMillis,
+                PROCESSES * 1000.0 / Math.max(1, elapsedMillis),
+                (peakHeap.get() - baselineHeap) / (1024.0 * 1024.0),
+                threadBean.getPeakThreadCount());
+    }
+    
+    private static HttpServer startStubServer(
+            ScheduledExecutorService responseTimer,
+            ExecutorService serverExecutor) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+        
+        server.createContext("/stub", exchange -> responseTimer.schedule(() -> {
+            try {
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } catch (Exception e) {
+                // The client gave up on the request, nothing left to answer
+            } finally {
+                exchange.close();
+            }
+        }, RESPONSE_DELAY_MILLIS, TimeUnit.MILLISECONDS));
+        server.setExecutor(serverExecutor);
+        server.start();
+        
+        return server;
+    }
+    
+    private static ProcessDefinition buildProcess(long id, String url) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("url", url);
+        properties.put("method", "GET");
+        
+        ProcessNode node = ProcessNode.builder()
+                .nodeId("http-" + id)
+                .name("http-" + id)
+                .type("http")
+                .properties(properties)
+                .childNodeIds(new ArrayList<>())
+                .status(ProcessNode.ProcessNodeStatus.PENDING)
+                .build();
+        
+        ProcessDefinition processDefinition = ProcessDefinition.builder()
+                .id(id)
+                .name("load-" + id)
+                .nodes(new ArrayList<>(List.of(node)))
+                .rootNodeIds(new ArrayList<>(List.of(node.getNodeId())))
+                .nodeMap(new HashMap<>())
+                .build();
+        processDefinition.buildNodeMap();
+        
+        return processDefinition;
+    }
+    
+    /**
+     * Performs the HTTP call with a blocking connection on the blocking-io pool.
+     */
+    private static class BlockingHttpNodeExecutor implements ProcessNodeExecutor {
+        private final ExecutorPoolRegistry executorPools;
+        
+        BlockingHttpNodeExecutor(ExecutorPoolRegistry executorPools) {
+            this.executorPools = executorPools;
+        }
+        
+        @Override
+        public boolean canExecute(String nodeType) {
+            return "http".equals(nodeType);
+        }
+        
+        @Override
+        public CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    HttpURLConnection connection = (HttpURLConnection) new URL(node.getProperties().get("url")).openConnection();
+                    int statusCode = connection.getResponseCode();
+                    try (InputStream body = connection.getInputStream()) {
+                        body.readAllBytes();
+                    }
+                    return (Object) statusCode;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executorPools.getExecutor(NodeCategory.BLOCKING_IO));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.orchestration.process.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orchestration.process.ProcessOrchestrationApplication;
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.ProcessNodeExecutorRegistry;
+import com.orchestration.process.model.ProcessNode;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Load test that starts the application with a small request thread pool and has many
+ * clients wait for their executions at the same time. Each execution runs one delay node
+ * that completes after a fixed delay without holding a thread, so every client waits
+ * about that long:
+ * <ul>
+ *     <li>wait: each client starts an execution with {@code waitForCompletion=true}</li>
+ *     <li>long-poll: each client starts an execution, then long-polls its status with
+ *     {@code waitSeconds} until it has finished</li>
+ * </ul>
+ * Waiting clients do not hold request threads, so all of them are answered after about
+ * one response delay; a request thread blocked per waiting client would instead take
+ * clients / threads response delays.
+ * Run with:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.orchestration.process.benchmark.WaitForCompletionLoadTest}
+ * <p>
+ * Pass modes as arguments ("wait", "long-poll") to run a subset; use the system
+ * properties {@code clients}, {@code serverThreads} and {@code delayMillis} to
+ * change the load.
+ */
+public class WaitForCompletionLoadTest {
+    private static final int CLIENTS = Integer.getInteger("clients", 2000);
+    private static final int SERVER_THREADS = Integer.getInteger("serverThreads", 8);
+    private static final int DELAY_MILLIS = Integer.getInteger("delayMillis", 2000);
+    private static final String SERVER_THREAD_PREFIX = "http-nio-";
+    
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    
+    public static void main(String[] args) throws Exception {
+        List<String> modes = args.length > 0 ? List.of(args) : List.of("wait", "long-poll");
+        
+        ScheduledExecutorService delayTimer = Executors.newScheduledThreadPool(2);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ProcessOrchestrationApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--server.tomcat.threads.max=" + SERVER_THREADS,
+                        "--server.tomcat.threads.min-spare=" + SERVER_THREADS,
+                        "--server.tomcat.max-connections=" + (CLIENTS + 100),
+                        "--server.tomcat.accept-count=" + CLIENTS,
+                        "--spring.datasource.url=jdbc:h2:mem:load-test",
+                        "--spring.jpa.show-sql=false",
+                        "--process.journal.enabled=false",
+                        "--process.execution.retained-executions=" + (CLIENTS * 2),
+                        "--logging.level.root=WARN");
+        context.getBean(ProcessNodeExecutorRegistry.class).registerExecutor(new DelayNodeExecutor(delayTimer));
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+        
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientExecutor)
+                    .build();
+            long processId = createProcess(client, baseUrl);
+            
+            System.out.printf("%-10s %8s %14s %8s %8s %12s %14s%n",
+                    "mode", "clients", "server threads", "ok", "failed", "elapsed(ms)", "peak workers");
+            for (String mode : modes) {
+                run(mode, client, baseUrl, processId);
+            }
+        } finally {
+            context.close();
+            clientExecutor.shutdownNow();
+            delayTimer.shutdownNow();
+        }
+    }
+    
+    private static void run(String mode, HttpClient client, String baseUrl, long processId) throws Exception {
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicReference<String> firstFailure = new AtomicReference<>();
+        AtomicLong peakWorkers = new AtomicLong();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(
+                () -> peakWorkers.accumulateAndGet(countServerThreads(threadBean), Math::max),
+                0, 10, TimeUnit.MILLISECONDS);
+        
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> clients = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            CompletableFuture<String> status = "wait".equals(mode)
+                    ? send(client, post(baseUrl + "/process-executions/" + processId + "?waitForCompletion=true&timeoutSeconds=120"))
+                            .thenApply(execution -> execution.path("status").asText())
+                    : send(client, post(baseUrl + "/process-executions/" + processId))
+                            .thenCompose(started -> poll(client, baseUrl, started.path("executionId").asLong()));
+            clients.add(status.handle((finalStatus, error) -> {
+                if (error == null && "COMPLETED".equals(finalStatus)) {
+                    ok.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                    firstFailure.compareAndSet(null, error != null ? error.toString() : "Finished as " + finalStatus);
+                }
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(clients.toArray(new CompletableFuture[0])).get(10, TimeUnit.MINUTES);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        sampler.shutdownNow();
+        
+        System.out.printf("%-10s %8d %14d %8d %8d %12d %14d%n",
+                mode, CLIENTS, SERVER_THREADS, ok.get(), failed.get(), elapsedMillis, peakWorkers.get());
+        if (firstFailure.get() != null) {
+            System.out.println("First failure: " + firstFailure.get());
+        }
+    }
+    
+    /**
+     * Long-poll the status of an execution until it has finished
+     */
+    private static CompletableFuture<String> poll(HttpClient client, String baseUrl, long executionId) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/process-executions/" + executionId + "?waitSeconds=30"))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        return send(client, request).thenCompose(execution -> {
+            String status = execution.path("status").asText();
+            return "RUNNING".equals(status)
+                    ? poll(client, baseUrl, executionId)
+                    : CompletableFuture.completedFuture(status);
+        });
+    }
+    
+    private static CompletableFuture<JsonNode> send(HttpClient client, HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("HTTP " + response.statusCode() + ": " + response.body());
+            }
+            try {
+                return objectMapper.readTree(response.body());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+    
+    private static HttpRequest post(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(180))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+    
+    private static long createProcess(HttpClient client, String baseUrl) throws Exception {
+        String definition = "{\"name\":\"wait-load\",\"executionStrategy\":\"dag\",\"rootNodeIds\":[\"call\"],"
+                + "\"nodes\":[{\"nodeId\":\"call\",\"name\":\"call\",\"type\":\"delay\","
+                + "\"properties\":{},\"childNodeIds\":[]}]}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/process-definitions"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(definition))
+                .build();
+        return send(client, request).get().path("id").asLong();
+    }
+    
+    private static long countServerThreads(ThreadMXBean threadBean) {
+        long count = 0;
+        for (ThreadInfo thread : threadBean.getThreadInfo(threadBean.getAllThreadIds())) {
+            if (thread != null && thread.getThreadName().startsWith(SERVER_THREAD_PREFIX)
+                    && thread.getThreadName().contains("-exec-")) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Completes each node after the delay, on a timer rather than a waiting thread.
+     */
+    private static class DelayNodeExecutor implements ProcessNodeExecutor {
+        private final ScheduledExecutorService timer;
+        
+        DelayNodeExecutor(ScheduledExecutorService timer) {
+            this.timer = timer;
+        }
+        
+        @Override
+        public boolean canExecute(String nodeType) {
+            return "delay".equals(nodeType);
+        }
+        
+        @Override
+        public Set<String> getNodeTypes() {
+            return Set.of("delay");
+        }
+        
+        @Override
+        public CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context) {
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            timer.schedule(() -> result.complete("done"), DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.orchestration.process.core;
+
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProcessExecutionTest {
+    
+    @Test
+    void concurrentFinishersNotifyTheListenerOnce() throws Exception {
+        ProcessDefinition processDefinition = buildProcess();
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 200; round++) {
+                List<ProcessExecution.Status> notified = new CopyOnWriteArrayList<>();
+                ExecutionStateListener listener = new ExecutionStateListener() {
+                    @Override
+                    public void executionFinished(ProcessExecution execution) {
+                        notified.add(execution.getStatus());
+                    }
+                };
+                ProcessExecution execution = new ProcessExecution(round, processDefinition, Instant.now(), listener);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> finishers = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    boolean fail = i % 2 == 0;
+                    finishers.add(threads.submit(() -> {
+                        start.await();
+                        return fail ? execution.fail(new IllegalStateException("Level failed")) : execution.finish();
+                    }));
+                }
+                start.countDown();
+                int winners = 0;
+                for (Future<Boolean> finisher : finishers) {
+                    winners += finisher.get(5, TimeUnit.SECONDS) ? 1 : 0;
+                }
+                
+                assertThat(winners).isEqualTo(1);
+                assertThat(notified).containsExactly(execution.getStatus());
+                assertThat(execution.getError())
+                        .isEqualTo(execution.getStatus() == ProcessExecution.Status.FAILED ? "Level failed" : null);
+                assertThat(execution.getCompletion().getNow(null)).isSameAs(execution);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+    
+    private static ProcessDefinition buildProcess() {
+        ProcessNode node = ProcessNode.builder()
+                .nodeId("node")
+                .name("node")
+                .type("math.addition")
+                .properties(new HashMap<>())
+                .childNodeIds(new ArrayList<>())
+                .status(ProcessNode.ProcessNodeStatus.PENDING)
+                .build();
+        ProcessDefinition processDefinition = ProcessDefinition.builder()
+                .id(1L)
+                .name("finished")
+                .nodes(new ArrayList<>(List.of(node)))
+                .rootNodeIds(new ArrayList<>(List.of("node")))
+                .nodeMap(new HashMap<>())
+                .build();
+        processDefinition.buildNodeMap();
+        return processDefinition;
+    }
+}
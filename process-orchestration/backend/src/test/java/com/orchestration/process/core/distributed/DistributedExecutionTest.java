@@ -0,0 +1,231 @@
+package com.orchestration.process.core.distributed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orchestration.process.config.ExecutorPoolConfig;
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.ProcessNodeExecutorRegistry;
+import com.orchestration.process.core.deadline.ExecutionDeadlines;
+import com.orchestration.process.core.impl.DistributedProcessOrchestrator;
+import com.orchestration.process.core.impl.ExecutionPlanCache;
+import com.orchestration.process.core.memo.NodeResultCache;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.retry.NodeRetries;
+import com.orchestration.process.core.scheduling.NodeScheduler;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import com.orchestration.process.service.ProcessDefinitionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs processes through the {@link DistributedProcessOrchestrator}, with the node workers
+ * of one instance claiming from a {@link JdbcWorkQueue} on embedded H2
+ */
+class DistributedExecutionTest {
+    private static final String NODE_TYPE = "test.node";
+    private static final String PAIRED_NODE_TYPE = "test.paired";
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Completed once both paired nodes are running, each on a worker of its own
+    private final CompletableFuture<Void> pairStarted = new CompletableFuture<>();
+    private final AtomicInteger pairedNodes = new AtomicInteger();
+    private final Set<String> claimingWorkers = ConcurrentHashMap.newKeySet();
+    private final ProcessDefinition processDefinition = buildProcess();
+    private JdbcTemplate jdbcTemplate;
+    private JdbcWorkQueue queue;
+    private ExecutorPoolRegistry executorPools;
+    private ExecutionPlanCache planCache;
+    private ExecutionDeadlines deadlines;
+    private NodeRetries retries;
+    private NodeWorkers workers;
+    private RemoteNodeDispatcher dispatcher;
+    
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        queue = new RecordingWorkQueue(jdbcTemplate);
+        queue.createTable();
+        executorPools = new ExecutorPoolConfig().executorPoolRegistry(new StandardEnvironment());
+        ProcessNodeExecutorRegistry registry = new ProcessNodeExecutorRegistry(List.of(new TestNodeExecutor()));
+        planCache = new ExecutionPlanCache(registry, new NodeResultCache(1024, 0));
+        deadlines = new ExecutionDeadlines(executorPools, 10, 512, 0, 0);
+        NodeScheduler scheduler = new NodeScheduler(executorPools, 0, "", 1, "");
+        retries = new NodeRetries(deadlines, scheduler, 1, 0, 0, 1, 0, "");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+        if (workers != null) {
+            workers.stop();
+        }
+        deadlines.stop();
+        executorPools.shutdown();
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+    
+    @Test
+    void runsAProcessOnTwoWorkers() throws Exception {
+        // process.distributed.workers=2, each running one node at a time
+        DistributedProcessOrchestrator orchestrator = startInstance(2, 3);
+        
+        ProcessExecution execution = orchestrator.execute(new ProcessExecution(1, processDefinition))
+                .get(10, TimeUnit.SECONDS);
+        
+        assertThat(execution.getStatus()).isEqualTo(ProcessExecution.Status.COMPLETED);
+        assertThat(execution.getNodeResult(execution.ordinalOf("d"))).isEqualTo("b+c");
+        assertThat(claimingWorkers).containsExactlyInAnyOrder(
+                workers.getInstanceId() + "-worker-1", workers.getInstanceId() + "-worker-2");
+        assertThat(workers.getMetrics())
+                .containsEntry("workers", 2)
+                .containsEntry("nodesClaimed", 4L)
+                .containsEntry("nodesCompleted", 4L);
+        assertThat(dispatcher.getMetrics())
+                .containsEntry("pendingNodes", 0)
+                .containsEntry("nodesPublished", 4L)
+                .containsEntry("nodesCompleted", 4L);
+    }
+    
+    @Test
+    void failsANodeWhoseWorkerLeaseLapsedOnEachOfTheMaxDeliveries() throws Exception {
+        // Only coordinating, so the node is claimed by a worker that dies at once
+        DistributedProcessOrchestrator orchestrator = startInstance(0, 1);
+        
+        CompletableFuture<ProcessExecution> completion = orchestrator.execute(new ProcessExecution(1, processDefinition));
+        List<WorkItem> claimed = List.of();
+        for (long deadline = System.currentTimeMillis() + 5000; claimed.isEmpty() && System.currentTimeMillis() < deadline; ) {
+            claimed = queue.claim("dead-worker", 1, 1);
+            Thread.sleep(5);
+        }
+        assertThat(claimed).hasSize(1);
+        ProcessExecution execution = completion.get(10, TimeUnit.SECONDS);
+        
+        assertThat(execution.getStatus()).isEqualTo(ProcessExecution.Status.FAILED);
+        assertThat(execution.getNodeStatus(execution.ordinalOf("a"))).isEqualTo(ProcessNode.ProcessNodeStatus.FAILED);
+        assertThat(execution.getNodeStatus(execution.ordinalOf("b"))).isEqualTo(ProcessNode.ProcessNodeStatus.PENDING);
+        assertThat(workers.getMetrics()).containsEntry("leasesReclaimed", 1L);
+        assertThat(dispatcher.getMetrics()).containsEntry("nodesFailed", 1L);
+    }
+    
+    /**
+     * Start the workers and dispatcher of an instance, polling every 10 ms and renewing
+     * leases of one second every 20 ms
+     * @param workerCount the number of workers
+     * @param maxDeliveries the number of lapsed leases that fail a node
+     * @return the instance's orchestrator
+     */
+    private DistributedProcessOrchestrator startInstance(int workerCount, int maxDeliveries) {
+        ProcessDefinitionService definitions = new ProcessDefinitionService(null, planCache, null, 1, 1) {
+            @Override
+            public ProcessDefinition getProcessDefinition(Long id, long version) {
+                return id.equals(processDefinition.getId()) ? processDefinition : null;
+            }
+        };
+        workers = new NodeWorkers(queue, definitions, planCache, objectMapper, executorPools,
+                "", workerCount, 1, 1000, 20, 10, maxDeliveries, 600_000);
+        workers.start();
+        dispatcher = new RemoteNodeDispatcher(queue, workers, objectMapper, 10);
+        dispatcher.start();
+        return new DistributedProcessOrchestrator(executorPools, planCache, retries, dispatcher, true, "");
+    }
+    
+    /**
+     * Build a -> (b, c) -> d, where b and c only complete once both are running and d
+     * binds their results
+     */
+    private static ProcessDefinition buildProcess() {
+        ProcessNode d = createNode("d", NODE_TYPE);
+        d.getProperties().put("input.left", "b");
+        d.getProperties().put("input.right", "c");
+        ProcessDefinition processDefinition = ProcessDefinition.builder()
+                .id(1L)
+                .version(1)
+                .name("distributed")
+                .nodes(new ArrayList<>(List.of(createNode("a", NODE_TYPE, "b", "c"), createNode("b", PAIRED_NODE_TYPE, "d"),
+                        createNode("c", PAIRED_NODE_TYPE, "d"), d)))
+                .rootNodeIds(new ArrayList<>(List.of("a")))
+                .nodeMap(new HashMap<>())
+                .build();
+        processDefinition.buildNodeMap();
+        return processDefinition;
+    }
+    
+    private static ProcessNode createNode(String nodeId, String type, String... childNodeIds) {
+        return ProcessNode.builder()
+                .nodeId(nodeId)
+                .name(nodeId)
+                .type(type)
+                .properties(new HashMap<>())
+                .childNodeIds(new ArrayList<>(Arrays.asList(childNodeIds)))
+                .status(ProcessNode.ProcessNodeStatus.PENDING)
+                .build();
+    }
+    
+    /**
+     * Records the workers that claimed items
+     */
+    private class RecordingWorkQueue extends JdbcWorkQueue {
+        
+        RecordingWorkQueue(JdbcTemplate jdbcTemplate) {
+            super(jdbcTemplate);
+        }
+        
+        @Override
+        public List<WorkItem> claim(String workerId, int maxItems, long leaseMillis) {
+            List<WorkItem> claimed = super.claim(workerId, maxItems, leaseMillis);
+            if (!claimed.isEmpty()) {
+                claimingWorkers.add(workerId);
+            }
+            return claimed;
+        }
+    }
+    
+    /**
+     * Test nodes complete with their ID, or with their bound inputs joined by "+"; paired
+     * nodes wait for each other, so they need both workers
+     */
+    private class TestNodeExecutor implements ProcessNodeExecutor {
+        
+        @Override
+        public boolean canExecute(String nodeType) {
+            return nodeType.startsWith("test.");
+        }
+        
+        @Override
+        public CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context) {
+            if (PAIRED_NODE_TYPE.equals(node.getType())) {
+                if (pairedNodes.incrementAndGet() == 2) {
+                    pairStarted.complete(null);
+                }
+                return pairStarted.thenApply(started -> node.getNodeId());
+            }
+            Map<String, Object> inputs = context.getInputs();
+            return CompletableFuture.completedFuture(inputs.isEmpty()
+                    ? node.getNodeId()
+                    : inputs.get("left") + "+" + inputs.get("right"));
+        }
+    }
+}
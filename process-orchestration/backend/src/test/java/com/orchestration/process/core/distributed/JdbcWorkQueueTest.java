@@ -0,0 +1,178 @@
+package com.orchestration.process.core.distributed;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JdbcWorkQueueTest {
+    private static final String COORDINATOR = "coordinator";
+    private static final long LONG_LEASE = 60_000;
+    
+    private JdbcTemplate jdbcTemplate;
+    private JdbcWorkQueue queue;
+    
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        queue = new JdbcWorkQueue(jdbcTemplate);
+        queue.createTable();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+    
+    @Test
+    void concurrentWorkersClaimEachItemOnce() throws Exception {
+        Set<Long> published = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            published.add(publish(i));
+        }
+        
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        List<Set<Long>> claimedByWorker = new ArrayList<>();
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Set<Long>>> workers = new ArrayList<>();
+            for (int i = 1; i <= 4; i++) {
+                String workerId = "worker-" + i;
+                workers.add(threads.submit(() -> {
+                    start.await();
+                    Set<Long> claimed = new HashSet<>();
+                    List<WorkItem> items;
+                    while (!(items = queue.claim(workerId, 5, LONG_LEASE)).isEmpty()) {
+                        for (WorkItem item : items) {
+                            assertThat(item.getWorkerId()).isEqualTo(workerId);
+                            assertThat(item.getDeliveries()).isEqualTo(1);
+                            assertThat(claimed.add(item.getId())).isTrue();
+                        }
+                    }
+                    return claimed;
+                }));
+            }
+            start.countDown();
+            for (Future<Set<Long>> worker : workers) {
+                claimedByWorker.add(worker.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+        
+        Set<Long> claimed = new HashSet<>();
+        int claims = 0;
+        for (Set<Long> ids : claimedByWorker) {
+            claimed.addAll(ids);
+            claims += ids.size();
+        }
+        assertThat(claims).isEqualTo(published.size());
+        assertThat(claimed).isEqualTo(published);
+        assertThat(queue.countByState())
+                .containsEntry(WorkItem.State.READY, 0L)
+                .containsEntry(WorkItem.State.CLAIMED, 200L);
+    }
+    
+    @Test
+    void reclaimsAnItemWhoseLeaseLapsedForAnotherWorker() throws InterruptedException {
+        long itemId = publish(0);
+        claimAndLetLapse("worker-1");
+        
+        assertThat(queue.reclaimExpired(3)).isEqualTo(1);
+        assertThat(queue.countByState()).containsEntry(WorkItem.State.READY, 1L);
+        
+        List<WorkItem> reclaimed = queue.claim("worker-2", 1, LONG_LEASE);
+        assertThat(reclaimed).hasSize(1);
+        WorkItem item = reclaimed.get(0);
+        assertThat(item.getId()).isEqualTo(itemId);
+        assertThat(item.getWorkerId()).isEqualTo("worker-2");
+        assertThat(item.getDeliveries()).isEqualTo(2);
+        // The first worker learns it lost the item at its next heartbeat
+        assertThat(queue.renew("worker-1", LONG_LEASE)).isEmpty();
+        assertThat(queue.renew("worker-2", LONG_LEASE)).containsExactly(itemId);
+        assertThat(queue.reclaimExpired(3)).isZero();
+    }
+    
+    @Test
+    void rejectsTheOutcomeOfAWorkerThatLostItsLease() throws InterruptedException {
+        publish(0);
+        WorkItem stale = claimAndLetLapse("worker-1");
+        queue.reclaimExpired(3);
+        WorkItem current = queue.claim("worker-2", 1, LONG_LEASE).get(0);
+        
+        assertThat(queue.complete(stale, "\"stale\"")).isFalse();
+        assertThat(queue.fail(stale, "Stale failure", IllegalStateException.class.getName())).isFalse();
+        assertThat(queue.complete(current, "\"current\"")).isTrue();
+        assertThat(queue.fail(current, "Settled twice", IllegalStateException.class.getName())).isFalse();
+        
+        List<WorkItem> settled = queue.findSettled(COORDINATOR);
+        assertThat(settled).hasSize(1);
+        assertThat(settled.get(0).getState()).isEqualTo(WorkItem.State.COMPLETED);
+        assertThat(settled.get(0).getWorkerId()).isEqualTo("worker-2");
+        assertThat(settled.get(0).getResult()).isEqualTo("\"current\"");
+        assertThat(settled.get(0).getError()).isNull();
+    }
+    
+    @Test
+    void failsAnItemOnceItsLeaseLapsedOnEachOfTheMaxDeliveries() throws InterruptedException {
+        publish(0);
+        claimAndLetLapse("worker-1");
+        assertThat(queue.reclaimExpired(2)).isEqualTo(1);
+        claimAndLetLapse("worker-2");
+        
+        assertThat(queue.reclaimExpired(2)).isEqualTo(1);
+        
+        assertThat(queue.claim("worker-1", 1, LONG_LEASE)).isEmpty();
+        List<WorkItem> settled = queue.findSettled(COORDINATOR);
+        assertThat(settled).hasSize(1);
+        assertThat(settled.get(0).getState()).isEqualTo(WorkItem.State.FAILED);
+        assertThat(settled.get(0).getDeliveries()).isEqualTo(2);
+        assertThat(settled.get(0).getError()).isEqualTo("Worker lease expired on each of 2 deliveries");
+    }
+    
+    @Test
+    void releasesTheItemsOfAStoppingWorker() {
+        publish(0);
+        publish(1);
+        queue.claim("worker-1", 1, LONG_LEASE);
+        queue.claim("worker-2", 1, LONG_LEASE);
+        
+        assertThat(queue.release("worker-1")).isEqualTo(1);
+        
+        assertThat(queue.countByState())
+                .containsEntry(WorkItem.State.READY, 1L)
+                .containsEntry(WorkItem.State.CLAIMED, 1L);
+        assertThat(queue.claim("worker-2", 2, LONG_LEASE)).extracting(WorkItem::getDeliveries).containsExactly(2);
+    }
+    
+    private long publish(int nodeOrdinal) {
+        return queue.publish(WorkItem.ready(COORDINATOR, 1, 1, 1, nodeOrdinal, "{}"));
+    }
+    
+    /**
+     * Claim the only READY item with a lease that lapses at once, as if the worker died
+     * @param workerId the worker
+     * @return the claimed item
+     */
+    private WorkItem claimAndLetLapse(String workerId) throws InterruptedException {
+        List<WorkItem> claimed = queue.claim(workerId, 1, 1);
+        assertThat(claimed).hasSize(1);
+        Thread.sleep(10);
+        return claimed.get(0);
+    }
+}
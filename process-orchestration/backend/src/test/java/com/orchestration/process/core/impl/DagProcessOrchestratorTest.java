@@ -0,0 +1,192 @@
+package com.orchestration.process.core.impl;
+
+import com.orchestration.process.config.ExecutorPoolConfig;
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.ProcessNodeExecutorRegistry;
+import com.orchestration.process.core.deadline.ExecutionDeadlines;
+import com.orchestration.process.core.memo.NodeResultCache;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.retry.NodeRetries;
+import com.orchestration.process.core.scheduling.NodeScheduler;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DagProcessOrchestratorTest {
+    private static final String NODE_TYPE = "test.node";
+    private static final String FAIL_NODE_TYPE = "test.fail";
+    private static final String BLOCK_NODE_TYPE = "test.block";
+    
+    private final List<String> started = new CopyOnWriteArrayList<>();
+    private final List<String> startedBeforeParents = new CopyOnWriteArrayList<>();
+    private final CountDownLatch blockStarted = new CountDownLatch(1);
+    private volatile CompletableFuture<Object> blocked;
+    private ExecutorPoolRegistry executorPools;
+    private ExecutionDeadlines deadlines;
+    private DagProcessOrchestrator orchestrator;
+    
+    @BeforeEach
+    void setUp() {
+        executorPools = new ExecutorPoolConfig().executorPoolRegistry(new StandardEnvironment());
+        ProcessNodeExecutorRegistry registry = new ProcessNodeExecutorRegistry(List.of(new TestNodeExecutor()));
+        ExecutionPlanCache planCache = new ExecutionPlanCache(registry, new NodeResultCache(1024, 0));
+        deadlines = new ExecutionDeadlines(executorPools, 10, 512, 0, 0);
+        NodeScheduler scheduler = new NodeScheduler(executorPools, 0, "", 1, "");
+        NodeRetries retries = new NodeRetries(deadlines, scheduler, 1, 0, 0, 1, 0, "");
+        orchestrator = new DagProcessOrchestrator(executorPools, planCache, retries, true);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        deadlines.stop();
+        executorPools.shutdown();
+    }
+    
+    @Test
+    void startsEachNodeAfterItsParentsWithTheirResults() throws Exception {
+        ProcessDefinition processDefinition = buildDiamond(NODE_TYPE);
+        
+        ProcessExecution execution = run(processDefinition);
+        
+        assertThat(execution.getStatus()).isEqualTo(ProcessExecution.Status.COMPLETED);
+        assertThat(started).containsExactlyInAnyOrder("a", "b", "c", "d", "e");
+        assertThat(started.get(0)).isEqualTo("a");
+        assertThat(started.get(3)).isEqualTo("d");
+        assertThat(started.get(4)).isEqualTo("e");
+        assertThat(startedBeforeParents).isEmpty();
+        assertThat(execution.getNodeResult(execution.ordinalOf("d"))).isEqualTo("b+c");
+        assertThat(execution.getNodeResult(execution.ordinalOf("e"))).isEqualTo("e");
+    }
+    
+    @Test
+    void failedNodeLeavesItsDescendantsPendingAndFailsTheExecution() throws Exception {
+        ProcessDefinition processDefinition = buildDiamond(FAIL_NODE_TYPE);
+        
+        ProcessExecution execution = run(processDefinition);
+        
+        assertThat(execution.getStatus()).isEqualTo(ProcessExecution.Status.FAILED);
+        assertThat(execution.getError()).isEqualTo("Node failed: b");
+        assertThat(status(execution, "a")).isEqualTo(ProcessNode.ProcessNodeStatus.COMPLETED);
+        assertThat(status(execution, "b")).isEqualTo(ProcessNode.ProcessNodeStatus.FAILED);
+        assertThat(status(execution, "c")).isEqualTo(ProcessNode.ProcessNodeStatus.COMPLETED);
+        assertThat(status(execution, "d")).isEqualTo(ProcessNode.ProcessNodeStatus.PENDING);
+        assertThat(status(execution, "e")).isEqualTo(ProcessNode.ProcessNodeStatus.PENDING);
+        assertThat(started).doesNotContain("d", "e");
+    }
+    
+    @Test
+    void stopCancelsRunningNodesAndStartsNoOthers() throws Exception {
+        ProcessDefinition processDefinition = buildDiamond(BLOCK_NODE_TYPE);
+        ProcessExecution execution = new ProcessExecution(1, processDefinition);
+        CompletableFuture<ProcessExecution> completion = orchestrator.execute(execution);
+        
+        assertThat(blockStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(execution.requestStop()).isTrue();
+        completion.get(5, TimeUnit.SECONDS);
+        
+        assertThat(execution.getStatus()).isEqualTo(ProcessExecution.Status.STOPPED);
+        assertThat(blocked.isCancelled()).isTrue();
+        assertThat(status(execution, "d")).isEqualTo(ProcessNode.ProcessNodeStatus.PENDING);
+        assertThat(status(execution, "e")).isEqualTo(ProcessNode.ProcessNodeStatus.PENDING);
+        assertThat(started).doesNotContain("d", "e");
+        assertThat(execution.requestStop()).isFalse();
+    }
+    
+    private ProcessExecution run(ProcessDefinition processDefinition) throws Exception {
+        return orchestrator.execute(new ProcessExecution(1, processDefinition)).get(5, TimeUnit.SECONDS);
+    }
+    
+    private static ProcessNode.ProcessNodeStatus status(ProcessExecution execution, String nodeId) {
+        return execution.getNodeStatus(execution.ordinalOf(nodeId));
+    }
+    
+    /**
+     * Build a -> (b, c) -> d -> e, with d binding the results of b and c
+     * @param branchType the type of node b
+     */
+    private static ProcessDefinition buildDiamond(String branchType) {
+        ProcessNode a = createNode("a", NODE_TYPE, "b", "c");
+        ProcessNode b = createNode("b", branchType, "d");
+        ProcessNode c = createNode("c", NODE_TYPE, "d");
+        ProcessNode d = createNode("d", NODE_TYPE, "e");
+        d.getProperties().put("input.left", "b");
+        d.getProperties().put("input.right", "c");
+        ProcessNode e = createNode("e", NODE_TYPE);
+        
+        ProcessDefinition processDefinition = ProcessDefinition.builder()
+                .id(1L)
+                .name("diamond")
+                .nodes(new ArrayList<>(List.of(a, b, c, d, e)))
+                .rootNodeIds(new ArrayList<>(List.of("a")))
+                .nodeMap(new HashMap<>())
+                .build();
+        processDefinition.buildNodeMap();
+        return processDefinition;
+    }
+    
+    private static ProcessNode createNode(String nodeId, String type, String... childNodeIds) {
+        return ProcessNode.builder()
+                .nodeId(nodeId)
+                .name(nodeId)
+                .type(type)
+                .properties(new HashMap<>())
+                .childNodeIds(new ArrayList<>(Arrays.asList(childNodeIds)))
+                .status(ProcessNode.ProcessNodeStatus.PENDING)
+                .build();
+    }
+    
+    /**
+     * Records the order nodes start in and whether their parents had completed; test
+     * nodes complete with their ID, or with their bound inputs joined by "+"
+     */
+    private class TestNodeExecutor implements ProcessNodeExecutor {
+        
+        @Override
+        public boolean canExecute(String nodeType) {
+            return nodeType.startsWith("test.");
+        }
+        
+        @Override
+        public CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context) {
+            ProcessExecution execution = context.getExecution();
+            for (ProcessNode parent : execution.getProcessDefinition().getNodes()) {
+                if (parent.getChildNodeIds().contains(node.getNodeId())
+                        && execution.getNodeStatus(parent) != ProcessNode.ProcessNodeStatus.COMPLETED) {
+                    startedBeforeParents.add(node.getNodeId());
+                }
+            }
+            started.add(node.getNodeId());
+            
+            switch (node.getType()) {
+                case FAIL_NODE_TYPE:
+                    return CompletableFuture.failedFuture(new IllegalStateException("Node " + node.getNodeId() + " failed"));
+                case BLOCK_NODE_TYPE:
+                    blocked = new CompletableFuture<>();
+                    blockStarted.countDown();
+                    return blocked;
+                default:
+                    Map<String, Object> inputs = context.getInputs();
+                    return CompletableFuture.completedFuture(inputs.isEmpty()
+                            ? node.getNodeId()
+                            : inputs.get("left") + "+" + inputs.get("right"));
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.orchestration.process.core.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProcessJournalTest {
+    private static final Instant START_TIME = Instant.ofEpochMilli(1_700_000_000_000L);
+    
+    @TempDir
+    Path directory;
+    
+    private final List<ProcessJournal> journals = new ArrayList<>();
+    private final ProcessDefinition processDefinition = buildProcess(6);
+    
+    @AfterEach
+    void tearDown() {
+        journals.forEach(ProcessJournal::close);
+    }
+    
+    @Test
+    void recoversTheFinishedNodesOfUnfinishedExecutions() {
+        ProcessJournal journal = openJournal();
+        ProcessExecution running = startExecution(journal, 1);
+        journal.nodeCompleted(running, 0, 1.5);
+        journal.nodeCompleted(running, 1, "text");
+        journal.nodeCompleted(running, 2, true);
+        journal.nodeCompleted(running, 3, Map.of("sum", 3));
+        journal.nodeCompleted(running, 4, null);
+        journal.nodeFailed(running, 5);
+        ProcessExecution finished = startExecution(journal, 2);
+        journal.nodeCompleted(finished, 0, 2.5);
+        journal.executionFinished(finished);
+        journal.close();
+        
+        ProcessJournal recovered = openJournal();
+        
+        assertThat(recovered.getLastExecutionId()).isEqualTo(2);
+        assertThat(recovered.getRecoveredExecutions()).hasSize(1);
+        ProcessJournal.RecoveredExecution execution = recovered.getRecoveredExecutions().get(0);
+        assertThat(execution.getExecutionId()).isEqualTo(1);
+        assertThat(execution.getProcessId()).isEqualTo(processDefinition.getId());
+        assertThat(execution.getVersion()).isEqualTo(processDefinition.getVersion());
+        assertThat(execution.getStartTime()).isEqualTo(START_TIME);
+        Map<Integer, Object> expected = new HashMap<>();
+        expected.put(0, 1.5);
+        expected.put(1, "text");
+        expected.put(2, true);
+        expected.put(3, Map.of("sum", 3));
+        expected.put(4, null);
+        assertThat(execution.getCompletedNodes()).isEqualTo(expected);
+        assertThat(execution.getFailedNodes()).containsExactly(5);
+        
+        ProcessExecution resumed = new ProcessExecution(1, processDefinition);
+        execution.restoreInto(resumed);
+        assertThat(resumed.getNodeStatus(1)).isEqualTo(ProcessNode.ProcessNodeStatus.COMPLETED);
+        assertThat(resumed.getNodeResult(1)).isEqualTo("text");
+        assertThat(resumed.getNodeStatus(5)).isEqualTo(ProcessNode.ProcessNodeStatus.FAILED);
+    }
+    
+    @Test
+    void recoversFromACheckpointAndTheSegmentsAfterIt() throws IOException {
+        ProcessJournal journal = openJournal();
+        ProcessExecution running = startExecution(journal, 1);
+        ProcessExecution finished = startExecution(journal, 2);
+        journal.nodeCompleted(running, 0, 1.0);
+        journal.nodeCompleted(finished, 0, 2.0);
+        journal.checkpoint();
+        journal.nodeCompleted(running, 1, 3.0);
+        journal.executionFinished(finished);
+        journal.close();
+        
+        assertThat(fileNames()).anyMatch(name -> name.startsWith("checkpoint-"));
+        assertThat(fileNames()).filteredOn(name -> name.startsWith("segment-")).hasSize(1);
+        
+        ProcessJournal recovered = openJournal();
+        
+        assertThat(recovered.getLastExecutionId()).isEqualTo(2);
+        assertThat(recovered.getRecoveredExecutions()).hasSize(1);
+        assertThat(recovered.getRecoveredExecutions().get(0).getCompletedNodes())
+                .isEqualTo(Map.of(0, 1.0, 1, 3.0));
+    }
+    
+    @Test
+    void keepsExecutionIdsOfUnjournaledExecutions() throws IOException {
+        ProcessJournal journal = openJournal();
+        startExecution(journal, 1);
+        journal.executionIdUsed(5);
+        journal.checkpoint();
+        journal.executionIdUsed(9);
+        journal.close();
+        
+        ProcessJournal recovered = openJournal();
+        
+        assertThat(recovered.getLastExecutionId()).isEqualTo(9);
+        assertThat(recovered.getRecoveredExecutions())
+                .extracting(ProcessJournal.RecoveredExecution::getExecutionId)
+                .containsExactly(1L);
+        recovered.checkpoint();
+        recovered.close();
+        assertThat(openJournal().getLastExecutionId()).isEqualTo(9);
+    }
+    
+    @Test
+    void ignoresARecordWhoseLengthWasNotWritten() throws IOException {
+        ProcessJournal journal = openJournal();
+        ProcessExecution execution = startExecution(journal, 1);
+        journal.nodeCompleted(execution, 0, 1.0);
+        journal.nodeCompleted(execution, 1, 2.0);
+        journal.close();
+        
+        try (RandomAccessFile segment = new RandomAccessFile(lastSegment().toFile(), "rw")) {
+            segment.seek(lastRecordOffset(segment));
+            segment.writeInt(0);
+        }
+        
+        assertThat(recoverSingleExecution().getCompletedNodes()).isEqualTo(Map.of(0, 1.0));
+    }
+    
+    @Test
+    void ignoresARecordWithABadChecksum() throws IOException {
+        ProcessJournal journal = openJournal();
+        ProcessExecution execution = startExecution(journal, 1);
+        journal.nodeCompleted(execution, 0, 1.0);
+        journal.nodeCompleted(execution, 1, 2.0);
+        journal.close();
+        
+        try (RandomAccessFile segment = new RandomAccessFile(lastSegment().toFile(), "rw")) {
+            long payloadEnd = lastRecordOffset(segment) + 8 + segment.readInt();
+            segment.seek(payloadEnd - 1);
+            int last = segment.read();
+            segment.seek(payloadEnd - 1);
+            segment.write(last ^ 0xFF);
+        }
+        
+        ProcessJournal recovered = openJournal();
+        assertThat(recovered.getRecoveredExecutions()).hasSize(1);
+        assertThat(recovered.getRecoveredExecutions().get(0).getCompletedNodes()).isEqualTo(Map.of(0, 1.0));
+        
+        // Appends go to a new segment, so the torn one does not hide them
+        ProcessExecution resumed = new ProcessExecution(1, processDefinition);
+        recovered.nodeCompleted(resumed, 2, 4.0);
+        recovered.close();
+        assertThat(recoverSingleExecution().getCompletedNodes()).isEqualTo(Map.of(0, 1.0, 2, 4.0));
+    }
+    
+    private ProcessJournal.RecoveredExecution recoverSingleExecution() {
+        List<ProcessJournal.RecoveredExecution> executions = openJournal().getRecoveredExecutions();
+        assertThat(executions).hasSize(1);
+        return executions.get(0);
+    }
+    
+    private ProcessJournal openJournal() {
+        // Checkpoints only when a test asks for one
+        ProcessJournal journal = new ProcessJournal(new ObjectMapper(), true, directory.toString(), 1 << 16, 10, 3_600_000);
+        journal.open();
+        journals.add(journal);
+        return journal;
+    }
+    
+    private ProcessExecution startExecution(ProcessJournal journal, long executionId) {
+        ProcessExecution execution = new ProcessExecution(executionId, processDefinition, START_TIME, journal);
+        journal.executionStarted(execution);
+        return execution;
+    }
+    
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+    
+    private Path lastSegment() throws IOException {
+        List<String> segments = fileNames().stream()
+                .filter(name -> name.startsWith("segment-"))
+                .collect(Collectors.toList());
+        return directory.resolve(segments.get(segments.size() - 1));
+    }
+    
+    /**
+     * Find the last record of a segment: records follow the 8-byte file header, each
+     * framed by its length and checksum, and the first zero length ends the segment
+     * @param segment the segment file
+     * @return the offset of the last record's length, where the file is left positioned
+     */
+    private static long lastRecordOffset(RandomAccessFile segment) throws IOException {
+        long offset = 8;
+        long last = -1;
+        while (offset + 8 <= segment.length()) {
+            segment.seek(offset);
+            int length = segment.readInt();
+            if (length <= 0) {
+                break;
+            }
+            last = offset;
+            offset += 8 + length;
+        }
+        assertThat(last).isPositive();
+        segment.seek(last);
+        return last;
+    }
+    
+    private static ProcessDefinition buildProcess(int nodeCount) {
+        List<ProcessNode> nodes = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(ProcessNode.builder()
+                    .nodeId("node-" + i)
+                    .name("Node " + i)
+                    .type("math.addition")
+                    .properties(new HashMap<>())
+                    .childNodeIds(new ArrayList<>())
+                    .status(ProcessNode.ProcessNodeStatus.PENDING)
+                    .build());
+        }
+        ProcessDefinition processDefinition = ProcessDefinition.builder()
+                .id(7L)
+                .version(3)
+                .name("journaled")
+                .nodes(nodes)
+                .rootNodeIds(new ArrayList<>(List.of("node-0")))
+                .nodeMap(new HashMap<>())
+                .build();
+        processDefinition.buildNodeMap();
+        return processDefinition;
+    }
+}
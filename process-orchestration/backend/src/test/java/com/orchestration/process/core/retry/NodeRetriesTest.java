@@ -0,0 +1,243 @@
+package com.orchestration.process.core.retry;
+
+import com.orchestration.process.config.ExecutorPoolConfig;
+import com.orchestration.process.core.NodeExecutionContext;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.ProcessNodeExecutor;
+import com.orchestration.process.core.deadline.ExecutionDeadlines;
+import com.orchestration.process.core.deadline.NodeTimeoutException;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.core.scheduling.NodeScheduler;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NodeRetriesTest {
+    private static final String RETRY_ON = "java.io.IOException,"
+            + "com.orchestration.process.core.deadline.NodeTimeoutException";
+    
+    private final ScriptedNodeExecutor executor = new ScriptedNodeExecutor();
+    private ExecutorPoolRegistry executorPools;
+    private ExecutionDeadlines deadlines;
+    private NodeRetries retries;
+    
+    @BeforeEach
+    void setUp() {
+        executorPools = new ExecutorPoolConfig().executorPoolRegistry(new StandardEnvironment());
+        deadlines = new ExecutionDeadlines(executorPools, 1, 512, 0, 0);
+        NodeScheduler scheduler = new NodeScheduler(executorPools, 0, "", 1, "");
+        // Three attempts 20 ms then 40 ms apart, without jitter
+        retries = new NodeRetries(deadlines, scheduler, 3, 20, 1000, 2, 0, RETRY_ON);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        deadlines.stop();
+        executorPools.shutdown();
+    }
+    
+    @Test
+    void retriesRetryableFailuresWithGrowingBackoff() throws Exception {
+        executor.outcomes.add(new IOException("first"));
+        executor.outcomes.add(new IOException("second"));
+        executor.outcomes.add("done");
+        ProcessNode node = createNode(Map.of());
+        ProcessExecution execution = createExecution(node);
+        
+        Object result = retries.execute(execution, 0, node, executor, NodeExecutionContext.empty()).get(5, TimeUnit.SECONDS);
+        
+        assertThat(result).isEqualTo("done");
+        assertThat(executor.attemptTimes).hasSize(3);
+        assertThat(executor.millisBetweenAttempts(0)).isGreaterThanOrEqualTo(20);
+        assertThat(executor.millisBetweenAttempts(1)).isGreaterThanOrEqualTo(40);
+        assertThat(execution.getNodeRetries(0)).isEqualTo(2);
+        assertThat(retries.getMetrics())
+                .containsEntry("retriesScheduled", 2L)
+                .containsEntry("nodesRecovered", 1L)
+                .containsEntry("retriesExhausted", 0L);
+    }
+    
+    @Test
+    void failsWithTheLastErrorOnceAttemptsAreExhausted() {
+        for (int i = 1; i <= 4; i++) {
+            executor.outcomes.add(new IOException("attempt " + i));
+        }
+        ProcessNode node = createNode(Map.of());
+        ProcessExecution execution = createExecution(node);
+        
+        CompletableFuture<Object> result = retries.execute(execution, 0, node, executor, NodeExecutionContext.empty());
+        
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("attempt 3");
+        assertThat(executor.attempts.get()).isEqualTo(3);
+        assertThat(execution.getNodeRetries(0)).isEqualTo(2);
+        assertThat(retries.getMetrics()).containsEntry("retriesExhausted", 1L);
+    }
+    
+    @Test
+    void doesNotRetryOtherFailures() {
+        executor.outcomes.add(new IllegalStateException("bad input"));
+        executor.outcomes.add("done");
+        ProcessNode node = createNode(Map.of());
+        ProcessExecution execution = createExecution(node);
+        
+        CompletableFuture<Object> result = retries.execute(execution, 0, node, executor, NodeExecutionContext.empty());
+        
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("bad input");
+        assertThat(executor.attempts.get()).isEqualTo(1);
+        assertThat(execution.getNodeRetries(0)).isZero();
+        assertThat(retries.getMetrics()).containsEntry("retriesScheduled", 0L);
+    }
+    
+    @Test
+    void givesEachAttemptItsOwnTimeout() {
+        // Attempts never complete, so each one runs until its timeout
+        Map<String, String> properties = new HashMap<>();
+        properties.put(ExecutionDeadlines.TIMEOUT_PROPERTY, "50");
+        properties.put(RetryPolicy.MAX_ATTEMPTS_PROPERTY, "2");
+        properties.put(RetryPolicy.BACKOFF_PROPERTY, "0");
+        ProcessNode node = createNode(properties);
+        ProcessExecution execution = createExecution(node);
+        
+        long start = System.nanoTime();
+        CompletableFuture<Object> result = retries.execute(execution, 0, node, executor, NodeExecutionContext.empty());
+        
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .hasRootCauseInstanceOf(NodeTimeoutException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(100);
+        assertThat(executor.attempts.get()).isEqualTo(2);
+        assertThat(executor.pending).allMatch(CompletableFuture::isCompletedExceptionally);
+    }
+    
+    @Test
+    void stopCancelsAPendingRetry() throws Exception {
+        executor.outcomes.add(new IOException("first"));
+        Map<String, String> properties = new HashMap<>();
+        properties.put(RetryPolicy.BACKOFF_PROPERTY, "60000");
+        properties.put(RetryPolicy.MAX_BACKOFF_PROPERTY, "60000");
+        ProcessNode node = createNode(properties);
+        ProcessExecution execution = createExecution(node);
+        
+        CompletableFuture<Object> result = retries.execute(execution, 0, node, executor, NodeExecutionContext.empty());
+        while (execution.getNodeRetries(0) == 0) {
+            Thread.sleep(1);
+        }
+        execution.requestStop();
+        
+        assertThat(result.isCancelled()).isTrue();
+        Thread.sleep(50);
+        assertThat(executor.attempts.get()).isEqualTo(1);
+    }
+    
+    @Test
+    void backoffGrowsByTheMultiplierUpToTheMaximum() {
+        RetryPolicy policy = new RetryPolicy(5, 100, 300, 2, 0, List.of(IOException.class));
+        
+        assertThat(policy.backoffMillis(1)).isEqualTo(100);
+        assertThat(policy.backoffMillis(2)).isEqualTo(200);
+        assertThat(policy.backoffMillis(3)).isEqualTo(300);
+        assertThat(policy.backoffMillis(4)).isEqualTo(300);
+        
+        RetryPolicy jittered = new RetryPolicy(5, 100, 300, 2, 0.5, List.of(IOException.class));
+        for (int i = 0; i < 100; i++) {
+            assertThat(jittered.backoffMillis(2)).isBetween(100L, 200L);
+        }
+    }
+    
+    @Test
+    void nodePropertiesOverrideThePolicy() {
+        RetryPolicy policy = new RetryPolicy(1, 100, 300, 2, 0, List.of(IOException.class));
+        Map<String, String> properties = Map.of(
+                RetryPolicy.MAX_ATTEMPTS_PROPERTY, "4",
+                RetryPolicy.RETRY_ON_PROPERTY, "java.lang.IllegalStateException");
+        
+        RetryPolicy nodePolicy = policy.forNode(properties);
+        
+        assertThat(policy.forNode(Map.of())).isSameAs(policy);
+        assertThat(nodePolicy.getMaxAttempts()).isEqualTo(4);
+        assertThat(nodePolicy.isRetryable(new IllegalStateException())).isTrue();
+        assertThat(nodePolicy.isRetryable(new IOException())).isFalse();
+        assertThatThrownBy(() -> policy.forNode(Map.of(RetryPolicy.MAX_ATTEMPTS_PROPERTY, "0")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> policy.forNode(Map.of(RetryPolicy.RETRY_ON_PROPERTY, "java.lang.String")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private static ProcessNode createNode(Map<String, String> properties) {
+        return ProcessNode.builder()
+                .nodeId("flaky")
+                .name("flaky")
+                .type(ScriptedNodeExecutor.NODE_TYPE)
+                .properties(new HashMap<>(properties))
+                .childNodeIds(new ArrayList<>())
+                .status(ProcessNode.ProcessNodeStatus.PENDING)
+                .build();
+    }
+    
+    private static ProcessExecution createExecution(ProcessNode node) {
+        ProcessDefinition processDefinition = ProcessDefinition.builder()
+                .id(1L)
+                .name("retried")
+                .nodes(new ArrayList<>(List.of(node)))
+                .rootNodeIds(new ArrayList<>(List.of(node.getNodeId())))
+                .nodeMap(new HashMap<>())
+                .build();
+        processDefinition.buildNodeMap();
+        return new ProcessExecution(1, processDefinition);
+    }
+    
+    /**
+     * Settles each attempt with the next scripted outcome, failing it if the outcome is
+     * an exception; once the script runs out, attempts never complete
+     */
+    private static class ScriptedNodeExecutor implements ProcessNodeExecutor {
+        static final String NODE_TYPE = "test.scripted";
+        
+        final List<Object> outcomes = new CopyOnWriteArrayList<>();
+        final List<Long> attemptTimes = new CopyOnWriteArrayList<>();
+        final List<CompletableFuture<Object>> pending = new CopyOnWriteArrayList<>();
+        final AtomicInteger attempts = new AtomicInteger();
+        
+        @Override
+        public boolean canExecute(String nodeType) {
+            return NODE_TYPE.equals(nodeType);
+        }
+        
+        @Override
+        public CompletableFuture<Object> execute(ProcessNode node, NodeExecutionContext context) {
+            attemptTimes.add(System.nanoTime());
+            int attempt = attempts.getAndIncrement();
+            if (attempt >= outcomes.size()) {
+                CompletableFuture<Object> future = new CompletableFuture<>();
+                pending.add(future);
+                return future;
+            }
+            Object outcome = outcomes.get(attempt);
+            return outcome instanceof Throwable
+                    ? CompletableFuture.failedFuture((Throwable) outcome)
+                    : CompletableFuture.completedFuture(outcome);
+        }
+        
+        long millisBetweenAttempts(int first) {
+            return TimeUnit.NANOSECONDS.toMillis(attemptTimes.get(first + 1) - attemptTimes.get(first));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.orchestration.process.core.scheduling;
+
+import com.orchestration.process.config.ExecutorPoolConfig;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.core.pool.ExecutorPoolRegistry;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NodeSchedulerTest {
+    private static final String NODE_TYPE = "test.node";
+    private static final String EXEMPT_NODE_TYPE = "subprocess";
+    
+    private final BlockingQueue<StartedNode> started = new LinkedBlockingQueue<>();
+    private ExecutorPoolRegistry executorPools;
+    
+    @BeforeEach
+    void setUp() {
+        executorPools = new ExecutorPoolConfig().executorPoolRegistry(new StandardEnvironment());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        executorPools.shutdown();
+    }
+    
+    @Test
+    void admitsQueuedNodesByPriority() throws Exception {
+        NodeScheduler scheduler = new NodeScheduler(executorPools, 1, "", 1, EXEMPT_NODE_TYPE);
+        submit(scheduler, "running", createExecution(ProcessDefinition.Priority.NORMAL, null));
+        submit(scheduler, "low", createExecution(ProcessDefinition.Priority.LOW, null));
+        submit(scheduler, "normal", createExecution(null, null));
+        submit(scheduler, "high", createExecution(ProcessDefinition.Priority.HIGH, null));
+        
+        assertThat(completeInAdmissionOrder(4)).containsExactly("running", "high", "normal", "low");
+        assertThat(scheduler.getMetrics())
+                .containsEntry("admittedImmediately", 1L)
+                .containsEntry("admittedFromQueue", 3L)
+                .containsEntry("queued", 0);
+    }
+    
+    @Test
+    void sharesAPriorityClassBetweenOwnersByWeight() throws Exception {
+        NodeScheduler scheduler = new NodeScheduler(executorPools, 1, "a=2,b=1", 1, EXEMPT_NODE_TYPE);
+        submit(scheduler, "running", createExecution(null, "c"));
+        for (int i = 1; i <= 4; i++) {
+            submit(scheduler, "a" + i, createExecution(null, "a"));
+        }
+        submit(scheduler, "b1", createExecution(null, "b"));
+        submit(scheduler, "b2", createExecution(null, "b"));
+        
+        assertThat(completeInAdmissionOrder(7)).containsExactly("running", "a1", "a2", "b1", "a3", "a4", "b2");
+    }
+    
+    @Test
+    void keepsNodesInFlightWithinTheBudget() throws Exception {
+        NodeScheduler scheduler = new NodeScheduler(executorPools, 2, "", 1, EXEMPT_NODE_TYPE);
+        ProcessExecution execution = createExecution(null, null);
+        for (int i = 1; i <= 3; i++) {
+            submit(scheduler, "node" + i, execution);
+        }
+        
+        assertThat(started).hasSize(2);
+        assertThat(scheduler.getMetrics())
+                .containsEntry("inFlight", 2)
+                .containsEntry("queued", 1)
+                .containsEntry("queuedByPriority", Map.of(
+                        "HIGH", Map.of(), "NORMAL", Map.of(NodeScheduler.DEFAULT_OWNER, 1), "LOW", Map.of()));
+        
+        StartedNode first = started.take();
+        StartedNode second = started.take();
+        assertThat(List.of(first.name, second.name)).containsExactly("node1", "node2");
+        first.future.complete(null);
+        StartedNode third = started.poll(5, TimeUnit.SECONDS);
+        assertThat(third).isNotNull();
+        assertThat(third.name).isEqualTo("node3");
+        assertThat(scheduler.getMetrics())
+                .containsEntry("inFlight", 2)
+                .containsEntry("peakInFlight", 2);
+    }
+    
+    @Test
+    void dropsQueuedNodesThatWereCancelledOrStopped() throws Exception {
+        NodeScheduler scheduler = new NodeScheduler(executorPools, 1, "", 1, EXEMPT_NODE_TYPE);
+        ProcessExecution stopped = createExecution(null, null);
+        submit(scheduler, "running", createExecution(null, null));
+        CompletableFuture<Object> cancelled = submit(scheduler, "cancelled", createExecution(null, null));
+        CompletableFuture<Object> ofStopped = submit(scheduler, "stopped", stopped);
+        submit(scheduler, "last", createExecution(null, null));
+        
+        cancelled.cancel(true);
+        stopped.requestStop();
+        
+        assertThat(completeInAdmissionOrder(2)).containsExactly("running", "last");
+        assertThat(ofStopped.isCancelled()).isTrue();
+        assertThat(scheduler.getMetrics()).containsEntry("cancelledWhileQueued", 2L);
+    }
+    
+    @Test
+    void startsExemptNodesOutsideTheBudget() {
+        NodeScheduler scheduler = new NodeScheduler(executorPools, 1, "", 1, EXEMPT_NODE_TYPE);
+        ProcessExecution execution = createExecution(null, null);
+        submit(scheduler, "running", execution);
+        submit(scheduler, "queued", execution);
+        
+        scheduler.submit(execution, createNode(EXEMPT_NODE_TYPE), () -> CompletableFuture.completedFuture("exempt"));
+        
+        assertThat(scheduler.getMetrics())
+                .containsEntry("exemptNodes", 1L)
+                .containsEntry("inFlight", 1)
+                .containsEntry("queued", 1);
+    }
+    
+    @Test
+    void parsesOwnerWeights() {
+        assertThat(NodeScheduler.parseWeights("")).isEmpty();
+        assertThat(NodeScheduler.parseWeights(" a = 2, b=1 ,")).isEqualTo(Map.of("a", 2, "b", 1));
+        assertThatThrownBy(() -> NodeScheduler.parseWeights("a")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> NodeScheduler.parseWeights("=2")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> NodeScheduler.parseWeights("a=x")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> NodeScheduler.parseWeights("a=0")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new NodeScheduler(executorPools, 1, "", 0, ""))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    /**
+     * Submit a node that stays running until the test completes it
+     * @param scheduler the scheduler
+     * @param name the name the node is reported under when it starts
+     * @param execution the execution the node runs in
+     * @return the scheduler's future of the node
+     */
+    private CompletableFuture<Object> submit(NodeScheduler scheduler, String name, ProcessExecution execution) {
+        return scheduler.submit(execution, createNode(NODE_TYPE), () -> {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            started.add(new StartedNode(name, future));
+            return future;
+        });
+    }
+    
+    /**
+     * Complete nodes one at a time as they start, so each completion admits the next
+     * @param count the number of nodes to complete
+     * @return the names of the nodes in the order they started
+     */
+    private List<String> completeInAdmissionOrder(int count) throws InterruptedException {
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StartedNode node = started.poll(5, TimeUnit.SECONDS);
+            assertThat(node).as("node %d of %d started", i + 1, count).isNotNull();
+            order.add(node.name);
+            node.future.complete(node.name);
+        }
+        return order;
+    }
+    
+    private static ProcessExecution createExecution(ProcessDefinition.Priority priority, String owner) {
+        ProcessDefinition processDefinition = ProcessDefinition.builder()
+                .id(1L)
+                .name("scheduled")
+                .priority(priority)
+                .owner(owner)
+                .nodes(new ArrayList<>(List.of(createNode(NODE_TYPE))))
+                .rootNodeIds(new ArrayList<>(List.of("node")))
+                .nodeMap(new HashMap<>())
+                .build();
+        processDefinition.buildNodeMap();
+        return new ProcessExecution(1, processDefinition);
+    }
+    
+    private static ProcessNode createNode(String type) {
+        return ProcessNode.builder()
+                .nodeId("node")
+                .name("node")
+                .type(type)
+                .properties(new HashMap<>())
+                .childNodeIds(new ArrayList<>())
+                .status(ProcessNode.ProcessNodeStatus.PENDING)
+                .build();
+    }
+    
+    private static class StartedNode {
+        final String name;
+        final CompletableFuture<Object> future;
+        
+        StartedNode(String name, CompletableFuture<Object> future) {
+            this.name = name;
+            this.future = future;
+        }
+    }
+}
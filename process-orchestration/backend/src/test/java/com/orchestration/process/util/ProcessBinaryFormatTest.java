@@ -0,0 +1,252 @@
+package com.orchestration.process.util;
+
+import com.orchestration.process.core.ExecutionStateListener;
+import com.orchestration.process.core.ProcessExecution;
+import com.orchestration.process.model.ProcessDefinition;
+import com.orchestration.process.model.ProcessNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProcessBinaryFormatTest {
+    
+    @Test
+    void definitionRoundTrips() throws IOException {
+        ProcessDefinition processDefinition = buildProcess();
+        
+        ProcessDefinition decoded = ProcessBinaryFormat.readDefinition(new ByteArrayInputStream(writeDefinition(processDefinition)));
+        
+        assertThat(decoded).isEqualTo(processDefinition);
+        assertThat(decoded.getNodeById("sum")).isEqualTo(processDefinition.getNodeById("sum"));
+        assertThat(decoded.getNodeOrdinal("sum")).isEqualTo(1);
+    }
+    
+    @Test
+    void definitionWithoutOptionalValuesRoundTrips() throws IOException {
+        ProcessNode node = new ProcessNode();
+        node.setNodeId("only");
+        node.setProperties(null);
+        node.setChildNodeIds(null);
+        ProcessDefinition processDefinition = new ProcessDefinition();
+        processDefinition.setNodes(new ArrayList<>(List.of(node)));
+        processDefinition.setRootNodeIds(null);
+        processDefinition.buildNodeMap();
+        
+        ProcessDefinition decoded = ProcessBinaryFormat.readDefinition(new ByteArrayInputStream(writeDefinition(processDefinition)));
+        
+        assertThat(decoded).isEqualTo(processDefinition);
+        assertThat(decoded.getId()).isNull();
+        assertThat(decoded.getPriority()).isNull();
+        assertThat(decoded.getNodes().get(0).getProperties()).isNull();
+    }
+    
+    @Test
+    void definitionListRoundTrips() throws IOException {
+        ProcessDefinition first = buildProcess();
+        ProcessDefinition second = buildProcess();
+        second.setId(2L);
+        second.setName("second");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        
+        ProcessBinaryFormat.writeDefinitions(List.of(first, second), output);
+        
+        assertThat(ProcessBinaryFormat.readDefinitions(new ByteArrayInputStream(output.toByteArray())))
+                .containsExactly(first, second);
+    }
+    
+    @Test
+    void executionSnapshotHoldsTheJsonFields() throws IOException {
+        ProcessDefinition processDefinition = buildProcess();
+        Instant startTime = Instant.ofEpochSecond(1_700_000_000L, 123_456_789);
+        ProcessExecution execution = new ProcessExecution(-5, processDefinition, startTime, ExecutionStateListener.NONE);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", 3);
+        result.put("items", List.of(1.5, "two", false));
+        result.put("missing", null);
+        execution.completeNode(0, result);
+        execution.completeNode(1, 1L << 40);
+        execution.completeNode(2, new int[]{1, 2});
+        execution.completeNode(3, Instant.EPOCH);
+        execution.nodeRetrying(4, null);
+        execution.setNodeStatus(4, ProcessNode.ProcessNodeStatus.FAILED);
+        execution.finish();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        
+        ProcessBinaryFormat.writeExecution(execution, output);
+        Map<String, Object> decoded = ProcessBinaryFormat.readExecution(new ByteArrayInputStream(output.toByteArray()));
+        
+        assertThat(decoded)
+                .containsEntry("executionId", -5L)
+                .containsEntry("processId", 1L)
+                .containsEntry("processName", "binary")
+                .containsEntry("parentExecutionId", null)
+                .containsEntry("status", ProcessExecution.Status.FAILED)
+                .containsEntry("error", "Node failed: äöü")
+                .containsEntry("startTime", startTime)
+                .containsEntry("endTime", execution.getEndTime())
+                .containsEntry("resumed", false);
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> nodes = (List<Map<String, Object>>) decoded.get("nodes");
+        assertThat(nodes).extracting(node -> node.get("nodeId")).containsExactly("input", "sum", "list", "time", "äöü");
+        assertThat(nodes.get(0))
+                .containsEntry("type", "math.addition")
+                .containsEntry("status", ProcessNode.ProcessNodeStatus.COMPLETED)
+                .containsEntry("result", result);
+        assertThat(nodes.get(1).get("result")).isEqualTo(1L << 40);
+        assertThat(nodes.get(2).get("result")).isEqualTo(List.of(1, 2));
+        assertThat(nodes.get(3).get("result")).isEqualTo(Instant.EPOCH.toString());
+        assertThat(nodes.get(4))
+                .containsEntry("status", ProcessNode.ProcessNodeStatus.FAILED)
+                .containsEntry("retries", 1)
+                .containsEntry("result", null);
+    }
+    
+    @Test
+    void executionListRoundTrips() throws IOException {
+        ProcessDefinition processDefinition = buildProcess();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        
+        ProcessBinaryFormat.writeExecutions(List.of(new ProcessExecution(1, processDefinition),
+                new ProcessExecution(2, processDefinition)), output);
+        
+        assertThat(ProcessBinaryFormat.readExecutions(new ByteArrayInputStream(output.toByteArray())))
+                .extracting(execution -> execution.get("executionId"))
+                .containsExactly(1L, 2L);
+    }
+    
+    @Test
+    void rejectsMessagesOfAnotherFormatVersionOrKind() throws IOException {
+        byte[] message = writeDefinition(buildProcess());
+        
+        assertRejected(new byte[0], "Not a process binary message");
+        assertRejected("PO".getBytes(), "Not a process binary message");
+        assertRejected("{\"id\":1}".getBytes(), "Not a process binary message");
+        byte[] otherVersion = message.clone();
+        otherVersion[3] = 2;
+        assertRejected(otherVersion, "Unsupported process binary version: 2");
+        assertThatThrownBy(() -> ProcessBinaryFormat.readExecution(new ByteArrayInputStream(message)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Process binary message holds content of kind 1, expected 3");
+    }
+    
+    @Test
+    void rejectsTruncatedMessagesAndTrailingBytes() throws IOException {
+        byte[] message = writeDefinition(buildProcess());
+        
+        for (int length = 0; length < message.length; length++) {
+            byte[] truncated = Arrays.copyOf(message, length);
+            assertThatThrownBy(() -> ProcessBinaryFormat.readDefinition(new ByteArrayInputStream(truncated)))
+                    .as("message truncated to %d of %d bytes", length, message.length)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertRejected(Arrays.copyOf(message, message.length + 1),
+                "Unexpected 1 bytes after the end of the process binary message");
+    }
+    
+    @Test
+    void rejectsValuesOutOfRange() {
+        // A string table of one string, then a definition whose name refers to string 2^31
+        byte[] stringIndex = {'P', 'O', 'B', 1, 1, 1, 1, 'x', 0, (byte) 0x81, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08};
+        assertRejected(stringIndex, "Varint out of range: 2147483649");
+        
+        byte[] longVarint = {'P', 'O', 'B', 1, 1, 0, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01};
+        assertRejected(longVarint, "Malformed varint");
+    }
+    
+    @Test
+    void rejectsCorruptedMessagesWithIllegalArgumentException() throws IOException {
+        byte[] definition = writeDefinition(buildProcess());
+        ProcessExecution execution = new ProcessExecution(1, buildProcess());
+        execution.completeNode(0, Map.of("values", List.of(1, 2.5, "three")));
+        execution.finish();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ProcessBinaryFormat.writeExecution(execution, output);
+        byte[] snapshot = output.toByteArray();
+        
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            byte[] corrupted = (i % 2 == 0 ? definition : snapshot).clone();
+            for (int flips = 1 + random.nextInt(3); flips > 0; flips--) {
+                corrupted[random.nextInt(corrupted.length)] = (byte) random.nextInt(256);
+            }
+            try {
+                if (i % 2 == 0) {
+                    ProcessBinaryFormat.readDefinition(new ByteArrayInputStream(corrupted));
+                } else {
+                    ProcessBinaryFormat.readExecution(new ByteArrayInputStream(corrupted));
+                }
+            } catch (IllegalArgumentException e) {
+                // Rejected as expected; anything else fails the test
+            }
+        }
+    }
+    
+    private static void assertRejected(byte[] message, String error) {
+        assertThatThrownBy(() -> ProcessBinaryFormat.readDefinition(new ByteArrayInputStream(message)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(error);
+    }
+    
+    private static byte[] writeDefinition(ProcessDefinition processDefinition) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ProcessBinaryFormat.writeDefinition(processDefinition, output);
+        return output.toByteArray();
+    }
+    
+    private static ProcessDefinition buildProcess() {
+        Map<String, String> sumProperties = new HashMap<>();
+        sumProperties.put("input.a", "input");
+        sumProperties.put("input.b", "input");
+        sumProperties.put("note", "");
+        List<ProcessNode> nodes = new ArrayList<>(List.of(
+                createNode(10L, "input", "math.addition", 0, new HashMap<>(), "sum"),
+                createNode(11L, "sum", "math.multiplication", 1, sumProperties, "list", "time"),
+                createNode(12L, "list", "script", 2, new HashMap<>()),
+                createNode(13L, "time", "script", 2, new HashMap<>()),
+                createNode(null, "äöü", "http", null, new HashMap<>(Map.of("url", "http://localhost/ünïcode")))));
+        
+        ProcessDefinition processDefinition = ProcessDefinition.builder()
+                .id(1L)
+                .name("binary")
+                .description("Round-trips through the binary format")
+                .executionStrategy("dag")
+                .timeoutMs(60_000L)
+                .priority(ProcessDefinition.Priority.HIGH)
+                .owner("team-a")
+                .version(7)
+                .nodes(nodes)
+                .rootNodeIds(new ArrayList<>(List.of("input", "äöü")))
+                .nodeMap(new HashMap<>())
+                .build();
+        processDefinition.buildNodeMap();
+        return processDefinition;
+    }
+    
+    private static ProcessNode createNode(Long id, String nodeId, String type, Integer level,
+                                          Map<String, String> properties, String... childNodeIds) {
+        return ProcessNode.builder()
+                .id(id)
+                .nodeId(nodeId)
+                .name("Node " + nodeId)
+                .type(type)
+                .level(level)
+                .properties(properties)
+                .childNodeIds(new ArrayList<>(Arrays.asList(childNodeIds)))
+                .status(ProcessNode.ProcessNodeStatus.PENDING)
+                .build();
+    }
+}